@@ -0,0 +1,136 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import org.dspace.content.DSpaceObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of the authorization decisions made for the current user of a {@link org.dspace.core.Context}.
+ * Listing pages check the same policies, group memberships and admin chains over and over again, this
+ * cache makes sure each of them is resolved from the database only once per context.
+ * <P>
+ * It holds:
+ * <ul>
+ * <li>the ids of all groups the current user is a member of, once they have been resolved completely</li>
+ * <li>the membership of the current user in individual groups</li>
+ * <li>the result of (object, action) authorization checks</li>
+ * <li>the result of admin checks on objects, including the inherited admin rights of their parents</li>
+ * </ul>
+ * Only ids and booleans are stored, so the cache survives clearing the Hibernate session. The context
+ * clears it when the current user or the special groups change; the services clear it whenever a policy
+ * or a group membership is modified. Checks made while authorization is turned off are never cached.
+ * <P>
+ * The decisions are bounded to {@link #MAX_DECISIONS} entries per kind, after which they are dropped, so
+ * long running contexts walking the whole repository don't hold on to an ever growing cache.
+ */
+public class AuthorizationCache
+{
+    /** Maximum number of authorization, admin or group membership decisions held at the same time */
+    public static final int MAX_DECISIONS = 10000;
+
+    private Set<Integer> memberGroupIDs = null;
+
+    private final Map<Integer, Boolean> groupMemberships = new HashMap<Integer, Boolean>();
+
+    private final Map<String, Boolean> authorizations = new HashMap<String, Boolean>();
+
+    private final Map<String, Boolean> adminRights = new HashMap<String, Boolean>();
+
+    /**
+     * @return a copy of the ids of all groups the current user is a member of, or <code>null</code> if they
+     *         have not been resolved yet
+     */
+    public Set<Integer> getMemberGroupIDs()
+    {
+        return memberGroupIDs == null ? null : new HashSet<Integer>(memberGroupIDs);
+    }
+
+    public void cacheMemberGroupIDs(Set<Integer> groupIDs)
+    {
+        memberGroupIDs = new HashSet<Integer>(groupIDs);
+    }
+
+    /**
+     * @return whether the current user is a member of the group, or <code>null</code> if unknown
+     */
+    public Boolean getGroupMembership(int groupID)
+    {
+        if (memberGroupIDs != null)
+        {
+            return memberGroupIDs.contains(groupID);
+        }
+        return groupMemberships.get(groupID);
+    }
+
+    public void cacheGroupMembership(int groupID, boolean member)
+    {
+        if (groupMemberships.size() >= MAX_DECISIONS)
+        {
+            groupMemberships.clear();
+        }
+        groupMemberships.put(groupID, member);
+    }
+
+    /**
+     * @return the result of checking the action on the object, or <code>null</code> if unknown
+     */
+    public Boolean getAuthorization(DSpaceObject dso, int action, boolean useInheritance)
+    {
+        return authorizations.get(getKey(dso) + ":" + action + ":" + useInheritance);
+    }
+
+    public void cacheAuthorization(DSpaceObject dso, int action, boolean useInheritance, boolean authorized)
+    {
+        if (authorizations.size() >= MAX_DECISIONS)
+        {
+            authorizations.clear();
+        }
+        authorizations.put(getKey(dso) + ":" + action + ":" + useInheritance, authorized);
+    }
+
+    /**
+     * @return whether the current user is an administrator of the object, or <code>null</code> if unknown
+     */
+    public Boolean getAdmin(DSpaceObject dso)
+    {
+        return adminRights.get(getKey(dso));
+    }
+
+    public void cacheAdmin(DSpaceObject dso, boolean admin)
+    {
+        if (adminRights.size() >= MAX_DECISIONS)
+        {
+            adminRights.clear();
+        }
+        adminRights.put(getKey(dso), admin);
+    }
+
+    /**
+     * Forget everything, to be called when policies or group memberships change
+     */
+    public void clear()
+    {
+        memberGroupIDs = null;
+        groupMemberships.clear();
+        authorizations.clear();
+        adminRights.clear();
+    }
+
+    /**
+     * @return a key identifying the object, unique across object types
+     */
+    public static String getKey(DSpaceObject dso)
+    {
+        return dso.getType() + ":" + dso.getID();
+    }
+}
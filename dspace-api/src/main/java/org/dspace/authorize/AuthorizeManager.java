@@ -243,6 +243,216 @@ public class AuthorizeManager
         return isAuthorized;
     }
 
+    /**
+     * Filter a list of objects down to those the current user can perform the
+     * given action on. This gives the same results as calling
+     * <code>authorizeActionBoolean</code> for every object, but the policies of
+     * all objects are fetched at once and the admin rights inherited from each
+     * distinct parent are only resolved once.
+     *
+     * @param c
+     *         DSpace context, containing current user
+     * @param objects
+     *         the objects to check
+     * @param action
+     *         action being attempted, from
+     *         <code>org.dspace.core.Constants</code>
+     * @return the objects the current user is authorized for, in their
+     *         original order
+     */
+    public static <T extends DSpaceObject> List<T> filterAuthorized(Context c, List<T> objects, int action)
+            throws SQLException
+    {
+        return filterAuthorized(c, objects, action, true);
+    }
+
+    /**
+     * Filter a list of objects down to those the current user can perform the
+     * given action on, see <code>filterAuthorized(Context, List, int)</code>.
+     *
+     * @param c
+     *         DSpace context, containing current user
+     * @param objects
+     *         the objects to check
+     * @param action
+     *         action being attempted, from
+     *         <code>org.dspace.core.Constants</code>
+     * @param useInheritance
+     *         flag to say if ADMIN action on the current object or parent
+     *         object can be used
+     * @return the objects the current user is authorized for, in their
+     *         original order
+     */
+    public static <T extends DSpaceObject> List<T> filterAuthorized(Context c, List<T> objects, int action,
+                                                                    boolean useInheritance) throws SQLException
+    {
+        List<T> authorized = new ArrayList<T>();
+        if (c.ignoreAuthorization())
+        {
+            for (T o : objects)
+            {
+                if (o != null)
+                {
+                    authorized.add(o);
+                }
+            }
+            return authorized;
+        }
+
+        // decisions already made in this context
+        AuthorizationCache cache = c.getAuthorizationCache();
+        Map<String, Boolean> decisions = new HashMap<String, Boolean>();
+        Map<String, T> unresolved = new LinkedHashMap<String, T>();
+        for (T o : objects)
+        {
+            if (o == null)
+            {
+                continue;
+            }
+            String key = AuthorizationCache.getKey(o);
+            Boolean decision = cache.getAuthorization(o, action, useInheritance);
+            if (decision != null)
+            {
+                decisions.put(key, decision);
+            }
+            else
+            {
+                unresolved.put(key, o);
+            }
+        }
+
+        if (!unresolved.isEmpty())
+        {
+            EPerson e = c.getCurrentUser();
+            int userid = (e == null) ? 0 : e.getID();
+
+            // resolve all group memberships of the user at once, every
+            // policy is matched against them
+            GROUP_SERVICE.allMemberGroupIDs(c, e);
+
+            // the admin rights, the admin chain of every distinct admin
+            // object is resolved once for all objects sharing it
+            Map<String, DSpaceObject> adminObjects = new HashMap<String, DSpaceObject>();
+            if (e != null && useInheritance)
+            {
+                for (Map.Entry<String, T> entry : unresolved.entrySet())
+                {
+                    T o = entry.getValue();
+                    adminObjects.put(entry.getKey(), SERVICE_FACTORY.getDSpaceObjectService(o).getAdminObject(c, o, action));
+                }
+                resolveAdminRights(c, adminObjects.values());
+            }
+
+            Map<String, List<ResourcePolicy>> policies = getPoliciesActionFilter(c, unresolved.values(), action);
+            for (Map.Entry<String, T> entry : unresolved.entrySet())
+            {
+                boolean granted = (e != null) && isAdmin(c, adminObjects.get(entry.getKey()));
+                List<ResourcePolicy> objectPolicies = policies.get(entry.getKey());
+                if (!granted && objectPolicies != null)
+                {
+                    for (ResourcePolicy rp : objectPolicies)
+                    {
+                        if (isPolicyGranted(c, rp, userid))
+                        {
+                            granted = true;
+                            break;
+                        }
+                    }
+                }
+                decisions.put(entry.getKey(), granted);
+                cache.cacheAuthorization(entry.getValue(), action, useInheritance, granted);
+            }
+        }
+
+        for (T o : objects)
+        {
+            if (o != null && decisions.get(AuthorizationCache.getKey(o)))
+            {
+                authorized.add(o);
+            }
+        }
+        return authorized;
+    }
+
+    /**
+     * Resolve the admin rights of the current user on a set of objects into
+     * the authorization cache of the context, one level of the hierarchy at a
+     * time: the ADMIN policies of all objects of a level are fetched at once,
+     * the objects that don't have any for the user inherit the rights of
+     * their parents, which form the next level.
+     *
+     * @param c
+     *         current context
+     * @param objects
+     *         the objects, may contain <code>null</code> and duplicates
+     */
+    private static void resolveAdminRights(Context c, java.util.Collection<? extends DSpaceObject> objects)
+            throws SQLException
+    {
+        // system admins are admin of everything, no need to look any further
+        if (isAdmin(c))
+        {
+            return;
+        }
+
+        AuthorizationCache cache = c.getAuthorizationCache();
+        Map<String, DSpaceObject> unresolved = new LinkedHashMap<String, DSpaceObject>();
+        for (DSpaceObject o : objects)
+        {
+            if (o != null && cache.getAdmin(o) == null)
+            {
+                unresolved.put(AuthorizationCache.getKey(o), o);
+            }
+        }
+        if (unresolved.isEmpty())
+        {
+            return;
+        }
+
+        EPerson e = c.getCurrentUser();
+        int userid = (e == null) ? 0 : e.getID();
+
+        Map<String, List<ResourcePolicy>> policies = getPoliciesActionFilter(c, unresolved.values(), Constants.ADMIN);
+        Map<DSpaceObject, DSpaceObject> parents = new LinkedHashMap<DSpaceObject, DSpaceObject>();
+        for (Map.Entry<String, DSpaceObject> entry : unresolved.entrySet())
+        {
+            DSpaceObject o = entry.getValue();
+            boolean admin = false;
+            List<ResourcePolicy> objectPolicies = policies.get(entry.getKey());
+            if (objectPolicies != null)
+            {
+                for (ResourcePolicy rp : objectPolicies)
+                {
+                    if (isPolicyGranted(c, rp, userid))
+                    {
+                        admin = true;
+                        break;
+                    }
+                }
+            }
+
+            DSpaceObject parent = admin ? null : SERVICE_FACTORY.getDSpaceObjectService(o).getParentObject(o);
+            if (parent == null)
+            {
+                cache.cacheAdmin(o, admin);
+            }
+            else
+            {
+                parents.put(o, parent);
+            }
+        }
+
+        // the next level up, each parent once however many children it has
+        if (!parents.isEmpty())
+        {
+            resolveAdminRights(c, parents.values());
+            for (Map.Entry<DSpaceObject, DSpaceObject> entry : parents.entrySet())
+            {
+                cache.cacheAdmin(entry.getKey(), isAdmin(c, entry.getValue()));
+            }
+        }
+    }
+
     /**
      * Check to see if the given user can perform the given action on the given
      * object. Always returns true if the ignore authorization flat is set in
@@ -280,6 +490,25 @@ public class AuthorizeManager
             return true;
         }
 
+        // the same checks come back over and over again while rendering
+        // a page, only resolve them once per context
+        AuthorizationCache cache = c.getAuthorizationCache();
+        Boolean authorized = cache.getAuthorization(o, action, useInheritance);
+        if (authorized == null)
+        {
+            authorized = isAuthorized(c, o, action, e, useInheritance);
+            cache.cacheAuthorization(o, action, useInheritance, authorized);
+        }
+        return authorized;
+    }
+
+    /**
+     * Resolve an authorization check from the admin rights and the policies
+     * of the object, see <code>authorize</code>
+     */
+    private static boolean isAuthorized(Context c, DSpaceObject o, int action,
+                                        EPerson e, boolean useInheritance) throws SQLException
+    {
         // is eperson set? if not, userid = 0 (anonymous)
         int userid = 0;
         if (e != null)
@@ -298,21 +527,9 @@ public class AuthorizeManager
 
         for (ResourcePolicy rp : getPoliciesActionFilter(c, o, action))
         {
-            // check policies for date validity
-            if (RESOURCE_POLICY_SERVICE.isDateValid(rp))
+            if (isPolicyGranted(c, rp, userid))
             {
-                if (rp.getEPerson() != null && rp.getEPerson().getID() == userid)
-                {
-                    return true; // match
-                }
-
-                if ((rp.getGroup() != null)
-                        && (GROUP_SERVICE.isMember(c, rp.getGroup())))
-                {
-                    // group was set, and eperson is a member
-                    // of that group
-                    return true;
-                }
+                return true;
             }
         }
 
@@ -320,6 +537,39 @@ public class AuthorizeManager
         return false;
     }
 
+    /**
+     * Check whether a policy applies to the current user: it has to be
+     * valid today and either name the user or a group the user is a member of.
+     *
+     * @param c
+     *         current context
+     * @param rp
+     *         the policy
+     * @param userid
+     *         id of the current user, 0 for anonymous
+     * @return <code>true</code> if the policy grants its action to the user
+     */
+    private static boolean isPolicyGranted(Context c, ResourcePolicy rp, int userid) throws SQLException
+    {
+        // check policies for date validity
+        if (RESOURCE_POLICY_SERVICE.isDateValid(rp))
+        {
+            if (rp.getEPerson() != null && rp.getEPerson().getID() == userid)
+            {
+                return true; // match
+            }
+
+            if ((rp.getGroup() != null)
+                    && (GROUP_SERVICE.isMember(c, rp.getGroup())))
+            {
+                // group was set, and eperson is a member
+                // of that group
+                return true;
+            }
+        }
+        return false;
+    }
+
     ///////////////////////////////////////////////
     // admin check methods
     ///////////////////////////////////////////////
@@ -352,6 +602,23 @@ public class AuthorizeManager
             return false;
         }
 
+        // the parents are shared by many objects, so are their admin checks
+        AuthorizationCache cache = c.getAuthorizationCache();
+        Boolean admin = cache.getAdmin(o);
+        if (admin == null)
+        {
+            admin = isObjectAdmin(c, o);
+            cache.cacheAdmin(o, admin);
+        }
+        return admin;
+    }
+
+    /**
+     * Resolve the admin rights of the current user on an object from its
+     * policies and those of its parents, see <code>isAdmin</code>
+     */
+    private static boolean isObjectAdmin(Context c, DSpaceObject o) throws SQLException
+    {
         // is eperson set? if not, userid = 0 (anonymous)
         int userid = 0;
         EPerson e = c.getCurrentUser();
@@ -367,21 +634,9 @@ public class AuthorizeManager
 
         for (ResourcePolicy rp : policies)
         {
-            // check policies for date validity
-            if (RESOURCE_POLICY_SERVICE.isDateValid(rp))
+            if (isPolicyGranted(c, rp, userid))
             {
-                if (rp.getEPerson() != null && rp.getEPerson().getID() == userid)
-                {
-                    return true; // match
-                }
-
-                if ((rp.getGroup() != null)
-                        && (GROUP_SERVICE.isMember(c, rp.getGroup())))
-                {
-                    // group was set, and eperson is a member
-                    // of that group
-                    return true;
-                }
+                return true;
             }
         }
 
@@ -602,6 +857,43 @@ public class AuthorizeManager
         return RESOURCE_POLICY_SERVICE.find(c, o, actionID);
     }
 
+    /**
+     * Return the policies for a set of objects that match the action, fetched
+     * with as few queries as possible
+     *
+     * @param c
+     *         context
+     * @param objects
+     *         DSpaceObjects policies relate to
+     * @param actionID
+     *         action (defined in class Constants)
+     * @return the policies keyed by <code>AuthorizationCache.getKey</code> of
+     *         their object, objects without policies are left out
+     * @throws SQLException
+     *         if there's a database problem
+     */
+    public static Map<String, List<ResourcePolicy>> getPoliciesActionFilter(Context c, java.util.Collection<? extends DSpaceObject> objects,
+                                                                            int actionID) throws SQLException
+    {
+        Map<String, List<ResourcePolicy>> result = new HashMap<String, List<ResourcePolicy>>();
+        if (objects.isEmpty())
+        {
+            return result;
+        }
+        for (ResourcePolicy rp : RESOURCE_POLICY_SERVICE.find(c, objects, actionID))
+        {
+            String key = rp.getResourceType() + ":" + rp.getResourceID();
+            List<ResourcePolicy> policies = result.get(key);
+            if (policies == null)
+            {
+                policies = new ArrayList<ResourcePolicy>();
+                result.put(key, policies);
+            }
+            policies.add(rp);
+        }
+        return result;
+    }
+
     /**
      * Add policies to an object to match those from a previous object
      *
@@ -100,6 +100,15 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService
         return resourcePolicyDAO.findByDSoAndAction(c, o, actionId);
     }
 
+    /**
+     * Find the policies for the given action on any of the given objects,
+     * using as few queries as possible
+     */
+    public List<ResourcePolicy> find(Context c, java.util.Collection<? extends DSpaceObject> dsos, int actionId) throws SQLException
+    {
+        return resourcePolicyDAO.findByDsosAndAction(c, dsos, actionId);
+    }
+
     public List<ResourcePolicy> find(Context c, int dsoType, int dsoID, Group group, int action, int notPolicyID) throws SQLException {
         return resourcePolicyDAO.findByTypeIdGroupAction(c, dsoType, dsoID, group, action, notPolicyID);
     }
@@ -122,6 +131,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService
         // FIXME: authorizations
         // Remove ourself
         resourcePolicyDAO.delete(context, resourcePolicy);
+        context.clearAuthorizationCache();
     }
 
     /**
@@ -192,26 +202,31 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService
         // FIXME: authorization check?
         serviceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
         resourcePolicyDAO.deleteByDso(c, o);
+        c.clearAuthorizationCache();
     }
 
     public void removePolicies(Context c, DSpaceObject o, String type) throws SQLException, AuthorizeException {
         serviceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
         resourcePolicyDAO.deleteByDsoAndType(c, o, type);
+        c.clearAuthorizationCache();
     }
 
     public void removeDsoGroupPolicies(Context context, DSpaceObject dso, Group group) throws SQLException, AuthorizeException {
         serviceFactory.getDSpaceObjectService(dso).updateLastModified(context, dso);
         resourcePolicyDAO.deleteByDsoGroupPolicies(context, dso, group);
+        context.clearAuthorizationCache();
     }
 
     public void removeDsoEPersonPolicies(Context context, DSpaceObject dso, EPerson ePerson) throws SQLException, AuthorizeException {
         serviceFactory.getDSpaceObjectService(dso).updateLastModified(context, dso);
         resourcePolicyDAO.deleteByDsoEPersonPolicies(context, dso, ePerson);
+        context.clearAuthorizationCache();
 
     }
 
     public void removeGroupPolicies(Context c, Group group) throws SQLException {
         resourcePolicyDAO.deleteByGroup(c, group);
+        c.clearAuthorizationCache();
     }
 
     public void removePolicies(Context c, DSpaceObject o, int actionId) throws SQLException, AuthorizeException {
@@ -221,12 +236,14 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService
         }else{
             serviceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
             resourcePolicyDAO.deleteByDsoAndAction(c, o, actionId);
+            c.clearAuthorizationCache();
         }
     }
 
     public void removeDsoAndTypeNotEqualsToPolicies(Context c, DSpaceObject o, String type) throws SQLException, AuthorizeException {
         serviceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
         resourcePolicyDAO.deleteByDSOAndTypeNotEqualsTo(c, o, type);
+        c.clearAuthorizationCache();
     }
 
 
@@ -245,5 +262,6 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService
 
         // FIXME: Check authorisation
         resourcePolicyDAO.save(context, resourcePolicy);
+        context.clearAuthorizationCache();
     }
 }
\ No newline at end of file
@@ -26,6 +26,12 @@ public interface ResourcePolicyDAO extends GenericDAO<ResourcePolicy>{
 
     public List<ResourcePolicy> findByDSoAndAction(Context context, DSpaceObject dso, int actionId) throws SQLException;
 
+    /**
+     * Find the policies for an action on a set of objects, with one query per object type
+     * (and per 1000 objects of that type)
+     */
+    public List<ResourcePolicy> findByDsosAndAction(Context context, java.util.Collection<? extends DSpaceObject> dsos, int actionId) throws SQLException;
+
     public List<ResourcePolicy> findByTypeIdGroupAction(Context context, int dsoType, int dsoID, Group group, int action, int notPolicyID) throws SQLException;
 
     public void deleteByDso(Context context, DSpaceObject dso) throws SQLException;
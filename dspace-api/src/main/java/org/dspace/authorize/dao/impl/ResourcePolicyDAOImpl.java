@@ -12,8 +12,12 @@ import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -22,6 +26,8 @@ import java.util.List;
  */
 public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy> implements ResourcePolicyDAO
 {
+    /** Maximum number of ids in a single IN clause, Oracle doesn't accept more than 1000 */
+    protected static final int MAX_IN_CLAUSE_SIZE = 1000;
 
     public List<ResourcePolicy> findByDso(Context context, DSpaceObject dso) throws SQLException {
         Criteria criteria = createCriteria(context, ResourcePolicy.class);
@@ -60,6 +66,38 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         return list(criteria);
     }
 
+    public List<ResourcePolicy> findByDsosAndAction(Context context, Collection<? extends DSpaceObject> dsos, int actionId) throws SQLException
+    {
+        Map<Integer, List<Integer>> idsByType = new LinkedHashMap<Integer, List<Integer>>();
+        for (DSpaceObject dso : dsos)
+        {
+            List<Integer> ids = idsByType.get(dso.getType());
+            if (ids == null)
+            {
+                ids = new ArrayList<Integer>();
+                idsByType.put(dso.getType(), ids);
+            }
+            ids.add(dso.getID());
+        }
+
+        List<ResourcePolicy> result = new ArrayList<ResourcePolicy>();
+        for (Map.Entry<Integer, List<Integer>> entry : idsByType.entrySet())
+        {
+            List<Integer> ids = entry.getValue();
+            for (int start = 0; start < ids.size(); start += MAX_IN_CLAUSE_SIZE)
+            {
+                Criteria criteria = createCriteria(context, ResourcePolicy.class);
+                criteria.add(Restrictions.and(
+                        Restrictions.eq("resourceTypeId", entry.getKey()),
+                        Restrictions.in("resourceId", ids.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, ids.size()))),
+                        Restrictions.eq("actionId", actionId)
+                ));
+                result.addAll(list(criteria));
+            }
+        }
+        return result;
+    }
+
     public List<ResourcePolicy> findByTypeIdGroupAction(Context context, int dsoType, int dsoID, Group group, int action, int notPolicyID) throws SQLException {
         Criteria criteria = createCriteria(context, ResourcePolicy.class);
         criteria.add(Restrictions.and(
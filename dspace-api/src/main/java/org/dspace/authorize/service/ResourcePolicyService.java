@@ -24,6 +24,8 @@ public interface ResourcePolicyService extends DSpaceCRUDService<ResourcePolicy>
 
     public List<ResourcePolicy> find(Context c, DSpaceObject o, int actionId) throws SQLException;
 
+    public List<ResourcePolicy> find(Context c, java.util.Collection<? extends DSpaceObject> dsos, int actionId) throws SQLException;
+
     public List<ResourcePolicy> find(Context c, int dsoType, int dsoID, Group group, int action, int notPolicyID) throws SQLException;
 
     public void setResource(ResourcePolicy resourcePolicy, DSpaceObject o);
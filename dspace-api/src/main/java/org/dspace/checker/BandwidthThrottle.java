@@ -0,0 +1,66 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+/**
+ * Limits the rate at which the checker reads bits, shared by all its workers so
+ * an audit doesn't starve user traffic of disk bandwidth. Every read reserves
+ * its bytes, a reader waits until the bytes reserved before it have had their
+ * share of time.
+ */
+public class BandwidthThrottle
+{
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final long bytesPerSecond;
+
+    /** The time at which all bytes reserved so far may have been read */
+    private long next = System.nanoTime();
+
+    /**
+     * @param megabytesPerSecond the maximum rate, in megabytes per second
+     */
+    public BandwidthThrottle(double megabytesPerSecond)
+    {
+        if (megabytesPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("The rate of a throttle must be positive");
+        }
+        this.bytesPerSecond = Math.max(1L, (long) (megabytesPerSecond * 1024 * 1024));
+    }
+
+    /**
+     * Wait until the given number of bytes may be read
+     *
+     * @param bytes the number of bytes about to be read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(long bytes) throws InterruptedException
+    {
+        long wait;
+        synchronized (this)
+        {
+            long now = System.nanoTime();
+            if (next < now)
+            {
+                next = now;
+            }
+            wait = next - now;
+            next += bytes * NANOS_PER_SECOND / bytesPerSecond;
+        }
+        if (wait > 0)
+        {
+            Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+        }
+    }
+
+    public long getBytesPerSecond()
+    {
+        return bytesPerSecond;
+    }
+}
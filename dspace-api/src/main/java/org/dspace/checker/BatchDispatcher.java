@@ -0,0 +1,305 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import org.apache.log4j.Logger;
+import org.dspace.checker.service.MostRecentChecksumService;
+import org.dspace.content.Bitstream;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Context;
+import org.dspace.factory.DSpaceServiceFactory;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Selects bitstreams in the order that they were last checked, like the
+ * {@link SimpleDispatcher}, but claims them from the most_recent_checksum
+ * table a batch at a time instead of querying for every single bitstream.
+ * Consecutive batches continue after the last record of the previous batch
+ * (by last process end date and bitstream id), so the bitstreams which are
+ * handed out but not checked yet are never handed out twice.
+ * <P>
+ * The claimed bitstreams are handed out through a concurrent queue, so
+ * several checker workers can take work from the same dispatcher. When
+ * prefetching, the next batch is read by a background thread while the
+ * current one is being checked, so the workers don't have to wait for the
+ * database. The background thread reads with a read-only context of its own;
+ * the bitstreams it hands out should be retrieved again in the context
+ * checking them, as the {@link CheckerCommand} does.
+ * <P>
+ * A prefetching dispatcher should be closed once the checker is done.
+ */
+public class BatchDispatcher implements BitstreamDispatcher, Closeable
+{
+    private static final Logger log = Logger.getLogger(BatchDispatcher.class);
+
+    /** Default number of records claimed at once */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Context context;
+
+    /**
+     * Date this dispatcher started dispatching, only bitstreams last checked
+     * before it are handed out unless looping.
+     */
+    private final Date processStartTime;
+
+    /**
+     * Should this dispatcher keep on dispatching around the collection?
+     */
+    private final boolean loopContinuously;
+
+    private final int batchSize;
+
+    private final MostRecentChecksumService checksumService;
+
+    /** The bitstreams claimed, but not handed out yet */
+    private final BlockingQueue<Bitstream> queue = new LinkedBlockingQueue<Bitstream>();
+
+    /** Reads the batches in the background, <code>null</code> when not prefetching */
+    private final ExecutorService prefetcher;
+
+    /** The context of the background thread, only used by that thread */
+    private Context prefetchContext = null;
+
+    /** The batch being read in the background */
+    private Future<List<Bitstream>> pending = null;
+
+    private boolean exhausted = false;
+
+    /** The position after which the next batch starts, only used while claiming */
+    private Date lastEndDate = null;
+
+    private int lastBitstreamId = -1;
+
+    /**
+     * Dispatcher making a single pass over the table, configured in
+     * <code>dspace.cfg</code>. For use as the default dispatcher plugin. The
+     * pass ends at the bitstreams checked since the dispatcher was created,
+     * as checking a bitstream moves its record to the end of the table.
+     */
+    public BatchDispatcher()
+    {
+        this(null, new Date(), false,
+                ConfigurationManager.getIntProperty("checker.dispatcher.batch-size", DEFAULT_BATCH_SIZE), true);
+    }
+
+    /**
+     * @param context the context to read the records with when not prefetching
+     * @param startTime timestamp for beginning of checker process
+     * @param looping whether to loop infinitely through the most_recent_checksum table
+     * @param batchSize the number of records to claim at once
+     * @param prefetch whether to read the next batch in the background
+     */
+    public BatchDispatcher(Context context, Date startTime, boolean looping, int batchSize, boolean prefetch)
+    {
+        if (context == null && !prefetch)
+        {
+            throw new IllegalArgumentException("A dispatcher which doesn't prefetch needs a context");
+        }
+        this.context = context;
+        this.processStartTime = (startTime == null ? null : new Date(startTime.getTime()));
+        this.loopContinuously = looping;
+        this.batchSize = batchSize;
+        this.checksumService = DSpaceServiceFactory.getInstance().getMostRecentChecksumService();
+        this.prefetcher = prefetch ? Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "checker-prefetch");
+                // don't keep the JVM alive for a dispatcher which wasn't closed
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    /**
+     * Prefetching dispatcher with the batch size configured in <code>dspace.cfg</code>
+     */
+    public BatchDispatcher(Context context, Date startTime, boolean looping)
+    {
+        this(context, startTime, looping,
+                ConfigurationManager.getIntProperty("checker.dispatcher.batch-size", DEFAULT_BATCH_SIZE), true);
+    }
+
+    /**
+     * @see org.dspace.checker.BitstreamDispatcher#next()
+     */
+    public Bitstream next() throws SQLException
+    {
+        while (true)
+        {
+            Bitstream bitstream = queue.poll();
+            if (bitstream != null)
+            {
+                return bitstream;
+            }
+
+            // only one worker refills the queue, the others wait for it
+            synchronized (this)
+            {
+                if (!queue.isEmpty())
+                {
+                    continue;
+                }
+                if (exhausted)
+                {
+                    return null;
+                }
+
+                List<Bitstream> batch = takeBatch();
+                if (batch.isEmpty())
+                {
+                    exhausted = true;
+                    return null;
+                }
+                queue.addAll(batch);
+
+                if (prefetcher != null)
+                {
+                    pending = prefetcher.submit(new Prefetch());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the background thread, releasing its context. Closing a closed
+     * dispatcher does nothing.
+     */
+    public void close()
+    {
+        if (prefetcher != null && !prefetcher.isShutdown())
+        {
+            prefetcher.submit(new Runnable()
+            {
+                public void run()
+                {
+                    if (prefetchContext != null)
+                    {
+                        prefetchContext.abort();
+                        prefetchContext = null;
+                    }
+                }
+            });
+            prefetcher.shutdown();
+        }
+    }
+
+    /**
+     * @return the next batch, waiting for the one read in the background if any
+     */
+    private List<Bitstream> takeBatch() throws SQLException
+    {
+        if (prefetcher == null)
+        {
+            return claimBatch(context);
+        }
+
+        Future<List<Bitstream>> batch = pending;
+        pending = null;
+        if (batch == null)
+        {
+            batch = prefetcher.submit(new Prefetch());
+        }
+        try
+        {
+            return batch.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the next batch of bitstreams", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof SQLException)
+            {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to read the next batch of bitstreams", e.getCause());
+        }
+    }
+
+    /**
+     * Reads the next batch in the background thread
+     */
+    private class Prefetch implements Callable<List<Bitstream>>
+    {
+        public List<Bitstream> call() throws Exception
+        {
+            if (prefetchContext == null)
+            {
+                prefetchContext = new Context(Context.READ_ONLY);
+            }
+            else
+            {
+                // the previous batch has been handed out, don't keep it in the session
+                prefetchContext.getDBConnection().clear();
+            }
+            return claimBatch(prefetchContext);
+        }
+    }
+
+    /**
+     * Claim the next batch of records. When looping, the dispatcher starts
+     * over at the oldest record once it has reached the end.
+     *
+     * @param context the context to read the records with
+     * @return the bitstreams of the records, empty if there are no more
+     */
+    protected List<Bitstream> claimBatch(Context context) throws SQLException
+    {
+        Date lessThanDate = (!loopContinuously && processStartTime != null) ? processStartTime : null;
+
+        List<MostRecentChecksum> records = checksumService.findOldestRecords(context, lessThanDate,
+                lastEndDate, lastBitstreamId, batchSize);
+        if (records.isEmpty() && loopContinuously && lastEndDate != null)
+        {
+            lastEndDate = null;
+            lastBitstreamId = -1;
+            records = checksumService.findOldestRecords(context, lessThanDate, null, -1, batchSize);
+        }
+
+        List<Bitstream> batch = new ArrayList<Bitstream>(records.size());
+        if (records.isEmpty())
+        {
+            return batch;
+        }
+
+        for (MostRecentChecksum record : records)
+        {
+            batch.add(record.getBitstream());
+        }
+
+        // copy the position, checking a record changes its end date. Cloning
+        // keeps the sub-millisecond precision of a java.sql.Timestamp.
+        MostRecentChecksum last = records.get(records.size() - 1);
+        lastEndDate = (Date) last.getProcessEndDate().clone();
+        lastBitstreamId = last.getBitstream().getID();
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Claimed " + batch.size() + " bitstreams up to bitstream " + lastBitstreamId);
+        }
+        return batch;
+    }
+}
@@ -7,13 +7,23 @@
  */
 package org.dspace.checker;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
@@ -22,9 +32,11 @@ import org.dspace.checker.service.ChecksumResultService;
 import org.dspace.checker.service.MostRecentChecksumService;
 import org.dspace.content.Bitstream;
 import org.dspace.content.service.BitstreamService;
+import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Context;
-import org.dspace.core.Utils;
 import org.dspace.factory.DSpaceServiceFactory;
+import org.dspace.storage.bitstore.BitStoreContent;
+import org.dspace.storage.bitstore.MultiDigest;
 
 /**
  * <p>
@@ -32,6 +44,22 @@ import org.dspace.factory.DSpaceServiceFactory;
  * bitstream whose ID is in the most_recent_checksum table, and compares it
  * against the last calculated checksum for that bitstream.
  * </p>
+ *
+ * <p>
+ * The bitstreams can be checked by several workers in parallel, each with its
+ * own context and read buffer (<code>checker.threads</code>). The workers
+ * share a {@link BatchDispatcher}, which claims the bitstreams from the
+ * database a batch at a time and reads the next batch in the background.
+ * The rate at which the workers together read bits can be limited with
+ * <code>checker.throttle</code>, in megabytes per second, so an audit
+ * doesn't starve user traffic.
+ * </p>
+ *
+ * <p>
+ * The progress and throughput of a run are recorded in its
+ * {@link CheckerStatistics}, published over JMX while the checker runs and
+ * logged when it completes.
+ * </p>
  * 
  * @author Jim Downing
  * @author Grace Carpenter
@@ -49,8 +77,17 @@ public final class CheckerCommand
     /** Default digest algorithm (MD5). */
     private static final String DEFAULT_DIGEST_ALGORITHM = "MD5";
 
-    /** 4 Meg byte array for reading file. */
-    private int BYTE_ARRAY_SIZE = 4 * 1024;
+    /** Default size of the buffer used to read the bits: 4 Meg. */
+    public static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    /** Size of the direct buffer each worker reads the bits with. */
+    private int bufferSize = ConfigurationManager.getIntProperty("checker.buffer.size", DEFAULT_BUFFER_SIZE);
+
+    /** Number of workers checking bitstreams in parallel. */
+    private int threads = ConfigurationManager.getIntProperty("checker.threads", 1);
+
+    /** Limits the rate at which the bits are read, if any. */
+    private BandwidthThrottle throttle = null;
 
     private Context context;
 
@@ -80,6 +117,9 @@ public final class CheckerCommand
     /** Report all processing */
     private boolean reportVerbose = false;
 
+    /** Progress and throughput of this run. */
+    private final CheckerStatistics statistics = new CheckerStatistics();
+
     /**
      * Default constructor uses DSpace plugin manager to construct dependencies.
      */
@@ -90,6 +130,12 @@ public final class CheckerCommand
         bitstreamService = DSpaceServiceFactory.getInstance().getBitstreamService();
         checksumResultService = DSpaceServiceFactory.getInstance().getChecksumResultService();
         this.context = context;
+
+        int megabytesPerSecond = ConfigurationManager.getIntProperty("checker.throttle", 0);
+        if (megabytesPerSecond > 0)
+        {
+            throttle = new BandwidthThrottle(megabytesPerSecond);
+        }
     }
 
     /**
@@ -112,6 +158,14 @@ public final class CheckerCommand
             throw new IllegalStateException("No BitstreamDispatcher provided");
         }
 
+        // the other dispatchers hand the oldest record out until it is checked,
+        // so several workers would check the same bitstream
+        if (threads > 1 && !(dispatcher instanceof BatchDispatcher))
+        {
+            throw new IllegalStateException("Checking with " + threads + " workers requires a BatchDispatcher, not a "
+                    + dispatcher.getClass().getName());
+        }
+
         if (collector == null)
         {
             collector = new ResultsLogger(processStartDate);
@@ -121,32 +175,191 @@ public final class CheckerCommand
         // bitstream table - this always done.
         checksumService.updateMissingBitstreams(context);
 
+        // the bitstreams not yet checked in this run, for the estimate of a full pass
+        statistics.setExpectedCount(checksumService.countToBeProcessed(context, processStartDate));
+        statistics.register();
+        try
+        {
+            if (threads <= 1)
+            {
+                processBitstreams(context, ByteBuffer.allocateDirect(bufferSize));
+            }
+            else
+            {
+                // the workers use contexts of their own
+                context.commit();
+                processInParallel();
+            }
+        }
+        finally
+        {
+            statistics.unregister();
+            LOG.info("Checker statistics: " + statistics);
+            closeDispatcher();
+        }
+    }
+
+    /**
+     * Release the resources of the dispatcher, e.g. the background thread and
+     * context of a {@link BatchDispatcher}. A run owns its dispatcher.
+     */
+    private void closeDispatcher()
+    {
+        if (dispatcher instanceof Closeable)
+        {
+            try
+            {
+                ((Closeable) dispatcher).close();
+            }
+            catch (IOException e)
+            {
+                LOG.warn("Failed to close the bitstream dispatcher", e);
+            }
+        }
+    }
+
+    /**
+     * Check the bitstreams handed out by the dispatcher until there are no
+     * more.
+     *
+     * @param context
+     *            the context to check the bitstreams in
+     * @param buffer
+     *            the buffer to read the bits with
+     */
+    private void processBitstreams(Context context, ByteBuffer buffer) throws SQLException, AuthorizeException
+    {
         Bitstream bitstream = dispatcher.next();
 
         while (bitstream != null)
         {
             LOG.debug("Processing bitstream id = " + bitstream.getID());
-            MostRecentChecksum info = checkBitstream(bitstream);
+            MostRecentChecksum info = checkBitstream(context, bitstream, buffer);
+
+            if (info != null && (reportVerbose
+                    || !ChecksumResultCode.CHECKSUM_MATCH.equals(info.getChecksumResult().getResultCode())))
+            {
+                synchronized (collector)
+                {
+                    collector.collect(info);
+                }
+            }
 
-            if (reportVerbose
-                    || !ChecksumResultCode.CHECKSUM_MATCH.equals(info.getChecksumResult().getResultCode()))
+            if (context != this.context)
             {
-                collector.collect(info);
+                // workers commit every bitstream, so the others see the progress
+                context.commit();
             }
 
             bitstream = dispatcher.next();
         }
     }
 
+    /**
+     * Check the bitstreams with a pool of workers, each with its own context
+     * and buffer. The workers share the dispatcher, which must be thread safe.
+     */
+    private void processInParallel() throws SQLException, AuthorizeException
+    {
+        LOG.info("Checking bitstreams with " + threads + " workers");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        try
+        {
+            for (int i = 0; i < threads; i++)
+            {
+                workers.add(executor.submit(new Worker()));
+            }
+            for (Future<Void> worker : workers)
+            {
+                worker.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the checker workers", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException)
+            {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof AuthorizeException)
+            {
+                throw (AuthorizeException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Checker worker failed", cause);
+        }
+        finally
+        {
+            // stops the other workers when one of them failed
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks bitstreams in its own context, acting as the same user as the
+     * context of the checker. Every worker runs in a thread of its own and so
+     * uses a Hibernate session of its own.
+     */
+    private class Worker implements java.util.concurrent.Callable<Void>
+    {
+        public Void call() throws Exception
+        {
+            Context workerContext = new Context();
+            try
+            {
+                workerContext.setCurrentUser(context.getCurrentUser());
+                if (context.ignoreAuthorization())
+                {
+                    workerContext.turnOffAuthorisationSystem();
+                }
+                processBitstreams(workerContext, ByteBuffer.allocateDirect(bufferSize));
+                workerContext.complete();
+            }
+            finally
+            {
+                if (workerContext.isValid())
+                {
+                    workerContext.abort();
+                }
+            }
+            return null;
+        }
+    }
+
     /**
      * Check a specified bitstream.
      * 
+     * @param context
+     *            the context to check the bitstream in
      * @param bitstream
-     *            the bitstream
+     *            the bitstream, possibly read by another context
+     * @param buffer
+     *            the buffer to read the bits with
      * 
-     * @return the information about the bitstream and its checksum data
+     * @return the information about the bitstream and its checksum data, or
+     *         <code>null</code> if the bitstream no longer exists
      */
-    private MostRecentChecksum checkBitstream(final Bitstream bitstream) throws SQLException, AuthorizeException {
+    private MostRecentChecksum checkBitstream(Context context, Bitstream bitstream, ByteBuffer buffer) throws SQLException, AuthorizeException {
+        // the dispatcher may have read the bitstream in another session, e.g.
+        // the one of another worker or of its prefetching thread
+        int id = bitstream.getID();
+        bitstream = bitstreamService.find(context, id);
+        if (bitstream == null)
+        {
+            LOG.warn("Bitstream ID " + id + " was removed before it could be checked");
+            return null;
+        }
+
         // get bitstream info from bitstream table
         MostRecentChecksum info = checksumService.findByBitstream(context, bitstream);
 
@@ -159,60 +372,94 @@ public final class CheckerCommand
             // prevent id from appearing in most_recent_checksum
             // but not bitstream table, or vice versa
             info = checksumService.getNonPersistedObject();
-            processNullInfoBitstream(info);
+            processNullInfoBitstream(context, info);
         }
         else if (!info.isToBeProcessed())
         {
             // most_recent_checksum.to_be_processed is marked
             // 'false' for this bitstream id.
             // Do not do any db updates
-            info.setChecksumResult(getChecksumResultByCode(ChecksumResultCode.BITSTREAM_NOT_PROCESSED));
+            info.setChecksumResult(getChecksumResultByCode(context, ChecksumResultCode.BITSTREAM_NOT_PROCESSED));
         }
         else if (info.getBitstream().isDeleted())
         {
             // bitstream id is marked 'deleted' in bitstream table.
-            processDeletedBitstream(info);
+            processDeletedBitstream(context, info);
         }
         else
         {
-            processBitstream(info);
+            processBitstream(context, info, buffer);
+            return info;
         }
 
+        statistics.checked(info.getChecksumResult().getResultCode());
         return info;
     }
 
     /**
-     * Digest the stream and get the checksum value.
+     * Digest the bits and get the checksum value. The bits are read into a
+     * direct buffer, which is reused for every bitstream the worker checks.
      * 
-     * @param stream
-     *            InputStream to digest.
-     * @param algorithm
-     *            the algorithm to use when digesting.
-     * @todo Document the algorithm parameter
-     * @return digest
+     * @param channel
+     *            the bits to digest.
+     * @param algorithms
+     *            the algorithms to use when digesting, all computed from a
+     *            single read.
+     * @param buffer
+     *            the buffer to read the bits with.
+     * @return the digests, by algorithm
      * 
      * @throws java.security.NoSuchAlgorithmException
-     *             if the requested algorithm is not provided by the system
-     *             security provider.
+     *             if one of the requested algorithms is not provided by the
+     *             system security provider.
      * @throws java.io.IOException
      *             If an exception arises whilst reading the stream
      */
-    private String digestStream(InputStream stream, String algorithm)
+    private Map<String, String> digestChannel(ReadableByteChannel channel, Collection<String> algorithms, ByteBuffer buffer)
             throws java.security.NoSuchAlgorithmException, java.io.IOException
     {
-        // create the digest stream
-        DigestInputStream dStream = new DigestInputStream(stream, MessageDigest
-                .getInstance(algorithm));
-
-        byte[] bytes = new byte[BYTE_ARRAY_SIZE];
+        MultiDigest digest = new MultiDigest(algorithms);
+        long bytes = 0;
+        long readNanos = 0;
+        long digestNanos = 0;
 
         // make sure all the data is read by the digester
-        int bytesRead = -1;
-        do {
-            bytesRead = dStream.read(bytes, 0, BYTE_ARRAY_SIZE);
-        } while (bytesRead != -1);
+        buffer.clear();
+        long start = System.nanoTime();
+        int read;
+        while ((read = channel.read(buffer)) != -1)
+        {
+            readNanos += System.nanoTime() - start;
+            bytes += read;
+            buffer.flip();
+            if (throttle != null)
+            {
+                try
+                {
+                    throttle.acquire(buffer.remaining());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new java.io.InterruptedIOException("Interrupted while throttled");
+                }
+            }
+            start = System.nanoTime();
+            digest.update(buffer);
+            digestNanos += System.nanoTime() - start;
+            buffer.clear();
+            // the time spent throttled counts as neither
+            start = System.nanoTime();
+        }
+        readNanos += System.nanoTime() - start;
 
-        return Utils.toHex(dStream.getMessageDigest().digest());
+        start = System.nanoTime();
+        Map<String, String> result = digest.digest();
+        digestNanos += System.nanoTime() - start;
+
+        statistics.read(bytes, readNanos);
+        statistics.digested(digestNanos);
+        return result;
     }
 
     /**
@@ -225,16 +472,16 @@ public final class CheckerCommand
      * 
      * @return a result code (constants defined in Util)
      */
-    private ChecksumResult compareChecksums(String checksumA, String checksumB) throws SQLException {
-        ChecksumResult result = getChecksumResultByCode(ChecksumResultCode.CHECKSUM_NO_MATCH);
+    private ChecksumResult compareChecksums(Context context, String checksumA, String checksumB) throws SQLException {
+        ChecksumResult result = getChecksumResultByCode(context, ChecksumResultCode.CHECKSUM_NO_MATCH);
 
         if ((checksumA == null) || (checksumB == null))
         {
-            result = getChecksumResultByCode(ChecksumResultCode.CHECKSUM_PREV_NOT_FOUND);
+            result = getChecksumResultByCode(context, ChecksumResultCode.CHECKSUM_PREV_NOT_FOUND);
         }
         else if (checksumA.equals(checksumB))
         {
-            result = getChecksumResultByCode(ChecksumResultCode.CHECKSUM_MATCH);
+            result = getChecksumResultByCode(context, ChecksumResultCode.CHECKSUM_MATCH);
         }
 
         return result;
@@ -249,9 +496,9 @@ public final class CheckerCommand
      * @param info
      *            a deleted bitstream.
      */
-    private void processDeletedBitstream(MostRecentChecksum info) throws SQLException {
+    private void processDeletedBitstream(Context context, MostRecentChecksum info) throws SQLException {
         info.setProcessStartDate(new Date());
-        info.setChecksumResult(getChecksumResultByCode(ChecksumResultCode.BITSTREAM_MARKED_DELETED));
+        info.setChecksumResult(getChecksumResultByCode(context, ChecksumResultCode.BITSTREAM_MARKED_DELETED));
         info.setProcessEndDate(new Date());
         info.setToBeProcessed(false);
         checksumService.update(context, info);
@@ -267,11 +514,11 @@ public final class CheckerCommand
      *            A not found BitStreamInfo
      * @todo is this method required?
      */
-    private void processNullInfoBitstream(MostRecentChecksum info) throws SQLException {
+    private void processNullInfoBitstream(Context context, MostRecentChecksum info) throws SQLException {
         info.setInfoFound(false);
         info.setProcessStartDate(new Date());
         info.setProcessEndDate(new Date());
-        info.setChecksumResult(getChecksumResultByCode(ChecksumResultCode.BITSTREAM_INFO_NOT_FOUND));
+        info.setChecksumResult(getChecksumResultByCode(context, ChecksumResultCode.BITSTREAM_INFO_NOT_FOUND));
     }
 
     /**
@@ -290,7 +537,8 @@ public final class CheckerCommand
      * @param info
      *            BitstreamInfo to handle
      */
-    private void processBitstream(MostRecentChecksum info) throws AuthorizeException, SQLException {
+    private void processBitstream(Context context, MostRecentChecksum info, ByteBuffer buffer) throws AuthorizeException, SQLException {
+        long start = System.currentTimeMillis();
         info.setProcessStartDate(new Date());
 
         if (info.getChecksumAlgorithm() == null)
@@ -300,22 +548,50 @@ public final class CheckerCommand
 
         try
         {
-            InputStream bitstream = bitstreamService.retrieve(context, info.getBitstream());
+            Bitstream bitstream = info.getBitstream();
+            BitStoreContent content = bitstreamService.retrieve(context, bitstream, 0, -1);
 
             info.setBitstreamFound(true);
 
-            String checksum = digestStream(bitstream, info
-                    .getChecksumAlgorithm());
+            // verify every checksum stored with the bitstream (MD5, SHA-256...) from one read of the bits
+            Map<String, String> stored = bitstream.getChecksums();
+            Set<String> algorithms = new LinkedHashSet<String>();
+            algorithms.add(info.getChecksumAlgorithm());
+            algorithms.addAll(stored.keySet());
+
+            Map<String, String> checksums;
+            try
+            {
+                checksums = digestChannel(content.getChannel(), algorithms, buffer);
+            }
+            finally
+            {
+                content.close();
+            }
 
-            info.setCurrentChecksum(checksum);
+            info.setCurrentChecksum(checksums.get(info.getChecksumAlgorithm()));
 
             // compare new checksum to previous checksum
-            info.setChecksumResult(compareChecksums(info.getExpectedChecksum(), info.getCurrentChecksum()));
+            ChecksumResult result = compareChecksums(context, info.getExpectedChecksum(), info.getCurrentChecksum());
+            if (ChecksumResultCode.CHECKSUM_MATCH.equals(result.getResultCode()))
+            {
+                for (Map.Entry<String, String> entry : stored.entrySet())
+                {
+                    if (!entry.getValue().equals(checksums.get(entry.getKey())))
+                    {
+                        LOG.warn("The " + entry.getKey() + " checksum of bitstream ID " + bitstream.getID()
+                                + " does not match");
+                        result = getChecksumResultByCode(context, ChecksumResultCode.CHECKSUM_NO_MATCH);
+                        break;
+                    }
+                }
+            }
+            info.setChecksumResult(result);
         }
         catch (IOException e)
         {
             // bitstream located, but file missing from asset store
-            info.setChecksumResult(getChecksumResultByCode(ChecksumResultCode.BITSTREAM_NOT_FOUND));
+            info.setChecksumResult(getChecksumResultByCode(context, ChecksumResultCode.BITSTREAM_NOT_FOUND));
             info.setToBeProcessed(false);
             LOG.error("Error retrieving bitstream ID " + info.getBitstream().getID()
                     + " from " + "asset store.", e);
@@ -325,13 +601,13 @@ public final class CheckerCommand
             // ??this code only executes if an SQL
             // exception occurs in *DSpace* code, probably
             // indicating a general db problem?
-            info.setChecksumResult(getChecksumResultByCode(ChecksumResultCode.BITSTREAM_INFO_NOT_FOUND));
+            info.setChecksumResult(getChecksumResultByCode(context, ChecksumResultCode.BITSTREAM_INFO_NOT_FOUND));
             LOG.error("Error retrieving metadata for bitstream ID "
                     + info.getBitstream().getID(), e);
         }
         catch (NoSuchAlgorithmException e)
         {
-            info.setChecksumResult(getChecksumResultByCode(ChecksumResultCode.CHECKSUM_ALGORITHM_INVALID));
+            info.setChecksumResult(getChecksumResultByCode(context, ChecksumResultCode.CHECKSUM_ALGORITHM_INVALID));
             info.setToBeProcessed(false);
             LOG.error("Invalid digest algorithm type for bitstream ID"
                     + info.getBitstream().getID(), e);
@@ -339,6 +615,8 @@ public final class CheckerCommand
         finally
         {
             info.setProcessEndDate(new Date());
+            statistics.checked(info.getBitstream().getStoreNumber(), System.currentTimeMillis() - start,
+                    info.getChecksumResult() == null ? null : info.getChecksumResult().getResultCode());
 
             // record new checksum and comparison result in db
             checksumService.update(context, info);
@@ -346,7 +624,7 @@ public final class CheckerCommand
         }
     }
 
-    protected ChecksumResult getChecksumResultByCode(ChecksumResultCode checksumResultCode) throws SQLException {
+    protected ChecksumResult getChecksumResultByCode(Context context, ChecksumResultCode checksumResultCode) throws SQLException {
         return checksumResultService.findByCode(context, checksumResultCode);
     }
 
@@ -362,7 +640,8 @@ public final class CheckerCommand
     }
 
     /**
-     * Set the dispatcher to be used by this run of the checker.
+     * Set the dispatcher to be used by this run of the checker. The dispatcher
+     * is closed when the run ends, if it is {@link Closeable}.
      * 
      * @param dispatcher
      *            Dispatcher to use.
@@ -414,6 +693,61 @@ public final class CheckerCommand
         processStartDate = startDate == null ? null : new Date(startDate.getTime());
     }
 
+    /**
+     * Get the number of workers checking bitstreams in parallel.
+     *
+     * @return the number of workers
+     */
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * Set the number of workers checking bitstreams in parallel. With more
+     * than one worker the dispatcher must be a {@link BatchDispatcher}, which
+     * hands out every bitstream once.
+     *
+     * @param threads
+     *            the number of workers, typically the number of cores or disks
+     */
+    public void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    /**
+     * Limit the rate at which the bits are read by all workers together.
+     *
+     * @param megabytesPerSecond
+     *            the maximum rate, 0 for no limit
+     */
+    public void setThrottle(double megabytesPerSecond)
+    {
+        throttle = megabytesPerSecond > 0 ? new BandwidthThrottle(megabytesPerSecond) : null;
+    }
+
+    /**
+     * Set the size of the buffer each worker reads the bits with.
+     *
+     * @param bufferSize
+     *            the size in bytes
+     */
+    public void setBufferSize(int bufferSize)
+    {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Get the progress and throughput of this run of the checker.
+     *
+     * @return the statistics, updated while the checker runs
+     */
+    public CheckerStatistics getStatistics()
+    {
+        return statistics;
+    }
+
     /**
      * Determine if any errors are reported
      * 
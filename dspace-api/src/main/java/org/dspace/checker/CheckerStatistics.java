@@ -0,0 +1,309 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Progress and throughput figures of a run of the {@link CheckerCommand}.
+ * <P>
+ * The workers record every bitstream they check: the bytes read, the time spent
+ * reading the bits apart from the time spent digesting them, the result code and
+ * the time the whole check took, per assetstore and in a histogram. Given the
+ * number of bitstreams a full pass has to check, the figures include an estimate
+ * of the time left.
+ * <P>
+ * While the checker runs the figures are published as an MXBean named
+ * {@link #OBJECT_NAME}, so they can be followed with any JMX console. All
+ * counters are cumulative since the run started and safe to read from any thread.
+ */
+public class CheckerStatistics implements CheckerStatisticsMXBean
+{
+    /** log4j logger. */
+    private static final Logger LOG = Logger.getLogger(CheckerStatistics.class);
+
+    /** Name of the MXBean publishing the figures of the running checker */
+    public static final String OBJECT_NAME = "org.dspace:type=ChecksumChecker";
+
+    /** Upper bounds (inclusive, in milliseconds) of the check latency histogram buckets, the last bucket is unbounded */
+    public static final long[] LATENCY_BUCKETS = {10, 50, 100, 500, 1000, 5000, 30000, 60000};
+
+    private final long startMillis = System.currentTimeMillis();
+
+    private final AtomicLong expected = new AtomicLong(-1);
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+    private final AtomicLong digestNanos = new AtomicLong();
+    private final AtomicLongArray results = new AtomicLongArray(ChecksumResultCode.values().length);
+    private final AtomicLongArray latency = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+
+    /** Number of checks and their total milliseconds, by assetstore */
+    private final ConcurrentMap<Integer, AtomicLongArray> stores = new ConcurrentHashMap<Integer, AtomicLongArray>();
+
+    private ObjectName registeredName = null;
+
+    /**
+     * @param expected
+     *            the number of bitstreams the run will check, or -1 if unknown
+     */
+    void setExpectedCount(long expected)
+    {
+        this.expected.set(expected);
+    }
+
+    void read(long bytes, long nanos)
+    {
+        bytesRead.addAndGet(bytes);
+        readNanos.addAndGet(nanos);
+    }
+
+    void digested(long nanos)
+    {
+        digestNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records a bitstream the bits of which were checked.
+     */
+    void checked(int storeNumber, long millis, ChecksumResultCode resultCode)
+    {
+        checked(resultCode);
+
+        AtomicLongArray store = stores.get(storeNumber);
+        if (store == null)
+        {
+            AtomicLongArray created = new AtomicLongArray(2);
+            store = stores.putIfAbsent(storeNumber, created);
+            if (store == null)
+            {
+                store = created;
+            }
+        }
+        store.incrementAndGet(0);
+        store.addAndGet(1, millis);
+
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS.length && millis > LATENCY_BUCKETS[bucket])
+        {
+            bucket++;
+        }
+        latency.incrementAndGet(bucket);
+    }
+
+    /**
+     * Records a bitstream that was handled without reading its bits, e.g. one
+     * marked deleted.
+     */
+    void checked(ChecksumResultCode resultCode)
+    {
+        checked.incrementAndGet();
+        if (resultCode != null)
+        {
+            results.incrementAndGet(resultCode.ordinal());
+        }
+    }
+
+    public long getCheckedCount()
+    {
+        return checked.get();
+    }
+
+    public long getBytesRead()
+    {
+        return bytesRead.get();
+    }
+
+    public long getRemainingCount()
+    {
+        long count = expected.get();
+        return count < 0 ? -1 : Math.max(count - checked.get(), 0);
+    }
+
+    /**
+     * @return the milliseconds since the run started
+     */
+    public long getElapsedMillis()
+    {
+        return System.currentTimeMillis() - startMillis;
+    }
+
+    public double getFilesPerSecond()
+    {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : checked.get() * 1000.0 / elapsed;
+    }
+
+    public double getBytesPerSecond()
+    {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : bytesRead.get() * 1000.0 / elapsed;
+    }
+
+    public long getReadMillis()
+    {
+        return readNanos.get() / 1000000;
+    }
+
+    public long getDigestMillis()
+    {
+        return digestNanos.get() / 1000000;
+    }
+
+    public long getEstimatedMillisRemaining()
+    {
+        long remaining = getRemainingCount();
+        double rate = getFilesPerSecond();
+        if (remaining < 0 || rate == 0)
+        {
+            return -1;
+        }
+        return (long) (remaining * 1000 / rate);
+    }
+
+    /**
+     * @return the number of results by result code, including the codes that
+     *         didn't occur
+     */
+    public Map<String, Long> getResultCounts()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (ChecksumResultCode code : ChecksumResultCode.values())
+        {
+            result.put(code.name(), results.get(code.ordinal()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of results with the given code
+     */
+    public long getResultCount(ChecksumResultCode resultCode)
+    {
+        return results.get(resultCode.ordinal());
+    }
+
+    public Map<String, Double> getAverageMillisByStore()
+    {
+        Map<String, Double> result = new TreeMap<String, Double>();
+        for (Map.Entry<Integer, AtomicLongArray> entry : stores.entrySet())
+        {
+            long count = entry.getValue().get(0);
+            result.put(String.valueOf(entry.getKey()), count == 0 ? 0 : (double) entry.getValue().get(1) / count);
+        }
+        return result;
+    }
+
+    /**
+     * The check latency histogram. Entry <code>i</code> counts the bitstreams that
+     * took at most <code>LATENCY_BUCKETS[i]</code> milliseconds to check (and more
+     * than the previous bound), the last entry counts the bitstreams that took
+     * longer than the largest bound.
+     *
+     * @return a copy of the histogram counts
+     */
+    public long[] getLatencyHistogram()
+    {
+        long[] result = new long[latency.length()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = latency.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Publish the figures on the platform MBean server. A failure is logged,
+     * it doesn't stop the checker.
+     */
+    synchronized void register()
+    {
+        try
+        {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbs.isRegistered(name))
+            {
+                // left behind by an earlier run in this JVM
+                mbs.unregisterMBean(name);
+            }
+            mbs.registerMBean(this, name);
+            registeredName = name;
+        }
+        catch (JMException e)
+        {
+            LOG.warn("Failed to register the checker MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    synchronized void unregister()
+    {
+        if (registeredName == null)
+        {
+            return;
+        }
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        }
+        catch (JMException e)
+        {
+            LOG.warn("Failed to unregister the checker MBean " + OBJECT_NAME, e);
+        }
+        registeredName = null;
+    }
+
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append("checked=").append(getCheckedCount())
+                .append(", bytesRead=").append(getBytesRead())
+                .append(", elapsedMillis=").append(getElapsedMillis())
+                .append(", filesPerSecond=").append(String.format("%.1f", getFilesPerSecond()))
+                .append(", bytesPerSecond=").append(String.format("%.0f", getBytesPerSecond()))
+                .append(", readMillis=").append(getReadMillis())
+                .append(", digestMillis=").append(getDigestMillis())
+                .append(", remaining=").append(getRemainingCount())
+                .append(", etaMillis=").append(getEstimatedMillisRemaining())
+                .append(", results={");
+        boolean first = true;
+        for (ChecksumResultCode code : ChecksumResultCode.values())
+        {
+            long count = results.get(code.ordinal());
+            if (count > 0)
+            {
+                result.append(first ? "" : ", ").append(code.name()).append('=').append(count);
+                first = false;
+            }
+        }
+        result.append("}, averageMillisByStore=").append(getAverageMillisByStore())
+                .append(", latency={");
+        long[] histogram = getLatencyHistogram();
+        for (int i = 0; i < histogram.length; i++)
+        {
+            if (i > 0)
+            {
+                result.append(", ");
+            }
+            result.append(i < LATENCY_BUCKETS.length ? "<=" + LATENCY_BUCKETS[i] + "ms" : ">" + LATENCY_BUCKETS[i - 1] + "ms")
+                    .append('=').append(histogram[i]);
+        }
+        return result.append('}').toString();
+    }
+}
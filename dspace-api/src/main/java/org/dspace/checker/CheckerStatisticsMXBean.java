@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import java.util.Map;
+
+/**
+ * MBean type exposing the progress and throughput of a checksum checker run.
+ *
+ * @see CheckerStatistics
+ */
+public interface CheckerStatisticsMXBean
+{
+    /** How many bitstreams were checked so far? */
+    public long getCheckedCount();
+
+    /** How many bytes were read so far? */
+    public long getBytesRead();
+
+    /** How many bitstreams are left to check in a full pass? -1 if unknown. */
+    public long getRemainingCount();
+
+    /** Average number of bitstreams checked per second. */
+    public double getFilesPerSecond();
+
+    /** Average number of bytes read per second. */
+    public double getBytesPerSecond();
+
+    /** Total time spent reading bits, in milliseconds. */
+    public long getReadMillis();
+
+    /** Total time spent digesting bits, in milliseconds. */
+    public long getDigestMillis();
+
+    /** Estimated milliseconds until a full pass completes, -1 if unknown. */
+    public long getEstimatedMillisRemaining();
+
+    /** Number of results, by result code. */
+    public Map<String, Long> getResultCounts();
+
+    /** Average time in milliseconds to check a bitstream, by assetstore number. */
+    public Map<String, Double> getAverageMillisByStore();
+
+    /** Histogram of the time it took to check a bitstream. */
+    public long[] getLatencyHistogram();
+}
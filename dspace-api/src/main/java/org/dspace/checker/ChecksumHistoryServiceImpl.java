@@ -83,6 +83,11 @@ public class ChecksumHistoryServiceImpl implements ChecksumHistoryService{
         return checksumHistoryDAO.deleteByDateAndCode(context, retentionDate, checksumResultCode);
     }
 
+    public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode checksumResultCode, int limit) throws SQLException
+    {
+        return checksumHistoryDAO.deleteByDateAndCode(context, retentionDate, checksumResultCode, limit);
+    }
+
     @Override
     public void deleteByBitstream(Context context, Bitstream bitstream) throws SQLException {
         //Delete the most recent
@@ -91,6 +96,11 @@ public class ChecksumHistoryServiceImpl implements ChecksumHistoryService{
         checksumHistoryDAO.deleteByBitstream(context, bitstream);
     }
 
+    @Override
+    public ChecksumThroughput getThroughput(Context context, Date startDate, Date endDate) throws SQLException {
+        return checksumHistoryDAO.getThroughput(context, startDate, endDate);
+    }
+
     @Override
     public int prune(Context context, Map<ChecksumResultCode, Long> interests) throws SQLException {
         long now = System.currentTimeMillis();
@@ -0,0 +1,71 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import java.util.Date;
+
+/**
+ * The amount of checking done in a period, summarised from the checksum
+ * history: the number of bitstreams checked, their total size and the time
+ * between the first check starting and the last one ending.
+ */
+public class ChecksumThroughput
+{
+    private final long count;
+
+    private final long bytes;
+
+    private final Date firstStart;
+
+    private final Date lastEnd;
+
+    public ChecksumThroughput(long count, long bytes, Date firstStart, Date lastEnd)
+    {
+        this.count = count;
+        this.bytes = bytes;
+        this.firstStart = firstStart == null ? null : new Date(firstStart.getTime());
+        this.lastEnd = lastEnd == null ? null : new Date(lastEnd.getTime());
+    }
+
+    /**
+     * @return the number of bitstreams checked
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return the total size in bytes of the bitstreams checked
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * @return the milliseconds between the first check starting and the last
+     *         one ending, 0 if nothing was checked
+     */
+    public long getElapsedMillis()
+    {
+        return firstStart == null || lastEnd == null ? 0 : Math.max(lastEnd.getTime() - firstStart.getTime(), 0);
+    }
+
+    public double getFilesPerSecond()
+    {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : count * 1000.0 / elapsed;
+    }
+
+    public double getBytesPerSecond()
+    {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : bytes * 1000.0 / elapsed;
+    }
+}
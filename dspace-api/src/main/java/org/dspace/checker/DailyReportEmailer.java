@@ -32,6 +32,12 @@ import org.dspace.core.Email;
  * reports information for today's date. It is expected this will be used just
  * after the checksum checker has been run.
  * </p>
+ * <p>
+ * The full report ends with the throughput of the checker day by day, over
+ * the last <code>checker.report.throughput-days</code> days (7 by default),
+ * to help planning the capacity of the audit. That trend can also be sent on
+ * its own, whether or not any bitstreams have issues.
+ * </p>
  * 
  * @author Jim Downing
  * @author Grace Carpenter
@@ -44,6 +50,9 @@ public class DailyReportEmailer
     /** log4j logger. */
     private static Logger log = Logger.getLogger(DailyReportEmailer.class);
 
+    /** Default number of days of the throughput trend. */
+    public static final int DEFAULT_THROUGHPUT_DAYS = 7;
+
     /**
      * Default constructor.
      */
@@ -79,6 +88,31 @@ public class DailyReportEmailer
         }
     } 
 
+    /**
+     * Send the throughput report through email, regardless of any issues found.
+     * 
+     * @param attachment
+     *            the file containing the report
+     * @param numberOfBitstreams
+     *            the number of bitstreams checked in the reported period
+     * 
+     * @throws IOException
+     *             if IO exception occurs
+     * @throws javax.mail.MessagingException
+     *             if message cannot be sent.
+     */
+    public void sendThroughputReport(File attachment, long numberOfBitstreams)
+            throws IOException, javax.mail.MessagingException
+    {
+        String hostname = ConfigurationManager.getProperty("dspace.hostname");
+        Email email = new Email();
+        email.setSubject("Checksum checker throughput - " + numberOfBitstreams + " Bitstreams checked on " + hostname);
+        email.setContent("report is attached ...");
+        email.addAttachment(attachment, "checksum_checker_throughput.txt");
+        email.addRecipient(ConfigurationManager.getProperty("mail.admin"));
+        email.send();
+    }
+
     /**
      * Allows users to have email sent to them. The default is to send all
      * reports in one email
@@ -97,6 +131,8 @@ public class DailyReportEmailer
      *            <dd>Bitstreams whose checksums were changed</dd>
      *            <dt>-a</dt>
      *            <dd>Send all reports in one email</dd>
+     *            <dt>-t</dt>
+     *            <dd>Send the checker throughput report</dd>
      *            </dl>
      * 
      */
@@ -130,6 +166,9 @@ public class DailyReportEmailer
                 .addOption("n", "Not Processed", false,
                         "Send E-mail report for all bitstreams set to longer be processed for today");
 
+        options.addOption("t", "Throughput", false,
+                "Send E-mail report of the checker throughput over the last days");
+
         try
         {
             line = parser.parse(options, args);
@@ -159,6 +198,9 @@ public class DailyReportEmailer
             System.out
                     .println("\nSend Un-checked bitstream report: DailyReportEmailer -u");
 
+            System.out
+                    .println("\nSend checker throughput report: DailyReportEmailer -t");
+
             System.out.println("\nSend All email reports: DailyReportEmailer");
             System.exit(0);
         }
@@ -178,6 +220,15 @@ public class DailyReportEmailer
 
         Date tomorrow = calendar.getTime();
 
+        // the throughput is reported by whole days, up to the end of today
+        calendar.set(GregorianCalendar.HOUR_OF_DAY, 0);
+        calendar.set(GregorianCalendar.MINUTE, 0);
+        calendar.set(GregorianCalendar.SECOND, 0);
+        calendar.set(GregorianCalendar.MILLISECOND, 0);
+        Date endOfToday = calendar.getTime();
+        int throughputDays = ConfigurationManager.getIntProperty("checker.report.throughput-days",
+                DEFAULT_THROUGHPUT_DAYS);
+
         File report = null;
         FileWriter writer = null;
 
@@ -227,6 +278,10 @@ public class DailyReportEmailer
                 writer
                         .write("\n--------------------------------- Report Spacer ---------------------------\n\n");
                 numBitstreams += reporter.getUncheckedBitstreamsReport(context, writer);
+                writer
+                        .write("\n--------------------------------- Report Spacer ---------------------------\n\n");
+                // the checked bitstreams aren't issues, they don't trigger the email
+                reporter.getThroughputReport(context, endOfToday, throughputDays, writer);
                 writer
                         .write("\n--------------------------------- End Report ---------------------------\n\n");
                 writer.flush();
@@ -289,6 +344,17 @@ public class DailyReportEmailer
                     writer.close();
                     emailer.sendReport(report, numBitstreams);
                 }
+
+                if (line.hasOption("t"))
+                {
+                    writer
+                            .write("\n--------------------------------- Begin Reporting ------------------------\n\n");
+                    long checked = reporter.getThroughputReport(context,
+                            endOfToday, throughputDays, writer);
+                    writer.flush();
+                    writer.close();
+                    emailer.sendThroughputReport(report, checked);
+                }
             }
         }
         catch (MessagingException e)
@@ -70,7 +70,7 @@ public class LimitedCountDispatcher implements BitstreamDispatcher
      * @throws SQLException
      *             if database error occurs.
      */
-    public Bitstream next() throws SQLException {
+    public synchronized Bitstream next() throws SQLException {
         if (remaining > 0)
         {
             remaining--;
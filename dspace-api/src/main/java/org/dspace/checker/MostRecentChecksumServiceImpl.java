@@ -155,6 +155,39 @@ public class MostRecentChecksumServiceImpl implements MostRecentChecksumService
         return mostRecentChecksumDAO.getOldestRecord(context, lessThanDate);
     }
 
+    /**
+     * Returns a batch of the records to be processed, oldest first, ordered by
+     * last process end date and bitstream id. The batch continues after the
+     * given position, so consecutive batches can be claimed without ever
+     * returning a record twice.
+     *
+     * @param lessThanDate only return records last processed before this date,
+     *            or <code>null</code> for all records
+     * @param afterEndDate the end date of the last record of the previous
+     *            batch, or <code>null</code> to start at the oldest record
+     * @param afterBitstreamId the bitstream id of the last record of the
+     *            previous batch
+     * @param limit the maximum number of records to return
+     * @return the records, an empty list if there are no more
+     */
+    public List<MostRecentChecksum> findOldestRecords(Context context, Date lessThanDate, Date afterEndDate, int afterBitstreamId, int limit) throws SQLException
+    {
+        return mostRecentChecksumDAO.findOldestRecords(context, lessThanDate, afterEndDate, afterBitstreamId, limit);
+    }
+
+    /**
+     * Counts the records still to be processed, e.g. to estimate how long a
+     * full pass of the checker will take.
+     *
+     * @param lessThanDate only count records last processed before this date,
+     *            or <code>null</code> for all records
+     * @return the number of records
+     */
+    public int countToBeProcessed(Context context, Date lessThanDate) throws SQLException
+    {
+        return mostRecentChecksumDAO.countToBeProcessed(context, lessThanDate);
+    }
+
     public List<MostRecentChecksum> findNotInHistory(Context context) throws SQLException
     {
         return mostRecentChecksumDAO.findNotInHistory(context);
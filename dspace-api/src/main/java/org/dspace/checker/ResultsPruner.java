@@ -12,6 +12,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.text.ParseException;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +31,10 @@ import org.dspace.factory.DSpaceServiceFactory;
  * Manages the deletion of results from the checksum history. It uses the
  * dspace.cfg file as the default configuration file for the deletion settings
  * and can use a different configuration file if it is passed in.
+ * <p>
+ * The history is deleted in chunks of at most <code>checker.prune.batch-size</code>
+ * records, each committed on its own, and the number of records removed per
+ * second is reported in the log.
  * 
  * @author Jim Downing
  * @author Grace Carpenter
@@ -141,17 +146,21 @@ public final class ResultsPruner
                 throw new IllegalStateException("Problem parsing duration: "
                         + e.getMessage(), e);
             }
-            ChecksumResultCode code = ChecksumResultCode.valueOf(resultCode);
-            if(code == null)
-            {
-                throw new IllegalStateException("Checksum result code not found: " + resultCode);
-            }
             if ("default".equals(resultCode))
             {
                 rp.setDefaultDuration(duration);
             }
             else
             {
+                ChecksumResultCode code;
+                try
+                {
+                    code = ChecksumResultCode.valueOf(resultCode);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IllegalStateException("Checksum result code not found: " + resultCode, e);
+                }
                 rp.addInterested(code, duration);
             }
         }
@@ -175,6 +184,15 @@ public final class ResultsPruner
 
     private Context context = null;
 
+    /** Default maximum number of records deleted per transaction */
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    private int batchSize = ConfigurationManager.getIntProperty("checker.prune.batch-size", DEFAULT_BATCH_SIZE);
+
+    private int prunedCount = 0;
+
+    private long elapsedMillis = 0;
+
     /**
      * Default Constructor
      */
@@ -246,11 +264,74 @@ public final class ResultsPruner
             }
 
         }
-        int result = checksumHistoryService.prune(context, interests);
-        context.commit();
+
+        // delete in bounded chunks, each in its own transaction, so the
+        // history table is never locked for long
+        long start = System.currentTimeMillis();
+        int result = 0;
+        for (Map.Entry<ChecksumResultCode, Long> interest : interests.entrySet())
+        {
+            Date retentionDate = new Date(start - interest.getValue().longValue());
+            int pruned = 0;
+            int count;
+            do
+            {
+                count = checksumHistoryService.deleteByDateAndCode(context, retentionDate, interest.getKey(), batchSize);
+                context.commit();
+                pruned += count;
+            }
+            while (count >= batchSize);
+
+            if (pruned > 0)
+            {
+                LOG.info("Pruned " + pruned + " checksum history records with result " + interest.getKey());
+            }
+            result += pruned;
+        }
+
+        prunedCount = result;
+        elapsedMillis = System.currentTimeMillis() - start;
+        LOG.info("Pruned " + prunedCount + " checksum history records in " + elapsedMillis + " ms ("
+                + Math.round(getRowsPerSecond()) + " records/s)");
         return result;
     }
 
+    /**
+     * @return the number of records removed by the last {@link #prune()}
+     */
+    public int getPrunedCount()
+    {
+        return prunedCount;
+    }
+
+    /**
+     * @return the time the last {@link #prune()} took, in milliseconds
+     */
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return the number of records removed per second by the last {@link #prune()}
+     */
+    public double getRowsPerSecond()
+    {
+        return elapsedMillis == 0 ? prunedCount : prunedCount * 1000d / elapsedMillis;
+    }
+
+    /**
+     * The maximum number of records deleted per transaction, <code>checker.prune.batch-size</code> in
+     * dspace.cfg by default.
+     *
+     * @param batchSize
+     *            the number of records
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
     /**
      * The default duration before records are removed from the checksum history
      * table.
@@ -10,6 +10,7 @@ package org.dspace.checker;
 import org.dspace.checker.service.MostRecentChecksumService;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
+import org.dspace.factory.DSpaceServiceFactory;
 
 import java.sql.SQLException;
 import java.util.Date;
@@ -57,6 +58,7 @@ public class SimpleDispatcher implements BitstreamDispatcher
         this.context = context;
         this.processStartTime = (startTime == null ? null : new Date(startTime.getTime()));
         this.loopContinuously = looping;
+        this.checksumService = DSpaceServiceFactory.getInstance().getMostRecentChecksumService();
     }
 
     /**
@@ -115,4 +115,25 @@ public interface SimpleReporter
      */
     public int getUncheckedBitstreamsReport(Context context, OutputStreamWriter osw)
             throws IOException, SQLException;
+
+    /**
+     * The throughput of the checker, day by day, for the given number of days
+     * ending with the end date: the bitstreams and bytes checked and the rates
+     * at which they were checked. The trend helps planning the capacity of the
+     * audit.
+     * 
+     * @param endDate
+     *            the end of the last day reported, exclusive
+     * @param days
+     *            the number of days to report
+     * @param osw
+     *            the output stream writer to write to
+     * 
+     * @return number of bitstreams checked in the period
+     * 
+     * @throws IOException
+     *             if io error occurs
+     */
+    public long getThroughputReport(Context context, Date endDate, int days, OutputStreamWriter osw)
+            throws IOException, SQLException;
 }
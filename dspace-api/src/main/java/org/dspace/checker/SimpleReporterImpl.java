@@ -12,8 +12,10 @@ import java.io.OutputStreamWriter;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.List;
 
+import org.dspace.checker.service.ChecksumHistoryService;
 import org.dspace.checker.service.MostRecentChecksumService;
 import org.dspace.content.Bitstream;
 import org.dspace.content.service.BitstreamService;
@@ -36,8 +38,11 @@ public class SimpleReporterImpl implements SimpleReporter
     /** The reporter access object to be used. */
 //    private ReporterDAO reporter = null;
     private MostRecentChecksumService mostRecentChecksumService = null;
+    private ChecksumHistoryService checksumHistoryService = null;
     private BitstreamService bitstreamService = null;
 
+    private static final double MEGABYTE = 1024 * 1024;
+
     private String msg(String key)
     {
         return I18nUtil.getMessage("org.dspace.checker.SimpleReporterImpl." + key);
@@ -49,6 +54,7 @@ public class SimpleReporterImpl implements SimpleReporter
     public SimpleReporterImpl()
     {
         this.mostRecentChecksumService = DSpaceServiceFactory.getInstance().getMostRecentChecksumService();
+        this.checksumHistoryService = DSpaceServiceFactory.getInstance().getChecksumHistoryService();
         this.bitstreamService = DSpaceServiceFactory.getInstance().getBitstreamService();
     }
 
@@ -351,6 +357,69 @@ public class SimpleReporterImpl implements SimpleReporter
         }
     }
 
+    /**
+     * Writes the throughput of the checker for every day of the period, oldest
+     * first, followed by the totals of the period.
+     * 
+     * @param endDate
+     *            the end of the last day reported, exclusive
+     * @param days
+     *            the number of days to report
+     * @param osw
+     *            the output stream writer to write to
+     * 
+     * @return number of bitstreams checked in the period
+     * 
+     * @throws IOException
+     *             if io error occurs
+     */
+    public long getThroughputReport(Context context, Date endDate, int days, OutputStreamWriter osw)
+            throws IOException, SQLException {
+        GregorianCalendar calendar = new GregorianCalendar();
+        calendar.setTime(endDate);
+        calendar.add(GregorianCalendar.DAY_OF_YEAR, -days);
+        Date startDate = calendar.getTime();
+
+        osw.write("\n");
+        osw.write("Checksum checker throughput from ");
+        osw.write(applyDateFormatShort(startDate));
+        osw.write(" to ");
+        osw.write(applyDateFormatShort(endDate));
+        osw.write("\n\n");
+        osw.write(String.format("%-12s %12s %14s %10s %12s%n", "Day", "Bitstreams", "MB", "Files/s", "MB/s"));
+
+        long count = 0;
+        long bytes = 0;
+        long millis = 0;
+        for (int i = 0; i < days; i++)
+        {
+            Date dayStart = calendar.getTime();
+            calendar.add(GregorianCalendar.DAY_OF_YEAR, 1);
+            ChecksumThroughput throughput = checksumHistoryService.getThroughput(context, dayStart, calendar.getTime());
+            writeThroughput(osw, applyDateFormatShort(dayStart), throughput);
+
+            count += throughput.getCount();
+            bytes += throughput.getBytes();
+            millis += throughput.getElapsedMillis();
+        }
+
+        // the rates of the period only count the time spent checking
+        ChecksumThroughput total = new ChecksumThroughput(count, bytes, new Date(0), new Date(millis));
+        osw.write("\n");
+        writeThroughput(osw, "Total", total);
+        osw.write("\n");
+
+        return count;
+    }
+
+    private void writeThroughput(OutputStreamWriter osw, String label, ChecksumThroughput throughput)
+            throws IOException
+    {
+        osw.write(String.format("%-12s %12d %14.1f %10.1f %12.2f%n", label, throughput.getCount(),
+                throughput.getBytes() / MEGABYTE, throughput.getFilesPerSecond(),
+                throughput.getBytesPerSecond() / MEGABYTE));
+    }
+
     private String applyDateFormatLong(Date thisDate)
     {
         return DateFormat.getDateInstance(DateFormat.MEDIUM).format(thisDate);
@@ -2,6 +2,7 @@ package org.dspace.checker.dao;
 
 import org.dspace.checker.ChecksumHistory;
 import org.dspace.checker.ChecksumResultCode;
+import org.dspace.checker.ChecksumThroughput;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
 import org.dspace.dao.GenericDAO;
@@ -17,5 +18,9 @@ import java.util.Date;
 public interface ChecksumHistoryDAO extends GenericDAO<ChecksumHistory> {
     public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode checksumResultCode) throws SQLException;
 
+    public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode checksumResultCode, int limit) throws SQLException;
+
     public void deleteByBitstream(Context context, Bitstream bitstream) throws SQLException;
+
+    public ChecksumThroughput getThroughput(Context context, Date startDate, Date endDate) throws SQLException;
 }
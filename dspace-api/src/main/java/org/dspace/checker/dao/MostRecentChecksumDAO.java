@@ -28,6 +28,10 @@ public interface MostRecentChecksumDAO extends GenericDAO<MostRecentChecksum>
 
     public MostRecentChecksum getOldestRecord(Context context, Date lessThanDate) throws SQLException;
 
+    public List<MostRecentChecksum> findOldestRecords(Context context, Date lessThanDate, Date afterEndDate, int afterBitstreamId, int limit) throws SQLException;
+
+    public int countToBeProcessed(Context context, Date lessThanDate) throws SQLException;
+
     public List<MostRecentChecksum> findNotInHistory(Context context) throws SQLException;
 
     public MostRecentChecksum findByBitstream(Context context, Bitstream bitstream) throws SQLException;
@@ -2,14 +2,19 @@ package org.dspace.checker.dao.impl;
 
 import org.dspace.checker.ChecksumHistory;
 import org.dspace.checker.ChecksumResultCode;
+import org.dspace.checker.ChecksumThroughput;
 import org.dspace.checker.dao.ChecksumHistoryDAO;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
 import org.dspace.dao.AbstractHibernateDAO;
+import org.hibernate.Criteria;
 import org.hibernate.Query;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.List;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -18,20 +23,66 @@ import java.util.Date;
  */
 public class ChecksumHistoryDAOImpl extends AbstractHibernateDAO<ChecksumHistory> implements ChecksumHistoryDAO {
 
+    /** Maximum number of ids in a single IN clause, Oracle doesn't accept more than 1000 */
+    protected static final int MAX_IN_CLAUSE_SIZE = 1000;
+
     @Override
     public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode resultCode) throws SQLException {
         String hql = "delete from ChecksumHistory where processEndDate < :processEndDate AND checksumResult.resultCode=:resultCode";
         Query query = createQuery(context, hql);
         query.setParameter("processEndDate", retentionDate);
-        query.setParameter("result", resultCode);
+        query.setParameter("resultCode", resultCode);
         return query.executeUpdate();
     }
 
+    @Override
+    public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode resultCode, int limit) throws SQLException {
+        // bulk deletes can't be limited, select a chunk of ids first
+        Criteria criteria = createCriteria(context, ChecksumHistory.class);
+        criteria.add(Restrictions.and(
+                Restrictions.lt("processEndDate", retentionDate),
+                Restrictions.eq("checksumResult.resultCode", resultCode)
+        ));
+        criteria.setProjection(Projections.id());
+        criteria.setMaxResults(limit);
+        @SuppressWarnings("unchecked")
+        List<Long> ids = (List<Long>) criteria.list();
+        if (ids.isEmpty())
+        {
+            return 0;
+        }
+
+        // the limit is the size of the transaction, not of the IN clause
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += MAX_IN_CLAUSE_SIZE)
+        {
+            Query query = createQuery(context, "delete from ChecksumHistory where id in (:ids)");
+            query.setParameterList("ids", ids.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, ids.size())));
+            deleted += query.executeUpdate();
+        }
+        return deleted;
+    }
+
     @Override
     public void deleteByBitstream(Context context, Bitstream bitstream) throws SQLException {
-        String hql = "delete from ChecksumHistory where bitstream=:bitstream";
+        String hql = "delete from ChecksumHistory where bitstreamId=:bitstreamId";
         Query query = createQuery(context, hql);
-        query.setParameter("bitstream", bitstream);
+        query.setParameter("bitstreamId", bitstream.getID());
         query.executeUpdate();
     }
+
+    @Override
+    public ChecksumThroughput getThroughput(Context context, Date startDate, Date endDate) throws SQLException {
+        String hql = "select count(h), sum(b.sizeBytes), min(h.processStartDate), max(h.processEndDate) "
+                + "from ChecksumHistory h, Bitstream b where b.id = h.bitstreamId "
+                + "and h.processEndDate >= :startDate and h.processEndDate < :endDate";
+        Query query = createQuery(context, hql);
+        query.setParameter("startDate", startDate);
+        query.setParameter("endDate", endDate);
+        Object[] row = (Object[]) query.uniqueResult();
+        return new ChecksumThroughput(
+                row[0] == null ? 0 : ((Number) row[0]).longValue(),
+                row[1] == null ? 0 : ((Number) row[1]).longValue(),
+                (Date) row[2], (Date) row[3]);
+    }
 }
@@ -96,7 +96,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
         //        + "bitstream_id " + "ASC LIMIT 1";
         Criteria criteria = createCriteria(context, MostRecentChecksum.class);
         criteria.add(Restrictions.eq("toBeProcessed", true));
-        criteria.addOrder(Order.asc("lastProcessEndDate")).addOrder(Order.asc("bitstream.id"));
+        criteria.addOrder(Order.asc("processEndDate")).addOrder(Order.asc("bitstream.id"));
         criteria.setMaxResults(1);
         return uniqueResult(criteria);
     }
@@ -113,13 +113,48 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
         criteria.add(
                 Restrictions.and(
                     Restrictions.eq("toBeProcessed", true),
-                    Restrictions.lt("lastProcessStartDate", lessThanDate)
+                    Restrictions.lt("processStartDate", lessThanDate)
         ));
-        criteria.addOrder(Order.asc("lastProcessEndDate")).addOrder(Order.asc("bitstream.id"));
+        criteria.addOrder(Order.asc("processEndDate")).addOrder(Order.asc("bitstream.id"));
         criteria.setMaxResults(1);
         return uniqueResult(criteria);
     }
 
+    @Override
+    public List<MostRecentChecksum> findOldestRecords(Context context, Date lessThanDate, Date afterEndDate, int afterBitstreamId, int limit) throws SQLException {
+        Criteria criteria = createCriteria(context, MostRecentChecksum.class);
+        criteria.add(Restrictions.eq("toBeProcessed", true));
+        if (lessThanDate != null)
+        {
+            criteria.add(Restrictions.lt("processStartDate", lessThanDate));
+        }
+        if (afterEndDate != null)
+        {
+            // keyset: continue after the last record of the previous batch
+            criteria.add(Restrictions.or(
+                    Restrictions.gt("processEndDate", afterEndDate),
+                    Restrictions.and(
+                            Restrictions.eq("processEndDate", afterEndDate),
+                            Restrictions.gt("bitstream.id", afterBitstreamId)
+                    )
+            ));
+        }
+        criteria.addOrder(Order.asc("processEndDate")).addOrder(Order.asc("bitstream.id"));
+        criteria.setMaxResults(limit);
+        return list(criteria);
+    }
+
+    @Override
+    public int countToBeProcessed(Context context, Date lessThanDate) throws SQLException {
+        Criteria criteria = createCriteria(context, MostRecentChecksum.class);
+        criteria.add(Restrictions.eq("toBeProcessed", true));
+        if (lessThanDate != null)
+        {
+            criteria.add(Restrictions.lt("processStartDate", lessThanDate));
+        }
+        return count(criteria);
+    }
+
     @Override
     public List<MostRecentChecksum> findNotInHistory(Context context) throws SQLException {
         Criteria criteria = createCriteria(context, MostRecentChecksum.class);
@@ -1,6 +1,7 @@
 package org.dspace.checker.service;
 
 import org.dspace.checker.ChecksumResultCode;
+import org.dspace.checker.ChecksumThroughput;
 import org.dspace.checker.MostRecentChecksum;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
@@ -22,8 +23,30 @@ public interface ChecksumHistoryService {
 
     public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode result) throws SQLException;
 
+    /**
+     * Delete a bounded chunk of the history records older than the retention date with the given
+     * result, so a large history can be pruned in short transactions.
+     *
+     * @param limit
+     *            the maximum number of records to delete
+     * @return number of records deleted, less than the limit once all are gone
+     */
+    public int deleteByDateAndCode(Context context, Date retentionDate, ChecksumResultCode result, int limit) throws SQLException;
+
     public void deleteByBitstream(Context context, Bitstream bitstream) throws SQLException;
 
+    /**
+     * Summarise the checks that ended in the given period, to follow the
+     * throughput of the checker over time.
+     *
+     * @param startDate
+     *            the start of the period, inclusive
+     * @param endDate
+     *            the end of the period, exclusive
+     * @return the number and size of the bitstreams checked, and the time it took
+     */
+    public ChecksumThroughput getThroughput(Context context, Date startDate, Date endDate) throws SQLException;
+
     /**
      * Prune the history records from the database.
      *
@@ -32,6 +32,10 @@ public interface MostRecentChecksumService {
 
     public MostRecentChecksum findOldestRecord(Context context, Date lessThanDate) throws SQLException;
 
+    public List<MostRecentChecksum> findOldestRecords(Context context, Date lessThanDate, Date afterEndDate, int afterBitstreamId, int limit) throws SQLException;
+
+    public int countToBeProcessed(Context context, Date lessThanDate) throws SQLException;
+
     public List<MostRecentChecksum> findNotInHistory(Context context) throws SQLException;
 
     public void update(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException;
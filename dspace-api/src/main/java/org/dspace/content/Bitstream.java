@@ -6,13 +6,16 @@ import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.event.Event;
 import org.dspace.factory.DSpaceServiceFactory;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CollectionId;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -21,13 +24,14 @@ import java.util.List;
  */
 @Entity
 @Table(name="bitstream", schema = "public")
+@BatchSize(size = 50)
 public class Bitstream extends DSpaceObject{
 
 
     @Id
     @Column(name="bitstream_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="bitstream_seq")
-    @SequenceGenerator(name="bitstream_seq", sequenceName="bitstream_seq")
+    @SequenceGenerator(name="bitstream_seq", sequenceName="bitstream_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "sequence_id")
@@ -48,6 +52,14 @@ public class Bitstream extends DSpaceObject{
     @Column(name = "checksum_algorithm")
     private String checksumAlgorithm;
 
+    /** The checksums of all algorithms computed at ingest, by algorithm, including the one above */
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "bitstream_checksum", joinColumns = @JoinColumn(name = "bitstream_id"))
+    @MapKeyColumn(name = "checksum_algorithm", length = 32)
+    @Column(name = "checksum", length = 128)
+    @BatchSize(size = 50)
+    private Map<String, String> checksums = new HashMap<String, String>();
+
     @Column(name = "size_bytes")
     private long sizeBytes;
 
@@ -81,6 +93,7 @@ public class Bitstream extends DSpaceObject{
     )
     @SequenceGenerator(name="bundle2bitstream_seq", sequenceName="bundle2bitstream_seq", allocationSize = 1)
     @OrderBy("sequence_id asc")
+    @BatchSize(size = 50)
     private List<Bundle> bundles = null;
 
     @OneToOne(fetch = FetchType.LAZY, mappedBy="logo")
@@ -244,6 +257,29 @@ public class Bitstream extends DSpaceObject{
         this.checksumAlgorithm = checksumAlgorithm;
     }
 
+    /**
+     * Get the checksums of the content of the bitstream computed at ingest,
+     * e.g. MD5, SHA-1 and SHA-256. Bitstreams stored before multiple
+     * algorithms were supported only have the one returned by
+     * {@link #getChecksum()}.
+     *
+     * @return the checksums as hex strings, by algorithm
+     */
+    public Map<String, String> getChecksums()
+    {
+        Map<String, String> all = new HashMap<String, String>(checksums);
+        if (checksum != null && checksumAlgorithm != null && !all.containsKey(checksumAlgorithm))
+        {
+            all.put(checksumAlgorithm, checksum);
+        }
+        return all;
+    }
+
+    public void setChecksums(Map<String, String> checksums) {
+        this.checksums.clear();
+        this.checksums.putAll(checksums);
+    }
+
     /**
      * Get the size of the bitstream
      *
@@ -3,6 +3,8 @@ package org.dspace.content;
 import org.dspace.content.service.BitstreamFormatService;
 import org.dspace.core.Context;
 import org.dspace.factory.DSpaceServiceFactory;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.CollectionId;
 import org.hibernate.annotations.Type;
@@ -19,12 +21,14 @@ import java.util.Set;
  */
 @Entity
 @Table(name="bitstreamformatregistry")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class BitstreamFormat {
 
     @Id
     @Column(name="bitstream_format_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="bitstreamformatregistry_seq")
-    @SequenceGenerator(name="bitstreamformatregistry_seq", sequenceName="bitstreamformatregistry_seq")
+    @SequenceGenerator(name="bitstreamformatregistry_seq", sequenceName="bitstreamformatregistry_seq", allocationSize = 1)
     private Integer id;
 
     @Column(name="short_description")
@@ -44,6 +48,7 @@ public class BitstreamFormat {
     private Boolean internal = false;
 
     @ElementCollection(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name="fileextension", joinColumns=@JoinColumn(name="bitstream_format_id"))
         @CollectionId(
                 columns = @Column(name="file_extension_id"),
@@ -10,6 +10,7 @@ package org.dspace.content;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,7 +26,9 @@ import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.LogManager;
 import org.dspace.event.Event;
+import org.dspace.storage.bitstore.BitStoreContent;
 import org.dspace.storage.bitstore.BitstreamStorageManager;
+import org.dspace.storage.bitstore.StagedBitstream;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -108,6 +111,10 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
      * calculated. This method is not public, and does not check authorisation;
      * other methods such as Bundle.createBitstream() will check authorisation.
      * The newly created bitstream has the "unknown" format.
+     * <P>
+     * The bits are spooled within the transaction the caller has open on the
+     * context, if any; see {@link #create(Context, StagedBitstream)} to
+     * receive them before.
      * 
      * @param context
      *            DSpace context object
@@ -120,8 +127,39 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
      */
     public Bitstream create(Context context, InputStream is)
             throws IOException, SQLException, AuthorizeException {
-        // Store the bits
-        int bitstreamID = BitstreamStorageManager.store(context, bitstreamDAO.create(context, new Bitstream()), is);
+        return create(context, BitstreamStorageManager.stage(is));
+    }
+
+    /**
+     * Create a new bitstream, with a new ID, for bits staged by
+     * {@link BitstreamStorageManager#stage}. Only the move of the bits into
+     * the asset store and the creation of the row happen here, so a caller
+     * staging the bits before its first use of the context doesn't keep a
+     * transaction open while they are uploaded. Like
+     * {@link #create(Context, InputStream)}, this doesn't check authorisation.
+     *
+     * @param context
+     *            DSpace context object
+     * @param staged
+     *            the bits to put in the bitstream, removed from the spool in
+     *            any case
+     *
+     * @return the newly created bitstream
+     * @throws IOException
+     * @throws SQLException
+     */
+    public Bitstream create(Context context, StagedBitstream staged)
+            throws IOException, SQLException, AuthorizeException {
+        int bitstreamID;
+        try
+        {
+            // Store the bits
+            bitstreamID = BitstreamStorageManager.store(context, bitstreamDAO.create(context, new Bitstream()), staged);
+        }
+        finally
+        {
+            staged.discard();
+        }
 
         log.info(LogManager.getHeader(context, "create_bitstream",
                 "bitstream_id=" + bitstreamID));
@@ -154,7 +192,7 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
             throws IOException, SQLException, AuthorizeException {
         // Store the bits
         int bitstreamID = BitstreamStorageManager.register(
-                context, assetstore, bitstreamPath);
+                context, bitstreamDAO.create(context, new Bitstream()), assetstore, bitstreamPath);
 
         log.info(LogManager.getHeader(context,
             "create_bitstream",
@@ -169,14 +207,55 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
         return bitstream;
     }
 
+    /**
+     * Create a new bitstream, with a new ID, sharing the bits of an existing
+     * bitstream. The descriptive fields and the format are copied, the bits
+     * themselves are not. This method does not check authorisation, just like
+     * <code>create</code>.
+     *
+     * @param context DSpace context object
+     * @param bitstream the bitstream to clone
+     * @return the newly created bitstream
+     * @throws SQLException
+     */
+    public Bitstream clone(Context context, Bitstream bitstream)
+            throws SQLException, AuthorizeException {
+        Bitstream clone = bitstreamDAO.create(context, new Bitstream());
+        clone.setSequenceID(bitstream.getSequenceID());
+        clone.setName(bitstream.getName());
+        clone.setSource(bitstream.getSource());
+        clone.setDescription(bitstream.getDescription());
+        clone.setFormat(bitstream.getFormat());
+        if (bitstream.getUserFormatDescription() != null)
+        {
+            clone.setUserFormatDescription(bitstream.getUserFormatDescription());
+        }
+        int bitstreamID = BitstreamStorageManager.clone(context, bitstream, clone);
+
+        log.info(LogManager.getHeader(context, "create_bitstream",
+                "bitstream_id=" + bitstreamID + ",clone_of=" + bitstream.getID()));
+
+        context.addEvent(new Event(Event.CREATE, Constants.BITSTREAM, bitstreamID, null));
+
+        return clone;
+    }
+
     public List<Bitstream> findDeletedBitstreams(Context context) throws SQLException {
         return bitstreamDAO.findDeletedBitstreams(context);
     }
 
+    public List<Bitstream> findDeletedBitstreams(Context context, int afterBitstreamId, int limit) throws SQLException {
+        return bitstreamDAO.findDeletedBitstreams(context, afterBitstreamId, limit);
+    }
+
     public List<Bitstream> findDuplicateInternalIdentifier(Context context, Bitstream bitstream) throws SQLException {
         return bitstreamDAO.findDuplicateInternalIdentifier(context, bitstream);
     }
 
+    public int getReferenceCount(Context context, Bitstream bitstream) throws SQLException {
+        return bitstreamDAO.countReferences(context, bitstream.getStoreNumber(), bitstream.getInternalId());
+    }
+
     @Override
     public Iterator<Bitstream> findAllInCommunity(Context context, Community community) {
         //TODO: IMPLEMENT THIS ONCE BUNDLE HAS BEEN REFACTORED
@@ -322,6 +401,19 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
         update(context, bitstream);
     }
 
+    public void expunge(Context context, Bitstream bitstream) throws SQLException {
+        if (!bitstream.isDeleted())
+        {
+            throw new IllegalArgumentException("Bitstream " + bitstream.getID() + " is not marked deleted");
+        }
+        log.info(LogManager.getHeader(context, "expunge_bitstream",
+                "bitstream_id=" + bitstream.getID()));
+
+        // the bitstream_checksum rows reference the bitstream
+        bitstream.setChecksums(new HashMap<String, String>());
+        bitstreamDAO.delete(context, bitstream);
+    }
+
     /**
      * Retrieve the contents of the bitstream
      * 
@@ -339,6 +431,27 @@ public class BitstreamServiceImpl extends DSpaceObjectServiceImpl<Bitstream> imp
         return BitstreamStorageManager.retrieve(context, bitstream.getID());
     }
 
+    /**
+     * Retrieve a range of the contents of the bitstream, e.g. for an HTTP
+     * Range request or seeking in a video. Use
+     * {@link BitStoreContent#transferTo} to send it without copying the bits
+     * through user space.
+     *
+     * @param offset the offset of the first byte to retrieve
+     * @param length the number of bytes to retrieve, or -1 for up to the end
+     * @return the range of the contents, to be closed by the caller
+     * @throws IOException
+     * @throws SQLException
+     * @throws AuthorizeException
+     */
+    public BitStoreContent retrieve(Context context, Bitstream bitstream, long offset, long length)
+            throws IOException, SQLException, AuthorizeException
+    {
+        AuthorizeManager.authorizeAction(context, bitstream, Constants.READ);
+
+        return BitstreamStorageManager.retrieve(context, bitstream, offset, length);
+    }
+
     /**
      * Determine if this bitstream is registered
      * 
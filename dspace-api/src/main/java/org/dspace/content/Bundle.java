@@ -3,6 +3,7 @@ package org.dspace.content;
 import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CollectionId;
 import org.hibernate.annotations.Type;
 
@@ -18,12 +19,13 @@ import java.util.List;
  */
 @Entity
 @Table(name="bundle")
+@BatchSize(size = 50)
 public class Bundle extends DSpaceObject{
 
     @Id
     @Column(name="bundle_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="bundle_seq")
-    @SequenceGenerator(name="bundle_seq", sequenceName="bundle_seq")
+    @SequenceGenerator(name="bundle_seq", sequenceName="bundle_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name= "name")
@@ -44,7 +46,7 @@ public class Bundle extends DSpaceObject{
     private boolean modifiedMetadata = false;
 
 
-    @OneToMany(fetch = FetchType.LAZY)
+    @OneToMany(fetch = FetchType.LAZY, cascade = {CascadeType.DETACH})
     /** The bitstreams in this bundle */
     @JoinTable(
             name = "bundle2bitstream",
@@ -58,6 +60,7 @@ public class Bundle extends DSpaceObject{
     )
     @SequenceGenerator(name="bundle2bitstream_seq", sequenceName="bundle2bitstream_seq", allocationSize = 1)
     @OrderBy("sequence_id asc")
+    @BatchSize(size = 50)
     private List<Bitstream> bitstreams = new ArrayList<Bitstream>();
 
     @ManyToMany(fetch = FetchType.LAZY)
@@ -26,6 +26,8 @@ import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.LogManager;
 import org.dspace.event.Event;
+import org.dspace.storage.bitstore.BitstreamStorageManager;
+import org.dspace.storage.bitstore.StagedBitstream;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -146,7 +148,11 @@ public class BundleServiceImpl extends DSpaceObjectServiceImpl<Bundle> implement
     }
 
     /**
-     * Create a new bitstream in this bundle.
+     * Create a new bitstream in this bundle. Authorisation is checked before
+     * the bits are read, so the bits are spooled within the transaction of
+     * the context. A caller receiving a large upload stages it with
+     * {@link BitstreamStorageManager#stage} before using the context, and
+     * passes the staged bits instead.
      * 
      * @param is
      *            the stream to read the new bitstream from
@@ -156,10 +162,39 @@ public class BundleServiceImpl extends DSpaceObjectServiceImpl<Bundle> implement
     public Bitstream createBitstream(Context context, Bundle bundle, InputStream is) throws AuthorizeException,
             IOException, SQLException
     {
-        // Check authorisation
+        // Check authorisation before receiving the bits, an unauthorised
+        // caller mustn't be able to fill the spool
         AuthorizeManager.authorizeAction(context, bundle, Constants.ADD);
 
-        Bitstream b = bitstreamService.create(context, is);
+        return createBitstream(context, bundle, BitstreamStorageManager.stage(is));
+    }
+
+    /**
+     * Create a new bitstream in this bundle, for bits staged by
+     * {@link BitstreamStorageManager#stage}.
+     *
+     * @param staged
+     *            the bits of the bitstream, removed from the spool in any case
+     * @return the newly created bitstream
+     * @throws AuthorizeException
+     * @throws IOException
+     * @throws SQLException
+     */
+    public Bitstream createBitstream(Context context, Bundle bundle, StagedBitstream staged) throws AuthorizeException,
+            IOException, SQLException
+    {
+        Bitstream b;
+        try
+        {
+            // Check authorisation
+            AuthorizeManager.authorizeAction(context, bundle, Constants.ADD);
+
+            b = bitstreamService.create(context, staged);
+        }
+        finally
+        {
+            staged.discard();
+        }
 
         // FIXME: Set permissions for bitstream
         addBitstream(context, bundle, b);
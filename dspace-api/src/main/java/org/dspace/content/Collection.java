@@ -9,6 +9,10 @@ import org.dspace.factory.DSpaceServiceFactory;
 import org.dspace.handle.HandleServiceImpl;
 import org.dspace.handle.service.HandleService;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.FetchProfile;
+
 import javax.persistence.*;
 import java.io.IOException;
 import java.io.InputStream;
@@ -22,12 +26,23 @@ import java.util.*;
  */
 @Entity
 @Table(name="collection")
+@BatchSize(size = 50)
+@FetchProfile(name = Collection.FETCH_PROFILE_LISTING, fetchOverrides = {
+        @FetchProfile.FetchOverride(entity = Collection.class, association = "logo", mode = FetchMode.JOIN),
+        @FetchProfile.FetchOverride(entity = Collection.class, association = "communities", mode = FetchMode.JOIN)
+})
 public class Collection extends DSpaceObject {
 
+    /**
+     * Fetch profile for collection listings (e.g. the collections of a community): the logo and the
+     * parent communities are loaded together with the collection.
+     */
+    public static final String FETCH_PROFILE_LISTING = "collection-listing";
+
     @Id
     @Column(name="collection_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="collection_seq")
-    @SequenceGenerator(name="collection_seq", sequenceName="collection_seq")
+    @SequenceGenerator(name="collection_seq", sequenceName="collection_seq", allocationSize = 1)
     private Integer id;
 
     @OneToOne
@@ -90,6 +105,7 @@ public class Collection extends DSpaceObject {
             joinColumns = {@JoinColumn(name = "collection_id") },
             inverseJoinColumns = {@JoinColumn(name = "community_id") }
     )
+    @BatchSize(size = 50)
     private List<Community> communities = new ArrayList<Community>();
 
 
@@ -922,9 +922,7 @@ public class CollectionServiceImpl extends DSpaceObjectServiceImpl<Collection> i
     public List<Collection> findAuthorized(Context context, Community comm,
             int actionID) throws java.sql.SQLException
     {
-        List<Collection> myResults = new ArrayList<Collection>();
-
-        java.util.Collection<Collection> myCollections = null;
+        List<Collection> myCollections = null;
 
         if (comm != null)
         {
@@ -935,14 +933,9 @@ public class CollectionServiceImpl extends DSpaceObjectServiceImpl<Collection> i
             myCollections = findAll(context);
         }
 
-        // now build a list of collections you have authorization for
-        for (Collection myCollection : myCollections) {
-            if (AuthorizeManager.authorizeActionBoolean(context,
-                    myCollection, actionID)) {
-                myResults.add(myCollection);
-            }
-        }
-        return myResults;
+        // now build a list of collections you have authorization for,
+        // checking all of them at once
+        return AuthorizeManager.filterAuthorized(context, myCollections, actionID);
     }
 
 	/**
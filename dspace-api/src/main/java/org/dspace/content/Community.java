@@ -9,6 +9,10 @@ import org.dspace.factory.DSpaceServiceFactory;
 import org.dspace.handle.HandleServiceImpl;
 import org.dspace.handle.service.HandleService;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,12 +28,14 @@ import java.util.MissingResourceException;
  */
 @Entity
 @Table(name="community")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Community extends DSpaceObject{
 
     @Id
     @Column(name="community_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="community_seq")
-    @SequenceGenerator(name="community_seq", sequenceName="community_seq")
+    @SequenceGenerator(name="community_seq", sequenceName="community_seq", allocationSize = 1)
     private Integer id;
 
     @ManyToMany(fetch = FetchType.LAZY)
@@ -38,12 +44,15 @@ public class Community extends DSpaceObject{
             joinColumns = {@JoinColumn(name = "parent_comm_id") },
             inverseJoinColumns = {@JoinColumn(name = "child_comm_id") }
     )
+    @BatchSize(size = 50)
     private List<Community> parentCommunities;
 
     @ManyToMany(fetch = FetchType.LAZY, mappedBy = "parentCommunities")
+    @BatchSize(size = 50)
     private List<Community> subCommunities = new ArrayList<Community>();
 
     @ManyToMany(fetch = FetchType.LAZY, mappedBy = "communities")
+    @BatchSize(size = 50)
     private List<Collection> collections = new ArrayList<Collection>();
 
     @Column(name = "name")
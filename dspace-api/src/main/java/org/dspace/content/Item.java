@@ -7,7 +7,11 @@ import org.dspace.eperson.EPerson;
 import org.dspace.factory.DSpaceServiceFactory;
 import org.dspace.handle.HandleServiceImpl;
 import org.dspace.handle.service.HandleService;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CollectionId;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.FetchProfile;
+import org.hibernate.annotations.FetchProfiles;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
@@ -21,6 +25,15 @@ import java.util.*;
  */
 @Entity
 @Table(name="item")
+@FetchProfiles({
+        @FetchProfile(name = Item.FETCH_PROFILE_FULL, fetchOverrides = {
+                @FetchProfile.FetchOverride(entity = Item.class, association = "bundles", mode = FetchMode.JOIN),
+                @FetchProfile.FetchOverride(entity = Bitstream.class, association = "bitstreamFormat", mode = FetchMode.JOIN)
+        }),
+        @FetchProfile(name = Item.FETCH_PROFILE_SUMMARY, fetchOverrides = {
+                @FetchProfile.FetchOverride(entity = Item.class, association = "metadata", mode = FetchMode.JOIN)
+        })
+})
 public class Item extends DSpaceObject{
 
     /**
@@ -29,10 +42,23 @@ public class Item extends DSpaceObject{
     //TODO: move to item service ?
     public static final String ANY = "*";
 
+    /**
+     * Fetch profile for rendering a full item page: the bundles are loaded together with the item,
+     * the bitstreams of all bundles by one batched select (see Bundle.bitstreams) with their formats.
+     * Joining the bitstreams as well would return every bundle once per bitstream, as the bundles
+     * are a bag. For the same reason the metadata is loaded by its own (batched) select.
+     */
+    public static final String FETCH_PROFILE_FULL = "item-full";
+
+    /**
+     * Fetch profile for item lists and search results: the metadata is loaded together with the item.
+     */
+    public static final String FETCH_PROFILE_SUMMARY = "item-summary";
+
     @Id
     @Column(name="item_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="item_seq")
-    @SequenceGenerator(name="item_seq", sequenceName="item_seq")
+    @SequenceGenerator(name="item_seq", sequenceName="item_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name= "in_archive")
@@ -66,14 +92,17 @@ public class Item extends DSpaceObject{
             inverseJoinColumns = {@JoinColumn(name = "collection_id") }
     )
     @SequenceGenerator(name="collection2item_seq", sequenceName="collection2item_seq", allocationSize = 1)
+    @BatchSize(size = 50)
     private List<Collection> collections = new ArrayList<Collection>();
 
-    @ManyToMany(fetch = FetchType.LAZY, mappedBy = "items")
+    @ManyToMany(fetch = FetchType.LAZY, mappedBy = "items", cascade = {CascadeType.DETACH})
+    @BatchSize(size = 50)
     private List<Bundle> bundles = new ArrayList<Bundle>();
 
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "item", cascade = {CascadeType.ALL}, orphanRemoval=true)
     @OrderBy("metadataField, place")
+    @BatchSize(size = 50)
     private List<MetadataValue> metadata = new ArrayList<MetadataValue>();
 
     @Transient
@@ -98,6 +127,14 @@ public class Item extends DSpaceObject{
     @Transient
     private boolean modified = false;
 
+    /**
+     * Index over the metadata values, built on first lookup and kept in sync
+     * by the add/remove methods below. A value moved to another field drops it,
+     * see <code>metadataValueChanged</code>.
+     */
+    @Transient
+    private transient ItemMetadataIndex metadataIndex = null;
+
 
 
 
@@ -291,29 +328,96 @@ public class Item extends DSpaceObject{
         return collections;
     }
 
+    /**
+     * Get all metadata values of this item. The list can not be modified,
+     * use the <code>ItemService</code> to add or clear metadata.
+     *
+     * @return the metadata values, ordered by field and place
+     */
     public List<MetadataValue> getMetadata() {
-        return metadata;
+        return Collections.unmodifiableList(metadata);
     }
 
     void removeMetadata(MetadataValue metadataValue)
     {
         dublinCoreChanged = true;
         this.metadata.remove(metadataValue);
+        if (metadataIndex != null)
+        {
+            metadataIndex.remove(metadataValue);
+        }
     }
 
     void removeMetadata(List<MetadataValue> metadataValues)
     {
         dublinCoreChanged = true;
-        this.metadata.removeAll(metadataValues);
+        this.metadata.removeAll(new HashSet<MetadataValue>(metadataValues));
+        if (metadataIndex != null)
+        {
+            for (MetadataValue metadataValue : metadataValues)
+            {
+                metadataIndex.remove(metadataValue);
+            }
+        }
     }
 
 
     void addMetadata(MetadataValue metadataValue) {
         dublinCoreChanged = true;
         this.metadata.add(metadataValue);
+        if (metadataIndex != null)
+        {
+            metadataIndex.add(metadataValue);
+        }
         addDetails(metadataValue.getMetadataField().toString());
     }
 
+    void addMetadata(List<MetadataValue> metadataValues) {
+        dublinCoreChanged = true;
+        this.metadata.addAll(metadataValues);
+        String previousField = null;
+        for (MetadataValue metadataValue : metadataValues)
+        {
+            if (metadataIndex != null)
+            {
+                metadataIndex.add(metadataValue);
+            }
+            // Values added in one call usually share their field, only record it once
+            String field = metadataValue.getMetadataField().toString();
+            if (!field.equals(previousField))
+            {
+                addDetails(field);
+                previousField = field;
+            }
+        }
+    }
+
+    /**
+     * Called by a metadata value of this item when its field changes, the
+     * index files the values by field so it has to be rebuilt. The language,
+     * text and authority of a value are read from the value itself.
+     */
+    void metadataValueChanged()
+    {
+        metadataIndex = null;
+    }
+
+    /**
+     * Get the index over the metadata values of this item, building it on the
+     * first call. The index is rebuilt if the metadata list was replaced or
+     * changed behind its back (e.g. by a session refresh).
+     *
+     * @return the metadata index
+     */
+    ItemMetadataIndex getMetadataIndex()
+    {
+        if (metadataIndex == null || !metadataIndex.isOver(metadata) || metadataIndex.size() != metadata.size())
+        {
+            metadataIndex = new ItemMetadataIndex(metadata);
+        }
+        return metadataIndex;
+    }
+
 
     public List<Bundle> getBundles() {
         return bundles;
@@ -0,0 +1,232 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index over the metadata values of a single item. Values are grouped
+ * in buckets per metadata field, and the fields are indexed by
+ * "schema.element" so that a lookup only has to visit the buckets of the fields
+ * that can match instead of every value of the item.
+ * <P>
+ * The schema name, element and qualifier of a field are resolved once when its
+ * bucket is created, so lookups never dereference the lazy
+ * <code>MetadataField</code> / <code>MetadataSchema</code> proxies.
+ * <P>
+ * The ordering of the values inside a bucket is the ordering of the item's
+ * metadata list, buckets are returned in the order their field was first seen.
+ */
+class ItemMetadataIndex
+{
+    /** Values per metadata field id, in item order */
+    private final Map<Integer, FieldBucket> buckets = new LinkedHashMap<Integer, FieldBucket>();
+
+    /** Field ids per "schema.element" key */
+    private final Map<String, List<Integer>> fieldsByElement = new HashMap<String, List<Integer>>();
+
+    /** Total number of indexed values */
+    private int size = 0;
+
+    /** The metadata list the index was built from */
+    private final List<MetadataValue> source;
+
+    ItemMetadataIndex(List<MetadataValue> metadataValues)
+    {
+        this.source = metadataValues;
+        for (MetadataValue metadataValue : metadataValues)
+        {
+            add(metadataValue);
+        }
+    }
+
+    /**
+     * @param metadataValues the metadata list of the item
+     * @return true if the index was built from that list, Hibernate replaces
+     *         the list when it reloads the item
+     */
+    boolean isOver(List<MetadataValue> metadataValues)
+    {
+        return source == metadataValues;
+    }
+
+    /**
+     * @return the number of values in the index, used to detect an index that
+     *         is out of sync with the item metadata list
+     */
+    int size()
+    {
+        return size;
+    }
+
+    void add(MetadataValue metadataValue)
+    {
+        MetadataField metadataField = metadataValue.getMetadataField();
+        FieldBucket bucket = buckets.get(metadataField.getFieldID());
+        if (bucket == null)
+        {
+            bucket = new FieldBucket(metadataField);
+            buckets.put(metadataField.getFieldID(), bucket);
+
+            String key = elementKey(bucket.schema, bucket.element);
+            List<Integer> fieldIds = fieldsByElement.get(key);
+            if (fieldIds == null)
+            {
+                fieldIds = new ArrayList<Integer>(2);
+                fieldsByElement.put(key, fieldIds);
+            }
+            fieldIds.add(metadataField.getFieldID());
+        }
+        bucket.values.add(metadataValue);
+        size++;
+    }
+
+    void remove(MetadataValue metadataValue)
+    {
+        MetadataField metadataField = metadataValue.getMetadataField();
+        FieldBucket bucket = buckets.get(metadataField.getFieldID());
+        if (bucket != null && bucket.values.remove(metadataValue))
+        {
+            size--;
+        }
+    }
+
+    /**
+     * Number of values of a given field, regardless of their language.
+     *
+     * @param metadataField the field
+     * @return the number of values
+     */
+    int count(MetadataField metadataField)
+    {
+        FieldBucket bucket = buckets.get(metadataField.getFieldID());
+        return bucket == null ? 0 : bucket.values.size();
+    }
+
+    /**
+     * Values of a given field, optionally filtered on language.
+     *
+     * @param metadataField the field
+     * @param lang the language, <code>null</code> for no language or
+     *             <code>Item.ANY</code> for all languages
+     * @return the matching values, never <code>null</code>
+     */
+    List<MetadataValue> get(MetadataField metadataField, String lang)
+    {
+        List<MetadataValue> result = new ArrayList<MetadataValue>();
+        FieldBucket bucket = buckets.get(metadataField.getFieldID());
+        if (bucket != null)
+        {
+            bucket.collect(lang, result);
+        }
+        return result;
+    }
+
+    /**
+     * Values matching a schema/element/qualifier/language combination, with the
+     * same wildcard semantics as <code>ItemService.getMetadata</code>.
+     *
+     * @return the matching values, never <code>null</code>
+     */
+    List<MetadataValue> get(String schema, String element, String qualifier, String lang)
+    {
+        List<MetadataValue> result = new ArrayList<MetadataValue>();
+        if (Item.ANY.equals(schema) || Item.ANY.equals(element))
+        {
+            // Wildcard on the key itself: decide per field, not per value
+            for (FieldBucket bucket : buckets.values())
+            {
+                if (bucket.matches(schema, element, qualifier))
+                {
+                    bucket.collect(lang, result);
+                }
+            }
+        }
+        else
+        {
+            List<Integer> fieldIds = fieldsByElement.get(elementKey(schema, element));
+            if (fieldIds == null)
+            {
+                return result;
+            }
+            for (Integer fieldId : fieldIds)
+            {
+                FieldBucket bucket = buckets.get(fieldId);
+                if (bucket.matches(schema, element, qualifier))
+                {
+                    bucket.collect(lang, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String elementKey(String schema, String element)
+    {
+        return schema + "." + element;
+    }
+
+    /**
+     * The values of one metadata field, together with the resolved names of that field.
+     */
+    private static class FieldBucket
+    {
+        private final String schema;
+        private final String element;
+        private final String qualifier;
+        private final List<MetadataValue> values = new ArrayList<MetadataValue>();
+
+        FieldBucket(MetadataField metadataField)
+        {
+            MetadataSchema metadataSchema = metadataField.getMetadataSchema();
+            this.schema = metadataSchema == null ? null : metadataSchema.getName();
+            this.element = metadataField.getElement();
+            this.qualifier = metadataField.getQualifier();
+        }
+
+        boolean matches(String schema, String element, String qualifier)
+        {
+            if (!Item.ANY.equals(element) && !element.equals(this.element))
+            {
+                return false;
+            }
+            if (qualifier == null)
+            {
+                if (this.qualifier != null)
+                {
+                    return false;
+                }
+            }
+            else if (!Item.ANY.equals(qualifier) && !qualifier.equals(this.qualifier))
+            {
+                return false;
+            }
+            return Item.ANY.equals(schema) || this.schema == null || schema.equals(this.schema);
+        }
+
+        void collect(String lang, List<MetadataValue> result)
+        {
+            if (Item.ANY.equals(lang))
+            {
+                result.addAll(values);
+                return;
+            }
+            for (MetadataValue value : values)
+            {
+                if (lang == null ? value.getLanguage() == null : lang.equals(value.getLanguage()))
+                {
+                    result.add(value);
+                }
+            }
+        }
+    }
+}
@@ -27,6 +27,8 @@ import org.dspace.content.authority.Choices;
 import org.dspace.content.authority.ChoiceAuthorityManager;
 import org.dspace.content.authority.MetadataAuthorityManager;
 import org.dspace.event.Event;
+import org.dspace.storage.bitstore.BitstreamStorageManager;
+import org.dspace.storage.bitstore.StagedBitstream;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
 import org.dspace.handle.service.HandleService;
@@ -228,7 +230,7 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
 
     public List<MetadataValue> getMetadata(Item item, MetadataField metadataField, String lang)
     {
-        return getMetadata(item, metadataField.getMetadataSchema().getName(), metadataField.getElement(), metadataField.getQualifier(), lang);
+        return item.getMetadataIndex().get(metadataField, lang);
     }
 
     /**
@@ -279,18 +281,8 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
      */
     public List<MetadataValue> getMetadata(Item item, String schema, String element, String qualifier, String lang)
     {
-        // Build up list of matching values
-        List<MetadataValue> values = new ArrayList<MetadataValue>();
-        for (MetadataValue dcv : item.getMetadata())
-        {
-            if (match(schema, element, qualifier, lang, dcv))
-            {
-                values.add(dcv);
-            }
-        }
-
-        // Create an array of matching values
-        return values;
+        // Only the buckets of the fields that can match are visited
+        return item.getMetadataIndex().get(schema, element, qualifier, lang);
     }
     
     /**
@@ -363,14 +355,14 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
         {
             List<String> authorities = new ArrayList<String>();
             List<Integer> confidences = new ArrayList<Integer>();
+            Collection owningCollection = item.getOwningCollection();
+            int collectionId = -1;
+            if(owningCollection != null)
+            {
+                collectionId = owningCollection.getID();
+            }
             for (int i = 0; i < values.size(); ++i)
             {
-                Collection owningCollection = item.getOwningCollection();
-                int collectionId = -1;
-                if(owningCollection != null)
-                {
-                    collectionId = owningCollection.getID();
-                }
                 Choices c = ChoiceAuthorityManager.getManager().getBestMatch(fieldKey, values.get(i), collectionId, null);
                 authorities.add(c.values.length > 0 ? c.values[0].authority : null);
                 confidences.add(c.confidence);
@@ -428,25 +420,31 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     @Override
     public void addMetadata(Context context, Item item, MetadataField metadataField, String lang, List<String> values, List<String> authorities, List<Integer> confidences) throws SQLException
     {
+        if(metadataField == null)
+        {
+            throw new SQLException("Metadata field cannot be null");
+        }
+        // The authority settings and the current number of values only depend on the field,
+        // look them up once for the whole list instead of once per value
+        MetadataAuthorityManager mam = MetadataAuthorityManager.getManager();
+        boolean authorityControlled = mam.isAuthorityControlled(metadataField);
+        boolean authorityRequired = mam.isAuthorityRequired(metadataField);
+        int place = item.getMetadataIndex().count(metadataField);
+        String language = lang == null ? null : lang.trim();
+
+        List<MetadataValue> metadataValues = new ArrayList<MetadataValue>(values.size());
         for (int i = 0; i < values.size(); i++)
         {
             String value = values.get(i);
-            if(metadataField == null)
-            {
-                throw new SQLException("Metadata field cannot be null");
-            }
             if (value == null) {
                 //Do not allow "null" values in our metadata
-                return;
+                break;
             }
-            MetadataAuthorityManager mam = MetadataAuthorityManager.getManager();
-            boolean authorityControlled = mam.isAuthorityControlled(metadataField);
-            boolean authorityRequired = mam.isAuthorityRequired(metadataField);
-
-            MetadataValue metadataValue = metadataValueService.create(context, item, metadataField);
-
 
-            metadataValue.setLanguage(lang == null ? null : lang.trim());
+            MetadataValue metadataValue = new MetadataValue();
+            metadataValue.setMetadataField(metadataField);
+            metadataValue.setItem(item);
+            metadataValue.setLanguage(language);
 
             // Logic to set Authority and Confidence:
             //  - normalize an empty string for authority to NULL.
@@ -465,7 +463,7 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
                 // authority sanity check: if authority is required, was it supplied?
                 // XXX FIXME? can't throw a "real" exception here without changing all the callers to expect it, so use a runtime exception
                 if (authorityRequired && (metadataValue.getAuthority() == null || metadataValue.getAuthority().length() == 0)) {
-                    throw new IllegalArgumentException("The metadata field \"" + metadataValue.getMetadataField().toString() + "\" requires an authority key but none was provided. Vaue=\"" + metadataValue.getValue() + "\"");
+                    throw new IllegalArgumentException("The metadata field \"" + metadataField.toString() + "\" requires an authority key but none was provided. Vaue=\"" + value + "\"");
                 }
             }
             // remove control unicode char
@@ -481,12 +479,18 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
             }
             metadataValue.setValue(String.valueOf(dcvalue));
             //Set the place to be the next place in the line
-            metadataValue.setPlace(getMetadata(item, metadataField, Item.ANY).size() + 1);
-            item.addMetadata(metadataValue);
-            metadataValueService.update(context, metadataValue);
+            metadataValue.setPlace(++place);
+            metadataValues.add(metadataValue);
         }
-    }
 
+        if (metadataValues.isEmpty())
+        {
+            return;
+        }
+        // Persist all new rows together, they are flushed to the database as one JDBC batch
+        metadataValueService.create(context, metadataValues);
+        item.addMetadata(metadataValues);
+    }
 
     /**
      * Add a single metadata field. This is appended to existing
@@ -566,14 +570,15 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
      */
     public void clearMetadata(Context context, Item item, String schema, String element, String qualifier,
             String lang) throws SQLException {
-        Iterator<MetadataValue> metadata = item.getMetadata().iterator();
-        while (metadata.hasNext()) {
-            MetadataValue metadataValue = metadata.next();
-            if (match(schema, element, qualifier, lang, metadataValue))
-            {
-                metadata.remove();
-                metadataValueService.delete(context, metadataValue);
-            }
+        List<MetadataValue> values = getMetadata(item, schema, element, qualifier, lang);
+        if (values.isEmpty())
+        {
+            return;
+        }
+        item.removeMetadata(values);
+        for (MetadataValue metadataValue : values)
+        {
+            metadataValueService.delete(context, metadataValue);
         }
     }
 
@@ -818,6 +823,11 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     /**
      * Create a single bitstream in a new bundle. Provided as a convenience
      * method for the most common use.
+     * <P>
+     * Authorisation is checked before the bits are read, so the bits are
+     * spooled within the transaction of the context. A caller receiving a
+     * large upload stages it with {@link BitstreamStorageManager#stage} before
+     * using the context, and passes the staged bits instead.
      *
      * @param is
      *            the stream to create the new bitstream from
@@ -831,11 +841,42 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     public Bitstream createSingleBitstream(Context context, Item item, InputStream is, String name)
             throws AuthorizeException, IOException, SQLException
     {
-        // Authorisation is checked by methods below
-        // Create a bundle
-        Bundle bnd = createBundle(context, item, name);
-        Bitstream bitstream = bundleService.createBitstream(context, bnd, is);
-        addBundle(context, item, bnd);
+        // Check authorisation before receiving the bits, an unauthorised
+        // caller mustn't be able to fill the spool
+        AuthorizeManager.authorizeAction(context, item, Constants.ADD);
+
+        return createSingleBitstream(context, item, BitstreamStorageManager.stage(is), name);
+    }
+
+    /**
+     * Create a single bitstream in a new bundle, for bits staged by
+     * {@link BitstreamStorageManager#stage}.
+     *
+     * @param staged
+     *            the bits of the bitstream, removed from the spool in any case
+     * @param name
+     *            is the name of the bundle (ORIGINAL, TEXT, THUMBNAIL)
+     * @return Bitstream that is created
+     * @throws AuthorizeException
+     * @throws IOException
+     * @throws SQLException
+     */
+    public Bitstream createSingleBitstream(Context context, Item item, StagedBitstream staged, String name)
+            throws AuthorizeException, IOException, SQLException
+    {
+        Bitstream bitstream;
+        try
+        {
+            // Authorisation is checked by methods below
+            // Create a bundle
+            Bundle bnd = createBundle(context, item, name);
+            bitstream = bundleService.createBitstream(context, bnd, staged);
+            addBundle(context, item, bnd);
+        }
+        finally
+        {
+            staged.discard();
+        }
 
         // FIXME: Create permissions for new bundle + bitstream
         return bitstream;
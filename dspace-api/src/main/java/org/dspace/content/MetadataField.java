@@ -1,5 +1,8 @@
 package org.dspace.content;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 
 /**
@@ -9,12 +12,14 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name="metadatafieldregistry", schema = "public")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class MetadataField {
 
     @Id
     @Column(name="metadata_field_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="metadatafieldregistry_seq")
-    @SequenceGenerator(name="metadatafieldregistry_seq", sequenceName="metadatafieldregistry_seq")
+    @SequenceGenerator(name="metadatafieldregistry_seq", sequenceName="metadatafieldregistry_seq", allocationSize = 1)
     private Integer id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -1,5 +1,8 @@
 package org.dspace.content;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 
 /**
@@ -9,6 +12,8 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name="metadataschemaregistry")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class MetadataSchema {
 
     /** Short Name of built-in Dublin Core schema. */
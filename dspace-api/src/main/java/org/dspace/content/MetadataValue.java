@@ -37,7 +37,7 @@ public class MetadataValue
     @Id
     @Column(name="metadata_value_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="metadatavalue_seq")
-    @SequenceGenerator(name="metadatavalue_seq", sequenceName="metadatavalue_seq")
+    @SequenceGenerator(name="metadatavalue_seq", sequenceName="metadatavalue_seq", allocationSize = 50)
     private int fieldId;
 
     /** The primary key for the metadata value */
@@ -167,6 +167,11 @@ public class MetadataValue
     }
 
     public void setMetadataField(MetadataField metadataField) {
+        if (item != null && this.metadataField != metadataField)
+        {
+            // the value moves to another field in the index of the item
+            item.metadataValueChanged();
+        }
         this.metadataField = metadataField;
     }
 
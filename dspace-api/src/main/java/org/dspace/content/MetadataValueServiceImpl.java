@@ -43,6 +43,23 @@ public class MetadataValueServiceImpl implements MetadataValueService {
         return metadataValue;
     }
 
+    /**
+     * Creates a batch of new metadata values, which must already have their item and field set.
+     * The rows are inserted together when the session is flushed.
+     *
+     * @param context
+     *            DSpace context object
+     * @param metadataValues
+     *            the new metadata values
+     * @throws SQLException
+     */
+    public void create(Context context, List<MetadataValue> metadataValues) throws SQLException {
+        metadataValueDAO.saveAll(context, metadataValues);
+
+        log.info(LogManager.getHeader(context, "create_metadatavalues",
+                "count=" + metadataValues.size()));
+    }
+
     /**
      * Retrieves the metadata value from the database.
      *
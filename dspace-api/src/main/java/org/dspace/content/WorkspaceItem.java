@@ -22,7 +22,7 @@ public class WorkspaceItem implements InProgressSubmission{
     @Id
     @Column(name = "workspace_item_id", unique = true, nullable = false)
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="workspace_item_seq")
-    @SequenceGenerator(name="workspace_item_seq", sequenceName="workspace_item_seq")
+    @SequenceGenerator(name="workspace_item_seq", sequenceName="workspace_item_seq", allocationSize = 1)
     private int workspaceItemId;
 
     /** The item this workspace object pertains to */
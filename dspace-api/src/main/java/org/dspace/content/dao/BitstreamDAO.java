@@ -16,8 +16,12 @@ public interface BitstreamDAO extends GenericDAO<Bitstream> {
 
     public List<Bitstream> findDeletedBitstreams(Context context) throws SQLException;
 
+    public List<Bitstream> findDeletedBitstreams(Context context, int afterBitstreamId, int limit) throws SQLException;
+
     public List<Bitstream> findDuplicateInternalIdentifier(Context context, Bitstream bitstream) throws SQLException;
 
+    public int countReferences(Context context, int storeNumber, String internalId) throws SQLException;
+
     public List<Bitstream> findBitstreamsWithNoRecentChecksum(Context context) throws SQLException;
 
 }
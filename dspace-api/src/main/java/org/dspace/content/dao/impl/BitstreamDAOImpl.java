@@ -7,6 +7,7 @@ import org.dspace.core.Context;
 import org.dspace.dao.AbstractHibernateDAO;
 import org.hibernate.Criteria;
 import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.criterion.Subqueries;
 
@@ -28,6 +29,18 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
 
     }
 
+    public List<Bitstream> findDeletedBitstreams(Context context, int afterBitstreamId, int limit) throws SQLException {
+        Criteria criteria = createCriteria(context, Bitstream.class);
+        criteria.add(Restrictions.and(
+                Restrictions.eq("deleted", true),
+                Restrictions.gt("id", afterBitstreamId)
+        ));
+        criteria.addOrder(Order.asc("id"));
+        criteria.setMaxResults(limit);
+
+        return list(criteria);
+    }
+
     public List<Bitstream> findDuplicateInternalIdentifier(Context context, Bitstream bitstream) throws SQLException {
         Criteria criteria = createCriteria(context, Bitstream.class);
         criteria.add(Restrictions.and(
@@ -38,6 +51,17 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
         return list(criteria);
     }
 
+    public int countReferences(Context context, int storeNumber, String internalId) throws SQLException {
+        Criteria criteria = createCriteria(context, Bitstream.class);
+        criteria.add(Restrictions.and(
+                Restrictions.eq("internalId", internalId),
+                Restrictions.eq("storeNumber", storeNumber),
+                Restrictions.eq("deleted", false)
+        ));
+
+        return count(criteria);
+    }
+
     @Override
     public List<Bitstream> findBitstreamsWithNoRecentChecksum(Context context) throws SQLException {
 //        "select bitstream.deleted, bitstream.store_number, bitstream.size_bytes, "
@@ -19,6 +19,9 @@ import java.util.List;
  */
 public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat> implements BitstreamFormatDAO {
 
+    /** Second-level query cache region for the format lookups */
+    protected static final String QUERY_CACHE_REGION = BitstreamFormatDAO.class.getName();
+
     /**
      * Find a bitstream format by its (unique) MIME type.
      * If more than one bitstream format has the same MIME type, the
@@ -42,6 +45,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
                 Restrictions.eq("internal", false),
                 Restrictions.like("mimetype", mimeType)
         ));
+        criteria.setCacheable(true).setCacheRegion(QUERY_CACHE_REGION);
 
         return uniqueResult(criteria);
     }
@@ -65,6 +69,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
         criteria.add(Restrictions.and(
                 Restrictions.eq("short_description", desc)
         ));
+        criteria.setCacheable(true).setCacheRegion(QUERY_CACHE_REGION);
 
         return uniqueResult(criteria);
     }
@@ -59,7 +59,7 @@ public class CollectionDAOImpl extends AbstractHibernateDAO<Collection> implemen
     public Iterator<Item> getItems(Context context, Collection collection, boolean inArchive, Integer limit, Integer offset) throws SQLException{
         Query query = createQuery(context, "select i from Item i join i.collections c WHERE :collection IN c AND i.inArchive=:in_archive");
         query.setParameter("collection", collection);
-        query.setParameter("in_archive", true);
+        query.setParameter("in_archive", inArchive);
         if(offset != null)
         {
             query.setFirstResult(offset);
@@ -68,18 +68,13 @@ public class CollectionDAOImpl extends AbstractHibernateDAO<Collection> implemen
         {
             query.setMaxResults(limit);
         }
-        @SuppressWarnings("unchecked")
-        Iterator<Item> iterator = query.iterate();
-        return iterator;
+        return scroll(context, query);
     }
 
     public Iterator<Item> getAllItems(Context context, Collection collection) throws SQLException {
         Query query = createQuery(context, "select i from Item i join i.collections c WHERE :collection IN c");
         query.setParameter("collection", collection);
-
-        @SuppressWarnings("unchecked")
-        Iterator<Item> iterator = query.iterate();
-        return iterator;
+        return scroll(context, query);
     }
 
     public Collection findByTemplateItem(Context context, Item item) throws SQLException {
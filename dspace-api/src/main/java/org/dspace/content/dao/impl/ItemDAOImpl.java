@@ -24,7 +24,7 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
     {
         Query query = createQuery(context, "FROM Item WHERE inArchive= :in_archive");
         query.setParameter("in_archive", archived);
-        return iterate(query);
+        return scroll(context, query);
     }
 
     public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn) throws SQLException
@@ -32,14 +32,14 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
         Query query = createQuery(context, "FROM Item WHERE inArchive= :in_archive or withdrawn = :withdrawn");
         query.setParameter("in_archive", archived);
         query.setParameter("withdrawn", withdrawn);
-        return iterate(query);
+        return scroll(context, query);
     }
 
     public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException {
         Query query = createQuery(context, "FROM Item WHERE inArchive= :in_archive and submitter= :submitter");
         query.setParameter("in_archive", true);
         query.setParameter("submitter", eperson);
-        return iterate(query);
+        return scroll(context, query);
     }
 
     public Iterator<Item> findByMetadataField(Context context, MetadataField metadataField, String value, boolean inArchive) throws SQLException {
@@ -56,7 +56,7 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
         {
             query.setParameter("text_value", value);
         }
-        return iterate(query);
+        return scroll(context, query);
     }
 
     public Iterator<Item> findByAuthorityValue(Context context, MetadataField metadataField, String authority, boolean inArchive) throws SQLException {
@@ -64,7 +64,7 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
         query.setParameter("in_archive", inArchive);
         query.setParameter("metadata_field", metadataField);
         query.setParameter("authority", authority);
-        return iterate(query);
+        return scroll(context, query);
     }
 
 }
@@ -21,6 +21,9 @@ import java.util.List;
  */
 public class MetadataFieldDAOImpl extends AbstractHibernateDAO<MetadataField> implements MetadataFieldDAO {
 
+    /** Second-level query cache region for the field lookups */
+    protected static final String QUERY_CACHE_REGION = MetadataFieldDAO.class.getName();
+
     public MetadataField find(Context context, int metadataFieldId, MetadataSchema metadataSchema, String element,
                            String qualifier) throws SQLException{
         Criteria criteria = createCriteria(context, MetadataField.class);
@@ -45,6 +48,7 @@ public class MetadataFieldDAOImpl extends AbstractHibernateDAO<MetadataField> im
                         Restrictions.eqOrIsNull("qualifier", qualifier)
                 )
         );
+        criteria.setCacheable(true).setCacheRegion(QUERY_CACHE_REGION);
         return uniqueResult(criteria);
     }
 
@@ -53,6 +57,7 @@ public class MetadataFieldDAOImpl extends AbstractHibernateDAO<MetadataField> im
         Criteria criteria = createCriteria(context, MetadataField.class);
         criteria.add(Restrictions.eq("metadataSchema.name", schema));
         criteria.addOrder(Order.asc("element")).addOrder(Order.asc("qualifier"));
+        criteria.setCacheable(true).setCacheRegion(QUERY_CACHE_REGION);
         return list(criteria);
     }
 
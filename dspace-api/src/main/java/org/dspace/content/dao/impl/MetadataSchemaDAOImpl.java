@@ -19,6 +19,9 @@ import java.util.List;
  */
 public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema> implements MetadataSchemaDAO {
 
+    /** Second-level query cache region for the schema lookups */
+    protected static final String QUERY_CACHE_REGION = MetadataSchemaDAO.class.getName();
+
 
     /**
      * Get the schema object corresponding to this namespace URI.
@@ -33,6 +36,7 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
         // Grab rows from DB
         Criteria criteria = createCriteria(context, MetadataSchema.class);
         criteria.add(Restrictions.eq("namespace", namespace));
+        criteria.setCacheable(true).setCacheRegion(QUERY_CACHE_REGION);
         return uniqueResult(criteria);
     }
 
@@ -100,6 +104,7 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
         criteria.add(
                 Restrictions.eq("name", shortName)
         );
+        criteria.setCacheable(true).setCacheRegion(QUERY_CACHE_REGION);
 
         return uniqueResult(criteria);
     }
@@ -3,6 +3,8 @@ package org.dspace.content.service;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.content.*;
 import org.dspace.core.Context;
+import org.dspace.storage.bitstore.BitStoreContent;
+import org.dspace.storage.bitstore.StagedBitstream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -23,12 +25,32 @@ public interface BitstreamService extends DSpaceObjectService<Bitstream> {
 
     public Bitstream create(Context context, InputStream is) throws IOException, SQLException, AuthorizeException;
 
+    public Bitstream create(Context context, StagedBitstream staged) throws IOException, SQLException, AuthorizeException;
+
     public Bitstream register(Context context, int assetstore, String bitstreamPath) throws IOException, SQLException, AuthorizeException;
 
+    public Bitstream clone(Context context, Bitstream bitstream) throws SQLException, AuthorizeException;
+
     public List<Bitstream> findDeletedBitstreams(Context context) throws SQLException;
 
+    /**
+     * Find a batch of the bitstreams marked deleted, in the order of their ids, so a walk over all of them
+     * can continue where the previous batch ended
+     *
+     * @param afterBitstreamId only bitstreams with a higher id are returned, -1 to start at the beginning
+     * @param limit the maximum number of bitstreams to return
+     */
+    public List<Bitstream> findDeletedBitstreams(Context context, int afterBitstreamId, int limit) throws SQLException;
+
     public List<Bitstream> findDuplicateInternalIdentifier(Context context, Bitstream bitstream) throws SQLException;
 
+    /**
+     * Count the bitstreams not marked deleted that reference the bits of the given bitstream, i.e. with the
+     * same internal id in the same asset store. Versions and content addressed stores share the bits of
+     * identical bitstreams, which may only be removed once this count drops to zero.
+     */
+    public int getReferenceCount(Context context, Bitstream bitstream) throws SQLException;
+
     public Iterator<Bitstream> findAllInCommunity(Context context, Community community);
 
     public Iterator<Bitstream> findAllInCollection(Context context, Collection collection);
@@ -43,8 +65,16 @@ public interface BitstreamService extends DSpaceObjectService<Bitstream> {
 
     public void delete(Context context, Bitstream bitstream) throws SQLException, AuthorizeException;
 
+    /**
+     * Remove the row of a bitstream marked deleted from the database, together with its checksums. The
+     * rows referencing it in other tables, e.g. its checksum records, must have been removed first.
+     */
+    public void expunge(Context context, Bitstream bitstream) throws SQLException;
+
     public InputStream retrieve(Context context, Bitstream bitstream) throws IOException, SQLException, AuthorizeException;
 
+    public BitStoreContent retrieve(Context context, Bitstream bitstream, long offset, long length) throws IOException, SQLException, AuthorizeException;
+
     public boolean isRegisteredBitstream(Bitstream bitstream);
 
     /**
@@ -6,6 +6,7 @@ import org.dspace.content.Bitstream;
 import org.dspace.content.Bundle;
 import org.dspace.content.Collection;
 import org.dspace.core.Context;
+import org.dspace.storage.bitstore.StagedBitstream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,6 +32,9 @@ public interface BundleService extends DSpaceObjectService<Bundle> {
     public Bitstream createBitstream(Context context, Bundle bundle, InputStream is) throws AuthorizeException,
                                     IOException, SQLException;
 
+    public Bitstream createBitstream(Context context, Bundle bundle, StagedBitstream staged) throws AuthorizeException,
+                                    IOException, SQLException;
+
     public Bitstream registerBitstream(Context context, Bundle bundle, int assetstore, String bitstreamPath)
         throws AuthorizeException, IOException, SQLException;
 
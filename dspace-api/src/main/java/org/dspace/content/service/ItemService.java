@@ -6,6 +6,7 @@ import org.dspace.content.*;
 import org.dspace.core.Context;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
+import org.dspace.storage.bitstore.StagedBitstream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -68,6 +69,8 @@ public interface ItemService extends DSpaceObjectService<Item> {
 
     public Bitstream createSingleBitstream(Context context, Item item, InputStream is, String name) throws AuthorizeException, IOException, SQLException;
 
+    public Bitstream createSingleBitstream(Context context, Item item, StagedBitstream staged, String name) throws AuthorizeException, IOException, SQLException;
+
     public Bitstream createSingleBitstream(Context context, Item item, InputStream is) throws AuthorizeException, IOException, SQLException;
 
     public List<Bitstream> getNonInternalBitstreams(Item item) throws SQLException;
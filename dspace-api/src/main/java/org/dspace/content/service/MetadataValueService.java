@@ -17,6 +17,8 @@ public interface MetadataValueService {
 
     public MetadataValue create(Context context, Item item, MetadataField metadataField) throws SQLException;
 
+    public void create(Context context, List<MetadataValue> metadataValues) throws SQLException;
+
     public MetadataValue find(Context context, int valueId) throws SQLException;
 
     public List<MetadataValue> findByField(Context context, int fieldId) throws SQLException;
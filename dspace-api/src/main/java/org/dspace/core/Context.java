@@ -7,10 +7,13 @@
  */
 package org.dspace.core;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.*;
 
 import org.apache.log4j.Logger;
+import org.dspace.authorize.AuthorizationCache;
 //import org.dspace.eperson.Group;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
@@ -20,6 +23,8 @@ import org.dspace.event.Event;
 import org.dspace.event.EventManager;
 import org.dspace.factory.DSpaceServiceFactory;
 import org.dspace.hibernate.HibernateUtil;
+import org.hibernate.CacheMode;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.springframework.util.CollectionUtils;
 
@@ -84,6 +89,21 @@ public class Context
     /** options */
     private short options = 0;
 
+    /** Default number of entities held in the session between bulk ingest checkpoints */
+    private static final int DEFAULT_BULK_INGEST_BATCH_SIZE = 500;
+
+    /** Number of entities held in the session before a bulk ingest checkpoint clears it, 0 if not in bulk ingest mode */
+    private int bulkIngestBatchSize = 0;
+
+    /** Names of the Hibernate fetch profiles enabled for this context */
+    private Set<String> fetchProfiles = new HashSet<String>();
+
+    /** Authorization decisions made for the current user */
+    private AuthorizationCache authorizationCache = new AuthorizationCache();
+
+    /** Database cursors still open on the session of this context */
+    private Set<Closeable> cursors = new LinkedHashSet<Closeable>();
+
     /**
      * Construct a new context object with default options. A database connection is opened.
      * No user is authenticated.
@@ -137,7 +157,166 @@ public class Context
      */
     public Session getDBConnection() throws SQLException {
         HibernateUtil.beginTransaction();
-        return HibernateUtil.getSession();
+        Session session = HibernateUtil.getSession();
+        // The session is replaced after an abort, keep the profiles of this context enabled on the new one
+        for (String fetchProfile : fetchProfiles)
+        {
+            if (!session.isFetchProfileEnabled(fetchProfile))
+            {
+                session.enableFetchProfile(fetchProfile);
+            }
+        }
+        return session;
+    }
+
+    /**
+     * Enable a Hibernate fetch profile, to load a known graph of associations together with the objects
+     * retrieved in this context instead of one lazy select per association. Available profiles are
+     * <code>Item.FETCH_PROFILE_FULL</code>, <code>Item.FETCH_PROFILE_SUMMARY</code> and
+     * <code>Collection.FETCH_PROFILE_LISTING</code>.
+     * Fetch profiles apply to objects retrieved by their identifier (the <code>find</code> methods).
+     *
+     * @param name
+     *            the name of the fetch profile
+     * @exception SQLException
+     *                if there was an error obtaining the database session
+     */
+    public void enableFetchProfile(String name) throws SQLException
+    {
+        fetchProfiles.add(name);
+        try
+        {
+            getDBConnection();
+        }
+        catch (HibernateException e)
+        {
+            // Unknown profile name
+            fetchProfiles.remove(name);
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Disable a fetch profile enabled by <code>enableFetchProfile</code>.
+     *
+     * @param name
+     *            the name of the fetch profile
+     * @exception SQLException
+     *                if there was an error obtaining the database session
+     */
+    public void disableFetchProfile(String name) throws SQLException
+    {
+        if (fetchProfiles.remove(name))
+        {
+            getDBConnection().disableFetchProfile(name);
+        }
+    }
+
+    /**
+     * @param name
+     *            the name of the fetch profile
+     * @return <code>true</code> if the fetch profile is enabled for this context
+     */
+    public boolean isFetchProfileEnabled(String name)
+    {
+        return fetchProfiles.contains(name);
+    }
+
+    /**
+     * Switch this context to bulk ingest mode, meant for imports that create a large number of objects in
+     * one context. Created entities are not put in the second-level cache, and every call to
+     * <code>bulkIngestCheckpoint</code> flushes and clears the session once it holds <code>batchSize</code>
+     * or more entities, so the memory use stays flat however many objects are imported. The inserts and
+     * updates themselves are sent as ordered JDBC batches (see hibernate.cfg.xml).
+     *
+     * @param batchSize
+     *            number of entities the session may hold before it is flushed and cleared, if not
+     *            positive <code>db.bulkingest.batchsize</code> from dspace.cfg is used
+     * @exception SQLException
+     *                if there was an error obtaining the database session
+     */
+    public void enableBulkIngest(int batchSize) throws SQLException
+    {
+        if (batchSize <= 0)
+        {
+            batchSize = ConfigurationManager.getIntProperty("db.bulkingest.batchsize", DEFAULT_BULK_INGEST_BATCH_SIZE);
+        }
+        bulkIngestBatchSize = batchSize;
+        getDBConnection().setCacheMode(CacheMode.IGNORE);
+    }
+
+    /**
+     * Leave bulk ingest mode, pending changes are flushed to the database (but not committed).
+     *
+     * @exception SQLException
+     *                if there was an error flushing the pending changes
+     */
+    public void disableBulkIngest() throws SQLException
+    {
+        if (!isBulkIngest())
+        {
+            return;
+        }
+        bulkIngestBatchSize = 0;
+        try
+        {
+            Session session = getDBConnection();
+            session.flush();
+            session.setCacheMode(CacheMode.NORMAL);
+        }
+        catch (HibernateException e)
+        {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if this context is in bulk ingest mode
+     */
+    public boolean isBulkIngest()
+    {
+        return bulkIngestBatchSize > 0;
+    }
+
+    /**
+     * Mark a point in a bulk import where no object is half-way created, typically after every imported
+     * item. If the session holds more entities than the bulk ingest batch size, the pending changes are
+     * flushed and the session is cleared. Objects loaded before the checkpoint are detached afterwards
+     * and have to be retrieved again through their service, the current user is reloaded by the context.
+     * The events fired for the imported objects only hold identifiers, they are kept and dispatched
+     * once at the next commit rather than per object. This method does nothing when the context is not
+     * in bulk ingest mode.
+     *
+     * @exception SQLException
+     *                if there was an error flushing the pending changes
+     */
+    public void bulkIngestCheckpoint() throws SQLException
+    {
+        if (!isBulkIngest())
+        {
+            return;
+        }
+        try
+        {
+            Session session = getDBConnection();
+            if (session.getStatistics().getEntityCount() < bulkIngestBatchSize)
+            {
+                return;
+            }
+            session.flush();
+            session.clear();
+            objectCache.clear();
+            // A session that was reopened after a commit starts with the default cache mode
+            session.setCacheMode(CacheMode.IGNORE);
+            if (currentUser != null)
+            {
+                currentUser = (EPerson) session.get(EPerson.class, currentUser.getID());
+            }
+        }
+        catch (HibernateException e)
+        {
+            throw new SQLException(e);
+        }
     }
 
     /**
@@ -151,6 +330,7 @@ public class Context
     public void setCurrentUser(EPerson user)
     {
         currentUser = user;
+        authorizationCache.clear();
     }
 
     /**
@@ -317,6 +497,7 @@ public class Context
     {
         // FIXME: Might be good not to do a commit() if nothing has actually
         // been written using this connection
+        closeCursors();
         try
         {
             // Commit any changes made as part of the transaction
@@ -364,6 +545,11 @@ public class Context
                 }
 
                 dispatcher = EventManager.getDispatcher(dispName);
+                if (dispatcher.isTransactional())
+                {
+                    // e.g. an outbox, storing the events with the changes
+                    dispatcher.dispatch(this);
+                }
                 HibernateUtil.commitTransaction();
                 //TODO: HIBERNATE, ALLOW DISPATCHING !
                 //dispatcher.dispatch(this);
@@ -472,6 +658,7 @@ public class Context
      */
     public void abort()
     {
+        closeCursors();
         try
         {
             if (!HibernateUtil.isTransActionAlive())
@@ -500,7 +687,56 @@ public class Context
                 log.error("Exception aborting context", ex);
             }
             events = null;
+            // the rolled back changes may have granted or revoked rights
+            authorizationCache.clear();
+        }
+    }
+
+    /**
+     * Register a database cursor reading from the session of this context, it
+     * is closed when the context is completed or aborted if it's still open.
+     *
+     * @param cursor
+     *            the cursor, e.g. a ScrollableResultsIterator
+     */
+    public void addCursor(Closeable cursor)
+    {
+        cursors.add(cursor);
+    }
+
+    /**
+     * Unregister a database cursor that was closed.
+     *
+     * @param cursor
+     *            the cursor
+     */
+    public void removeCursor(Closeable cursor)
+    {
+        cursors.remove(cursor);
+    }
+
+    /**
+     * Close the database cursors that were left open, before the session is.
+     */
+    private void closeCursors()
+    {
+        // closing a cursor removes it from the set
+        for (Closeable cursor : new ArrayList<Closeable>(cursors))
+        {
+            try
+            {
+                cursor.close();
+            }
+            catch (IOException e)
+            {
+                log.error("Error closing a database cursor", e);
+            }
+            catch (RuntimeException e)
+            {
+                log.error("Error closing a database cursor", e);
+            }
         }
+        cursors.clear();
     }
 
     /**
@@ -537,6 +773,7 @@ public class Context
     public void setSpecialGroup(int groupID)
     {
         specialGroups.add(Integer.valueOf(groupID));
+        authorizationCache.clear();
 
         // System.out.println("Added " + groupID);
     }
@@ -559,6 +796,26 @@ public class Context
         return false;
     }
 
+    /**
+     * Get the cache of the authorization decisions made for the current user
+     * of this context, see {@link AuthorizationCache}.
+     *
+     * @return the authorization cache
+     */
+    public AuthorizationCache getAuthorizationCache()
+    {
+        return authorizationCache;
+    }
+
+    /**
+     * Forget all authorization decisions made for the current user, to be
+     * called whenever policies or group memberships change.
+     */
+    public void clearAuthorizationCache()
+    {
+        authorizationCache.clear();
+    }
+
     /**
      * Get an array of all of the special groups that current user is a member
      * of.
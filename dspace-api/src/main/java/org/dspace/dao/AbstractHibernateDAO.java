@@ -1,8 +1,10 @@
 package org.dspace.dao;
 
+import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Context;
 import org.hibernate.Criteria;
 import org.hibernate.Query;
+import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Projections;
 
@@ -17,6 +19,12 @@ import java.util.List;
  */
 public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
 
+    /** Default number of rows fetched per database round trip when scrolling through results */
+    protected static final int DEFAULT_FETCH_SIZE = 100;
+
+    /** Number of scrolled entities kept in the session together, matches the batch size of the item associations */
+    protected static final int SCROLL_CHUNK_SIZE = 50;
+
     public T create(Context context, T t) throws SQLException {
         context.getDBConnection().save(t);
         return t;
@@ -26,6 +34,18 @@ public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
         context.getDBConnection().save(t);
     }
 
+    /**
+     * Save a number of new objects in one go. The inserts are queued in the session and sent
+     * to the database as JDBC batches (see hibernate.jdbc.batch_size) on the next flush.
+     */
+    public void saveAll(Context context, List<T> ts) throws SQLException {
+        Session session = context.getDBConnection();
+        for (T t : ts)
+        {
+            session.save(t);
+        }
+    }
+
     public void delete(Context context, T t) throws SQLException {
         context.getDBConnection().delete(t);
     }
@@ -58,7 +78,7 @@ public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
 
     //TODO: MAKE SURE EVERYBODY USES THIS METHOD !
     public Query createQuery(Context context, String query) throws SQLException {
-        return createQuery(context, query);
+        return context.getDBConnection().createQuery(query);
     }
 
     public List<T> list(Criteria criteria)
@@ -89,6 +109,17 @@ public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
         return result;
     }
 
+    /**
+     * Stream the results of a query from a forward-only cursor instead of loading them all in the session,
+     * see {@link ScrollableResultsIterator}. The JDBC fetch size is read from db.fetchsize in dspace.cfg.
+     * The cursor is closed when the iterator is exhausted or closed, or when the context is completed or aborted.
+     */
+    public <E> Iterator<E> scroll(Context context, Query query) throws SQLException
+    {
+        int fetchSize = ConfigurationManager.getIntProperty("db.fetchsize", DEFAULT_FETCH_SIZE);
+        return new ScrollableResultsIterator<E>(context, query, fetchSize, SCROLL_CHUNK_SIZE);
+    }
+
     public int count(Criteria criteria)
     {
         return ((Long) criteria.setProjection(Projections.rowCount()).uniqueResult()).intValue();
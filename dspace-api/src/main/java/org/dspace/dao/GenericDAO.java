@@ -16,6 +16,8 @@ public interface GenericDAO<T>
 
     public void save(Context context, T t) throws SQLException;
 
+    public void saveAll(Context context, List<T> ts) throws SQLException;
+
     public void delete(Context context, T t) throws SQLException;
 
     public List<T> findAll(Context context, Class clazz) throws SQLException;
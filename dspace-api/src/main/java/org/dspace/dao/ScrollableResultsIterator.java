@@ -0,0 +1,205 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.dao;
+
+import org.dspace.core.Context;
+import org.hibernate.LockOptions;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterator streaming the results of a query from a forward-only database cursor, meant for walks over
+ * (a large part of) the repository such as reindexing, exports or checksum audits.
+ * <P>
+ * The entities are read from the cursor in chunks. While a chunk is being consumed its entities are
+ * attached to the session, so lazy associations mapped with a batch size (e.g. item metadata and
+ * bundles) are loaded for the whole chunk at once. Once the iterator moves on to the next chunk,
+ * pending changes are flushed and the previous chunk is evicted from the session. The memory used by
+ * the session therefore stays constant, however many results the query returns. Entities that were
+ * already attached to the session before the iterator read them are left attached, even when the
+ * eviction of a chunk cascades to them (e.g. the bundles of an item).
+ * <P>
+ * As a consequence an entity returned by this iterator must not be used after the next call to
+ * <code>hasNext()</code> that reaches beyond its chunk, without retrieving it again.
+ * <P>
+ * The cursor is closed once the iterator is exhausted, when it is closed, or at the latest when its
+ * Context is completed or aborted.
+ *
+ * @param <T> the type of entity returned by the query
+ */
+public class ScrollableResultsIterator<T> implements Iterator<T>, Closeable
+{
+    private final Context context;
+
+    private final Session session;
+
+    private final ScrollableResults results;
+
+    /** Number of entities that are kept attached to the session together */
+    private final int chunkSize;
+
+    private final List<T> chunk;
+
+    /** The entities of the current chunk that were loaded by this iterator, and have to be evicted again */
+    private final List<T> loaded;
+
+    /** The entities that were attached to the session when the current chunk was read */
+    private final Set<Object> attached = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    /** Position of the next entity to return in the current chunk */
+    private int position = 0;
+
+    private boolean exhausted = false;
+
+    /**
+     * @param context the context whose session the query was created from
+     * @param query the query, returning a single entity per row
+     * @param fetchSize the number of rows the JDBC driver fetches per round trip
+     * @param chunkSize the number of entities kept in the session at the same time
+     */
+    public ScrollableResultsIterator(Context context, Query query, int fetchSize, int chunkSize) throws SQLException
+    {
+        this.context = context;
+        this.session = context.getDBConnection();
+        this.chunkSize = chunkSize;
+        this.chunk = new ArrayList<T>(chunkSize);
+        this.loaded = new ArrayList<T>(chunkSize);
+        this.results = query.setFetchSize(fetchSize).scroll(ScrollMode.FORWARD_ONLY);
+        context.addCursor(this);
+    }
+
+    public boolean hasNext()
+    {
+        if (position < chunk.size())
+        {
+            return true;
+        }
+        readChunk();
+        return position < chunk.size();
+    }
+
+    public T next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        return chunk.get(position++);
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException("Removing entities through a ScrollableResultsIterator is not supported");
+    }
+
+    /**
+     * Close the underlying database cursor, the iterator has no further elements afterwards. Only needed
+     * when the iterator is abandoned before it is exhausted and its Context stays open: an exhausted
+     * iterator closes its cursor itself. The entities of the current chunk remain attached to the session.
+     */
+    public void close()
+    {
+        closeResults();
+        chunk.clear();
+        loaded.clear();
+        attached.clear();
+        position = 0;
+    }
+
+    protected void closeResults()
+    {
+        if (!exhausted)
+        {
+            exhausted = true;
+            results.close();
+            context.removeCursor(this);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void readChunk()
+    {
+        evictChunk();
+        if (exhausted)
+        {
+            return;
+        }
+
+        // Entities the caller already had in the session before the walk must stay attached
+        attached.addAll(((SessionImplementor) session).getPersistenceContext().getEntitiesByKey().values());
+
+        while (!exhausted && chunk.size() < chunkSize)
+        {
+            if (results.next())
+            {
+                T entity = (T) results.get(0);
+                chunk.add(entity);
+                if (!attached.contains(entity))
+                {
+                    loaded.add(entity);
+                }
+            }
+            else
+            {
+                closeResults();
+            }
+        }
+    }
+
+    protected void evictChunk()
+    {
+        if (!loaded.isEmpty())
+        {
+            // Evicting discards pending changes, write them out first
+            if (session.isDirty())
+            {
+                session.flush();
+            }
+
+            List<Object> held = new ArrayList<Object>();
+            for (Object entity : attached)
+            {
+                if (session.contains(entity))
+                {
+                    held.add(entity);
+                }
+            }
+
+            for (T entity : loaded)
+            {
+                session.evict(entity);
+            }
+            loaded.clear();
+
+            // The eviction cascades to associations mapped with DETACH, reattach those the caller held
+            for (Object entity : held)
+            {
+                if (!session.contains(entity))
+                {
+                    session.buildLockRequest(LockOptions.NONE).lock(entity);
+                }
+            }
+        }
+        attached.clear();
+        chunk.clear();
+        position = 0;
+    }
+}
@@ -11,14 +11,19 @@ import org.apache.log4j.Logger;
 import org.dspace.content.Bundle;
 import org.dspace.content.DSpaceObject;
 import org.dspace.content.service.BundleService;
+import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.event.Consumer;
 import org.dspace.event.Event;
 import org.dspace.factory.DSpaceServiceFactory;
+import org.dspace.handle.service.HandleService;
 import org.dspace.utils.DSpace;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -40,8 +45,16 @@ public class IndexEventConsumer implements Consumer {
     // handles to delete since IDs are not useful by now.
     private Set<String> handlesToDelete = null;
 
+    /** Objects sent to the index at once, see index.batch-size in discovery.cfg */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** Objects indexed between commits, see index.commit-interval in discovery.cfg */
+    public static final int DEFAULT_COMMIT_INTERVAL = 1000;
+
     private BundleService bundleService = DSpaceServiceFactory.getInstance().getBundleService();
 
+    private HandleService handleService = DSpaceServiceFactory.getInstance().getHandleService();
+
     DSpace dspace = new DSpace();
 
     IndexingService indexer = dspace.getServiceManager().getServiceByName(IndexingService.class.getName(),IndexingService.class);
@@ -100,56 +113,50 @@ public class IndexEventConsumer implements Consumer {
             }
         }
 
-        switch (et) {
-            case Event.CREATE:
-            case Event.MODIFY:
-            case Event.MODIFY_METADATA:
-                if (subject == null)
-                {
-                    log.warn(event.getEventTypeAsString() + " event, could not get object for "
-                            + event.getSubjectTypeAsString() + " id="
-                            + String.valueOf(event.getSubjectID())
-                            + ", perhaps it has been deleted.");
-                }
-                else {
-                    log.debug("consume() adding event to update queue: " + event.toString());
-                    objectsToUpdate.add(subject);
-                }
-                break;
-
-            case Event.REMOVE:
-            case Event.ADD:
-                if (object == null)
-                {
-                    log.warn(event.getEventTypeAsString() + " event, could not get object for "
-                            + event.getObjectTypeAsString() + " id="
-                            + String.valueOf(event.getObjectID())
-                            + ", perhaps it has been deleted.");
-                }
-                else {
-                    log.debug("consume() adding event to update queue: " + event.toString());
-                    objectsToUpdate.add(object);
-                }
-                break;
-
-            case Event.DELETE:
-                String detail = event.getDetail();
-                if (detail == null)
-                {
-                    log.warn("got null detail on DELETE event, skipping it.");
-                }
-                else {
-                    log.debug("consume() adding event to delete queue: " + event.toString());
-                    handlesToDelete.add(detail);
-                }
-                break;
-            default:
-                log
-                        .warn("IndexConsumer should not have been given a event of type="
-                                + event.getEventTypeAsString()
-                                + " on subject="
-                                + event.getSubjectTypeAsString());
-                break;
+        if ((et & (Event.CREATE | Event.MODIFY | Event.MODIFY_METADATA)) != 0) {
+            // possibly a coalesced event, of several of these types at once
+            if (subject == null)
+            {
+                log.warn(event.getEventTypeAsString() + " event, could not get object for "
+                        + event.getSubjectTypeAsString() + " id="
+                        + String.valueOf(event.getSubjectID())
+                        + ", perhaps it has been deleted.");
+            }
+            else {
+                log.debug("consume() adding event to update queue: " + event.toString());
+                objectsToUpdate.add(subject);
+            }
+        }
+        else if (et == Event.REMOVE || et == Event.ADD) {
+            if (object == null)
+            {
+                log.warn(event.getEventTypeAsString() + " event, could not get object for "
+                        + event.getObjectTypeAsString() + " id="
+                        + String.valueOf(event.getObjectID())
+                        + ", perhaps it has been deleted.");
+            }
+            else {
+                log.debug("consume() adding event to update queue: " + event.toString());
+                objectsToUpdate.add(object);
+            }
+        }
+        else if (et == Event.DELETE) {
+            String detail = event.getDetail();
+            if (detail == null)
+            {
+                log.warn("got null detail on DELETE event, skipping it.");
+            }
+            else {
+                log.debug("consume() adding event to delete queue: " + event.toString());
+                handlesToDelete.add(detail);
+            }
+        }
+        else {
+            log
+                    .warn("IndexConsumer should not have been given a event of type="
+                            + event.getEventTypeAsString()
+                            + " on subject="
+                            + event.getSubjectTypeAsString());
         }
     }
 
@@ -157,51 +164,152 @@ public class IndexEventConsumer implements Consumer {
      * Process sets of objects to add, update, and delete in index. Correct for
      * interactions between the sets -- e.g. objects which were deleted do not
      * need to be added or updated, new objects don't also need an update, etc.
+     * The objects are sent to the index in batches, committing it every
+     * <code>index.commit-interval</code> objects and at the end.
      */
     public void end(Context ctx) throws Exception {
 
         if (objectsToUpdate != null && handlesToDelete != null) {
 
+            int batchSize = Math.max(ConfigurationManager.getIntProperty("discovery", "index.batch-size",
+                    DEFAULT_BATCH_SIZE), 1);
+            int commitInterval = ConfigurationManager.getIntProperty("discovery", "index.commit-interval",
+                    DEFAULT_COMMIT_INTERVAL);
+            int uncommitted = 0;
+
             // update the changed Items not deleted because they were on create list
+            Map<DSpaceObject, String> objectHandles = handleService.findHandles(ctx, objectsToUpdate);
+            List<DSpaceObject> batch = new ArrayList<DSpaceObject>(Math.min(batchSize, objectsToUpdate.size()));
             for (DSpaceObject iu : objectsToUpdate) {
                 /* we let all types through here and 
                  * allow the search DSIndexer to make 
                  * decisions on indexing and/or removal
                  */
-                String hdl = iu.getHandle(ctx);
+                String hdl = objectHandles.get(iu);
                 if (hdl != null && !handlesToDelete.contains(hdl)) {
-                    try {
-                        indexer.indexContent(ctx, iu, true);
-                        log.debug("Indexed "
-                                + Constants.typeText[iu.getType()]
-                                + ", id=" + String.valueOf(iu.getID())
-                                + ", handle=" + hdl);
-                    }
-                    catch (Exception e) {
-                        log.error("Failed while indexing object: ", e);
+                    batch.add(iu);
+                    if (batch.size() >= batchSize) {
+                        uncommitted = index(ctx, batch, uncommitted, commitInterval);
                     }
                 }
             }
+            uncommitted = index(ctx, batch, uncommitted, commitInterval);
 
+            List<String> handles = new ArrayList<String>(Math.min(batchSize, handlesToDelete.size()));
             for (String hdl : handlesToDelete) {
+                handles.add(hdl);
+                if (handles.size() >= batchSize) {
+                    uncommitted = unIndex(ctx, handles, uncommitted, commitInterval);
+                }
+            }
+            uncommitted = unIndex(ctx, handles, uncommitted, commitInterval);
+
+            if (uncommitted > 0) {
+                commit();
+            }
+        }
+
+        // "free" the resources
+        objectsToUpdate = null;
+        handlesToDelete = null;
+    }
+
+    /**
+     * Index a batch of objects together, falling back to one at a time if
+     * that fails so a single bad object doesn't keep the others out of the
+     * index. The batch is cleared.
+     *
+     * @return the number of objects indexed since the last commit
+     */
+    private int index(Context ctx, List<DSpaceObject> batch, int uncommitted, int commitInterval) {
+        if (batch.isEmpty()) {
+            return uncommitted;
+        }
+        try {
+            indexer.indexContent(ctx, batch);
+            if (log.isDebugEnabled())
+            {
+                log.debug("Indexed " + batch.size() + " objects");
+            }
+        }
+        catch (Exception e) {
+            log.warn("Failed while indexing " + batch.size() + " objects, indexing them one at a time", e);
+            for (DSpaceObject iu : batch) {
                 try {
-                    indexer.unIndexContent(ctx, hdl, true);
+                    indexer.indexContent(ctx, iu, true);
+                    log.debug("Indexed "
+                            + Constants.typeText[iu.getType()]
+                            + ", id=" + String.valueOf(iu.getID()));
+                }
+                catch (Exception ex) {
+                    log.error("Failed while indexing object: ", ex);
+                }
+            }
+        }
+        return committed(uncommitted + clear(batch), commitInterval);
+    }
+
+    /**
+     * Remove a batch of handles from the index together, falling back to one
+     * at a time if that fails. The batch is cleared.
+     *
+     * @return the number of objects indexed since the last commit
+     */
+    private int unIndex(Context ctx, List<String> handles, int uncommitted, int commitInterval) {
+        if (handles.isEmpty()) {
+            return uncommitted;
+        }
+        try {
+            indexer.unIndexContent(ctx, handles);
+            if (log.isDebugEnabled())
+            {
+                log.debug("UN-Indexed " + handles.size() + " objects, handles=" + handles);
+            }
+        }
+        catch (Exception e) {
+            log.warn("Failed while UN-indexing " + handles.size() + " objects, UN-indexing them one at a time", e);
+            for (String hdl : handles) {
+                try {
+                    indexer.unIndexContent(ctx, hdl, false);
                     if (log.isDebugEnabled())
                     {
                         log.debug("UN-Indexed Item, handle=" + hdl);
                     }
                 }
-                catch (Exception e) {
-                    log.error("Failed while UN-indexing object: " + hdl, e);
+                catch (Exception ex) {
+                    log.error("Failed while UN-indexing object: " + hdl, ex);
                 }
-
             }
+        }
+        return committed(uncommitted + clear(handles), commitInterval);
+    }
+
+    private int clear(List<?> batch) {
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
 
+    /**
+     * Commit the index if the commit interval has been reached.
+     *
+     * @return the number of objects indexed since the last commit
+     */
+    private int committed(int uncommitted, int commitInterval) {
+        if (commitInterval > 0 && uncommitted >= commitInterval) {
+            commit();
+            return 0;
         }
+        return uncommitted;
+    }
 
-        // "free" the resources
-        objectsToUpdate = null;
-        handlesToDelete = null;
+    private void commit() {
+        try {
+            indexer.commit();
+        }
+        catch (SearchServiceException e) {
+            log.error("Failed while committing the index", e);
+        }
     }
 
     public void finish(Context ctx) throws Exception {
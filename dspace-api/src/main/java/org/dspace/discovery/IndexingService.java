@@ -12,6 +12,7 @@ import org.dspace.core.Context;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
 
 /**
  * Interface used for indexing dspaceobject into discovery
@@ -31,6 +32,17 @@ public interface IndexingService {
     void indexContent(Context context, DSpaceObject dso,
             boolean force, boolean commit) throws SQLException, SearchServiceException;
     
+    /**
+     * Index a batch of objects, as {@link #indexContent(Context, DSpaceObject, boolean)}
+     * does with force for each of them, sending them to the index together
+     * rather than one by one. The index isn't committed, see {@link #commit()}.
+     *
+     * @param context the DSpace context
+     * @param dsos the objects to (re)index
+     */
+    void indexContent(Context context, Collection<DSpaceObject> dsos)
+            throws SQLException, SearchServiceException;
+
     void unIndexContent(Context context, DSpaceObject dso)
             throws SQLException, IOException;
 
@@ -43,6 +55,16 @@ public interface IndexingService {
     void unIndexContent(Context context, String handle, boolean commit)
             throws SQLException, IOException;
 
+    /**
+     * Remove a batch of objects from the index, by handle, together rather
+     * than one by one. The index isn't committed, see {@link #commit()}.
+     *
+     * @param context the DSpace context
+     * @param handles the handles of the objects to remove
+     */
+    void unIndexContent(Context context, Collection<String> handles)
+            throws SQLException, IOException;
+
     void reIndexContent(Context context, DSpaceObject dso)
             throws SQLException, IOException;
 
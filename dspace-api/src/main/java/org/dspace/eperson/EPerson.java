@@ -20,7 +20,7 @@ public class EPerson extends DSpaceObject {
     @Id
     @Column(name="eperson_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="eperson_seq")
-    @SequenceGenerator(name="eperson_seq", sequenceName="eperson_seq")
+    @SequenceGenerator(name="eperson_seq", sequenceName="eperson_seq", allocationSize = 1)
     private Integer id;
 
     @Column(name="language")
@@ -80,7 +80,7 @@ public class EPerson extends DSpaceObject {
             generator = "epersongroup2eperson_seq"
     )
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="epersongroup2eperson_seq")
-    @SequenceGenerator(name="epersongroup2eperson_seq", sequenceName="epersongroup2eperson_seq")
+    @SequenceGenerator(name="epersongroup2eperson_seq", sequenceName="epersongroup2eperson_seq", allocationSize = 1)
     private List<Group> groups = new ArrayList<Group>();
     */
 
@@ -62,7 +62,7 @@ public class EPersonConsumer implements Consumer
         {
             // If an EPerson is changed
             case Constants.EPERSON:
-                if (et == Event.CREATE)
+                if (event.hasEventType(Event.CREATE))
                 {
                     // Notify of new user registration
                     String notifyRecipient = ConfigurationManager.getProperty("registration.notify");
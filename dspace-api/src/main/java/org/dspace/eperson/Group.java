@@ -5,6 +5,8 @@ import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.factory.DSpaceServiceFactory;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CollectionId;
 import org.hibernate.annotations.Type;
 
@@ -21,6 +23,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "epersongroup", schema = "public" )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Group extends DSpaceObject {
 
     /**
@@ -29,7 +33,7 @@ public class Group extends DSpaceObject {
     @Id
     @Column(name="eperson_group_id")
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="epersongroup_seq")
-    @SequenceGenerator(name="epersongroup_seq", sequenceName="epersongroup_seq", initialValue = 2)
+    @SequenceGenerator(name="epersongroup_seq", sequenceName="epersongroup_seq", initialValue = 2, allocationSize = 1)
     private Integer id;
 
     @Column(name="name")
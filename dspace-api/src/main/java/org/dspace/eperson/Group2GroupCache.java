@@ -0,0 +1,59 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import javax.persistence.*;
+
+/**
+ * A row of the group2groupcache table, the transitive closure of the group hierarchy. There is a row for
+ * every group (child) that is a member of another group (parent), either directly or through any number of
+ * nested groups. A group is never cached as a member of itself.
+ * <P>
+ * The rows are maintained by the {@link GroupServiceImpl} whenever a group is added to or removed from
+ * another group, or deleted.
+ */
+@Entity
+@Table(name = "group2groupcache", schema = "public")
+public class Group2GroupCache {
+
+    @Id
+    @Column(name = "id", unique = true, nullable = false)
+    @GeneratedValue(strategy = GenerationType.AUTO ,generator="group2groupcache_seq")
+    @SequenceGenerator(name="group2groupcache_seq", sequenceName="group2groupcache_seq", allocationSize = 1)
+    private int id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id")
+    private Group parent;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "child_id")
+    private Group child;
+
+    protected Group2GroupCache()
+    {
+    }
+
+    Group2GroupCache(Group parent, Group child)
+    {
+        this.parent = parent;
+        this.child = child;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Group getParent() {
+        return parent;
+    }
+
+    public Group getChild() {
+        return child;
+    }
+}
@@ -11,12 +11,14 @@ import java.sql.SQLException;
 import java.util.*;
 
 import org.apache.log4j.Logger;
+import org.dspace.authorize.AuthorizationCache;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.authorize.AuthorizeManager;
 import org.dspace.content.DSpaceObjectServiceImpl;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.LogManager;
+import org.dspace.eperson.dao.Group2GroupCacheDAO;
 import org.dspace.eperson.dao.GroupDAO;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.event.Event;
@@ -41,6 +43,9 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     @Autowired(required = true)
     protected GroupDAO groupDAO;
 
+    @Autowired(required = true)
+    protected Group2GroupCacheDAO group2GroupCacheDAO;
+
     /**
      * Construct a Group from a given context and tablerow
      */
@@ -88,6 +93,7 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
             return;
         }
         groupEntity.addMember(e);
+        context.clearAuthorizationCache();
         context.addEvent(new Event(Event.ADD, Constants.GROUP, groupEntity.getID(), Constants.EPERSON, e.getID(), e.getEmail()));
     }
 
@@ -96,7 +102,7 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
      *
      * @param groupParent the group to which we add the group
      */
-    public void addMember(Context context, Group groupParent, Group groupChild)
+    public void addMember(Context context, Group groupParent, Group groupChild) throws SQLException
     {
         // don't add if it's already a member
         // and don't add itself
@@ -105,9 +111,18 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
             return;
         }
 
+        // and don't create a cycle by adding one of the group's own (nested) parents
+        List<Group> childDescendants = group2GroupCacheDAO.findChildren(context, groupChild);
+        if (childDescendants.contains(groupParent))
+        {
+            log.warn(LogManager.getHeader(context, "add_group_member_cycle", "parent_id=" + groupParent.getID()
+                    + ",child_id=" + groupChild.getID()));
+            return;
+        }
+
         groupParent.addMember(groupChild);
-        //TODO: HIBERNATE IMPLEMENT ?
-        // groupsChanged = true;
+        addToGroupCache(context, groupParent, groupChild, childDescendants);
+        context.clearAuthorizationCache();
 
         context.addEvent(new Event(Event.ADD, Constants.GROUP, groupParent.getID(), Constants.GROUP, groupChild.getID(), groupChild.getName()));
     }
@@ -121,6 +136,7 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     {
         if (owningGroup.remove(childPerson))
         {
+            context.clearAuthorizationCache();
             context.addEvent(new Event(Event.REMOVE, Constants.GROUP, owningGroup.getID(), Constants.EPERSON, childPerson.getID(), childPerson.getEmail()));
         }
     }
@@ -130,12 +146,12 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
      *
      * @param owningGroup
      */
-    public void removeMember(Context context, Group owningGroup, Group childGroup)
+    public void removeMember(Context context, Group owningGroup, Group childGroup) throws SQLException
     {
         if (owningGroup.remove(childGroup))
         {
-            //TODO: HIBERNATE IMPLEMENT ?
-            // groupsChanged = true;
+            removeFromGroupCache(context, owningGroup, childGroup);
+            context.clearAuthorizationCache();
             context.addEvent(new Event(Event.REMOVE, Constants.GROUP, owningGroup.getID(), Constants.GROUP, childGroup.getID(), childGroup.getName()));
         }
     }
@@ -182,8 +198,7 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
             return false;
         }
 
-        EPerson currentuser = c.getCurrentUser();
-        return epersonInGroup(c, group.getID(), currentuser);
+        return isMember(c, group.getID());
     }
 
     /**
@@ -206,7 +221,16 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
 
         EPerson currentuser = c.getCurrentUser();
 
-        return epersonInGroup(c, groupid, currentuser);
+        // the memberships of the current user are checked for every policy,
+        // only look each of them up once per context
+        AuthorizationCache cache = c.getAuthorizationCache();
+        Boolean member = cache.getGroupMembership(groupid);
+        if (member == null)
+        {
+            member = epersonInGroup(c, groupid, currentuser);
+            cache.cacheGroupMembership(groupid, member);
+        }
+        return member;
     }
 
     /**
@@ -240,91 +264,62 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
      */
     public Set<Integer> allMemberGroupIDs(Context c, EPerson e) throws SQLException
     {
+        // the groups of the current user are kept for the lifetime of the context
+        boolean currentUser = (c.getCurrentUser() == null) ? (e == null) : (e != null && c.getCurrentUser().getID() == e.getID());
+        if (currentUser && c.getAuthorizationCache().getMemberGroupIDs() != null)
+        {
+            return c.getAuthorizationCache().getMemberGroupIDs();
+        }
+
         Set<Integer> groupIDs = new HashSet<Integer>();
 
         if (e != null)
         {
-            // two queries - first to get groups eperson is a member of
-            // second query gets parent groups for groups eperson is a member of
-//            Query query = c.getDBConnection().createQuery("from Group where :eperson IN epeople");
+            // first get the groups the eperson is a direct member of
             List<Group> groupEntities = groupDAO.findByEPerson(c, e);
-            Set<Integer> result = new LinkedHashSet<Integer>();
             for (Group groupEntity : groupEntities) {
-                result.add(groupEntity.getID());
+                groupIDs.add(groupEntity.getID());
             }
-            return result;
         }
+
         // Also need to get all "Special Groups" user is a member of!
         // Otherwise, you're ignoring the user's membership to these groups!
-        // However, we only do this is we are looking up the special groups
-        // of the current user, as we cannot look up the special groups
-        // of a user who is not logged in.
-        if ((c.getCurrentUser() == null) || (((c.getCurrentUser() != null) && (c.getCurrentUser().getID() == e.getID()))))
-        {
-            List<Group> specialGroups = c.getSpecialGroups();
-            for(Group special : specialGroups)
-            {
-                groupIDs.add(special.getID());
-            }
-        }
+        groupIDs.addAll(getSpecialGroupIDs(c, e));
 
         // all the users are members of the anonymous group 
         groupIDs.add(0);
 
-        // now we have all owning groups, also grab all parents of owning groups
-        // yes, I know this could have been done as one big query and a union,
-        // but doing the Oracle port taught me to keep to simple SQL!
+        // now we have all owning groups, also grab all parents of owning groups,
+        // group2groupcache holds the complete hierarchy so a single query does it
+        groupIDs.addAll(group2GroupCacheDAO.findParentIDs(c, groupIDs));
 
-        StringBuilder groupQuery = new StringBuilder();
-        groupQuery.append("SELECT * FROM group2groupcache WHERE ");
-
-        Iterator<Integer> i = groupIDs.iterator();
-
-        // Build a list of query parameters
-        Object[] parameters = new Object[groupIDs.size()];
-        int idx = 0;
-        while (i.hasNext())
+        if (currentUser)
         {
-            int groupID = (i.next()).intValue();
-
-            parameters[idx++] = Integer.valueOf(groupID);
-
-            groupQuery.append("child_id= ? ");
-            if (i.hasNext())
-            {
-                groupQuery.append(" OR ");
-            }
+            c.getAuthorizationCache().cacheMemberGroupIDs(groupIDs);
         }
+        return groupIDs;
+    }
 
-        // was member of at least one group
-        // NOTE: even through the query is built dynamically, all data is
-        // separated into the parameters array.
-        //TODO: HIBERNATE IMPLEMENT
-        /*
-        TableRowIterator tri = DatabaseManager.queryTable(c, "group2groupcache",
-                groupQuery.toString(),
-                parameters);
-
-        try
-        {
-            while (tri.hasNext())
-            {
-                TableRow row = tri.next();
-
-                int parentID = row.getIntColumn("parent_id");
-
-                groupIDs.add(Integer.valueOf(parentID));
-            }
-        }
-        finally
+    /**
+     * Get the ids of the special groups of an eperson. We only know those of
+     * the current user, as we cannot look up the special groups of a user who
+     * is not logged in.
+     *
+     * @param c
+     * @param e
+     * @return Set of Integer groupIDs
+     */
+    protected Set<Integer> getSpecialGroupIDs(Context c, EPerson e) throws SQLException
+    {
+        Set<Integer> groupIDs = new HashSet<Integer>();
+        if ((c.getCurrentUser() == null) || ((e != null) && (c.getCurrentUser().getID() == e.getID())))
         {
-            // close the TableRowIterator to free up resources
-            if (tri != null)
+            List<Group> specialGroups = c.getSpecialGroups();
+            for(Group special : specialGroups)
             {
-                tri.close();
+                groupIDs.add(special.getID());
             }
         }
-        */
         return groupIDs;
     }
 
@@ -469,9 +464,113 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     protected boolean epersonInGroup(Context c, int groupID, EPerson e)
             throws SQLException
     {
-        Set<Integer> groupIDs = allMemberGroupIDs(c, e);
+        // the special groups and the anonymous group count as direct memberships
+        Set<Integer> specialGroupIDs = getSpecialGroupIDs(c, e);
+        specialGroupIDs.add(0);
+        if (specialGroupIDs.contains(Integer.valueOf(groupID)))
+        {
+            return true;
+        }
+
+        return groupDAO.isMember(c, groupID, e, specialGroupIDs);
+    }
+
+    /**
+     * Add the new memberships caused by making a group member of another
+     * group to group2groupcache: every (nested) member of the child group,
+     * and the child group itself, becomes a member of the parent group and of
+     * all of its (nested) parents.
+     *
+     * @param context
+     * @param parent the group the child group was added to
+     * @param child the group that was added
+     * @param childDescendants the (nested) members of the child group
+     */
+    protected void addToGroupCache(Context context, Group parent, Group child, List<Group> childDescendants)
+            throws SQLException
+    {
+        Set<Group> ancestors = new HashSet<Group>(group2GroupCacheDAO.findParents(context, parent));
+        ancestors.add(parent);
+        Set<Group> descendants = new HashSet<Group>(childDescendants);
+        descendants.add(child);
+
+        // some of the memberships may already exist through another path
+        Set<String> cached = new HashSet<String>();
+        for (Group2GroupCache row : group2GroupCacheDAO.findByParentsAndChildren(context, ancestors, descendants))
+        {
+            cached.add(row.getParent().getID() + "-" + row.getChild().getID());
+        }
+
+        List<Group2GroupCache> rows = new ArrayList<Group2GroupCache>();
+        for (Group ancestor : ancestors)
+        {
+            for (Group descendant : descendants)
+            {
+                if (ancestor.getID() != descendant.getID()
+                        && !cached.contains(ancestor.getID() + "-" + descendant.getID()))
+                {
+                    rows.add(new Group2GroupCache(ancestor, descendant));
+                }
+            }
+        }
+        group2GroupCacheDAO.saveAll(context, rows);
+    }
+
+    /**
+     * Remove the memberships that no longer hold after removing a group from
+     * another group from group2groupcache. Only the memberships of the
+     * (nested) members of the child group in the parent group and its
+     * (nested) parents are affected; of those, the ones still reachable
+     * through another path in the hierarchy are kept.
+     *
+     * @param context
+     * @param parent the group the child group was removed from
+     * @param child the group that was removed
+     */
+    protected void removeFromGroupCache(Context context, Group parent, Group child) throws SQLException
+    {
+        Set<Group> ancestors = new HashSet<Group>(group2GroupCacheDAO.findParents(context, parent));
+        ancestors.add(parent);
+        Set<Group> descendants = new HashSet<Group>(group2GroupCacheDAO.findChildren(context, child));
+        descendants.add(child);
+
+        List<Group2GroupCache> affected = group2GroupCacheDAO.findByParentsAndChildren(context, ancestors, descendants);
+        if (affected.isEmpty())
+        {
+            return;
+        }
+
+        // the direct memberships in the part of the hierarchy below the ancestors
+        Set<Integer> groupIDs = new HashSet<Integer>();
+        for (Group ancestor : ancestors)
+        {
+            groupIDs.add(ancestor.getID());
+        }
+        groupIDs.addAll(group2GroupCacheDAO.findChildIDs(context, ancestors));
+        Map<Integer, Set<Integer>> memberships = groupDAO.findMemberGroupIDs(context, groupIDs);
+
+        // the removed membership may not have been flushed yet
+        Set<Integer> parentMembers = memberships.get(parent.getID());
+        if (parentMembers != null)
+        {
+            parentMembers.remove(child.getID());
+        }
 
-        return groupIDs.contains(Integer.valueOf(groupID));
+        Map<Integer, Set<Integer>> reachable = new HashMap<Integer, Set<Integer>>();
+        for (Group2GroupCache row : affected)
+        {
+            Integer ancestorID = row.getParent().getID();
+            Set<Integer> members = reachable.get(ancestorID);
+            if (members == null)
+            {
+                members = getChildren(memberships, ancestorID);
+                reachable.put(ancestorID, members);
+            }
+            if (!members.contains(row.getChild().getID()))
+            {
+                group2GroupCacheDAO.delete(context, row);
+            }
+        }
     }
 
     /**
@@ -590,6 +689,16 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
         // Remove any ResourcePolicies that reference this group
         AuthorizeManager.removeGroupPolicies(context, groupEntity);
 
+        // Remove the group from the hierarchy, updating group2groupcache for
+        // its former parents, and drop its own cached memberships
+        for (Group parent : groupDAO.findByMemberGroup(context, groupEntity))
+        {
+            removeMember(context, parent, groupEntity);
+        }
+        groupEntity.getGroups().clear();
+        group2GroupCacheDAO.deleteByGroup(context, groupEntity);
+        context.clearAuthorizationCache();
+
         // don't forget the new table
         //TODO: HIBERNATE IMPLEMENT
 //        deleteEpersonGroup2WorkspaceItem();
@@ -662,40 +771,41 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     }
 
     /**
-     * Used recursively to generate a map of ALL of the children of the given
+     * Used to generate a set of ALL of the (nested) children of the given
      * parent
      *
      * @param parents
      *            Map of parent,child relationships
      * @param parent
      *            the parent you're interested in
-     * @return Map whose keys are all of the children of a parent
+     * @return Set of all of the children of a parent
      */
     protected Set<Integer> getChildren(Map<Integer,Set<Integer>> parents, Integer parent)
     {
         Set<Integer> myChildren = new HashSet<Integer>();
 
-        // degenerate case, this parent has no children
-        if (!parents.containsKey(parent))
+        // walk the hierarchy breadth first, visiting every child only once
+        // so groups reachable through several paths are cheap
+        LinkedList<Integer> toVisit = new LinkedList<Integer>();
+        toVisit.add(parent);
+        while (!toVisit.isEmpty())
         {
-            return myChildren;
-        }
+            Set<Integer> children = parents.get(toVisit.removeFirst());
 
-        // got this far, so we must have children
-        Set<Integer> children =  parents.get(parent);
-
-        // now iterate over all of the children
-        Iterator<Integer> i = children.iterator();
-
-        while (i.hasNext())
-        {
-            Integer childID = i.next();
-
-            // add this child's ID to our return set
-            myChildren.add(childID);
+            // degenerate case, this parent has no children
+            if (children == null)
+            {
+                continue;
+            }
 
-            // and now its children
-            myChildren.addAll(getChildren(parents, childID));
+            for (Integer childID : children)
+            {
+                // add this child's ID to our return set, and later its children
+                if (myChildren.add(childID))
+                {
+                    toVisit.add(childID);
+                }
+            }
         }
 
         return myChildren;
@@ -0,0 +1,53 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson.dao;
+
+import org.dspace.core.Context;
+import org.dspace.dao.GenericDAO;
+import org.dspace.eperson.Group;
+import org.dspace.eperson.Group2GroupCache;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Database access to the transitive closure of the group hierarchy (group2groupcache)
+ */
+public interface Group2GroupCacheDAO extends GenericDAO<Group2GroupCache> {
+
+    /**
+     * @return all groups the given group is a (direct or indirect) member of
+     */
+    public List<Group> findParents(Context context, Group child) throws SQLException;
+
+    /**
+     * @return all groups that are a (direct or indirect) member of the given group
+     */
+    public List<Group> findChildren(Context context, Group parent) throws SQLException;
+
+    /**
+     * @return the ids of all groups that any of the given groups is a (direct or indirect) member of
+     */
+    public List<Integer> findParentIDs(Context context, Collection<Integer> childIDs) throws SQLException;
+
+    /**
+     * @return the ids of all groups that are a (direct or indirect) member of any of the given groups
+     */
+    public List<Integer> findChildIDs(Context context, Collection<Group> parents) throws SQLException;
+
+    /**
+     * @return the cached memberships between the given parent and child groups
+     */
+    public List<Group2GroupCache> findByParentsAndChildren(Context context, Collection<Group> parents, Collection<Group> children) throws SQLException;
+
+    /**
+     * Delete all cached memberships of and in the given group
+     */
+    public void deleteByGroup(Context context, Group group) throws SQLException;
+}
@@ -6,7 +6,10 @@ import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -24,4 +27,23 @@ public interface GroupDAO extends GenericDAO<Group> {
     public List<Group> findAll(Context context, String sortColumn) throws SQLException;
 
     public List<Group> findByEPerson(Context context, EPerson ePerson) throws SQLException;
+
+    /**
+     * @return the groups the given group is a direct member of
+     */
+    public List<Group> findByMemberGroup(Context context, Group child) throws SQLException;
+
+    /**
+     * @return the ids of the direct member groups, keyed by the id of each of the given groups that has any
+     */
+    public Map<Integer, Set<Integer>> findMemberGroupIDs(Context context, Collection<Integer> groupIDs) throws SQLException;
+
+    /**
+     * Check whether the eperson, or any of the special groups, is a member of the group either directly or
+     * through nested groups, using a single query on the group membership tables and group2groupcache.
+     *
+     * @param ePerson the eperson to check, may be null
+     * @param specialGroupIDs ids of the special groups to check, may be empty
+     */
+    public boolean isMember(Context context, int groupID, EPerson ePerson, Collection<Integer> specialGroupIDs) throws SQLException;
 }
@@ -0,0 +1,80 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson.dao.impl;
+
+import org.dspace.core.Context;
+import org.dspace.dao.AbstractHibernateDAO;
+import org.dspace.eperson.Group;
+import org.dspace.eperson.Group2GroupCache;
+import org.dspace.eperson.dao.Group2GroupCacheDAO;
+import org.hibernate.Query;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hibernate implementation of the group2groupcache DAO, all lookups use the indexes on parent_id and child_id
+ */
+public class Group2GroupCacheDAOImpl extends AbstractHibernateDAO<Group2GroupCache> implements Group2GroupCacheDAO
+{
+
+    @SuppressWarnings("unchecked")
+    public List<Group> findParents(Context context, Group child) throws SQLException {
+        Query query = createQuery(context, "select c.parent from Group2GroupCache c where c.child = :child");
+        query.setParameter("child", child);
+        return query.list();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Group> findChildren(Context context, Group parent) throws SQLException {
+        Query query = createQuery(context, "select c.child from Group2GroupCache c where c.parent = :parent");
+        query.setParameter("parent", parent);
+        return query.list();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Integer> findParentIDs(Context context, Collection<Integer> childIDs) throws SQLException {
+        if (childIDs.isEmpty())
+        {
+            return new ArrayList<Integer>();
+        }
+        Query query = createQuery(context, "select distinct c.parent.id from Group2GroupCache c where c.child.id in (:child_ids)");
+        query.setParameterList("child_ids", childIDs);
+        return query.list();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Integer> findChildIDs(Context context, Collection<Group> parents) throws SQLException {
+        if (parents.isEmpty())
+        {
+            return new ArrayList<Integer>();
+        }
+        Query query = createQuery(context, "select distinct c.child.id from Group2GroupCache c where c.parent in (:parents)");
+        query.setParameterList("parents", parents);
+        return query.list();
+    }
+
+    public List<Group2GroupCache> findByParentsAndChildren(Context context, Collection<Group> parents, Collection<Group> children) throws SQLException {
+        if (parents.isEmpty() || children.isEmpty())
+        {
+            return new ArrayList<Group2GroupCache>();
+        }
+        Query query = createQuery(context, "from Group2GroupCache c where c.parent in (:parents) and c.child in (:children)");
+        query.setParameterList("parents", parents);
+        query.setParameterList("children", children);
+        return list(query);
+    }
+
+    public void deleteByGroup(Context context, Group group) throws SQLException {
+        Query query = createQuery(context, "delete from Group2GroupCache where parent = :group or child = :group");
+        query.setParameter("group", group);
+        query.executeUpdate();
+    }
+}
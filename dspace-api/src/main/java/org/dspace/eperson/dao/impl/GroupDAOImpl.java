@@ -12,7 +12,12 @@ import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -43,6 +48,72 @@ public class GroupDAOImpl extends AbstractDSpaceObjectDao<Group> implements Grou
         return list(query);
     }
 
+    public List<Group> findByMemberGroup(Context context, Group child) throws SQLException {
+        Query query = createQuery(context, "select g from Group g join g.groups c where c = :child");
+        query.setParameter("child", child);
+        return list(query);
+    }
+
+    public Map<Integer, Set<Integer>> findMemberGroupIDs(Context context, Collection<Integer> groupIDs) throws SQLException {
+        Map<Integer, Set<Integer>> result = new HashMap<Integer, Set<Integer>>();
+        if (groupIDs.isEmpty())
+        {
+            return result;
+        }
+        Query query = createQuery(context, "select g.id, c.id from Group g join g.groups c where g.id in (:group_ids)");
+        query.setParameterList("group_ids", groupIDs);
+        for (Object row : query.list())
+        {
+            Object[] ids = (Object[]) row;
+            Set<Integer> children = result.get(ids[0]);
+            if (children == null)
+            {
+                children = new HashSet<Integer>();
+                result.put((Integer) ids[0], children);
+            }
+            children.add((Integer) ids[1]);
+        }
+        return result;
+    }
+
+    public boolean isMember(Context context, int groupID, EPerson ePerson, Collection<Integer> specialGroupIDs) throws SQLException {
+        if (ePerson == null && specialGroupIDs.isEmpty())
+        {
+            return false;
+        }
+
+        // The group itself or any of its nested groups, which have to contain the eperson or be a special group
+        StringBuilder queryString = new StringBuilder();
+        queryString.append("select count(*) from Group g left join g.epeople e");
+        queryString.append(" where (g.id = :group_id or g.id in (select c.child.id from Group2GroupCache c where c.parent.id = :group_id))");
+        queryString.append(" and (");
+        if (ePerson != null)
+        {
+            queryString.append("e.id = :eperson_id");
+            if (!specialGroupIDs.isEmpty())
+            {
+                queryString.append(" or ");
+            }
+        }
+        if (!specialGroupIDs.isEmpty())
+        {
+            queryString.append("g.id in (:special_group_ids)");
+        }
+        queryString.append(")");
+
+        Query query = createQuery(context, queryString.toString());
+        query.setParameter("group_id", groupID);
+        if (ePerson != null)
+        {
+            query.setParameter("eperson_id", ePerson.getID());
+        }
+        if (!specialGroupIDs.isEmpty())
+        {
+            query.setParameterList("special_group_ids", specialGroupIDs);
+        }
+        return 0 < ((Number) query.uniqueResult()).intValue();
+    }
+
     public List<Group> search(Context context, String query, int offset, int limit) throws SQLException {
         String queryParam = "%"+query.toLowerCase()+"%";
         Criteria criteria = createCriteria(context, Group.class);
@@ -21,11 +21,11 @@ public interface GroupService extends DSpaceObjectService<Group> {
 
     public void addMember(Context context, Group groupEntity, EPerson e);
 
-    public void addMember(Context context, Group groupParent, Group groupChild);
+    public void addMember(Context context, Group groupParent, Group groupChild) throws SQLException;
 
     public void removeMember(Context context, Group owningGroup, EPerson childPerson);
 
-    public void removeMember(Context context, Group owningGroup, Group childGroup);
+    public void removeMember(Context context, Group owningGroup, Group childGroup) throws SQLException;
 
     public boolean isMember(Group group, EPerson e);
 
@@ -76,6 +76,8 @@ public class BasicDispatcher extends Dispatcher
                 return;
             }
 
+            coalesce(ctx);
+
             if (log.isDebugEnabled())
             {
                 log.debug("Processing queue of "
@@ -104,7 +106,7 @@ public class BasicDispatcher extends Dispatcher
                 {
                     ConsumerProfile cp = (ConsumerProfile) ci.next();
 
-                    if (event.pass(cp.getFilters()))
+                    if (event.pass(cp.getFilterMask()))
                     {
                         if (log.isDebugEnabled())
                         {
@@ -36,6 +36,9 @@ public class ConsumerProfile
     /** Filters - each is an array of 2 bitmasks, action mask and subject mask */
     private List<int[]> filters;
 
+    /** The filters compiled into a single mask, see Event.compileFilters */
+    private long filterMask;
+
     // Prefix of keys in DSpace Configuration.
     private static final String CONSUMER_PREFIX = "event.consumer.";
 
@@ -47,6 +50,17 @@ public class ConsumerProfile
         this.name = name;
     }
 
+    /**
+     * Constructor for a consumer that isn't configured, e.g. in tests.
+     */
+    ConsumerProfile(String name, Consumer consumer, List<int[]> filters)
+    {
+        this.name = name;
+        this.consumer = consumer;
+        this.filters = filters;
+        this.filterMask = Event.compileFilters(filters);
+    }
+
     /**
      * Factory method, create new profile from configuration.
      *
@@ -143,6 +157,7 @@ public class ConsumerProfile
                 filters.add(filter);
             }
         }
+        filterMask = Event.compileFilters(filters);
     }
 
     public Consumer getConsumer()
@@ -155,6 +170,15 @@ public class ConsumerProfile
         return filters;
     }
 
+    /**
+     * @return the filters compiled for {@link Event#pass(long)}, which is
+     *         cheaper than testing the list of filters for every event.
+     */
+    public long getFilterMask()
+    {
+        return filterMask;
+    }
+
     public String getName()
     {
         return name;
@@ -11,6 +11,8 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.apache.log4j.Logger;
+import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Context;
 
 /**
@@ -23,6 +25,9 @@ import org.dspace.core.Context;
  */
 public abstract class Dispatcher
 {
+    /** log4j category */
+    private static Logger log = Logger.getLogger(Dispatcher.class);
+
     protected String name;
 
     /** unique identifier of this dispatcher - cached hash of its text Name */
@@ -33,11 +38,18 @@ public abstract class Dispatcher
      */
     protected Map<String, ConsumerProfile> consumers = new LinkedHashMap<String, ConsumerProfile>();
 
+    /** coalesces the events before they are dispatched, null if disabled */
+    protected EventCoalescer coalescer = null;
+
     protected Dispatcher(String name)
     {
         super();
         this.name = name;
         this.identifier = name.hashCode();
+        if (ConfigurationManager.getBooleanProperty("event.dispatcher." + name + ".coalesce", false))
+        {
+            coalescer = EventCoalescer.getInstance(name);
+        }
     }
 
     public Collection getConsumers()
@@ -71,4 +83,47 @@ public abstract class Dispatcher
      */
     public abstract void dispatch(Context ctx);
 
+    /**
+     * Whether this dispatcher takes part in the transaction of the context:
+     * such a dispatcher is called before the transaction is committed, and
+     * whatever it stores is committed with the changes that caused the events.
+     *
+     * @return true to dispatch before committing, false (the default) to
+     *         dispatch after committing
+     */
+    public boolean isTransactional()
+    {
+        return false;
+    }
+
+    /**
+     * Coalesce the events added to this Context, if enabled for this
+     * dispatcher. Dispatchers call this before delivering the events.
+     *
+     * @param ctx
+     *            the execution context object
+     */
+    protected void coalesce(Context ctx)
+    {
+        if (coalescer != null && ctx.hasEvents())
+        {
+            int received = ctx.getEvents().size();
+            int collapsed = coalescer.coalesce(ctx.getEvents());
+            if (log.isDebugEnabled())
+            {
+                log.debug("Coalesced " + received + " events into " + (received - collapsed)
+                        + ", " + coalescer.getCollapsedCount() + " collapsed in total.");
+            }
+        }
+    }
+
+    /**
+     * @return the number of events coalesced away by all instances of this
+     *         dispatcher, 0 if coalescing is disabled
+     */
+    public long getCollapsedCount()
+    {
+        return coalescer == null ? 0 : coalescer.getCollapsedCount();
+    }
+
 }
\ No newline at end of file
@@ -10,9 +10,7 @@ package org.dspace.event;
 import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.log4j.Logger;
@@ -50,7 +48,7 @@ import org.dspace.factory.DSpaceServiceFactory;
  */
 public class Event implements Serializable
 {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     /** ---------- Constants ------------- * */
 
@@ -79,7 +77,7 @@ public class Event implements Serializable
             "MODIFY_METADATA", "ADD", "REMOVE", "DELETE", "INSTALL" };
 
     /** XXX NOTE: These constants must be kept synchronized * */
-    /** XXX NOTE: with ALL_OBJECTS_MASK *AND* objTypeToMask hash * */
+    /** XXX NOTE: with ALL_OBJECTS_MASK *AND* TYPE_TO_MASK * */
     private static final int NONE = 0;
 
     private static final int BITSTREAM = 1 << Constants.BITSTREAM; // 0
@@ -101,53 +99,38 @@ public class Event implements Serializable
     private static final int ALL_OBJECTS_MASK = BITSTREAM | BUNDLE | ITEM
             | COLLECTION | COMMUNITY | SITE | GROUP | EPERSON;
 
-    private static Map<Integer, Integer> objTypeToMask = new HashMap<Integer, Integer>();
+    /** The mask of every object type, indexed by its Constants type */
+    private static final int[] TYPE_TO_MASK = { BITSTREAM, BUNDLE, ITEM, COLLECTION, COMMUNITY, SITE, GROUP,
+            EPERSON };
 
-    private static Map<Integer, Integer> objMaskToType = new HashMap<Integer, Integer>();
-    static
-    {
-        objTypeToMask.put(Constants.BITSTREAM, BITSTREAM);
-        objMaskToType.put(BITSTREAM, Constants.BITSTREAM);
-
-        objTypeToMask.put(Constants.BUNDLE, BUNDLE);
-        objMaskToType.put(BUNDLE, Constants.BUNDLE);
-
-        objTypeToMask.put(Constants.ITEM, ITEM);
-        objMaskToType.put(ITEM, Constants.ITEM);
+    /** Bits per object type in a compiled filter, enough for all event types */
+    private static final int FILTER_BITS = 8;
 
-        objTypeToMask.put(Constants.COLLECTION, COLLECTION);
-        objMaskToType.put(COLLECTION, Constants.COLLECTION);
+    private static final long FILTER_EVENTS = (1L << FILTER_BITS) - 1;
 
-        objTypeToMask.put(Constants.COMMUNITY, COMMUNITY);
-        objMaskToType.put(COMMUNITY, Constants.COMMUNITY);
+    /** Positions of the masks packed in {@link #types} */
+    private static final int EVENT_SHIFT = 0;
 
-        objTypeToMask.put(Constants.SITE, SITE);
-        objMaskToType.put(SITE, Constants.SITE);
+    private static final int SUBJECT_SHIFT = 16;
 
-        objTypeToMask.put(Constants.GROUP, GROUP);
-        objMaskToType.put(GROUP, Constants.GROUP);
+    private static final int OBJECT_SHIFT = 32;
 
-        objTypeToMask.put(Constants.EPERSON, EPERSON);
-        objMaskToType.put(EPERSON, Constants.EPERSON);
-    }
+    private static final long MASK_BITS = 0xffffL;
 
     /** ---------- Event Fields ------------- * */
 
     /** identifier of Dispatcher that created this event (hash of its name) */
     private int dispatcher;
 
-    /** event (action) type - above enumeration */
-    private int eventType;
-
-    /** object-type of SUBJECT - see above enumeration */
-    private int subjectType;
+    /**
+     * event (action) type, object-type of SUBJECT and object-type of OBJECT -
+     * see above enumeration - packed into one value, see {@link #pack}
+     */
+    private long types;
 
     /** content model identifier */
     private int subjectID;
 
-    /** object-type of SUBJECT - see above enumeration */
-    private int objectType = NONE;
-
     /** content model identifier */
     private int objectID = -1;
 
@@ -175,7 +158,8 @@ public class Event implements Serializable
     /** marshalling for asynch event messages. */
     private String extraLogInfo = null;
 
-    private BitSet consumedBy = new BitSet();
+    /** created when the event is first consumed */
+    private BitSet consumedBy = null;
 
     /** log4j category */
     private static Logger log = Logger.getLogger(Event.class);
@@ -194,8 +178,7 @@ public class Event implements Serializable
      */
     public Event(int eventType, int subjectType, int subjectID, String detail)
     {
-        this.eventType = eventType;
-        this.subjectType = coreTypeToMask(subjectType);
+        this.types = pack(eventType, coreTypeToMask(subjectType), NONE);
         this.subjectID = subjectID;
         timeStamp = System.currentTimeMillis();
         this.detail = detail;
@@ -220,10 +203,8 @@ public class Event implements Serializable
     public Event(int eventType, int subjectType, int subjectID, int objectType,
                  int objectID, String detail)
     {
-        this.eventType = eventType;
-        this.subjectType = coreTypeToMask(subjectType);
+        this.types = pack(eventType, coreTypeToMask(subjectType), coreTypeToMask(objectType));
         this.subjectID = subjectID;
-        this.objectType = coreTypeToMask(objectType);
         this.objectID = objectID;
         timeStamp = System.currentTimeMillis();
         this.detail = detail;
@@ -244,10 +225,8 @@ public class Event implements Serializable
             Event otherEvent = (Event)other;
             return (this.detail == null ? otherEvent.detail == null : this.detail
                     .equals(otherEvent.detail))
-                    && this.eventType == otherEvent.eventType
-                    && this.subjectType == otherEvent.subjectType
+                    && this.types == otherEvent.types
                     && this.subjectID == otherEvent.subjectID
-                    && this.objectType == otherEvent.objectType
                     && this.objectID == otherEvent.objectID;
         }
 
@@ -257,10 +236,8 @@ public class Event implements Serializable
     public int hashCode()
     {
         return new HashCodeBuilder().append(this.detail)
-                .append(eventType)
-                .append(subjectType)
+                .append(types)
                 .append(subjectID)
-                .append(objectType)
                 .append(objectID)
                 .toHashCode();
     }
@@ -276,32 +253,38 @@ public class Event implements Serializable
         dispatcher = id;
     }
 
+    // pack the event type and the subject and object type masks into one value.
+    private static long pack(int eventType, int subjectMask, int objectMask)
+    {
+        return ((eventType & MASK_BITS) << EVENT_SHIFT) | ((subjectMask & MASK_BITS) << SUBJECT_SHIFT)
+                | ((objectMask & MASK_BITS) << OBJECT_SHIFT);
+    }
+
+    private int eventType()
+    {
+        return (int) ((types >>> EVENT_SHIFT) & MASK_BITS);
+    }
+
+    private int subjectMask()
+    {
+        return (int) ((types >>> SUBJECT_SHIFT) & MASK_BITS);
+    }
+
+    private int objectMask()
+    {
+        return (int) ((types >>> OBJECT_SHIFT) & MASK_BITS);
+    }
+
     // translate a "core.Constants" object type value to local bitmask value.
     private static int coreTypeToMask(int core)
     {
-        Integer mask = objTypeToMask.get(core);
-        if (mask == null)
-        {
-            return -1;
-        }
-        else
-        {
-            return mask.intValue();
-        }
+        return core >= 0 && core < TYPE_TO_MASK.length ? TYPE_TO_MASK[core] : NONE;
     }
 
     // translate bitmask object-type to "core.Constants" object type.
     private static int maskTypeToCore(int mask)
     {
-        Integer core = objMaskToType.get(mask);
-        if (core == null)
-        {
-            return -1;
-        }
-        else
-        {
-            return core.intValue();
-        }
+        return mask != NONE && (mask & (mask - 1)) == 0 ? Integer.numberOfTrailingZeros(mask) : -1;
     }
 
     /**
@@ -355,7 +338,7 @@ public class Event implements Serializable
      */
     public int getSubjectType()
     {
-        return maskTypeToCore(subjectType);
+        return maskTypeToCore(subjectMask());
     }
 
     /**
@@ -364,7 +347,7 @@ public class Event implements Serializable
      */
     public int getObjectType()
     {
-        return maskTypeToCore(objectType);
+        return maskTypeToCore(objectMask());
     }
 
     /**
@@ -372,7 +355,7 @@ public class Event implements Serializable
      */
     public String getSubjectTypeAsString()
     {
-        int i = log2(subjectType);
+        int i = getSubjectType();
         if (i >= 0 && i < Constants.typeText.length)
         {
             return Constants.typeText[i];
@@ -388,7 +371,7 @@ public class Event implements Serializable
      */
     public String getObjectTypeAsString()
     {
-        int i = log2(objectType);
+        int i = getObjectType();
         if (i >= 0 && i < Constants.typeText.length)
         {
             return Constants.typeText[i];
@@ -431,26 +414,46 @@ public class Event implements Serializable
      */
     public int getEventType()
     {
-        return eventType;
+        return eventType();
+    }
+
+    /**
+     * Test whether this event is of (one of) the given types. An event
+     * coalesced from several events of the same subject is of all their
+     * types, so consumers should test for a type rather than compare it.
+     *
+     * @param mask
+     *            event type(s), e.g. <code>Event.MODIFY | Event.MODIFY_METADATA</code>
+     * @return true if this event is of any of the given types
+     */
+    public boolean hasEventType(int mask)
+    {
+        return (eventType() & mask) != 0;
     }
 
     /**
      * Get the text name of event (action) type.
      *
      * @return event-type (i.e. action) this event as a String, e.g. for
-     *          logging.
+     *          logging. The names of the types of a coalesced event are
+     *          separated by "|".
      */
     public String getEventTypeAsString()
     {
-        int i = log2(eventType);
-        if (i >= 0 && i < eventTypeText.length)
-        {
-            return eventTypeText[i];
-        }
-        else
+        int eventType = eventType();
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < 32; ++i)
         {
-            return "(Unknown)";
+            if ((eventType & (1 << i)) != 0)
+            {
+                if (result.length() > 0)
+                {
+                    result.append('|');
+                }
+                result.append(i < eventTypeText.length ? eventTypeText[i] : "(Unknown)");
+            }
         }
+        return result.length() == 0 ? "(Unknown)" : result.toString();
     }
 
     /**
@@ -482,6 +485,47 @@ public class Event implements Serializable
         return 0;
     }
 
+    /**
+     * Check whether a later event can be merged into this one without losing
+     * its detail, i.e. the details are equal or one of them has none.
+     *
+     * @param other
+     *            the later event, of the same subject and without object
+     */
+    boolean canMerge(Event other)
+    {
+        return detail == null || other.detail == null || detail.equals(other.detail);
+    }
+
+    /**
+     * Merge a later event of the same subject into this one: this event gets
+     * the types of both, and the detail of the other if it has none itself.
+     *
+     * @param other
+     *            the event to merge, of the same subject and without object
+     * @see #canMerge(Event)
+     */
+    void merge(Event other)
+    {
+        types |= (long) other.eventType() << EVENT_SHIFT;
+        if (detail == null)
+        {
+            detail = other.detail;
+        }
+    }
+
+    /**
+     * Restore the time an event occurred, e.g. when reading it back from an
+     * outbox.
+     *
+     * @param timeStamp
+     *            milliseconds since the epoch
+     */
+    void setTimeStamp(long timeStamp)
+    {
+        this.timeStamp = timeStamp;
+    }
+
     /**
      * @return timestamp at which event occurred, as a count of milliseconds
      *         since the epoch (standard Java format).
@@ -554,45 +598,72 @@ public class Event implements Serializable
      *            list of filter masks; each one is an Array of two ints.
      * @return true if this event would be passed through the given filter
      *         list.
+     * @see #pass(long)
      */
     public boolean pass(List<int[]> filters)
     {
-        boolean result = false;
-
+        int subject = subjectMask();
+        int event = eventType();
         for (int filter[] : filters)
         {
-            if ((subjectType & filter[SUBJECT_MASK]) != 0 && (eventType & filter[EVENT_MASK]) != 0)
+            if ((subject & filter[SUBJECT_MASK]) != 0 && (event & filter[EVENT_MASK]) != 0)
             {
-                result = true;
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Test whether this event would pass through a compiled list of filters.
+     * Dispatchers should compile the filters of a consumer once, see
+     * {@link ConsumerProfile#getFilterMask()}.
+     *
+     * @param filterMask
+     *            filters compiled by {@link #compileFilters(List)}.
+     * @return true if this event would be passed through the filters.
+     */
+    public boolean pass(long filterMask)
+    {
+        int subject = getSubjectType();
+        boolean result = subject >= 0
+                && ((filterMask >>> (subject * FILTER_BITS)) & eventType() & FILTER_EVENTS) != 0;
 
         if (log.isDebugEnabled())
         {
             log.debug("Filtering event: " + "eventType="
-                    + String.valueOf(eventType) + ", subjectType="
-                    + String.valueOf(subjectType) + ", result="
+                    + String.valueOf(eventType()) + ", subjectType="
+                    + String.valueOf(subjectMask()) + ", result="
                     + String.valueOf(result));
         }
 
         return result;
     }
 
-    // dumb integer "log base 2", returns -1 if there are no 1's in number.
-    private static int log2(int n)
+    /**
+     * Compile a list of filters into a single mask: for every object type, the
+     * event types passing for a subject of that type, {@link #FILTER_BITS}
+     * bits per object type.
+     *
+     * @param filters
+     *            list of filter masks; each one is an Array of two ints.
+     * @return the compiled filters, for {@link #pass(long)}.
+     */
+    public static long compileFilters(List<int[]> filters)
     {
-        for (int i = 0; i < 32; ++i)
+        long result = 0;
+        for (int filter[] : filters)
         {
-            if (n == 1)
+            long events = filter[EVENT_MASK] & FILTER_EVENTS;
+            for (int type = 0; type < TYPE_TO_MASK.length; ++type)
             {
-                return i;
-            }
-            else
-            {
-                n = n >> 1;
+                if ((filter[SUBJECT_MASK] & TYPE_TO_MASK[type]) != 0)
+                {
+                    result |= events << (type * FILTER_BITS);
+                }
             }
         }
-        return -1;
+        return result;
     }
 
     /**
@@ -604,7 +675,7 @@ public class Event implements Serializable
      */
     public void setBitSet(String consumerName)
     {
-        consumedBy.set(EventManager.getConsumerIndex(consumerName));
+        getBitSet().set(EventManager.getConsumerIndex(consumerName));
     }
 
     /**
@@ -612,6 +683,10 @@ public class Event implements Serializable
      */
     public BitSet getBitSet()
     {
+        if (consumedBy == null)
+        {
+            consumedBy = new BitSet();
+        }
         return consumedBy;
     }
 
@@ -0,0 +1,152 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the events of a transaction before they are dispatched, so a
+ * consumer gets one event per changed object rather than one per change. A
+ * single update of an item e.g. adds both a MODIFY_METADATA and a MODIFY
+ * event, and every one of them makes a consumer like the discovery consumer
+ * look up the item again.
+ * <P>
+ * An event of a subject that has no object (create, modify, modify metadata
+ * and install) is merged into the event right before it if that is one of
+ * them for the same subject, and their details are equal or one of them has
+ * none: it gets the types of both. Events with an object (add and remove) and
+ * delete events are kept, as consumers need their object and detail, but a
+ * repetition of the event right before it is dropped. Only neighbours are
+ * merged, so no event is moved before another one and events with different
+ * details stay apart.
+ * <P>
+ * Consumers of coalesced events should test the type with
+ * {@link Event#hasEventType(int)} rather than compare it.
+ * <P>
+ * Enable it for a dispatcher in <code>dspace.cfg</code>:
+ *
+ * <pre>
+ *  event.dispatcher.outbox.coalesce = true
+ * </pre>
+ *
+ * The events are coalesced when they are dispatched, so the setting only has
+ * an effect on a dispatcher <code>Context.commit</code> calls, i.e. a
+ * transactional one like the {@link OutboxDispatcher}.
+ */
+public class EventCoalescer
+{
+    /** The types merged into the previous event of the same subject */
+    private static final int MERGED_TYPES = Event.CREATE | Event.MODIFY | Event.MODIFY_METADATA | Event.INSTALL;
+
+    /** Coalescers by dispatcher name, shared by the pooled dispatchers */
+    private static final Map<String, EventCoalescer> coalescers = new HashMap<String, EventCoalescer>();
+
+    private final AtomicLong receivedCount = new AtomicLong();
+
+    private final AtomicLong collapsedCount = new AtomicLong();
+
+    EventCoalescer()
+    {
+    }
+
+    /**
+     * Get the coalescer of a dispatcher, which counts the events of all its
+     * instances.
+     *
+     * @param dispatcher
+     *            the name of the dispatcher
+     */
+    public static synchronized EventCoalescer getInstance(String dispatcher)
+    {
+        EventCoalescer coalescer = coalescers.get(dispatcher);
+        if (coalescer == null)
+        {
+            coalescer = new EventCoalescer();
+            coalescers.put(dispatcher, coalescer);
+        }
+        return coalescer;
+    }
+
+    /**
+     * Coalesce a list of events in place, keeping their order otherwise.
+     *
+     * @param events
+     *            the events of a transaction, in the order they were added
+     * @return the number of events removed from the list
+     */
+    public int coalesce(List<Event> events)
+    {
+        if (events == null)
+        {
+            return 0;
+        }
+        receivedCount.addAndGet(events.size());
+
+        Event previous = null;
+        int collapsed = 0;
+        for (Iterator<Event> i = events.iterator(); i.hasNext();)
+        {
+            Event event = i.next();
+            if (previous != null && isSameSubject(previous, event))
+            {
+                if (isMergeable(previous) && isMergeable(event) && previous.canMerge(event))
+                {
+                    previous.merge(event);
+                    i.remove();
+                    collapsed++;
+                    continue;
+                }
+                if (event.equals(previous))
+                {
+                    i.remove();
+                    collapsed++;
+                    continue;
+                }
+            }
+            previous = event;
+        }
+
+        collapsedCount.addAndGet(collapsed);
+        return collapsed;
+    }
+
+    private boolean isMergeable(Event event)
+    {
+        return event.getObjectType() < 0 && (event.getEventType() & ~MERGED_TYPES) == 0;
+    }
+
+    private boolean isSameSubject(Event previous, Event event)
+    {
+        return previous.getSubjectType() == event.getSubjectType() && previous.getSubjectID() == event.getSubjectID();
+    }
+
+    /**
+     * @return the number of events received, before coalescing
+     */
+    public long getReceivedCount()
+    {
+        return receivedCount.get();
+    }
+
+    /**
+     * @return the number of events merged into others or dropped
+     */
+    public long getCollapsedCount()
+    {
+        return collapsedCount.get();
+    }
+
+    public String toString()
+    {
+        return "EventCoalescer(received=" + getReceivedCount() + ", collapsed=" + getCollapsedCount() + ")";
+    }
+}
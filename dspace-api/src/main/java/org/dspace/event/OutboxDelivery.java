@@ -0,0 +1,508 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Context;
+import org.dspace.event.service.OutboxEventService;
+import org.dspace.factory.DSpaceServiceFactory;
+
+/**
+ * Delivers the events stored by an {@link OutboxDispatcher} to its consumers,
+ * in the background. There is one delivery per dispatcher name in a JVM, with
+ * instances of the consumers of its own, as the consumers aren't thread safe.
+ * <P>
+ * Every consumer is polled on its own by a pool of worker threads, never by
+ * two workers at once, so it sees its events in the order they occurred. A
+ * worker reads a batch of events due for the consumer in a context of its own,
+ * hands them to <code>consume</code>, calls <code>end</code> and then removes
+ * the consumed events in the same transaction. An event that fails is retried
+ * later, after a delay doubling with every attempt; when <code>end</code>
+ * fails the whole batch is retried. The later events of the same subject wait
+ * for the retried one, so the events of an object keep their order, while the
+ * events of other objects go ahead. An event that failed too often stays in
+ * the outbox, with its last error, for an administrator to look into, and no
+ * longer holds back the events after it.
+ * <P>
+ * The events are not claimed in the database: only one JVM may deliver the
+ * events of a dispatcher, otherwise two of them would hand the same events to
+ * their consumers. The other JVMs sharing the database, e.g. a second web
+ * application, set <code>deliver</code> to <code>false</code> and only store
+ * events.
+ * <P>
+ * The consumers run with the authorization system turned off; the user who
+ * caused an event is available as {@link Event#getCurrentUser()}.
+ * <P>
+ * Settings in <code>dspace.cfg</code>, for a dispatcher named
+ * <code>outbox</code>:
+ * <ul>
+ * <li><code>event.dispatcher.outbox.deliver</code>: whether this JVM delivers the events, true by default</li>
+ * <li><code>event.dispatcher.outbox.threads</code>: the number of worker threads, 2 by default</li>
+ * <li><code>event.dispatcher.outbox.batch-size</code>: the maximum number of events per batch, 100 by default</li>
+ * <li><code>event.dispatcher.outbox.poll-interval</code>: the milliseconds between two polls of a consumer, 1000 by default</li>
+ * <li><code>event.dispatcher.outbox.retry-delay</code>: the milliseconds before the first retry, 10000 by default</li>
+ * <li><code>event.dispatcher.outbox.max-attempts</code>: the number of attempts before giving up on an event, 10 by default</li>
+ * </ul>
+ */
+public class OutboxDelivery
+{
+    /** log4j category */
+    private static Logger log = Logger.getLogger(OutboxDelivery.class);
+
+    public static final int DEFAULT_THREADS = 2;
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_POLL_INTERVAL = 1000;
+
+    public static final int DEFAULT_RETRY_DELAY = 10000;
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+    private static final String PROP_PFX = "event.dispatcher.";
+
+    /** The running deliveries, by dispatcher name */
+    private static final Map<String, OutboxDelivery> deliveries = new HashMap<String, OutboxDelivery>();
+
+    private final OutboxEventService outboxEventService = DSpaceServiceFactory.getInstance().getOutboxEventService();
+
+    private final String dispatcher;
+
+    private final Map<String, ConsumerProfile> profiles = new LinkedHashMap<String, ConsumerProfile>();
+
+    private final Map<String, ConsumerStatistics> statistics = new LinkedHashMap<String, ConsumerStatistics>();
+
+    private int threads;
+
+    private int batchSize;
+
+    private long pollInterval;
+
+    private long retryDelay;
+
+    private int maxAttempts;
+
+    private ScheduledExecutorService scheduler = null;
+
+    /**
+     * Create a delivery that isn't started, reading its settings from the
+     * configuration.
+     *
+     * @param dispatcher
+     *            the name of the dispatcher storing the events
+     */
+    OutboxDelivery(String dispatcher)
+    {
+        this.dispatcher = dispatcher;
+        String prefix = PROP_PFX + dispatcher + ".";
+        threads = ConfigurationManager.getIntProperty(prefix + "threads", DEFAULT_THREADS);
+        batchSize = ConfigurationManager.getIntProperty(prefix + "batch-size", DEFAULT_BATCH_SIZE);
+        pollInterval = ConfigurationManager.getLongProperty(prefix + "poll-interval", DEFAULT_POLL_INTERVAL);
+        retryDelay = ConfigurationManager.getLongProperty(prefix + "retry-delay", DEFAULT_RETRY_DELAY);
+        maxAttempts = ConfigurationManager.getIntProperty(prefix + "max-attempts", DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Get the delivery of a dispatcher, starting it if it isn't running yet
+     * and this JVM delivers the events of the dispatcher.
+     *
+     * @param dispatcher
+     *            the name of the dispatcher
+     */
+    public static synchronized OutboxDelivery getInstance(String dispatcher)
+    {
+        OutboxDelivery delivery = deliveries.get(dispatcher);
+        if (delivery == null)
+        {
+            delivery = new OutboxDelivery(dispatcher);
+            if (ConfigurationManager.getBooleanProperty(PROP_PFX + dispatcher + ".deliver", true))
+            {
+                delivery.start();
+            }
+            else
+            {
+                log.info("The events of dispatcher " + dispatcher + " are delivered by another JVM");
+            }
+            deliveries.put(dispatcher, delivery);
+        }
+        return delivery;
+    }
+
+    /**
+     * Register a configured consumer, creating an instance of it for the
+     * delivery if there isn't one yet.
+     *
+     * @param consumer
+     *            the configured name of the consumer
+     */
+    synchronized void register(String consumer) throws Exception
+    {
+        if (!profiles.containsKey(consumer))
+        {
+            ConsumerProfile cp = ConsumerProfile.makeConsumerProfile(consumer);
+            cp.getConsumer().initialize();
+            addConsumer(cp);
+        }
+    }
+
+    /**
+     * Add a consumer to deliver to, polling it right away if the delivery is
+     * running.
+     */
+    synchronized void addConsumer(final ConsumerProfile cp)
+    {
+        profiles.put(cp.getName(), cp);
+        statistics.put(cp.getName(), new ConsumerStatistics());
+        if (scheduler != null)
+        {
+            schedule(cp);
+        }
+    }
+
+    synchronized void start()
+    {
+        if (scheduler != null)
+        {
+            return;
+        }
+        final AtomicInteger count = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(Math.max(threads, 1), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "outbox-" + dispatcher + "-" + count.incrementAndGet());
+                // the events are durable, don't keep a command line tool from exiting
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (ConsumerProfile cp : profiles.values())
+        {
+            schedule(cp);
+        }
+        log.info("Started delivering the events of dispatcher " + dispatcher + " with " + threads + " workers");
+    }
+
+    /**
+     * Stop the workers, after the batches they are delivering.
+     */
+    public void stop()
+    {
+        synchronized (OutboxDelivery.class)
+        {
+            if (deliveries.get(dispatcher) == this)
+            {
+                deliveries.remove(dispatcher);
+            }
+        }
+        synchronized (this)
+        {
+            if (scheduler != null)
+            {
+                scheduler.shutdown();
+                scheduler = null;
+            }
+        }
+    }
+
+    private void schedule(final ConsumerProfile cp)
+    {
+        // with a fixed delay a consumer is never polled twice at once
+        scheduler.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    while (deliver(cp.getName()) == batchSize)
+                    {
+                        // more events are waiting, keep going
+                    }
+                }
+                catch (Throwable t)
+                {
+                    // an exception would cancel the polling of the consumer
+                    log.error("Delivering the events of dispatcher " + dispatcher + " to consumer \""
+                            + cp.getName() + "\" failed", t);
+                }
+            }
+        }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deliver one batch of the events due for a consumer, in a context of the
+     * calling thread.
+     *
+     * @param consumer
+     *            the name of the consumer
+     * @return the number of events consumed
+     */
+    int deliver(String consumer) throws SQLException
+    {
+        ConsumerProfile cp;
+        ConsumerStatistics stats;
+        synchronized (this)
+        {
+            cp = profiles.get(consumer);
+            stats = statistics.get(consumer);
+        }
+        if (cp == null)
+        {
+            throw new IllegalArgumentException("No consumer named \"" + consumer + "\"");
+        }
+
+        Context context = new Context();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            List<OutboxEvent> due = outboxEventService.findDue(context, dispatcher, consumer, maxAttempts, batchSize);
+            if (due.isEmpty())
+            {
+                context.complete();
+                return 0;
+            }
+
+            List<OutboxEvent> consumed = new ArrayList<OutboxEvent>(due.size());
+            List<OutboxEvent> failed = new ArrayList<OutboxEvent>();
+            List<Exception> errors = new ArrayList<Exception>();
+            Set<String> failedSubjects = new HashSet<String>();
+            for (OutboxEvent outboxEvent : due)
+            {
+                String subject = outboxEvent.getSubjectType() + ":" + outboxEvent.getSubjectID();
+                if (failedSubjects.contains(subject))
+                {
+                    // left in the outbox, it waits for the retry of the failed event
+                    continue;
+                }
+                Event event = outboxEventService.toEvent(outboxEvent);
+                try
+                {
+                    cp.getConsumer().consume(context, event);
+                    consumed.add(outboxEvent);
+                }
+                catch (Exception e)
+                {
+                    log.error("Consumer(\"" + consumer + "\").consume threw: " + e.toString(), e);
+                    failed.add(outboxEvent);
+                    errors.add(e);
+                    failedSubjects.add(subject);
+                }
+            }
+
+            try
+            {
+                cp.getConsumer().end(context);
+            }
+            catch (Exception e)
+            {
+                log.error("Error in Consumer(\"" + consumer + "\").end: " + e.toString(), e);
+                context.abort();
+                retryAll(due, e, stats);
+                return 0;
+            }
+
+            long now = System.currentTimeMillis();
+            for (OutboxEvent outboxEvent : consumed)
+            {
+                stats.delivered(now - outboxEvent.getCreated().getTime());
+                outboxEventService.delete(context, outboxEvent);
+            }
+            for (int i = 0; i < failed.size(); i++)
+            {
+                retry(context, failed.get(i), errors.get(i), stats);
+            }
+            context.complete();
+            return consumed.size();
+        }
+        finally
+        {
+            if (context.isValid())
+            {
+                context.abort();
+            }
+        }
+    }
+
+    /**
+     * Postpone a batch the consumer failed to end, in a new context.
+     */
+    private void retryAll(List<OutboxEvent> batch, Exception error, ConsumerStatistics stats) throws SQLException
+    {
+        Context context = new Context();
+        try
+        {
+            for (OutboxEvent outboxEvent : batch)
+            {
+                OutboxEvent reloaded = (OutboxEvent) context.getDBConnection().get(OutboxEvent.class, outboxEvent.getId());
+                if (reloaded != null)
+                {
+                    retry(context, reloaded, error, stats);
+                }
+            }
+            context.complete();
+        }
+        finally
+        {
+            if (context.isValid())
+            {
+                context.abort();
+            }
+        }
+    }
+
+    private void retry(Context context, OutboxEvent outboxEvent, Exception error, ConsumerStatistics stats)
+            throws SQLException
+    {
+        stats.failed();
+        outboxEventService.retry(context, outboxEvent, error, retryDelay);
+        if (outboxEvent.getAttempts() >= maxAttempts)
+        {
+            log.error("Giving up delivering outbox event " + outboxEvent.getId() + " to consumer \""
+                    + outboxEvent.getConsumer() + "\" after " + outboxEvent.getAttempts() + " attempts");
+        }
+    }
+
+    /**
+     * @return the name of the dispatcher whose events are delivered
+     */
+    public String getDispatcher()
+    {
+        return dispatcher;
+    }
+
+    /**
+     * @return the delivery figures of every consumer, by consumer name
+     */
+    public synchronized Map<String, ConsumerStatistics> getStatistics()
+    {
+        return new LinkedHashMap<String, ConsumerStatistics>(statistics);
+    }
+
+    /**
+     * The lag of a consumer: how long the oldest event waiting for it has
+     * been waiting.
+     *
+     * @param consumer
+     *            the name of the consumer
+     * @return the lag in milliseconds, 0 if no event is waiting
+     */
+    public long getLagMillis(Context context, String consumer) throws SQLException
+    {
+        Date oldest = outboxEventService.getOldestPending(context, dispatcher, consumer);
+        return oldest == null ? 0 : Math.max(System.currentTimeMillis() - oldest.getTime(), 0);
+    }
+
+    /**
+     * @return the number of events waiting for a consumer
+     */
+    public int getPendingCount(Context context, String consumer) throws SQLException
+    {
+        return outboxEventService.countPending(context, dispatcher, consumer);
+    }
+
+    void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    void setMaxAttempts(int maxAttempts)
+    {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Delivery figures of a consumer, cumulative since the delivery started.
+     * The lag of an event is the time between it occurring and it being
+     * delivered.
+     */
+    public static class ConsumerStatistics
+    {
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalLagMillis = new AtomicLong();
+        private final AtomicLong maxLagMillis = new AtomicLong();
+        private final AtomicLong lastLagMillis = new AtomicLong();
+
+        void delivered(long lagMillis)
+        {
+            delivered.incrementAndGet();
+            totalLagMillis.addAndGet(lagMillis);
+            lastLagMillis.set(lagMillis);
+            long max = maxLagMillis.get();
+            while (lagMillis > max && !maxLagMillis.compareAndSet(max, lagMillis))
+            {
+                max = maxLagMillis.get();
+            }
+        }
+
+        void failed()
+        {
+            failures.incrementAndGet();
+        }
+
+        /**
+         * @return the number of events delivered
+         */
+        public long getDeliveredCount()
+        {
+            return delivered.get();
+        }
+
+        /**
+         * @return the number of failed attempts to deliver an event
+         */
+        public long getFailureCount()
+        {
+            return failures.get();
+        }
+
+        /**
+         * @return the lag of the last event delivered, in milliseconds
+         */
+        public long getLastLagMillis()
+        {
+            return lastLagMillis.get();
+        }
+
+        public long getMaxLagMillis()
+        {
+            return maxLagMillis.get();
+        }
+
+        public double getAverageLagMillis()
+        {
+            long count = delivered.get();
+            return count == 0 ? 0 : (double) totalLagMillis.get() / count;
+        }
+
+        public String toString()
+        {
+            return "delivered=" + getDeliveredCount()
+                    + ", failures=" + getFailureCount()
+                    + ", lastLagMillis=" + getLastLagMillis()
+                    + ", maxLagMillis=" + getMaxLagMillis();
+        }
+    }
+}
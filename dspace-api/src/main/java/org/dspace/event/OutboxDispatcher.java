@@ -0,0 +1,155 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import java.sql.SQLException;
+
+import org.apache.log4j.Logger;
+import org.dspace.core.Context;
+import org.dspace.core.Utils;
+import org.dspace.event.service.OutboxEventService;
+import org.dspace.factory.DSpaceServiceFactory;
+
+/**
+ * OutboxDispatcher delivers events asynchronously. Rather than calling the
+ * consumers, it stores the events in the <code>event_outbox</code> table, one
+ * record for every consumer whose filters the event passes. It does so in the
+ * transaction of the context, before it is committed: the events are stored
+ * if and only if the changes that caused them are. The time it takes to commit
+ * no longer depends on the work of the consumers.
+ * <P>
+ * The events are then delivered by the {@link OutboxDelivery} of the
+ * dispatcher, a pool of background workers each consumer gets its own turns
+ * in. An event is removed from the outbox once the consumer has consumed it
+ * and ended the batch, so it is delivered at least once: a failure, or a
+ * crash of the JVM, delivers it again later. Events stored by a command line
+ * tool that exits before they are delivered are delivered by the next JVM
+ * using the dispatcher, e.g. the web application.
+ * <P>
+ * Enable it like any other dispatcher in <code>dspace.cfg</code>:
+ *
+ * <pre>
+ *  event.dispatcher.outbox.class = org.dspace.event.OutboxDispatcher
+ *  event.dispatcher.outbox.consumers = versioning, discovery, eperson, harvester
+ * </pre>
+ *
+ * See {@link OutboxDelivery} for the settings of the workers.
+ */
+public class OutboxDispatcher extends Dispatcher
+{
+    /** log4j category */
+    private static Logger log = Logger.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventService outboxEventService = DSpaceServiceFactory.getInstance().getOutboxEventService();
+
+    private final OutboxDelivery delivery;
+
+    public OutboxDispatcher(String name)
+    {
+        this(name, OutboxDelivery.getInstance(name));
+    }
+
+    /**
+     * Constructor using the given delivery, e.g. one that isn't started.
+     */
+    OutboxDispatcher(String name, OutboxDelivery delivery)
+    {
+        super(name);
+        this.delivery = delivery;
+    }
+
+    public void addConsumerProfile(ConsumerProfile cp)
+            throws IllegalArgumentException
+    {
+        if (consumers.containsKey(cp.getName()))
+        {
+            throw new IllegalArgumentException(
+                    "This dispatcher already has a consumer named \""
+                            + cp.getName() + "\"");
+        }
+
+        consumers.put(cp.getName(), cp);
+
+        // the workers deliver to instances of the consumer of their own
+        try
+        {
+            delivery.register(cp.getName());
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException("Consumer \"" + cp.getName()
+                    + "\" could not be registered for delivery", e);
+        }
+    }
+
+    /**
+     * The events are stored in the transaction being committed.
+     */
+    public boolean isTransactional()
+    {
+        return true;
+    }
+
+    /**
+     * Store all events added to this Context in the outbox, for every
+     * consumer whose filters they pass. The caller commits the transaction.
+     *
+     * @param ctx
+     *            the execution context
+     */
+    public void dispatch(Context ctx)
+    {
+        if (consumers.isEmpty() || !ctx.hasEvents())
+        {
+            return;
+        }
+
+        coalesce(ctx);
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Storing queue of "
+                    + String.valueOf(ctx.getEvents().size()) + " events.");
+        }
+
+        String tid = "TX" + Utils.generateKey();
+        int userID = ctx.getCurrentUser() == null ? -1 : ctx.getCurrentUser().getID();
+
+        try
+        {
+            while (ctx.hasEvents())
+            {
+                Event event = ctx.pollEvent();
+                event.setDispatcher(getIdentifier());
+                event.setTransactionID(tid);
+                event.setCurrentUser(userID);
+
+                for (ConsumerProfile cp : consumers.values())
+                {
+                    if (event.pass(cp.getFilterMask()))
+                    {
+                        outboxEventService.create(ctx, name, cp.getName(), event);
+                    }
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            // losing the events silently would leave e.g. the search index stale
+            throw new IllegalStateException("Events could not be stored in the outbox", e);
+        }
+    }
+
+    /**
+     * @return the delivery of the events stored by this dispatcher
+     */
+    public OutboxDelivery getDelivery()
+    {
+        return delivery;
+    }
+}
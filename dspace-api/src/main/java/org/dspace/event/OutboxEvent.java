@@ -0,0 +1,233 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * An event waiting in the outbox of an {@link OutboxDispatcher} to be delivered
+ * to one of its consumers. There is a record for every consumer the event
+ * passes the filters of, so every consumer is retried and lags on its own.
+ */
+@Entity
+@Table(name="event_outbox", schema = "public")
+public class OutboxEvent
+{
+    @Id
+    @Column(name="outbox_id")
+    @GeneratedValue(strategy = GenerationType.AUTO ,generator="event_outbox_seq")
+    @SequenceGenerator(name="event_outbox_seq", sequenceName="event_outbox_seq", allocationSize = 1)
+    private long id;
+
+    @Column(name = "dispatcher", nullable = false)
+    private String dispatcher;
+
+    @Column(name = "consumer", nullable = false)
+    private String consumer;
+
+    @Column(name = "event_type")
+    private int eventType;
+
+    @Column(name = "subject_type")
+    private int subjectType;
+
+    @Column(name = "subject_id")
+    private int subjectID;
+
+    @Column(name = "object_type")
+    private int objectType;
+
+    @Column(name = "object_id")
+    private int objectID;
+
+    @Column(name = "detail")
+    private String detail;
+
+    @Column(name = "transaction_id")
+    private String transactionID;
+
+    @Column(name = "eperson_id")
+    private int currentUser;
+
+    @Column(name = "created", nullable = false)
+    private Date created;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "next_attempt", nullable = false)
+    private Date nextAttempt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public String getDispatcher()
+    {
+        return dispatcher;
+    }
+
+    public void setDispatcher(String dispatcher)
+    {
+        this.dispatcher = dispatcher;
+    }
+
+    public String getConsumer()
+    {
+        return consumer;
+    }
+
+    public void setConsumer(String consumer)
+    {
+        this.consumer = consumer;
+    }
+
+    /**
+     * @return the event type, e.g. {@link Event#MODIFY}
+     */
+    public int getEventType()
+    {
+        return eventType;
+    }
+
+    public void setEventType(int eventType)
+    {
+        this.eventType = eventType;
+    }
+
+    /**
+     * @return the type of the subject, as in {@link org.dspace.core.Constants}
+     */
+    public int getSubjectType()
+    {
+        return subjectType;
+    }
+
+    public void setSubjectType(int subjectType)
+    {
+        this.subjectType = subjectType;
+    }
+
+    public int getSubjectID()
+    {
+        return subjectID;
+    }
+
+    public void setSubjectID(int subjectID)
+    {
+        this.subjectID = subjectID;
+    }
+
+    /**
+     * @return the type of the object, as in {@link org.dspace.core.Constants},
+     *         or -1 if the event has no object
+     */
+    public int getObjectType()
+    {
+        return objectType;
+    }
+
+    public void setObjectType(int objectType)
+    {
+        this.objectType = objectType;
+    }
+
+    public int getObjectID()
+    {
+        return objectID;
+    }
+
+    public void setObjectID(int objectID)
+    {
+        this.objectID = objectID;
+    }
+
+    public String getDetail()
+    {
+        return detail;
+    }
+
+    public void setDetail(String detail)
+    {
+        this.detail = detail;
+    }
+
+    public String getTransactionID()
+    {
+        return transactionID;
+    }
+
+    public void setTransactionID(String transactionID)
+    {
+        this.transactionID = transactionID;
+    }
+
+    /**
+     * @return the id of the user who caused the event, -1 if none
+     */
+    public int getCurrentUser()
+    {
+        return currentUser;
+    }
+
+    public void setCurrentUser(int currentUser)
+    {
+        this.currentUser = currentUser;
+    }
+
+    public Date getCreated()
+    {
+        return created;
+    }
+
+    public void setCreated(Date created)
+    {
+        this.created = created;
+    }
+
+    /**
+     * @return the number of failed attempts to deliver the event
+     */
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts)
+    {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return when to attempt delivering the event (again)
+     */
+    public Date getNextAttempt()
+    {
+        return nextAttempt;
+    }
+
+    public void setNextAttempt(Date nextAttempt)
+    {
+        this.nextAttempt = nextAttempt;
+    }
+
+    public String getLastError()
+    {
+        return lastError;
+    }
+
+    public void setLastError(String lastError)
+    {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import org.dspace.core.Context;
+import org.dspace.event.dao.OutboxEventDAO;
+import org.dspace.event.service.OutboxEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Service implementation for the OutboxEvent object.
+ * This class is responsible for all business logic calls for the OutboxEvent object and is autowired by spring.
+ */
+public class OutboxEventServiceImpl implements OutboxEventService {
+
+    /** Longest delay between two attempts to deliver an event: one hour */
+    public static final long MAX_RETRY_DELAY = 60 * 60 * 1000L;
+
+    /** Longest error message kept with an event */
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Autowired(required = true)
+    protected OutboxEventDAO outboxEventDAO;
+
+    @Override
+    public OutboxEvent create(Context context, String dispatcher, String consumer, Event event) throws SQLException {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setDispatcher(dispatcher);
+        outboxEvent.setConsumer(consumer);
+        outboxEvent.setEventType(event.getEventType());
+        outboxEvent.setSubjectType(event.getSubjectType());
+        outboxEvent.setSubjectID(event.getSubjectID());
+        outboxEvent.setObjectType(event.getObjectType());
+        outboxEvent.setObjectID(event.getObjectID());
+        outboxEvent.setDetail(event.getDetail());
+        outboxEvent.setTransactionID(event.getTransactionID());
+        outboxEvent.setCurrentUser(event.getCurrentUser());
+        Date created = new Date(event.getTimeStamp());
+        outboxEvent.setCreated(created);
+        outboxEvent.setNextAttempt(created);
+        return outboxEventDAO.create(context, outboxEvent);
+    }
+
+    @Override
+    public List<OutboxEvent> findDue(Context context, String dispatcher, String consumer, int maxAttempts, int limit) throws SQLException {
+        return outboxEventDAO.findDue(context, dispatcher, consumer, new Date(), maxAttempts, limit);
+    }
+
+    @Override
+    public int countPending(Context context, String dispatcher, String consumer) throws SQLException {
+        return outboxEventDAO.countPending(context, dispatcher, consumer);
+    }
+
+    @Override
+    public Date getOldestPending(Context context, String dispatcher, String consumer) throws SQLException {
+        return outboxEventDAO.getOldestCreated(context, dispatcher, consumer);
+    }
+
+    @Override
+    public void retry(Context context, OutboxEvent outboxEvent, Throwable error, long retryDelay) throws SQLException {
+        int attempts = outboxEvent.getAttempts() + 1;
+        long delay = retryDelay;
+        for (int i = 1; i < attempts && delay < MAX_RETRY_DELAY; i++)
+        {
+            delay *= 2;
+        }
+        outboxEvent.setAttempts(attempts);
+        outboxEvent.setNextAttempt(new Date(System.currentTimeMillis() + Math.min(delay, MAX_RETRY_DELAY)));
+
+        String message = String.valueOf(error);
+        outboxEvent.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        outboxEventDAO.save(context, outboxEvent);
+    }
+
+    @Override
+    public void delete(Context context, OutboxEvent outboxEvent) throws SQLException {
+        outboxEventDAO.delete(context, outboxEvent);
+    }
+
+    @Override
+    public Event toEvent(OutboxEvent outboxEvent) {
+        Event event;
+        if (outboxEvent.getObjectType() < 0)
+        {
+            event = new Event(outboxEvent.getEventType(), outboxEvent.getSubjectType(),
+                    outboxEvent.getSubjectID(), outboxEvent.getDetail());
+        }
+        else
+        {
+            event = new Event(outboxEvent.getEventType(), outboxEvent.getSubjectType(),
+                    outboxEvent.getSubjectID(), outboxEvent.getObjectType(), outboxEvent.getObjectID(),
+                    outboxEvent.getDetail());
+        }
+        event.setTransactionID(outboxEvent.getTransactionID());
+        event.setCurrentUser(outboxEvent.getCurrentUser());
+        event.setTimeStamp(outboxEvent.getCreated().getTime());
+        return event;
+    }
+}
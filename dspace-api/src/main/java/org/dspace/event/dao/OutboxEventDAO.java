@@ -0,0 +1,28 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event.dao;
+
+import org.dspace.core.Context;
+import org.dspace.dao.GenericDAO;
+import org.dspace.event.OutboxEvent;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Database access for the events waiting in the outbox of an OutboxDispatcher.
+ */
+public interface OutboxEventDAO extends GenericDAO<OutboxEvent>
+{
+    public List<OutboxEvent> findDue(Context context, String dispatcher, String consumer, Date now, int maxAttempts, int limit) throws SQLException;
+
+    public int countPending(Context context, String dispatcher, String consumer) throws SQLException;
+
+    public Date getOldestCreated(Context context, String dispatcher, String consumer) throws SQLException;
+}
@@ -0,0 +1,67 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event.dao.impl;
+
+import org.dspace.core.Context;
+import org.dspace.dao.AbstractHibernateDAO;
+import org.dspace.event.OutboxEvent;
+import org.dspace.event.dao.OutboxEventDAO;
+import org.hibernate.Criteria;
+import org.hibernate.Query;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hibernate implementation of the outbox event database access.
+ */
+public class OutboxEventDAOImpl extends AbstractHibernateDAO<OutboxEvent> implements OutboxEventDAO
+{
+    @Override
+    public List<OutboxEvent> findDue(Context context, String dispatcher, String consumer, Date now, int maxAttempts, int limit) throws SQLException {
+        // in the order the events occurred, an event waits for the earlier
+        // events of its subject that are to be retried later
+        Query query = createQuery(context, "from OutboxEvent e where e.dispatcher = :dispatcher and e.consumer = :consumer"
+                + " and e.nextAttempt <= :now and e.attempts < :max_attempts"
+                + " and not exists (from OutboxEvent earlier where earlier.dispatcher = e.dispatcher"
+                + " and earlier.consumer = e.consumer and earlier.subjectType = e.subjectType"
+                + " and earlier.subjectID = e.subjectID and earlier.id < e.id"
+                + " and earlier.nextAttempt > :now and earlier.attempts < :max_attempts)"
+                + " order by e.id");
+        query.setParameter("dispatcher", dispatcher);
+        query.setParameter("consumer", consumer);
+        query.setTimestamp("now", now);
+        query.setInteger("max_attempts", maxAttempts);
+        query.setMaxResults(limit);
+        return list(query);
+    }
+
+    @Override
+    public int countPending(Context context, String dispatcher, String consumer) throws SQLException {
+        Criteria criteria = createCriteria(context, OutboxEvent.class);
+        criteria.add(Restrictions.and(
+                Restrictions.eq("dispatcher", dispatcher),
+                Restrictions.eq("consumer", consumer)
+        ));
+        return count(criteria);
+    }
+
+    @Override
+    public Date getOldestCreated(Context context, String dispatcher, String consumer) throws SQLException {
+        Criteria criteria = createCriteria(context, OutboxEvent.class);
+        criteria.add(Restrictions.and(
+                Restrictions.eq("dispatcher", dispatcher),
+                Restrictions.eq("consumer", consumer)
+        ));
+        criteria.setProjection(Projections.min("created"));
+        return (Date) criteria.uniqueResult();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event.service;
+
+import org.dspace.core.Context;
+import org.dspace.event.Event;
+import org.dspace.event.OutboxEvent;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Service interface class for the events waiting in the outbox of an
+ * {@link org.dspace.event.OutboxDispatcher}.
+ */
+public interface OutboxEventService {
+
+    /**
+     * Store an event in the outbox, for delivery to a consumer. The record is
+     * saved in the transaction of the context, so it is only delivered if the
+     * changes that caused the event are committed.
+     *
+     * @param dispatcher
+     *            the name of the dispatcher
+     * @param consumer
+     *            the name of the consumer to deliver the event to
+     */
+    public OutboxEvent create(Context context, String dispatcher, String consumer, Event event) throws SQLException;
+
+    /**
+     * Find the events due for delivery to a consumer, in the order they
+     * occurred. An event isn't due while an earlier event of the same subject
+     * waits to be retried, so a consumer sees the events of an object in
+     * order.
+     *
+     * @param maxAttempts
+     *            skip the events that failed this many times
+     * @param limit
+     *            the maximum number of events to return
+     */
+    public List<OutboxEvent> findDue(Context context, String dispatcher, String consumer, int maxAttempts, int limit) throws SQLException;
+
+    /**
+     * @return the number of events waiting for the consumer, including the
+     *         ones that are not due yet or that failed too often
+     */
+    public int countPending(Context context, String dispatcher, String consumer) throws SQLException;
+
+    /**
+     * @return when the oldest event waiting for the consumer occurred, or
+     *         <code>null</code> if none is waiting
+     */
+    public Date getOldestPending(Context context, String dispatcher, String consumer) throws SQLException;
+
+    /**
+     * Record a failed attempt to deliver the event, postponing the next one.
+     *
+     * @param error
+     *            the cause of the failure
+     * @param retryDelay
+     *            the delay in milliseconds before the next attempt, doubled
+     *            with every further failure
+     */
+    public void retry(Context context, OutboxEvent outboxEvent, Throwable error, long retryDelay) throws SQLException;
+
+    public void delete(Context context, OutboxEvent outboxEvent) throws SQLException;
+
+    /**
+     * @return the event stored in the outbox, as it was dispatched
+     */
+    public Event toEvent(OutboxEvent outboxEvent);
+}
@@ -11,6 +11,7 @@ import org.dspace.core.Constants;
 import org.dspace.eperson.service.EPersonService;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.eperson.service.RegistrationDataService;
+import org.dspace.event.service.OutboxEventService;
 import org.dspace.handle.service.HandleService;
 import org.dspace.identifier.DOIService;
 import org.dspace.utils.DSpace;
@@ -77,6 +78,8 @@ public abstract class DSpaceServiceFactory {
 
     public abstract DOIService getDOIService();
 
+    public abstract OutboxEventService getOutboxEventService();
+
     public InProgressSubmissionService getInProgressSubmissionService(InProgressSubmission inProgressSubmission)
     {
         if(inProgressSubmission instanceof WorkspaceItem)
@@ -10,6 +10,7 @@ import org.dspace.content.service.*;
 import org.dspace.eperson.service.EPersonService;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.eperson.service.RegistrationDataService;
+import org.dspace.event.service.OutboxEventService;
 import org.dspace.handle.service.HandleService;
 import org.dspace.identifier.DOIService;
 import org.dspace.workflow.service.TaskListItemService;
@@ -77,6 +78,8 @@ public class DSpaceServiceFactoryImpl extends DSpaceServiceFactory {
     private SupervisedItemService supervisedItemService;
     @Autowired(required = true)
     private DOIService doiService;
+    @Autowired(required = true)
+    private OutboxEventService outboxEventService;
 
 
     public BitstreamFormatService getBitstreamFormatService()
@@ -199,4 +202,9 @@ public class DSpaceServiceFactoryImpl extends DSpaceServiceFactory {
     public DOIService getDOIService() {
         return doiService;
     }
+
+    @Override
+    public OutboxEventService getOutboxEventService() {
+        return outboxEventService;
+    }
 }
@@ -9,8 +9,11 @@ package org.dspace.handle;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.log4j.Logger;
@@ -44,6 +47,9 @@ public class HandleServiceImpl implements HandleService
     /** Prefix registered to no one */
     static final String EXAMPLE_PREFIX = "123456789";
 
+    /** Number of objects whose handles are looked up in one query */
+    static final int MAX_IDS_PER_QUERY = 1000;
+
     @Autowired(required = true)
     protected HandleDAO handleDAO;
 
@@ -418,22 +424,90 @@ public class HandleServiceImpl implements HandleService
         }
         else
         {
-            //TODO: Move this code away from the HandleManager & into the Identifier provider
-            //Attempt to retrieve a handle that does NOT look like {handle.part}/{handle.part}.{version}
-            Iterator<Handle> handleIt = handles.iterator();
-            String result = handleIt.next().getHandle();
-            while (handleIt.hasNext()) {
-                Handle handle = handleIt.next();
-                //Ensure that the handle doesn't look like this 12346/213.{version}
-                //If we find a match that indicates that we have a proper handle
-                if(!handle.getHandle().matches(".*/.*\\.\\d+"))
+            return selectHandle(handles);
+        }
+    }
+
+    /**
+     * Return the handles of a number of objects, looking them up with a query
+     * per type of object rather than one per object.
+     *
+     * @param context
+     *            DSpace context
+     * @param dsos
+     *            The objects to obtain a handle for
+     * @return The handle of every object that has one, by object
+     * @exception SQLException
+     *                If a database error occurs
+     */
+    public Map<DSpaceObject, String> findHandles(Context context, Collection<? extends DSpaceObject> dsos)
+            throws SQLException
+    {
+        Map<DSpaceObject, String> result = new HashMap<DSpaceObject, String>();
+        Map<Integer, Map<Integer, DSpaceObject>> byType = new HashMap<Integer, Map<Integer, DSpaceObject>>();
+        for (DSpaceObject dso : dsos)
+        {
+            if (dso.getType() == Constants.SITE)
+            {
+                result.put(dso, findHandle(context, dso));
+                continue;
+            }
+            Map<Integer, DSpaceObject> byId = byType.get(dso.getType());
+            if (byId == null)
+            {
+                byId = new HashMap<Integer, DSpaceObject>();
+                byType.put(dso.getType(), byId);
+            }
+            byId.put(dso.getID(), dso);
+        }
+
+        for (Map.Entry<Integer, Map<Integer, DSpaceObject>> type : byType.entrySet())
+        {
+            // keep the IN lists within what every database accepts
+            List<Integer> ids = new ArrayList<Integer>(type.getValue().keySet());
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY)
+            {
+                List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()));
+                Map<Integer, List<Handle>> handles = new HashMap<Integer, List<Handle>>();
+                for (Handle handle : handleDAO.getHandlesByTypeAndIds(context, type.getKey(), chunk))
+                {
+                    List<Handle> objectHandles = handles.get(handle.getResourceId());
+                    if (objectHandles == null)
+                    {
+                        objectHandles = new ArrayList<Handle>();
+                        handles.put(handle.getResourceId(), objectHandles);
+                    }
+                    objectHandles.add(handle);
+                }
+                for (Map.Entry<Integer, List<Handle>> objectHandles : handles.entrySet())
                 {
-                    result = handle.getHandle();
+                    result.put(type.getValue().get(objectHandles.getKey()), selectHandle(objectHandles.getValue()));
                 }
             }
+        }
+        return result;
+    }
 
-            return result;
+    /**
+     * Select the handle of an object from the ones bound to it.
+     */
+    protected String selectHandle(List<Handle> handles)
+    {
+        //TODO: Move this code away from the HandleManager & into the Identifier provider
+        //Attempt to retrieve a handle that does NOT look like {handle.part}/{handle.part}.{version}
+        Iterator<Handle> handleIt = handles.iterator();
+        String result = handleIt.next().getHandle();
+        while (handleIt.hasNext()) {
+            Handle handle = handleIt.next();
+            //Ensure that the handle doesn't look like this 12346/213.{version}
+            //If we find a match that indicates that we have a proper handle
+            if(!handle.getHandle().matches(".*/.*\\.\\d+"))
+            {
+                result = handle.getHandle();
+            }
         }
+
+        return result;
     }
 
     /**
@@ -5,6 +5,7 @@ import org.dspace.dao.GenericDAO;
 import org.dspace.handle.Handle;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,6 +19,8 @@ public interface HandleDAO extends GenericDAO<Handle> {
 
     public List<Handle> getHandlesByTypeAndId(Context context, int type, int id) throws SQLException;
 
+    public List<Handle> getHandlesByTypeAndIds(Context context, int type, Collection<Integer> ids) throws SQLException;
+
     public Handle findByHandle(Context context, String handle)throws SQLException;
 
     public List<Handle> findByPrefix(Context context, String prefix) throws SQLException;
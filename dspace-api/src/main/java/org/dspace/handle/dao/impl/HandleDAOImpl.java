@@ -8,6 +8,7 @@ import org.hibernate.Criteria;
 import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -28,6 +29,15 @@ public class HandleDAOImpl extends AbstractHibernateDAO<Handle> implements Handl
         return list(criteria);
     }
 
+    public List<Handle> getHandlesByTypeAndIds(Context context, int type, Collection<Integer> ids) throws SQLException {
+        Criteria criteria = createCriteria(context, Handle.class);
+        criteria.add(Restrictions.and(
+                Restrictions.eq("resourceTypeId", type),
+                Restrictions.in("resourceId", ids)
+        ));
+        return list(criteria);
+    }
+
     public Handle findByHandle(Context context, String handle) throws SQLException {
         Criteria criteria = createCriteria(context, Handle.class);
         criteria.add(Restrictions.eq("handle", handle));
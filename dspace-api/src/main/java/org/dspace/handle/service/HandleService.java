@@ -5,7 +5,9 @@ import org.dspace.content.Item;
 import org.dspace.core.Context;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -35,6 +37,8 @@ public interface HandleService {
 
     public String findHandle(Context context, DSpaceObject dso) throws SQLException;
 
+    public Map<DSpaceObject, String> findHandles(Context context, Collection<? extends DSpaceObject> dsos) throws SQLException;
+
     public List<String> getHandlesForPrefix(Context context, String prefix) throws SQLException;
 
     public String getPrefix();
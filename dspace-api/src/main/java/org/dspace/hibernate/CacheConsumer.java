@@ -0,0 +1,101 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.hibernate;
+
+import org.apache.log4j.Logger;
+import org.dspace.content.Community;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.Group;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+
+/**
+ * Event consumer that keeps the Hibernate second-level cache in line with the
+ * content events. Whenever a cached structural object (community or group) is
+ * modified, deleted or has members added/removed, the cached copy is evicted so
+ * that the next lookup is read from the database again.
+ *
+ * Registry objects (schemas, fields, bitstream formats) are not covered here:
+ * they are only changed through the Hibernate session, which invalidates their
+ * entity & query regions itself.
+ * <P>
+ * The consumer has to be registered on a dispatcher that delivers its events,
+ * i.e. the {@link org.dspace.event.OutboxDispatcher}: <code>Context.commit</code>
+ * doesn't call a non-transactional dispatcher such as the default
+ * <code>BasicDispatcher</code> yet. The eviction then follows the commit by at
+ * most a poll interval of the outbox delivery. It is not registered in the
+ * default configuration, where the outbox is disabled: the changes made
+ * through the Hibernate session update the cache by themselves, the consumer
+ * only catches the ones made elsewhere.
+ */
+public class CacheConsumer implements Consumer
+{
+    /** log4j logger */
+    private static Logger log = Logger.getLogger(CacheConsumer.class);
+
+    /** Event types after which a cached subject can no longer be trusted */
+    private static final int INVALIDATING_EVENTS = Event.MODIFY | Event.MODIFY_METADATA | Event.ADD
+            | Event.REMOVE | Event.DELETE;
+
+    public void initialize() throws Exception
+    {
+
+    }
+
+    public void consume(Context ctx, Event event) throws Exception
+    {
+        if ((event.getEventType() & INVALIDATING_EVENTS) == 0)
+        {
+            return;
+        }
+
+        evict(event.getSubjectType(), event.getSubjectID());
+        // a coalesced event may combine several types
+        if (event.hasEventType(Event.DELETE | Event.REMOVE))
+        {
+            // The removed object may hold a back reference to its former container
+            evict(event.getObjectType(), event.getObjectID());
+        }
+    }
+
+    protected void evict(int type, int id)
+    {
+        if (id < 0)
+        {
+            return;
+        }
+
+        switch (type)
+        {
+            case Constants.COMMUNITY:
+                HibernateUtil.evictEntity(Community.class, id);
+                break;
+            case Constants.GROUP:
+                HibernateUtil.evictEntity(Group.class, id);
+                break;
+            default:
+                return;
+        }
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Evicted " + Constants.typeText[type] + " " + id + " from the second-level cache");
+        }
+    }
+
+    public void end(Context ctx) throws Exception
+    {
+
+    }
+
+    public void finish(Context ctx) throws Exception
+    {
+
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.hibernate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage figures of the database connection pool behind {@link DSpaceConnectionProvider}.
+ * <P>
+ * The number of active and idle connections is read from the pool itself, the other
+ * figures are collected by the connection provider on every borrow/return: the number
+ * of threads currently waiting for a connection, the number of borrows and timeouts,
+ * connections that were held longer than the leak detection threshold and a histogram
+ * of the time it took to obtain a connection.
+ * <P>
+ * All counters are cumulative since the pool was started and safe to read from any thread.
+ */
+public class ConnectionPoolStatistics
+{
+    /** Upper bounds (inclusive, in milliseconds) of the borrow latency histogram buckets, the last bucket is unbounded */
+    public static final long[] BORROW_LATENCY_BUCKETS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private final DSpaceConnectionProvider provider;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leakWarnings = new AtomicLong();
+    private final AtomicLong totalBorrowMillis = new AtomicLong();
+    private final AtomicLong maxBorrowMillis = new AtomicLong();
+    private final AtomicLongArray borrowLatency = new AtomicLongArray(BORROW_LATENCY_BUCKETS.length + 1);
+
+    ConnectionPoolStatistics(DSpaceConnectionProvider provider)
+    {
+        this.provider = provider;
+    }
+
+    void borrowStarted()
+    {
+        waiting.incrementAndGet();
+    }
+
+    void borrowEnded(long millis, boolean success, boolean timedOut)
+    {
+        waiting.decrementAndGet();
+        if (timedOut)
+        {
+            timeouts.incrementAndGet();
+        }
+        if (!success)
+        {
+            return;
+        }
+
+        borrowed.incrementAndGet();
+        totalBorrowMillis.addAndGet(millis);
+        long max = maxBorrowMillis.get();
+        while (millis > max && !maxBorrowMillis.compareAndSet(max, millis))
+        {
+            max = maxBorrowMillis.get();
+        }
+
+        int bucket = 0;
+        while (bucket < BORROW_LATENCY_BUCKETS.length && millis > BORROW_LATENCY_BUCKETS[bucket])
+        {
+            bucket++;
+        }
+        borrowLatency.incrementAndGet(bucket);
+    }
+
+    void leakDetected()
+    {
+        leakWarnings.incrementAndGet();
+    }
+
+    /**
+     * @return the number of connections currently borrowed from the pool
+     */
+    public int getActiveConnections()
+    {
+        return provider.getNumActive();
+    }
+
+    /**
+     * @return the number of open connections currently sitting idle in the pool
+     */
+    public int getIdleConnections()
+    {
+        return provider.getNumIdle();
+    }
+
+    /**
+     * @return the maximum number of connections the pool will open
+     */
+    public int getMaxConnections()
+    {
+        return provider.getMaxActive();
+    }
+
+    /**
+     * @return the number of threads currently waiting for a connection
+     */
+    public int getWaitingThreads()
+    {
+        return waiting.get();
+    }
+
+    /**
+     * @return the number of connections handed out by the pool
+     */
+    public long getBorrowCount()
+    {
+        return borrowed.get();
+    }
+
+    /**
+     * @return the number of requests that gave up waiting for a connection (db.maxwait)
+     */
+    public long getTimeoutCount()
+    {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the number of connections that were returned after being held longer than the
+     *         leak detection threshold (db.leakdetectionthreshold)
+     */
+    public long getLeakWarningCount()
+    {
+        return leakWarnings.get();
+    }
+
+    /**
+     * @return the average time in milliseconds it took to obtain a connection
+     */
+    public double getAverageBorrowMillis()
+    {
+        long count = borrowed.get();
+        return count == 0 ? 0 : (double) totalBorrowMillis.get() / count;
+    }
+
+    /**
+     * @return the longest time in milliseconds it took to obtain a connection
+     */
+    public long getMaxBorrowMillis()
+    {
+        return maxBorrowMillis.get();
+    }
+
+    /**
+     * The borrow latency histogram. Entry <code>i</code> counts the borrows that took at most
+     * <code>BORROW_LATENCY_BUCKETS[i]</code> milliseconds (and more than the previous bound), the
+     * last entry counts the borrows that took longer than the largest bound.
+     *
+     * @return a copy of the histogram counts
+     */
+    public long[] getBorrowLatencyHistogram()
+    {
+        long[] result = new long[borrowLatency.length()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = borrowLatency.get(i);
+        }
+        return result;
+    }
+
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append("active=").append(getActiveConnections())
+                .append(", idle=").append(getIdleConnections())
+                .append(", max=").append(getMaxConnections())
+                .append(", waiting=").append(getWaitingThreads())
+                .append(", borrowed=").append(getBorrowCount())
+                .append(", timeouts=").append(getTimeoutCount())
+                .append(", leakWarnings=").append(getLeakWarningCount())
+                .append(", maxBorrowMillis=").append(getMaxBorrowMillis())
+                .append(", borrowLatency={");
+        long[] histogram = getBorrowLatencyHistogram();
+        for (int i = 0; i < histogram.length; i++)
+        {
+            if (i > 0)
+            {
+                result.append(", ");
+            }
+            result.append(i < BORROW_LATENCY_BUCKETS.length ? "<=" + BORROW_LATENCY_BUCKETS[i] + "ms" : ">" + BORROW_LATENCY_BUCKETS[i - 1] + "ms")
+                    .append('=').append(histogram[i]);
+        }
+        return result.append('}').toString();
+    }
+}
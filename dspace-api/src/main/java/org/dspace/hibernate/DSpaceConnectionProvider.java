@@ -0,0 +1,257 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.hibernate;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.dspace.core.ConfigurationManager;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate connection provider backed by a bounded commons-dbcp connection pool, replacing the
+ * built-in Hibernate pool which is not meant for production use.
+ * <P>
+ * The pool is configured from dspace.cfg:
+ * <ul>
+ * <li><code>db.url</code>, <code>db.driver</code>, <code>db.username</code>, <code>db.password</code></li>
+ * <li><code>db.maxconnections</code>: maximum number of connections (default 30)</li>
+ * <li><code>db.maxwait</code>: milliseconds to wait for a free connection before giving up (default 5000)</li>
+ * <li><code>db.maxidle</code>: maximum number of idle connections, -1 for no limit (default -1)</li>
+ * <li><code>db.statementpool</code>: cache prepared statements per connection (default true)</li>
+ * <li><code>db.validationquery</code>: query used to validate a connection when it is borrowed</li>
+ * <li><code>db.removeabandoned</code>, <code>db.removeabandonedtimeout</code>: reclaim connections that
+ * were not returned within the timeout (in seconds, default false / 300)</li>
+ * <li><code>db.leakdetectionthreshold</code>: log a warning when a connection is returned after being held
+ * for longer than this many milliseconds, 0 to disable (default 0)</li>
+ * </ul>
+ * Connection settings given explicitly in the Hibernate configuration (<code>hibernate.connection.*</code>)
+ * take precedence over dspace.cfg, which is how the test configuration points the pool at its in-memory
+ * database.
+ * <P>
+ * The usage of the pool is available through {@link #getStatistics()} and {@link HibernateUtil#getConnectionPoolStatistics()}.
+ */
+public class DSpaceConnectionProvider implements ConnectionProvider, Configurable, Stoppable
+{
+    /** log4j logger */
+    private static Logger log = Logger.getLogger(DSpaceConnectionProvider.class);
+
+    private BasicDataSource dataSource;
+
+    private ConnectionPoolStatistics statistics;
+
+    /** Connections held longer than this (in milliseconds) are reported as a possible leak, 0 to disable */
+    private long leakDetectionThreshold;
+
+    /** Borrow time of the connections currently handed out, only tracked when leak detection is on */
+    private final Map<Connection, Long> borrowTimes = new ConcurrentHashMap<Connection, Long>();
+
+    public void configure(Map configurationValues)
+    {
+        String url = getSetting(configurationValues, "hibernate.connection.url", "db.url");
+        if (StringUtils.isBlank(url))
+        {
+            throw new HibernateException("No database url configured, set db.url in dspace.cfg");
+        }
+
+        dataSource = new BasicDataSource();
+        dataSource.setUrl(url);
+        dataSource.setDriverClassName(getSetting(configurationValues, "hibernate.connection.driver_class", "db.driver"));
+        dataSource.setUsername(getSetting(configurationValues, "hibernate.connection.username", "db.username"));
+        dataSource.setPassword(getSetting(configurationValues, "hibernate.connection.password", "db.password"));
+        dataSource.setDefaultAutoCommit(false);
+
+        // Bounded pool
+        dataSource.setMaxActive(getIntSetting(configurationValues, "hibernate.connection.pool_size", "db.maxconnections", 30));
+        dataSource.setMaxIdle(getIntSetting(configurationValues, null, "db.maxidle", -1));
+        dataSource.setMaxWait(getIntSetting(configurationValues, null, "db.maxwait", 5000));
+
+        // Prepared statement cache
+        dataSource.setPoolPreparedStatements(ConfigurationManager.getBooleanProperty("db.statementpool", true));
+
+        // Validation on borrow
+        String validationQuery = getSetting(configurationValues, null, "db.validationquery");
+        if (StringUtils.isBlank(validationQuery))
+        {
+            validationQuery = getDefaultValidationQuery(url);
+        }
+        dataSource.setValidationQuery(validationQuery);
+        dataSource.setTestOnBorrow(true);
+
+        // Leak detection
+        dataSource.setRemoveAbandoned(ConfigurationManager.getBooleanProperty("db.removeabandoned", false));
+        dataSource.setRemoveAbandonedTimeout(getIntSetting(configurationValues, null, "db.removeabandonedtimeout", 300));
+        dataSource.setLogAbandoned(dataSource.getRemoveAbandoned());
+        leakDetectionThreshold = getIntSetting(configurationValues, null, "db.leakdetectionthreshold", 0);
+
+        statistics = new ConnectionPoolStatistics(this);
+
+        log.info("Database connection pool configured: url=" + url + ", maxconnections=" + dataSource.getMaxActive()
+                + ", maxwait=" + dataSource.getMaxWait() + ", statementpool=" + dataSource.isPoolPreparedStatements());
+    }
+
+    public Connection getConnection() throws SQLException
+    {
+        statistics.borrowStarted();
+        long start = System.currentTimeMillis();
+        boolean success = false;
+        boolean timedOut = false;
+        try
+        {
+            Connection connection = dataSource.getConnection();
+            success = true;
+            if (leakDetectionThreshold > 0)
+            {
+                borrowTimes.put(connection, System.currentTimeMillis());
+            }
+            return connection;
+        }
+        catch (SQLException e)
+        {
+            // commons-dbcp reports an exhausted pool as an SQLException caused by a NoSuchElementException
+            timedOut = e.getCause() instanceof NoSuchElementException;
+            if (timedOut)
+            {
+                log.warn("Timed out waiting for a database connection: " + statistics);
+            }
+            throw e;
+        }
+        finally
+        {
+            statistics.borrowEnded(System.currentTimeMillis() - start, success, timedOut);
+        }
+    }
+
+    public void closeConnection(Connection conn) throws SQLException
+    {
+        if (leakDetectionThreshold > 0)
+        {
+            Long borrowTime = borrowTimes.remove(conn);
+            if (borrowTime != null)
+            {
+                long held = System.currentTimeMillis() - borrowTime;
+                if (held > leakDetectionThreshold)
+                {
+                    statistics.leakDetected();
+                    log.warn("Database connection returned after " + held + "ms, it was held longer than db.leakdetectionthreshold="
+                            + leakDetectionThreshold + "ms");
+                }
+            }
+        }
+        conn.close();
+    }
+
+    public boolean supportsAggressiveRelease()
+    {
+        return false;
+    }
+
+    public boolean isUnwrappableAs(Class unwrapType)
+    {
+        return unwrapType.isAssignableFrom(DSpaceConnectionProvider.class) || unwrapType.isAssignableFrom(BasicDataSource.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType)
+    {
+        if (unwrapType.isAssignableFrom(DSpaceConnectionProvider.class))
+        {
+            return (T) this;
+        }
+        else if (unwrapType.isAssignableFrom(BasicDataSource.class))
+        {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    public void stop()
+    {
+        if (dataSource == null)
+        {
+            return;
+        }
+        log.info("Closing database connection pool: " + statistics);
+        try
+        {
+            dataSource.close();
+        }
+        catch (SQLException e)
+        {
+            log.error("Error closing the database connection pool", e);
+        }
+        dataSource = null;
+    }
+
+    /**
+     * @return the usage figures of the connection pool
+     */
+    public ConnectionPoolStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    int getNumActive()
+    {
+        return dataSource == null ? 0 : dataSource.getNumActive();
+    }
+
+    int getNumIdle()
+    {
+        return dataSource == null ? 0 : dataSource.getNumIdle();
+    }
+
+    int getMaxActive()
+    {
+        return dataSource == null ? 0 : dataSource.getMaxActive();
+    }
+
+    /**
+     * A cheap query that works on the given database, used when db.validationquery is not set.
+     */
+    protected String getDefaultValidationQuery(String url)
+    {
+        if (url.startsWith("jdbc:oracle"))
+        {
+            return "SELECT 1 FROM DUAL";
+        }
+        else if (url.startsWith("jdbc:hsqldb"))
+        {
+            return "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+        }
+        return "SELECT 1";
+    }
+
+    protected String getSetting(Map configurationValues, String hibernateKey, String dspaceKey)
+    {
+        if (hibernateKey != null && configurationValues.get(hibernateKey) != null)
+        {
+            return configurationValues.get(hibernateKey).toString();
+        }
+        return ConfigurationManager.getProperty(dspaceKey);
+    }
+
+    protected int getIntSetting(Map configurationValues, String hibernateKey, String dspaceKey, int defaultValue)
+    {
+        if (hibernateKey != null && configurationValues.get(hibernateKey) != null)
+        {
+            return Integer.parseInt(configurationValues.get(hibernateKey).toString().trim());
+        }
+        return ConfigurationManager.getIntProperty(dspaceKey, defaultValue);
+    }
+}
@@ -6,9 +6,16 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.service.ServiceRegistry;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
 
+import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Created by kevin on 08/02/14.
@@ -104,5 +111,79 @@ public class HibernateUtil {
         return tx != null && tx.isActive();
     }
 
+    /**
+     * Remove a single entity from the second-level cache, if the entity class is cached at all.
+     * Used to invalidate cached objects that were changed outside of the current session factory.
+     *
+     * @param entityClass the mapped entity class
+     * @param id the identifier of the entity to evict
+     */
+    public static void evictEntity(Class entityClass, Serializable id)
+    {
+        if(sessionFactory.getClassMetadata(entityClass) != null)
+        {
+            sessionFactory.getCache().evictEntity(entityClass, id);
+        }
+    }
+
+    /**
+     * Check whether the second-level cache holds an entity.
+     *
+     * @param entityClass the mapped entity class
+     * @param id the identifier of the entity
+     * @return true if the entity is cached
+     */
+    public static boolean isCached(Class entityClass, Serializable id)
+    {
+        return sessionFactory.getCache().containsEntity(entityClass, id);
+    }
+
+    /**
+     * Clear all second-level query cache regions, the query results will be reloaded on the next lookup.
+     */
+    public static void evictQueryRegions()
+    {
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    /**
+     * Retrieve the hit/miss/put statistics of every second-level cache region (entity & query regions)
+     * that has been used since the session factory was started.
+     *
+     * @return the statistics keyed by region name
+     */
+    public static Map<String, SecondLevelCacheStatistics> getCacheStatistics()
+    {
+        Map<String, SecondLevelCacheStatistics> result = new LinkedHashMap<String, SecondLevelCacheStatistics>();
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames())
+        {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(regionName);
+            if(regionStatistics != null)
+            {
+                result.put(regionName, regionStatistics);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieve the usage figures of the database connection pool (active/idle/waiting connections,
+     * borrow latency, timeouts).
+     *
+     * @return the statistics, or <code>null</code> if Hibernate is not configured to use the
+     *         {@link DSpaceConnectionProvider}
+     */
+    public static ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        ConnectionProvider connectionProvider = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if(connectionProvider instanceof DSpaceConnectionProvider)
+        {
+            return ((DSpaceConnectionProvider) connectionProvider).getStatistics();
+        }
+        return null;
+    }
+
 }
 
@@ -0,0 +1,256 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.dspace.content.Bitstream;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+/**
+ * Base class of the stores mapping internal ids onto a directory tree, shared by the local file system
+ * and SRB stores.
+ * <P>
+ * The internal id of a bitstream stored by DSpace is hashed into directory and file names: with
+ * digitsPerLevel 2 and directoryLevels 3, an identifier like 12345678901234567890 turns into the relative
+ * name 12/34/56/12345678901234567890. Registered bitstreams keep the path they were registered with,
+ * relative to the store, prefixed by {@link #REGISTERED_FLAG} in their internal id.
+ */
+public abstract class AbstractBitStoreService implements BitStoreService
+{
+    /**
+     * This prefix string marks registered bitstreams in internal_id
+     */
+    public static final String REGISTERED_FLAG = "-R";
+
+    // You should not change these settings if you have data in the
+    // asset store, as the store will be unable to find your existing data.
+    protected static final int digitsPerLevel = 2;
+
+    protected static final int directoryLevels = 3;
+
+    /** Size of the buffer used to spool and digest uploads */
+    protected static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Does the internal_id column in the bitstream row indicate the bitstream
+     * is a registered file
+     *
+     * @param internalId the value of the internal_id column
+     * @return true if the bitstream is a registered file
+     */
+    public static boolean isRegisteredBitstream(String internalId)
+    {
+        return internalId != null && internalId.startsWith(REGISTERED_FLAG);
+    }
+
+    /**
+     * Spools the bits into {@link #getSpoolDirectory()}
+     */
+    public StagedBitstream stage(InputStream in) throws IOException
+    {
+        File directory = getSpoolDirectory();
+        if (!directory.exists())
+        {
+            directory.mkdirs();
+        }
+        File file = File.createTempFile("upload", ".spool", directory);
+
+        MultiDigest digest = getDigest();
+        ReadableByteChannel source = Channels.newChannel(in);
+        FileOutputStream out = new FileOutputStream(file);
+        FileChannel target = out.getChannel();
+        boolean staged = false;
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SPOOL_BUFFER_SIZE);
+            while (source.read(buffer) != -1)
+            {
+                buffer.flip();
+                buffer.mark();
+                digest.update(buffer);
+                buffer.reset();
+                while (buffer.hasRemaining())
+                {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+            staged = true;
+            return new StagedBitstream(file, target.position(), digest.digest());
+        }
+        finally
+        {
+            out.close();
+            source.close();
+            if (!staged)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Copies the spool file through {@link #put(Bitstream, InputStream)}, stores that can move files
+     * should override this.
+     */
+    public void put(Bitstream bitstream, StagedBitstream staged) throws IOException
+    {
+        try
+        {
+            put(bitstream, new FileInputStream(staged.getFile()));
+        }
+        finally
+        {
+            staged.discard();
+        }
+    }
+
+    /**
+     * @return the directory uploads are spooled to, the system temporary directory by default
+     */
+    protected File getSpoolDirectory()
+    {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Opens the range on the stream returned by {@link #get}, skipping up to the offset. Stores which can
+     * seek should override this.
+     */
+    public BitStoreContent open(Bitstream bitstream, long offset, long length) throws IOException
+    {
+        BitStoreStat stat = stat(bitstream);
+        if (stat == null)
+        {
+            throw new FileNotFoundException("No bits found for bitstream " + bitstream.getInternalId());
+        }
+        length = getRangeLength(stat.getSizeBytes(), offset, length);
+
+        InputStream in = get(bitstream);
+        try
+        {
+            long skipped = 0;
+            while (skipped < offset)
+            {
+                long count = in.skip(offset - skipped);
+                if (count <= 0)
+                {
+                    throw new EOFException("Bits of bitstream " + bitstream.getInternalId() + " end before " + offset);
+                }
+                skipped += count;
+            }
+        }
+        catch (IOException e)
+        {
+            in.close();
+            throw e;
+        }
+        return new BitStoreContent(Channels.newChannel(in), offset, length);
+    }
+
+    /**
+     * @param size the size of the bits
+     * @param offset the offset of the range
+     * @param length the requested length of the range, or -1 for up to the end
+     * @return the length of the range, cut off at the end of the bits
+     */
+    protected long getRangeLength(long size, long offset, long length)
+    {
+        if (offset < 0 || offset > size)
+        {
+            throw new IllegalArgumentException("Offset " + offset + " is outside of the bits, which are " + size + " bytes");
+        }
+        if (length < 0 || offset + length > size)
+        {
+            return size - offset;
+        }
+        return length;
+    }
+
+    /**
+     * Set the checksums computed over the bits of a bitstream, the one of
+     * {@link MultiDigest#DEFAULT_ALGORITHM} also being kept as the checksum of the bitstream
+     */
+    protected void setChecksums(Bitstream bitstream, Map<String, String> checksums)
+    {
+        bitstream.setChecksum(checksums.get(MultiDigest.DEFAULT_ALGORITHM));
+        bitstream.setChecksumAlgorithm(MultiDigest.DEFAULT_ALGORITHM);
+        bitstream.setChecksums(checksums);
+    }
+
+    /**
+     * @return a digester for the algorithms configured by <code>checksum.algorithms</code>
+     */
+    protected MultiDigest getDigest() throws IOException
+    {
+        try
+        {
+            return new MultiDigest(MultiDigest.getConfiguredAlgorithms());
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException("Invalid checksum algorithm", e);
+        }
+    }
+
+    /**
+     * @param bitstream the bitstream
+     * @return the path of the bits of the bitstream, relative to the root of the store
+     */
+    protected String getRelativePath(Bitstream bitstream)
+    {
+        String sInternalId = bitstream.getInternalId();
+        if (isRegisteredBitstream(sInternalId))
+        {
+            return sInternalId.substring(REGISTERED_FLAG.length());
+        }
+
+        // Sanity Check: If the internal ID contains a
+        // pathname separator, it's probably an attempt to
+        // make a path traversal attack, so ignore the path
+        // prefix.  The internal-ID is supposed to be just a
+        // filename, so this will not affect normal operation.
+        if (sInternalId.indexOf(File.separator) != -1)
+        {
+            sInternalId = sInternalId.substring(sInternalId.lastIndexOf(File.separator) + 1);
+        }
+        return getIntermediatePath(sInternalId) + sInternalId;
+    }
+
+    /**
+     * Return the intermediate path derived from the internal_id. This method
+     * splits the id into groups which become subdirectories.
+     *
+     * @param iInternalId
+     *            The internal_id
+     * @return The path based on the id without leading separator, with a trailing one
+     */
+    protected String getIntermediatePath(String iInternalId)
+    {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < directoryLevels; i++)
+        {
+            int digits = i * digitsPerLevel;
+            buf.append(iInternalId.substring(digits, digits + digitsPerLevel));
+            buf.append(File.separator);
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,429 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.log4j.Logger;
+import org.dspace.authorize.AuthorizeException;
+import org.dspace.checker.service.ChecksumHistoryService;
+import org.dspace.checker.service.MostRecentChecksumService;
+import org.dspace.content.Bitstream;
+import org.dspace.content.service.BitstreamService;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Context;
+import org.dspace.factory.DSpaceServiceFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Removes the bits of deleted bitstreams from the asset stores, and optionally their database records.
+ * Deleting a bitstream only marks its row deleted, the cleanup removes the row, with its checksums and
+ * checksum records, when asked to delete the database records. Without that every run walks all the
+ * bitstreams ever deleted again, only to find the bits of the earlier ones gone.
+ * <P>
+ * The deleted bitstreams are walked in batches, in the order of their ids. The files of a batch are
+ * looked up and removed by a pool of worker threads, while the database work is done by the calling
+ * thread, the Hibernate session being bound to it. Every batch is committed on its own, after which the
+ * id of its last bitstream is written to a checkpoint file. An interrupted run resumes after that
+ * bitstream, a run that completes removes the checkpoint again.
+ * <P>
+ * Within a batch the database records are deleted before the files, and committed after them. A run
+ * failing half way therefore never leaves records pointing at removed bits: the next run finds the bits
+ * missing and only deletes the records.
+ * <P>
+ * Settings in <code>dspace.cfg</code>:
+ * <ul>
+ * <li><code>cleanup.threads</code>: the number of threads removing files, 4 by default</li>
+ * <li><code>cleanup.batch-size</code>: the number of bitstreams per batch and transaction, 1000 by default</li>
+ * <li><code>cleanup.checkpoint</code>: the checkpoint file, <code>${log.dir}/cleanup.checkpoint</code> by default</li>
+ * </ul>
+ */
+public class AssetstoreCleaner
+{
+    /** log4j log */
+    private static Logger log = Logger.getLogger(AssetstoreCleaner.class);
+
+    public static final int DEFAULT_THREADS = 4;
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final BitstreamService bitstreamService = DSpaceServiceFactory.getInstance().getBitstreamService();
+
+    private final ChecksumHistoryService checksumHistoryService = DSpaceServiceFactory.getInstance().getChecksumHistoryService();
+
+    private final MostRecentChecksumService mostRecentChecksumService = DSpaceServiceFactory.getInstance().getMostRecentChecksumService();
+
+    private final boolean deleteDbRecords;
+
+    private final boolean verbose;
+
+    private int threads = ConfigurationManager.getIntProperty("cleanup.threads", DEFAULT_THREADS);
+
+    private int batchSize = ConfigurationManager.getIntProperty("cleanup.batch-size", DEFAULT_BATCH_SIZE);
+
+    private File checkpoint;
+
+    /**
+     * @param deleteDbRecords if true deletes the database records otherwise it
+     *            only deletes the files and directories in the assetstore
+     * @param verbose whether to report every deletion on standard output
+     */
+    public AssetstoreCleaner(boolean deleteDbRecords, boolean verbose)
+    {
+        this.deleteDbRecords = deleteDbRecords;
+        this.verbose = verbose;
+
+        String path = ConfigurationManager.getProperty("cleanup.checkpoint");
+        if (path == null)
+        {
+            path = ConfigurationManager.getProperty("log.dir") + File.separator + "cleanup.checkpoint";
+        }
+        checkpoint = new File(path);
+    }
+
+    public void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public void setCheckpoint(File checkpoint)
+    {
+        this.checkpoint = checkpoint;
+    }
+
+    public File getCheckpoint()
+    {
+        return checkpoint;
+    }
+
+    /**
+     * Clean up the asset stores, resuming after the checkpoint of an interrupted run if there is one.
+     *
+     * @exception IOException
+     *                If a problem occurs while cleaning up
+     * @exception SQLException
+     *                If a problem occurs accessing the RDBMS
+     */
+    public void cleanup() throws SQLException, IOException, AuthorizeException
+    {
+        int lastID = readCheckpoint();
+        if (lastID != -1)
+        {
+            report("Resuming the cleanup after bitstream " + lastID);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(threads, 1));
+        Context context = null;
+        try
+        {
+            context = new Context();
+
+            List<Bitstream> batch = bitstreamService.findDeletedBitstreams(context, lastID, batchSize);
+            while (!batch.isEmpty())
+            {
+                processBatch(context, pool, batch);
+                lastID = batch.get(batch.size() - 1).getID();
+
+                if (verbose)
+                {
+                    System.out.print("Committing changes to the database...");
+                }
+                context.commit();
+                if (verbose)
+                {
+                    System.out.println(" Done!");
+                }
+                writeCheckpoint(lastID);
+
+                // the processed bitstreams aren't needed anymore, keep the session small
+                context.getDBConnection().clear();
+                batch = bitstreamService.findDeletedBitstreams(context, lastID, batchSize);
+            }
+
+            context.complete();
+            context = null;
+            if (checkpoint.exists() && !checkpoint.delete())
+            {
+                log.warn("Cleanup checkpoint " + checkpoint.getAbsolutePath() + " could not be deleted");
+            }
+        }
+        // Aborting will leave the DB objects around, even if the
+        // bitstreams are deleted. This is OK; deleting them next
+        // time around will be a no-op.
+        catch (SQLException sqle)
+        {
+            if (verbose)
+            {
+                System.err.println("Error: " + sqle.getMessage());
+            }
+            throw sqle;
+        }
+        catch (IOException ioe)
+        {
+            if (verbose)
+            {
+                System.err.println("Error: " + ioe.getMessage());
+            }
+            throw ioe;
+        }
+        finally
+        {
+            pool.shutdownNow();
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+    }
+
+    /**
+     * Clean up one batch of deleted bitstreams: look up their bits in parallel, delete the database records
+     * and then remove the bits in parallel.
+     */
+    protected void processBatch(Context context, ExecutorService pool, List<Bitstream> batch)
+            throws SQLException, IOException, AuthorizeException
+    {
+        List<Future<BitStoreStat>> stats = new ArrayList<Future<BitStoreStat>>(batch.size());
+        for (final Bitstream bitstream : batch)
+        {
+            stats.add(pool.submit(new Callable<BitStoreStat>()
+            {
+                public BitStoreStat call() throws IOException
+                {
+                    return BitstreamStorageManager.getStore(bitstream.getStoreNumber()).stat(bitstream);
+                }
+            }));
+        }
+
+        List<Bitstream> removals = new ArrayList<Bitstream>();
+        for (int i = 0; i < batch.size(); i++)
+        {
+            Bitstream bitstream = batch.get(i);
+            BitStoreStat stat = await(stats.get(i));
+
+            // Make sure entries which do not exist are removed
+            if (stat == null)
+            {
+                log.debug("file is null");
+                if (deleteDbRecords)
+                {
+                    deleteRecords(context, bitstream);
+                }
+                continue;
+            }
+
+            // This is a small chance that this is a file which is
+            // being stored -- get it next time.
+            if (BitstreamStorageManager.isRecent(stat))
+            {
+                log.debug("file is recent");
+                continue;
+            }
+
+            if (deleteDbRecords)
+            {
+                deleteRecords(context, bitstream);
+            }
+
+            if (AbstractBitStoreService.isRegisteredBitstream(bitstream.getInternalId()))
+            {
+                continue;           // do not delete registered bitstreams
+            }
+
+            // Versions and content addressed stores share bits between bitstreams,
+            // only remove them once no bitstream references them anymore
+            if (bitstreamService.getReferenceCount(context, bitstream) == 0)
+            {
+                removals.add(bitstream);
+            }
+        }
+
+        List<Future<Void>> removed = new ArrayList<Future<Void>>(removals.size());
+        for (final Bitstream bitstream : removals)
+        {
+            final String message = "Deleted bitstream " + bitstream.getID() + " (internal id "
+                    + bitstream.getInternalId() + ") from assetstore " + bitstream.getStoreNumber();
+            removed.add(pool.submit(new Callable<Void>()
+            {
+                public Void call() throws IOException
+                {
+                    BitStoreService store = BitstreamStorageManager.getStore(bitstream.getStoreNumber());
+                    if (store instanceof ContentAddressedBitStoreService)
+                    {
+                        // keep a put of the same bits from replacing the file between the check and the removal
+                        synchronized (ContentAddressedBitStoreService.getLock(bitstream.getInternalId()))
+                        {
+                            removeBits(store, bitstream, message);
+                        }
+                    }
+                    else
+                    {
+                        removeBits(store, bitstream, message);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> future : removed)
+        {
+            await(future);
+        }
+    }
+
+    /**
+     * Remove the bits of a bitstream, unless they were stored again since they were looked up: a content
+     * addressed store touches a shared file when it stores the same bits.
+     */
+    protected void removeBits(BitStoreService store, Bitstream bitstream, String message) throws IOException
+    {
+        BitStoreStat stat = store.stat(bitstream);
+        if (stat == null || BitstreamStorageManager.isRecent(stat))
+        {
+            return;
+        }
+        store.remove(bitstream);
+        if (log.isDebugEnabled())
+        {
+            log.debug(message);
+        }
+        if (verbose)
+        {
+            System.out.println(message);
+        }
+    }
+
+    protected void deleteRecords(Context context, Bitstream bitstream) throws SQLException, AuthorizeException
+    {
+        log.debug("deleting db record");
+        if (verbose)
+        {
+            System.out.println(" - Deleting bitstream information (ID: " + bitstream.getID() + ")");
+        }
+        checksumHistoryService.deleteByBitstream(context, bitstream);
+        mostRecentChecksumService.deleteByBitstream(context, bitstream);
+        if (verbose)
+        {
+            System.out.println(" - Deleting bitstream record from database (ID: " + bitstream.getID() + ")");
+        }
+        bitstreamService.expunge(context, bitstream);
+    }
+
+    /**
+     * @return the id of the last bitstream cleaned up by an interrupted run, or -1 to start at the beginning
+     */
+    protected int readCheckpoint() throws IOException
+    {
+        if (!checkpoint.exists())
+        {
+            return -1;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(checkpoint));
+        try
+        {
+            String line = reader.readLine();
+            return line == null ? -1 : Integer.parseInt(line.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            log.warn("Ignoring invalid cleanup checkpoint " + checkpoint.getAbsolutePath());
+            return -1;
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Record the id of the last bitstream cleaned up. The file is replaced by renaming, so a crash never
+     * leaves a partially written checkpoint.
+     */
+    protected void writeCheckpoint(int lastID) throws IOException
+    {
+        File parent = checkpoint.getAbsoluteFile().getParentFile();
+        if (!parent.exists())
+        {
+            parent.mkdirs();
+        }
+        File tmp = new File(parent, checkpoint.getName() + ".tmp");
+        FileWriter writer = new FileWriter(tmp);
+        try
+        {
+            writer.write(String.valueOf(lastID));
+        }
+        finally
+        {
+            writer.close();
+        }
+        if (!tmp.renameTo(checkpoint))
+        {
+            // renaming over an existing file fails on some platforms
+            checkpoint.delete();
+            if (!tmp.renameTo(checkpoint))
+            {
+                throw new IOException("Cleanup checkpoint " + checkpoint.getAbsolutePath() + " could not be written");
+            }
+        }
+    }
+
+    private void report(String message)
+    {
+        log.info(message);
+        if (verbose)
+        {
+            System.out.println(message);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while cleaning up the asset stores");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
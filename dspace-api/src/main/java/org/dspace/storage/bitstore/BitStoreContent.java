@@ -0,0 +1,121 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A range of the bits of a bitstream, opened by {@link BitStoreService#open}. The channel is positioned
+ * at the start of the range, readers must stop after {@link #getLength()} bytes.
+ * <P>
+ * When the channel is a {@link FileChannel}, {@link #transferTo} hands the copy over to the operating
+ * system (e.g. sendfile), so the bits are not copied through user space. This is what downloads, HTTP
+ * Range requests and video seeking should use.
+ */
+public class BitStoreContent implements Closeable
+{
+    /** Size of the buffer used to copy from channels which aren't file channels */
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+
+    private final long offset;
+
+    private final long length;
+
+    /**
+     * @param channel the channel, positioned at the start of the range
+     * @param offset the offset of the range in the bits
+     * @param length the length of the range
+     */
+    public BitStoreContent(ReadableByteChannel channel, long offset, long length)
+    {
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public ReadableByteChannel getChannel()
+    {
+        return channel;
+    }
+
+    /**
+     * @return the offset of the range in the bits of the bitstream
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * @return the number of bytes in the range
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Write the range to a channel, e.g. the channel of a servlet or socket output stream. Can only be
+     * called once.
+     *
+     * @param target the channel to write to
+     * @return the number of bytes written, which is the length of the range unless the bits were truncated
+     * @throws IOException if reading or writing fails
+     */
+    public long transferTo(WritableByteChannel target) throws IOException
+    {
+        long transferred = 0;
+        if (channel instanceof FileChannel)
+        {
+            FileChannel fileChannel = (FileChannel) channel;
+            while (transferred < length)
+            {
+                // transferTo may transfer less than asked for, e.g. 2GB at most on some platforms
+                long count = fileChannel.transferTo(offset + transferred, length - transferred, target);
+                if (count <= 0)
+                {
+                    break;
+                }
+                transferred += count;
+            }
+        }
+        else
+        {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(length, 1)));
+            while (transferred < length)
+            {
+                buffer.limit((int) Math.min(buffer.capacity(), length - transferred));
+                int count = channel.read(buffer);
+                if (count == -1)
+                {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining())
+                {
+                    target.write(buffer);
+                }
+                buffer.clear();
+                transferred += count;
+            }
+        }
+        return transferred;
+    }
+
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
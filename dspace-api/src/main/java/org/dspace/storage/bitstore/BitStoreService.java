@@ -0,0 +1,140 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.dspace.content.Bitstream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A store holding the bits of bitstreams. The bits of a bitstream are identified by its internal id,
+ * the store by the store number of the bitstream.
+ * <P>
+ * Stores are looked up in the service manager by the name {@link #SERVICE_NAME_PREFIX} followed by their
+ * store number. Stores not defined there are created from the <code>assetstore.dir</code> and
+ * <code>srb.*</code> properties in <code>dspace.cfg</code>, see {@link BitstreamStorageManager}.
+ * Implementations only deal with the bits, the database rows are managed by the
+ * {@link BitstreamStorageManager}.
+ */
+public interface BitStoreService
+{
+    /** Prefix of the service names of the stores, followed by the store number */
+    public static final String SERVICE_NAME_PREFIX = BitStoreService.class.getName() + ".";
+
+    /** Attribute of {@link #about}: the size of the bits in bytes, as a Long */
+    public static final String SIZE_BYTES = "size_bytes";
+
+    /** Attribute of {@link #about}: the checksum of the bits, as a hex String */
+    public static final String CHECKSUM = "checksum";
+
+    /** Attribute of {@link #about}: the algorithm of the checksum */
+    public static final String CHECKSUM_ALGORITHM = "checksum_algorithm";
+
+    /**
+     * Attribute of {@link #about}: the checksums of all algorithms configured by
+     * <code>checksum.algorithms</code>, computed in one pass, as a Map from algorithm to hex String
+     */
+    public static final String CHECKSUMS = "checksums";
+
+    /** Attribute of {@link #about}: the time the bits were last modified, as a Long */
+    public static final String MODIFIED = "modified";
+
+    /**
+     * Prepare the store for use, called once before any other method.
+     *
+     * @throws IOException if the store can't be reached
+     */
+    public void init() throws IOException;
+
+    /**
+     * Store the bits of a bitstream, as identified by its internal id, and set the size, checksum and
+     * checksum algorithm of the bitstream, as well as the checksums of all algorithms configured by
+     * <code>checksum.algorithms</code>. The checksums are computed while storing the bits. The stream
+     * is closed afterwards.
+     *
+     * @param bitstream the bitstream the bits belong to
+     * @param in the bits
+     * @throws IOException if the bits could not be stored
+     */
+    public void put(Bitstream bitstream, InputStream in) throws IOException;
+
+    /**
+     * Spool the bits of an upload to a temporary file of this store, computing their size and the
+     * checksums of all algorithms configured by <code>checksum.algorithms</code> on the way. The stream
+     * is closed afterwards. No bitstream is involved yet, so this can be done before starting a
+     * transaction.
+     *
+     * @param in the bits
+     * @return the staged bits, to be stored with {@link #put(Bitstream, StagedBitstream)} or discarded
+     * @throws IOException if the bits could not be spooled
+     */
+    public StagedBitstream stage(InputStream in) throws IOException;
+
+    /**
+     * Store staged bits for a bitstream, as identified by its internal id, and set the size and checksums
+     * of the bitstream like {@link #put(Bitstream, InputStream)} does. The spool file is moved into the
+     * store where possible, and removed in any case.
+     *
+     * @param bitstream the bitstream the bits belong to
+     * @param staged bits staged by this store
+     * @throws IOException if the bits could not be stored
+     */
+    public void put(Bitstream bitstream, StagedBitstream staged) throws IOException;
+
+    /**
+     * @param bitstream the bitstream to retrieve the bits of
+     * @return the bits of the bitstream
+     * @throws IOException if the bits can't be read, including when they don't exist
+     */
+    public InputStream get(Bitstream bitstream) throws IOException;
+
+    /**
+     * Open a range of the bits of a bitstream, for downloads, HTTP Range requests and seeking in media.
+     *
+     * @param bitstream the bitstream to read the bits of
+     * @param offset the offset of the first byte to read
+     * @param length the number of bytes to read, or -1 to read up to the end. A range reaching beyond
+     *               the end of the bits is cut off at the end.
+     * @return the range, which has to be closed by the caller
+     * @throws IOException if the bits can't be read, including when they don't exist
+     * @throws IllegalArgumentException if the offset lies beyond the end of the bits
+     */
+    public BitStoreContent open(Bitstream bitstream, long offset, long length) throws IOException;
+
+    /**
+     * Remove the bits of a bitstream. Removing bits which don't exist is not an error.
+     *
+     * @param bitstream the bitstream to remove the bits of
+     * @throws IOException if the bits could not be removed
+     */
+    public void remove(Bitstream bitstream) throws IOException;
+
+    /**
+     * Describe the bits of a bitstream. Attributes which are expensive to obtain, such as the checksum,
+     * are only computed when asked for.
+     *
+     * @param bitstream the bitstream to describe the bits of
+     * @param attributes the attributes wanted, e.g. {@link #SIZE_BYTES} and {@link #CHECKSUM}
+     * @return the values of the attributes the store could determine, or <code>null</code> if the bits
+     *         don't exist
+     * @throws IOException if the bits could not be read
+     */
+    public Map<String, Object> about(Bitstream bitstream, List<String> attributes) throws IOException;
+
+    /**
+     * Cheaply determine the size and modification time of the bits of a bitstream, without reading them.
+     *
+     * @param bitstream the bitstream to look up the bits of
+     * @return the size and modification time, or <code>null</code> if the bits don't exist
+     * @throws IOException if the store could not be reached
+     */
+    public BitStoreStat stat(Bitstream bitstream) throws IOException;
+}
@@ -0,0 +1,37 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+/**
+ * Size and modification time of the bits of a bitstream, as returned by {@link BitStoreService#stat}
+ */
+public class BitStoreStat
+{
+    private final long sizeBytes;
+
+    private final long lastModified;
+
+    public BitStoreStat(long sizeBytes, long lastModified)
+    {
+        this.sizeBytes = sizeBytes;
+        this.lastModified = lastModified;
+    }
+
+    public long getSizeBytes()
+    {
+        return sizeBytes;
+    }
+
+    /**
+     * @return the time the bits were last modified, in milliseconds since the epoch
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+}
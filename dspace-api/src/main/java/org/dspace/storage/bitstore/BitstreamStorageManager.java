@@ -7,33 +7,25 @@
  */
 package org.dspace.storage.bitstore;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
-import org.dspace.checker.service.ChecksumHistoryService;
 import org.dspace.content.Bitstream;
 import org.dspace.content.service.BitstreamService;
 import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Context;
 import org.dspace.core.Utils;
 
-import edu.sdsc.grid.io.FileFactory;
-import edu.sdsc.grid.io.GeneralFile;
-import edu.sdsc.grid.io.GeneralFileOutputStream;
-import edu.sdsc.grid.io.local.LocalFile;
 import edu.sdsc.grid.io.srb.SRBAccount;
-import edu.sdsc.grid.io.srb.SRBFile;
-import edu.sdsc.grid.io.srb.SRBFileSystem;
 import org.dspace.factory.DSpaceServiceFactory;
+import org.dspace.kernel.ServiceManager;
+import org.dspace.utils.DSpace;
 
 /**
  * <P>
@@ -41,8 +33,20 @@ import org.dspace.factory.DSpaceServiceFactory;
  * </P>
  * 
  * <P>
- * Presently, asset stores are specified in <code>dspace.cfg</code>. Since
- * Java does not offer a way of detecting free disk space, the asset store to
+ * The bits are kept in asset stores, implementations of {@link BitStoreService}
+ * identified by their store number. A store is looked up in the service
+ * manager by the name {@link BitStoreService#SERVICE_NAME_PREFIX} followed by
+ * its number, which allows plugging in other kinds of storage. Stores not
+ * defined there are created from <code>dspace.cfg</code>: a
+ * {@link DSBitStoreService} for <code>assetstore.dir[.N]</code> (a
+ * {@link ContentAddressedBitStoreService} if
+ * <code>assetstore.content-addressed[.N]</code> is true) or else an
+ * {@link SRBBitStoreService} for the <code>srb.*[.N]</code> properties, and
+ * registered in the service manager.
+ * </P>
+ *
+ * <P>
+ * Since Java does not offer a way of detecting free disk space, the asset store to
  * use for new bitstreams is also specified in a configuration property. The
  * drawbacks to this are that the administrators are responsible for monitoring
  * available space in the asset stores, and DSpace (Tomcat) has to be restarted
@@ -63,157 +67,209 @@ import org.dspace.factory.DSpaceServiceFactory;
  * @author Peter Breton, Robert Tansley, David Little, Nathan Sarr
  * @version $Revision$
  */
-//TODO: Make a service out of this one !
 public class BitstreamStorageManager
 {
     /** log4j log */
     private static Logger log = Logger.getLogger(BitstreamStorageManager.class);
 
     private static final BitstreamService BITSTREAM_SERVICE = DSpaceServiceFactory.getInstance().getBitstreamService();
-    private static final ChecksumHistoryService CHECKSUM_HISTORY_SERVICE = DSpaceServiceFactory.getInstance().getChecksumHistoryService();
 
-	/**
-	 * The asset store locations. The information for each GeneralFile in the
-	 * array comes from dspace.cfg, so see the comments in that file.
-	 *
-	 * If an array element refers to a conventional (non_SRB) asset store, the
-	 * element will be a LocalFile object (similar to a java.io.File object)
-	 * referencing a local directory under which the bitstreams are stored.
-	 *
-	 * If an array element refers to an SRB asset store, the element will be an
-	 * SRBFile object referencing an SRB 'collection' (directory) under which
-	 * the bitstreams are stored.
-	 *
-	 * An SRBFile object is obtained by (1) using dspace.cfg properties to
-	 * create an SRBAccount object (2) using the account to create an
-	 * SRBFileSystem object (similar to a connection) (3) using the
-	 * SRBFileSystem object to create an SRBFile object
-	 */
-	private static GeneralFile[] assetStores;
+    /** The asset stores, by store number */
+    private static final Map<Integer, BitStoreService> stores = new HashMap<Integer, BitStoreService>();
 
     /** The asset store to use for new bitstreams */
     private static int incoming;
 
-    // These settings control the way an identifier is hashed into
-    // directory and file names
-    //
-    // With digitsPerLevel 2 and directoryLevels 3, an identifier
-    // like 12345678901234567890 turns into the relative name
-    // /12/34/56/12345678901234567890.
-    //
-    // You should not change these settings if you have data in the
-    // asset store, as the BitstreamStorageManager will be unable
-    // to find your existing data.
-    private static final int digitsPerLevel = 2;
+    private static final UploadStatistics uploadStatistics = new UploadStatistics();
 
-    private static final int directoryLevels = 3;
-
-	/**
-	 * This prefix string marks registered bitstreams in internal_id
-	 */
-	private static final String REGISTERED_FLAG = "-R";
-
-    /* Read in the asset stores from the config. */
+    /* Look up the asset stores, creating the ones only defined in the config. */
     static
     {
-        List<Object> stores = new ArrayList<Object>();
-
-		// 'assetstore.dir' is always store number 0
-		String sAssetstoreDir = ConfigurationManager
-				.getProperty("assetstore.dir");
- 
-		// see if conventional assetstore or srb
-		if (sAssetstoreDir != null) {
-			stores.add(sAssetstoreDir); // conventional (non-srb)
-		} else if (ConfigurationManager.getProperty("srb.host") != null) {
-			stores.add(new SRBAccount( // srb
-					ConfigurationManager.getProperty("srb.host"),
-					ConfigurationManager.getIntProperty("srb.port"),
-					ConfigurationManager.getProperty("srb.username"),
-					ConfigurationManager.getProperty("srb.password"),
-					ConfigurationManager.getProperty("srb.homedirectory"),
-					ConfigurationManager.getProperty("srb.mdasdomainname"),
-					ConfigurationManager
-							.getProperty("srb.defaultstorageresource"),
-					ConfigurationManager.getProperty("srb.mcatzone")));
-		} else {
-			log.error("No default assetstore");
-		}
+        ServiceManager serviceManager = new DSpace().getServiceManager();
 
-		// read in assetstores .1, .2, ....
-		for (int i = 1;; i++) { // i == 0 is default above
-			sAssetstoreDir = ConfigurationManager.getProperty("assetstore.dir."
-					+ i);
-
-			// see if 'i' conventional assetstore or srb
-			if (sAssetstoreDir != null) { 		// conventional (non-srb)
-				stores.add(sAssetstoreDir);
-			} else if (ConfigurationManager.getProperty("srb.host." + i)
-					!= null) { // srb
-				stores.add(new SRBAccount(
-						ConfigurationManager.getProperty("srb.host." + i),
-						ConfigurationManager.getIntProperty("srb.port." + i),
-						ConfigurationManager.getProperty("srb.username." + i),
-						ConfigurationManager.getProperty("srb.password." + i),
-						ConfigurationManager
-								.getProperty("srb.homedirectory." + i),
-						ConfigurationManager
-								.getProperty("srb.mdasdomainname." + i),
-						ConfigurationManager
-								.getProperty("srb.defaultstorageresource." + i),
-						ConfigurationManager.getProperty("srb.mcatzone." + i)));
-			} else {
-				break; // must be at the end of the assetstores
-			}
-		}
+        // store 0 is the default, read in stores .1, .2, .... until there are no more
+        for (int i = 0;; i++)
+        {
+            String name = BitStoreService.SERVICE_NAME_PREFIX + i;
+            BitStoreService store = serviceManager.getServiceByName(name, BitStoreService.class);
+            if (store == null)
+            {
+                store = createConfiguredStore(i);
+                if (store == null)
+                {
+                    if (i == 0)
+                    {
+                        log.error("No default assetstore");
+                        continue;
+                    }
+                    break; // must be at the end of the assetstores
+                }
+                try
+                {
+                    serviceManager.registerService(name, store);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    log.warn("Assetstore " + i + " could not be registered in the service manager", e);
+                }
+            }
 
-		// convert list to array
-		// the elements (objects) in the list are class
-		//   (1) String - conventional non-srb assetstore
-		//   (2) SRBAccount - srb assetstore
-		assetStores = new GeneralFile[stores.size()];
-		for (int i = 0; i < stores.size(); i++) {
-			Object o = stores.get(i);
-			if (o == null) { // I don't know if this can occur
-				log.error("Problem with assetstore " + i);
-			}
-			if (o instanceof String) {
-				assetStores[i] = new LocalFile((String) o);
-			} else if (o instanceof SRBAccount) {
-				SRBFileSystem srbFileSystem = null;
-				try {
-					srbFileSystem = new SRBFileSystem((SRBAccount) o);
-				} catch (NullPointerException e) {
-					log.error("No SRBAccount for assetstore " + i);
-				} catch (IOException e) {
-					log.error("Problem getting SRBFileSystem for assetstore"
-							+ i);
-				}
-				if (srbFileSystem == null) {
-					log.error("SRB FileSystem is null for assetstore " + i);
-				}
-				String sSRBAssetstore = null;
-				if (i == 0) { // the zero (default) assetstore has no suffix
-					sSRBAssetstore = ConfigurationManager
-							.getProperty("srb.parentdir");
-				} else {
-					sSRBAssetstore = ConfigurationManager
-							.getProperty("srb.parentdir." + i);
-				}
-				if (sSRBAssetstore == null) {
-					log.error("srb.parentdir is undefined for assetstore " + i);
-				}
-				assetStores[i] = new SRBFile(srbFileSystem, sSRBAssetstore);
-			} else {
-				log.error("Unexpected " + o.getClass().toString()
-						+ " with assetstore " + i);
-			}
-		}
+            try
+            {
+                store.init();
+                stores.put(i, store);
+            }
+            catch (IOException e)
+            {
+                log.error("Problem initialising assetstore " + i, e);
+            }
+            catch (RuntimeException e)
+            {
+                log.error("Problem initialising assetstore " + i, e);
+            }
+        }
 
         // Read asset store to put new files in. Default is 0.
         incoming = ConfigurationManager.getIntProperty("assetstore.incoming");
     }
 
+    /**
+     * Create the store with the given number from <code>dspace.cfg</code>. A
+     * local directory takes precedence over a set of SRB parameters.
+     *
+     * @param i the store number, 0 being the store without suffix
+     * @return the store, or <code>null</code> if it isn't configured
+     */
+    private static BitStoreService createConfiguredStore(int i)
+    {
+        // the zero (default) assetstore has no suffix
+        String suffix = (i == 0) ? "" : "." + i;
+
+        String sAssetstoreDir = ConfigurationManager.getProperty("assetstore.dir" + suffix);
+        if (sAssetstoreDir != null)
+        {
+            if (ConfigurationManager.getBooleanProperty("assetstore.content-addressed" + suffix, false))
+            {
+                return new ContentAddressedBitStoreService(sAssetstoreDir);
+            }
+            return new DSBitStoreService(sAssetstoreDir);
+        }
+
+        if (ConfigurationManager.getProperty("srb.host" + suffix) != null)
+        {
+            SRBAccount account = new SRBAccount(
+                    ConfigurationManager.getProperty("srb.host" + suffix),
+                    ConfigurationManager.getIntProperty("srb.port" + suffix),
+                    ConfigurationManager.getProperty("srb.username" + suffix),
+                    ConfigurationManager.getProperty("srb.password" + suffix),
+                    ConfigurationManager.getProperty("srb.homedirectory" + suffix),
+                    ConfigurationManager.getProperty("srb.mdasdomainname" + suffix),
+                    ConfigurationManager.getProperty("srb.defaultstorageresource" + suffix),
+                    ConfigurationManager.getProperty("srb.mcatzone" + suffix));
+            return new SRBBitStoreService(account, ConfigurationManager.getProperty("srb.parentdir" + suffix));
+        }
+        return null;
+    }
+
+    /**
+     * @param storeNumber the store number of a bitstream
+     * @return the store holding the bits of the bitstream
+     * @throws IOException if the store doesn't exist or could not be initialised
+     */
+    public static BitStoreService getStore(int storeNumber) throws IOException
+    {
+        // Default to zero ('assetstore.dir') for backwards compatibility
+        if (storeNumber == -1)
+        {
+            storeNumber = 0;
+        }
+
+        BitStoreService store = stores.get(storeNumber);
+        if (store == null)
+        {
+            throw new IOException("Asset store " + storeNumber + " is not available");
+        }
+        return store;
+    }
+
+    /**
+     * Stage an upload: spool the bits to a temporary file of the store for new
+     * bitstreams and compute their checksums, without touching the database.
+     * The session of a context starts its transaction on first use, so a
+     * caller receiving an upload stages it before using its context and then
+     * creates the bitstream from the staged bits. The progress and throughput of the upload are recorded in
+     * {@link #getUploadStatistics()}.
+     *
+     * @param is
+     *            The stream of bits to stage, closed afterwards
+     * @exception IOException
+     *                If a problem occurs while spooling the bits
+     *
+     * @return The staged bits, to be stored with
+     *         {@link #store(Context, Bitstream, StagedBitstream)} or discarded
+     */
+    public static StagedBitstream stage(InputStream is) throws IOException
+    {
+        int storeNumber = incoming;
+        UploadStatistics.Upload upload = uploadStatistics.started();
+        boolean success = false;
+        try
+        {
+            StagedBitstream staged = getStore(storeNumber).stage(upload.track(is));
+            staged.setStoreNumber(storeNumber);
+            success = true;
+            return staged;
+        }
+        finally
+        {
+            uploadStatistics.ended(upload, success);
+            if (log.isDebugEnabled())
+            {
+                log.debug("Staged " + upload.getBytes() + " bytes in " + upload.getElapsedMillis() + " ms");
+            }
+        }
+    }
+
+    /**
+     * Store staged bits. The bits are moved into the asset store that staged
+     * them, after which the bitstream row is updated; the transaction is only
+     * involved for this last, short step.
+     *
+     * @param context
+     *            The current context
+     * @param bitstream
+     *            The new bitstream row to store the bits for
+     * @param staged
+     *            The bits staged by {@link #stage(InputStream)}, which are
+     *            removed from the spool in any case
+     * @exception IOException
+     *                If a problem occurs while storing the bits
+     * @exception SQLException
+     *                If a problem occurs accessing the RDBMS
+     *
+     * @return The ID of the stored bitstream
+     */
+    public static int store(Context context, Bitstream bitstream, StagedBitstream staged)
+            throws SQLException, IOException, AuthorizeException {
+        bitstream.setInternalId(Utils.generateKey());
+        bitstream.setStoreNumber(staged.getStoreNumber());
+
+        getStore(staged.getStoreNumber()).put(bitstream, staged);
+
+        bitstream.setDeleted(false);
+        BITSTREAM_SERVICE.update(context, bitstream);
+
+        return bitstream.getID();
+    }
+
+    /**
+     * @return the progress and throughput of the uploads staged by {@link #stage(InputStream)}
+     */
+    public static UploadStatistics getUploadStatistics()
+    {
+        return uploadStatistics;
+    }
+
     /**
      * Store a stream of bits.
      * 
@@ -242,6 +298,8 @@ public class BitstreamStorageManager
      * 
      * @param context
      *            The current context
+     * @param bitstream
+     *            The new bitstream row to store the bits for
      * @param is
      *            The stream of bits to store
      * @exception IOException
@@ -268,60 +326,12 @@ public class BitstreamStorageManager
 
         BITSTREAM_SERVICE.update(context, bitstream);
 
-        // Where on the file system will this new bitstream go?
-		GeneralFile file = getFile(bitstream);
+        getStore(incoming).put(bitstream, is);
 
-        // Make the parent dirs if necessary
-		GeneralFile parent = file.getParentFile();
-
-        if (!parent.exists())
-        {
-            parent.mkdirs();
-        }
-
-        //Create the corresponding file and open it
-        file.createNewFile();
-
-		GeneralFileOutputStream fos = FileFactory.newFileOutputStream(file);
-
-		// Read through a digest input stream that will work out the MD5
-        DigestInputStream dis = null;
-
-        try
-        {
-            dis = new DigestInputStream(is, MessageDigest.getInstance("MD5"));
-        }
-        // Should never happen
-        catch (NoSuchAlgorithmException nsae)
-        {
-            log.warn("Caught NoSuchAlgorithmException", nsae);
-        }
-
-        Utils.bufferedCopy(dis, fos);
-        fos.close();
-        is.close();
-
-        bitstream.setSizeBytes(file.length());
-
-        if (dis != null)
-        {
-            bitstream.setChecksum(Utils.toHex(dis.getMessageDigest()
-                    .digest()));
-            bitstream.setChecksumAlgorithm("MD5");
-        }
-        
         bitstream.setDeleted(false);
         BITSTREAM_SERVICE.update(context, bitstream);
 
-        int bitstreamId = bitstream.getID();
-
-        if (log.isDebugEnabled())
-        {
-            log.debug("Stored bitstream " + bitstreamId + " in file "
-                    + file.getAbsolutePath());
-        }
-
-        return bitstreamId;
+        return bitstream.getID();
     }
 
 	/**
@@ -329,6 +339,8 @@ public class BitstreamStorageManager
 	 *
 	 * @param context
 	 *            The current context
+	 * @param bitstream
+	 *            The new bitstream row to register the bits for
 	 * @param assetstore The assetstore number for the bitstream to be
 	 * 			registered
 	 * @param bitstreamPath The relative path of the bitstream to be registered.
@@ -338,131 +350,45 @@ public class BitstreamStorageManager
 	 *                If a problem occurs accessing the RDBMS
 	 * @throws IOException
 	 */
-	public static int register(Context context, int assetstore,
+	@SuppressWarnings("unchecked")
+	public static int register(Context context, Bitstream bitstream, int assetstore,
 				String bitstreamPath) throws SQLException, IOException, AuthorizeException {
 
 		// mark this bitstream as a registered bitstream
-		String sInternalId = REGISTERED_FLAG + bitstreamPath;
-
-		// Create a deleted bitstream row, using a separate DB connection
-		Bitstream bitstream;
-		Context tempContext = null;
-
-		try {
-			tempContext = new Context();
-
-			bitstream = new Bitstream();
-			bitstream.setDeleted(true);
-			bitstream.setInternalId(sInternalId);
-			bitstream.setStoreNumber(assetstore);
-            BITSTREAM_SERVICE.update(context, bitstream);
-
-			tempContext.complete();
-		} catch (SQLException sqle) {
-			if (tempContext != null) {
-				tempContext.abort();
-			}
-			throw sqle;
-		}
-
-		// get a reference to the file
-		GeneralFile file = getFile(bitstream);
+		bitstream.setDeleted(true);
+		bitstream.setInternalId(AbstractBitStoreService.REGISTERED_FLAG + bitstreamPath);
+		bitstream.setStoreNumber(assetstore);
+		BITSTREAM_SERVICE.update(context, bitstream);
 
-		// read through a DigestInputStream that will work out the MD5
-		//
 		// DSpace refers to checksum, writes it in METS, and uses it as an
-		// AIP filename (!), but never seems to validate with it. Furthermore,
-		// DSpace appears to hardcode the algorithm to MD5 in some places--see 
-		// METSExport.java.
-		//
-		// To remain compatible with DSpace we calculate an MD5 checksum on 
-		// LOCAL registered files. But for REMOTE (e.g. SRB) files we 
-		// calculate an MD5 on just the fileNAME. The reasoning is that in the 
-		// case of a remote file, calculating an MD5 on the file itself will
-		// generate network traffic to read the file's bytes. In this case it 
-		// would be better have a proxy process calculate MD5 and store it as 
-		// an SRB metadata attribute so it can be retrieved simply from SRB.
-		//
-		// TODO set this up as a proxy server process so no net activity
-		
-		// FIXME this is a first class HACK! for the reasons described above
-		if (file instanceof LocalFile) 
+		// AIP filename (!), but never seems to validate with it. To remain
+		// compatible the stores describe the registered bits with an MD5
+		// checksum, see SRBBitStoreService for the remote case.
+		Map<String, Object> about = getStore(assetstore).about(bitstream,
+				Arrays.asList(BitStoreService.SIZE_BYTES, BitStoreService.CHECKSUM, BitStoreService.CHECKSUM_ALGORITHM,
+						BitStoreService.CHECKSUMS));
+		if (about == null)
 		{
-
-			// get MD5 on the file for local file
-			DigestInputStream dis = null;
-			try 
-			{
-				dis = new DigestInputStream(FileFactory.newFileInputStream(file), 
-						MessageDigest.getInstance("MD5"));
-			} 
-			catch (NoSuchAlgorithmException e) 
-			{
-				log.warn("Caught NoSuchAlgorithmException", e);
-				throw new IOException("Invalid checksum algorithm", e);
-			}
-			catch (IOException e) 
-			{
-				log.error("File: " + file.getAbsolutePath() 
-						+ " to be registered cannot be opened - is it "
-						+ "really there?");
-				throw e;
-			}
-			final int BUFFER_SIZE = 1024 * 4;
-			final byte[] buffer = new byte[BUFFER_SIZE];
-			while (true) 
-			{
-				final int count = dis.read(buffer, 0, BUFFER_SIZE);
-				if (count == -1) 
-				{
-					break;
-				}
-			}
-			bitstream.setChecksum(Utils.toHex(dis.getMessageDigest()
-                    .digest()));
-			dis.close();
-		} 
-		else if (file instanceof SRBFile)
-		{
-			if (!file.exists())
-			{
-				log.error("File: " + file.getAbsolutePath() 
-						+ " is not in SRB MCAT");
-				throw new IOException("File is not in SRB MCAT");
-			}
-
-			// get MD5 on just the filename (!) for SRB file
-			int iLastSlash = bitstreamPath.lastIndexOf('/');
-			String sFilename = bitstreamPath.substring(iLastSlash + 1);
-			MessageDigest md = null;
-			try 
-			{
-				md = MessageDigest.getInstance("MD5");
-			} 
-			catch (NoSuchAlgorithmException e) 
-			{
-				log.error("Caught NoSuchAlgorithmException", e);
-				throw new IOException("Invalid checksum algorithm", e);
-			}
-			bitstream.setChecksum(
-                    Utils.toHex(md.digest(sFilename.getBytes())));
+			log.error("File: " + bitstreamPath + " to be registered in assetstore "
+					+ assetstore + " cannot be found - is it really there?");
+			throw new IOException("File to be registered cannot be found: " + bitstreamPath);
 		}
-		else
+
+		bitstream.setChecksum((String) about.get(BitStoreService.CHECKSUM));
+		bitstream.setChecksumAlgorithm((String) about.get(BitStoreService.CHECKSUM_ALGORITHM));
+		if (about.get(BitStoreService.CHECKSUMS) != null)
 		{
-			throw new IOException("Unrecognized file type - "
-					+ "not local, not SRB");
+			bitstream.setChecksums((Map<String, String>) about.get(BitStoreService.CHECKSUMS));
 		}
-
-		bitstream.setChecksumAlgorithm("MD5");
-		bitstream.setSizeBytes(file.length());
+		bitstream.setSizeBytes((Long) about.get(BitStoreService.SIZE_BYTES));
 		bitstream.setDeleted(false);
-        BITSTREAM_SERVICE.update(context, bitstream);
+		BITSTREAM_SERVICE.update(context, bitstream);
 
 		int bitstreamId = bitstream.getID();
 		if (log.isDebugEnabled()) 
 		{
-			log.debug("Stored bitstream " + bitstreamId + " in file "
-					+ file.getAbsolutePath());
+			log.debug("Registered bitstream " + bitstreamId + " as " + bitstreamPath
+					+ " in assetstore " + assetstore);
 		}
 		return bitstreamId;
 	}
@@ -475,17 +401,12 @@ public class BitstreamStorageManager
 	 * @return true if the bitstream is a registered file
 	 */
 	public static boolean isRegisteredBitstream(String internalId) {
-	    if (internalId.substring(0, REGISTERED_FLAG.length())
-	            .equals(REGISTERED_FLAG)) 
-	    {
-	        return true;
-	    }
-	    return false;
+	    return AbstractBitStoreService.isRegisteredBitstream(internalId);
 	}
 
     /**
      * Retrieve the bits for the bitstream with ID. If the bitstream does not
-     * exist, or is marked deleted, returns null.
+     * exist, returns null.
      * 
      * @param context
      *            The current context
@@ -501,15 +422,44 @@ public class BitstreamStorageManager
     public static InputStream retrieve(Context context, int id)
             throws SQLException, IOException
     {
-		GeneralFile file = getFile(BITSTREAM_SERVICE.find(context, id));
+        Bitstream bitstream = BITSTREAM_SERVICE.find(context, id);
+        if (bitstream == null)
+        {
+            return null;
+        }
+        return getStore(bitstream.getStoreNumber()).get(bitstream);
+    }
 
-		return (file != null) ? FileFactory.newFileInputStream(file) : null;
+    /**
+     * Retrieve a range of the bits of a bitstream as a channel. Local asset
+     * stores return a file channel, which {@link BitStoreContent#transferTo}
+     * copies to the target without passing the bits through user space.
+     *
+     * @param context
+     *            The current context
+     * @param bitstream
+     *            The bitstream to retrieve
+     * @param offset
+     *            The offset of the first byte to retrieve
+     * @param length
+     *            The number of bytes to retrieve, or -1 for up to the end
+     * @exception IOException
+     *                If a problem occurs while retrieving the bits
+     *
+     * @return The range of bits, to be closed by the caller
+     */
+    public static BitStoreContent retrieve(Context context, Bitstream bitstream, long offset, long length)
+            throws IOException
+    {
+        return getStore(bitstream.getStoreNumber()).open(bitstream, offset, length);
     }
 
     /**
      * Clean up the bitstream storage area. This method deletes any bitstreams
-     * which are more than 1 hour old and marked deleted. The deletions cannot
-     * be undone.
+     * which are more than 1 minute old and marked deleted. The deletions cannot
+     * be undone. The bitstreams are processed in batches, each committed on
+     * its own, and an interrupted cleanup resumes where it stopped, see
+     * {@link AssetstoreCleaner}.
      * 
      * @param deleteDbRecords if true deletes the database records otherwise it
      * 	           only deletes the files and directories in the assetstore  
@@ -519,160 +469,33 @@ public class BitstreamStorageManager
      *                If a problem occurs accessing the RDBMS
      */
     public static void cleanup(boolean deleteDbRecords, boolean verbose) throws SQLException, IOException, AuthorizeException {
-        Context context = null;
-        //TODO: HIBERNATE IMPLEMENT BitstreamInfoDAO
-//        BitstreamInfoDAO bitstreamInfoDAO = new BitstreamInfoDAO();
-        int commitCounter = 0;
-
-        try
-        {
-            context = new Context();
-
-
-            List<Bitstream> storage = BITSTREAM_SERVICE.findDeletedBitstreams(context);
-
-            for (Bitstream bitstream : storage)
-            {
-                int bid = bitstream.getID();
-				GeneralFile file = getFile(bitstream);
-
-                // Make sure entries which do not exist are removed
-                if (file == null || !file.exists())
-                {
-                    log.debug("file is null");
-                    if (deleteDbRecords)
-                    {
-                        log.debug("deleting record");
-                        if (verbose)
-                        {
-                            System.out.println(" - Deleting bitstream information (ID: " + bid + ")");
-                        }
-                        CHECKSUM_HISTORY_SERVICE.deleteByBitstream(context, bitstream);
-                        if (verbose)
-                        {
-                            System.out.println(" - Deleting bitstream record from database (ID: " + bid + ")");
-                        }
-                        BITSTREAM_SERVICE.delete(context, bitstream);
-                    }
-                    continue;
-                }
-
-                // This is a small chance that this is a file which is
-                // being stored -- get it next time.
-                if (isRecent(file))
-                {
-                	log.debug("file is recent");
-                    continue;
-                }
-
-                if (deleteDbRecords)
-                {
-                    log.debug("deleting db record");
-                    if (verbose)
-                    {
-                        System.out.println(" - Deleting bitstream information (ID: " + bid + ")");
-                    }
-                    CHECKSUM_HISTORY_SERVICE.deleteByBitstream(context, bitstream);
-                    if (verbose)
-                    {
-                        System.out.println(" - Deleting bitstream record from database (ID: " + bid + ")");
-                    }
-                    //TODO: HIBERNATE: DOESN't DELETE ACTUAL ROW IN DB !
-                    BITSTREAM_SERVICE.delete(context, bitstream);
-                }
-
-				if (isRegisteredBitstream(bitstream.getInternalId())) {
-				    continue;			// do not delete registered bitstreams
-				}
-
-
-                // Since versioning allows for multiple bitstreams, check if the internal identifier isn't used on another place
-
-
-                if(0 < BITSTREAM_SERVICE.findDuplicateInternalIdentifier(context, bitstream).size())
-                {
-                    boolean success = file.delete();
-
-                    String message = ("Deleted bitstream " + bid + " (file "
-                                + file.getAbsolutePath() + ") with result "
-                                + success);
-                    if (log.isDebugEnabled())
-                    {
-                        log.debug(message);
-                    }
-                    if (verbose)
-                    {
-                        System.out.println(message);
-                    }
-
-                    // if the file was deleted then
-                    // try deleting the parents
-                    // Otherwise the cleanup script is set to
-                    // leave the db records then the file
-                    // and directories have already been deleted
-                    // if this is turned off then it still looks like the
-                    // file exists
-                    if( success )
-                    {
-                        deleteParents(file);
-                    }
-                }
-
-                // Make sure to commit our outstanding work every 100
-                // iterations. Otherwise you risk losing the entire transaction
-                // if we hit an exception, which isn't useful at all for large
-                // amounts of bitstreams.
-                commitCounter++;
-                if (commitCounter % 100 == 0)
-                {
-                	System.out.print("Committing changes to the database...");
-                    context.commit();
-                    System.out.println(" Done!");
-                }
-            }
-
-            context.complete();
-        }
-        // Aborting will leave the DB objects around, even if the
-        // bitstreams are deleted. This is OK; deleting them next
-        // time around will be a no-op.
-        catch (SQLException sqle)
-        {
-            if (verbose)
-            {
-                System.err.println("Error: " + sqle.getMessage());
-            }
-            context.abort();
-            throw sqle;
-        }
-        catch (IOException ioe)
-        {
-            if (verbose)
-            {
-                System.err.println("Error: " + ioe.getMessage());
-            }
-            context.abort();
-            throw ioe;
-        }
+        new AssetstoreCleaner(deleteDbRecords, verbose).cleanup();
     }
 
     /**
+     * Make a new bitstream row refer to the bits of an existing bitstream,
+     * without copying them. The bits are only removed by the cleanup once no
+     * row refers to them anymore.
      *
-     * @param context
-     * @param id of the bitstream to clone.
+     * @param context the current context
+     * @param bitstream the bitstream to clone
+     * @param clone the new bitstream row
      * @return id of the clone bitstream.
      * @throws SQLException
      */
-    public static int clone(Context context, int id) throws SQLException
+    public static int clone(Context context, Bitstream bitstream, Bitstream clone)
+            throws SQLException, AuthorizeException
     {
-        //TODO: HIBERNATR IMPLEMENT CLONE !
-        /*
-        Bitstream bitstream = new BitstreamDAO().find(context, id);
-        row.setColumn("bitstream_id", -1);
-        DatabaseManager.insert(context, row);
-        return row.getIntColumn("bitstream_id");
-        */
-        throw new RuntimeException();
+        clone.setInternalId(bitstream.getInternalId());
+        clone.setStoreNumber(bitstream.getStoreNumber());
+        clone.setSizeBytes(bitstream.getSize());
+        clone.setChecksum(bitstream.getChecksum());
+        clone.setChecksumAlgorithm(bitstream.getChecksumAlgorithm());
+        clone.setChecksums(bitstream.getChecksums());
+        clone.setDeleted(false);
+        BITSTREAM_SERVICE.update(context, clone);
+
+        return clone.getID();
     }
 
 
@@ -681,15 +504,15 @@ public class BitstreamStorageManager
     ////////////////////////////////////////
 
     /**
-     * Return true if this file is too recent to be deleted, false otherwise.
+     * Return true if these bits are too recent to be deleted, false otherwise.
      * 
-     * @param file
-     *            The file to check
-     * @return True if this file is too recent to be deleted
+     * @param stat
+     *            The size and modification time of the bits
+     * @return True if the bits are too recent to be deleted
      */
-    private static boolean isRecent(GeneralFile file)
+    static boolean isRecent(BitStoreStat stat)
     {
-        long lastmod = file.lastModified();
+        long lastmod = stat.getLastModified();
         long now = new java.util.Date().getTime();
 
         if (lastmod >= now)
@@ -697,149 +520,7 @@ public class BitstreamStorageManager
             return true;
         }
 
-        // Less than one hour old
+        // Less than one minute old
         return (now - lastmod) < (1 * 60 * 1000);
     }
-
-    /**
-     * Delete empty parent directories.
-     * 
-     * @param file
-     *            The file with parent directories to delete
-     */
-    private static synchronized void deleteParents(GeneralFile file)
-    {
-        if (file == null )
-        {
-            return;
-        }
- 
-		GeneralFile tmp = file;
-
-        for (int i = 0; i < directoryLevels; i++)
-        {
-
-			GeneralFile directory = tmp.getParentFile();
-			GeneralFile[] files = directory.listFiles();
-
-            // Only delete empty directories
-            if (files.length != 0)
-            {
-                break;
-            }
-
-            directory.delete();
-            tmp = directory;
-        }
-    }
-
-    /**
-     * Return the file corresponding to a bitstream. It's safe to pass in
-     * <code>null</code>.
-     * 
-     * @param bitstream
-     *            the database table row for the bitstream. Can be
-     *            <code>null</code>
-     * 
-     * @return The corresponding file in the file system, or <code>null</code>
-     * 
-     * @exception IOException
-     *                If a problem occurs while determining the file
-     */
-    private static GeneralFile getFile(Bitstream bitstream) throws IOException
-    {
-        // Check that bitstream is not null
-        if (bitstream == null)
-        {
-            return null;
-        }
-
-        // Get the store to use
-        int storeNumber = bitstream.getStoreNumber();
-
-        // Default to zero ('assetstore.dir') for backwards compatibility
-        if (storeNumber == -1)
-        {
-            storeNumber = 0;
-        }
-
-		GeneralFile assetstore = assetStores[storeNumber];
-
-		// turn the internal_id into a file path relative to the assetstore
-		// directory
-		String sInternalId = bitstream.getInternalId();
-
-		// there are 4 cases:
-		// -conventional bitstream, conventional storage
-		// -conventional bitstream, srb storage
-		// -registered bitstream, conventional storage
-		// -registered bitstream, srb storage
-		// conventional bitstream - dspace ingested, dspace random name/path
-		// registered bitstream - registered to dspace, any name/path
-		String sIntermediatePath = null;
-		if (isRegisteredBitstream(sInternalId)) {
-			sInternalId = sInternalId.substring(REGISTERED_FLAG.length());
-			sIntermediatePath = "";
-		} else {
-			
-			// Sanity Check: If the internal ID contains a
-			// pathname separator, it's probably an attempt to
-			// make a path traversal attack, so ignore the path
-			// prefix.  The internal-ID is supposed to be just a
-			// filename, so this will not affect normal operation.
-			if (sInternalId.indexOf(File.separator) != -1)
-            {
-                sInternalId = sInternalId.substring(sInternalId.lastIndexOf(File.separator) + 1);
-            }
-			
-			sIntermediatePath = getIntermediatePath(sInternalId);
-		}
-
-		StringBuffer bufFilename = new StringBuffer();
-		if (assetstore instanceof LocalFile) {
-			bufFilename.append(assetstore.getCanonicalPath());
-			bufFilename.append(File.separator);
-			bufFilename.append(sIntermediatePath);
-			bufFilename.append(sInternalId);
-			if (log.isDebugEnabled()) {
-				log.debug("Local filename for " + sInternalId + " is "
-						+ bufFilename.toString());
-			}
-			return new LocalFile(bufFilename.toString());
-		}
-		if (assetstore instanceof SRBFile) {
-			bufFilename.append(sIntermediatePath);
-			bufFilename.append(sInternalId);
-			if (log.isDebugEnabled()) {
-				log.debug("SRB filename for " + sInternalId + " is "
-						+ ((SRBFile) assetstore).toString()
-						+ bufFilename.toString());
-			}
-			return new SRBFile((SRBFile) assetstore, bufFilename.toString());
-		}
-		return null;
-    }
-
-	/**
-	 * Return the intermediate path derived from the internal_id. This method
-	 * splits the id into groups which become subdirectories.
-	 *
-	 * @param iInternalId
-	 *            The internal_id
-	 * @return The path based on the id without leading or trailing separators
-	 */
-	private static String getIntermediatePath(String iInternalId) {
-		StringBuffer buf = new StringBuffer();
-		for (int i = 0; i < directoryLevels; i++) {
-			int digits = i * digitsPerLevel;
-			if (i > 0) {
-				buf.append(File.separator);
-			}
-			buf.append(iInternalId.substring(digits, digits
-							+ digitsPerLevel));
-		}
-		buf.append(File.separator);
-		return buf.toString();
-	}
-
-}
\ No newline at end of file
+}
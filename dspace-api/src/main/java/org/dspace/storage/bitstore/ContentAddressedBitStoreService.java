@@ -0,0 +1,149 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.log4j.Logger;
+import org.dspace.content.Bitstream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * Local file system store addressing the bits by their content: the internal id of a bitstream is the
+ * SHA-256 checksum of its bits, so identical bitstreams share a single file. The bits are first written
+ * under the internal id assigned by {@link BitstreamStorageManager}, and then moved to their content
+ * address. When that file exists already the new copy replaces it, which also marks the shared file as
+ * recent, keeping a concurrent cleanup away from it. Staged uploads are digested with SHA-256 while
+ * being spooled, and renamed to their content address directly.
+ * <P>
+ * The bitstreams sharing a file are its references, counted from the bitstream table by
+ * {@link org.dspace.content.service.BitstreamService#getReferenceCount}; the cleanup only removes the
+ * file once none of them remains. Storing bits at a content address and the cleanup's last check and
+ * removal of the file there hold the lock of the address, see {@link #getLock(String)}, so within a JVM
+ * a file can't be removed just after the same bits were stored again.
+ */
+public class ContentAddressedBitStoreService extends DSBitStoreService
+{
+    /** log4j log */
+    private static Logger log = Logger.getLogger(ContentAddressedBitStoreService.class);
+
+    /** The algorithm of the checksum used as internal id */
+    public static final String ADDRESS_ALGORITHM = "SHA-256";
+
+    /** The locks the content addresses are spread over */
+    private static final Object[] locks = new Object[64];
+
+    static
+    {
+        for (int i = 0; i < locks.length; i++)
+        {
+            locks[i] = new Object();
+        }
+    }
+
+    public ContentAddressedBitStoreService()
+    {
+    }
+
+    public ContentAddressedBitStoreService(String baseDir)
+    {
+        super(baseDir);
+    }
+
+    @Override
+    public void put(Bitstream bitstream, InputStream in) throws IOException
+    {
+        super.put(bitstream, in);
+
+        File staged = getFile(bitstream);
+        bitstream.setInternalId(bitstream.getChecksums().get(ADDRESS_ALGORITHM));
+        File file = getFile(bitstream);
+
+        synchronized (getLock(bitstream.getInternalId()))
+        {
+            if (!moveFile(staged, file))
+            {
+                // renaming over an existing file fails on some platforms, the bits are the same anyway
+                if (!file.exists() || !file.setLastModified(System.currentTimeMillis()))
+                {
+                    throw new IOException("File " + staged.getAbsolutePath() + " could not be moved to " + file.getAbsolutePath());
+                }
+                staged.delete();
+            }
+        }
+        deleteParents(staged);
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Bitstream " + bitstream.getID() + " stored at content address " + bitstream.getInternalId());
+        }
+    }
+
+    /**
+     * Moves the staged bits to their content address, replacing the file there if it exists
+     */
+    @Override
+    public void put(Bitstream bitstream, StagedBitstream staged) throws IOException
+    {
+        String address = staged.getChecksums().get(ADDRESS_ALGORITHM);
+        if (address == null)
+        {
+            // not staged by this store, digest the bits again
+            try
+            {
+                put(bitstream, new FileInputStream(staged.getFile()));
+            }
+            finally
+            {
+                staged.discard();
+            }
+            return;
+        }
+        bitstream.setInternalId(address);
+        synchronized (getLock(address))
+        {
+            super.put(bitstream, staged);
+            // the spool file may be older than the cleanup considers recent
+            getFile(bitstream).setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Get the lock to hold while storing bits at a content address, or while checking that the file there
+     * is unused and removing it. Addresses share a fixed number of locks.
+     *
+     * @param address the content address, i.e. the internal id of a bitstream
+     * @return the lock of the address
+     */
+    public static Object getLock(String address)
+    {
+        return locks[(address.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    /**
+     * Digests with the configured algorithms, and always with the one addressing the bits
+     */
+    @Override
+    protected MultiDigest getDigest() throws IOException
+    {
+        Set<String> algorithms = MultiDigest.getConfiguredAlgorithms();
+        algorithms.add(ADDRESS_ALGORITHM);
+        try
+        {
+            return new MultiDigest(algorithms);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException("Invalid checksum algorithm", e);
+        }
+    }
+}
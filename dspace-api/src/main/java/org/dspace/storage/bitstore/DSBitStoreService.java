@@ -0,0 +1,362 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.log4j.Logger;
+import org.dspace.content.Bitstream;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store keeping the bits in a directory of the local (or a mounted) file system, the native DSpace asset
+ * store. The bits are read and written through NIO file channels, digesting each buffer on the way with
+ * all configured checksum algorithms.
+ */
+public class DSBitStoreService extends AbstractBitStoreService
+{
+    /** log4j log */
+    private static Logger log = Logger.getLogger(DSBitStoreService.class);
+
+    /** Size of the buffer used to copy and digest the bits */
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The directory the bits are stored in */
+    private File baseDir;
+
+    public DSBitStoreService()
+    {
+    }
+
+    public DSBitStoreService(String baseDir)
+    {
+        setBaseDir(baseDir);
+    }
+
+    public void setBaseDir(String baseDir)
+    {
+        this.baseDir = new File(baseDir);
+    }
+
+    public File getBaseDir()
+    {
+        return baseDir;
+    }
+
+    public void init() throws IOException
+    {
+        if (baseDir == null)
+        {
+            throw new IllegalStateException("No base directory configured for the asset store");
+        }
+        baseDir = baseDir.getCanonicalFile();
+        if (!baseDir.exists() && !baseDir.mkdirs())
+        {
+            throw new IOException("Asset store directory " + baseDir + " could not be created");
+        }
+    }
+
+    public void put(Bitstream bitstream, InputStream in) throws IOException
+    {
+        File file = getFile(bitstream);
+
+        MultiDigest digest = getDigest();
+        ReadableByteChannel source = Channels.newChannel(in);
+        FileOutputStream out = createFile(file);
+        FileChannel target = out.getChannel();
+        boolean stored = false;
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (source.read(buffer) != -1)
+            {
+                buffer.flip();
+                buffer.mark();
+                digest.update(buffer);
+                buffer.reset();
+                while (buffer.hasRemaining())
+                {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+            bitstream.setSizeBytes(target.position());
+            stored = true;
+        }
+        finally
+        {
+            out.close();
+            source.close();
+            if (!stored && !file.delete())
+            {
+                log.warn("Partially stored file " + file.getAbsolutePath() + " could not be deleted");
+            }
+        }
+
+        setChecksums(bitstream, digest.digest());
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Stored bitstream " + bitstream.getInternalId() + " in file " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Moves the spool file into place, which is a rename as uploads are spooled within the base directory
+     */
+    @Override
+    public void put(Bitstream bitstream, StagedBitstream staged) throws IOException
+    {
+        File file = getFile(bitstream);
+        if (!moveFile(staged.getFile(), file))
+        {
+            // e.g. the spool directory is on another file system
+            super.put(bitstream, staged);
+            return;
+        }
+        bitstream.setSizeBytes(staged.getSizeBytes());
+        setChecksums(bitstream, staged.getChecksums());
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Moved staged bitstream " + bitstream.getInternalId() + " to file " + file.getAbsolutePath());
+        }
+    }
+
+    public InputStream get(Bitstream bitstream) throws IOException
+    {
+        return Channels.newInputStream(openChannel(bitstream));
+    }
+
+    /**
+     * Opens the file channel itself, so the range can be transferred without copying it through user space
+     */
+    @Override
+    public BitStoreContent open(Bitstream bitstream, long offset, long length) throws IOException
+    {
+        FileChannel channel = openChannel(bitstream);
+        try
+        {
+            length = getRangeLength(channel.size(), offset, length);
+            channel.position(offset);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        catch (IllegalArgumentException e)
+        {
+            channel.close();
+            throw e;
+        }
+        return new BitStoreContent(channel, offset, length);
+    }
+
+    public void remove(Bitstream bitstream) throws IOException
+    {
+        File file = getFile(bitstream);
+        if (file.exists())
+        {
+            if (!file.delete())
+            {
+                throw new IOException("File " + file.getAbsolutePath() + " could not be deleted");
+            }
+            // registered files live in directories that aren't ours
+            if (!isRegisteredBitstream(bitstream.getInternalId()))
+            {
+                deleteParents(file);
+            }
+        }
+    }
+
+    public Map<String, Object> about(Bitstream bitstream, List<String> attributes) throws IOException
+    {
+        File file = getFile(bitstream);
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        Map<String, Object> about = new HashMap<String, Object>();
+        if (attributes.contains(SIZE_BYTES))
+        {
+            about.put(SIZE_BYTES, file.length());
+        }
+        if (attributes.contains(MODIFIED))
+        {
+            about.put(MODIFIED, file.lastModified());
+        }
+        if (attributes.contains(CHECKSUM) || attributes.contains(CHECKSUM_ALGORITHM) || attributes.contains(CHECKSUMS))
+        {
+            Map<String, String> checksums = digest(bitstream);
+            about.put(CHECKSUM, checksums.get(MultiDigest.DEFAULT_ALGORITHM));
+            about.put(CHECKSUM_ALGORITHM, MultiDigest.DEFAULT_ALGORITHM);
+            about.put(CHECKSUMS, checksums);
+        }
+        return about;
+    }
+
+    public BitStoreStat stat(Bitstream bitstream) throws IOException
+    {
+        File file = getFile(bitstream);
+        if (!file.exists())
+        {
+            return null;
+        }
+        return new BitStoreStat(file.length(), file.lastModified());
+    }
+
+    /**
+     * @param bitstream the bitstream
+     * @return a channel reading the bits of the bitstream
+     * @throws FileNotFoundException if the bits don't exist
+     */
+    protected FileChannel openChannel(Bitstream bitstream) throws IOException
+    {
+        return new RandomAccessFile(getFile(bitstream), "r").getChannel();
+    }
+
+    /**
+     * Compute the checksums of the configured algorithms over the bits of a bitstream, in one pass
+     */
+    protected Map<String, String> digest(Bitstream bitstream) throws IOException
+    {
+        MultiDigest digest = getDigest();
+        FileChannel channel = openChannel(bitstream);
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1)
+            {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        finally
+        {
+            channel.close();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Return the file corresponding to a bitstream.
+     *
+     * @param bitstream the bitstream
+     * @return The corresponding file in the file system
+     */
+    protected File getFile(Bitstream bitstream)
+    {
+        File file = new File(baseDir, getRelativePath(bitstream));
+        if (log.isDebugEnabled())
+        {
+            log.debug("Local filename for " + bitstream.getInternalId() + " is " + file.getPath());
+        }
+        return file;
+    }
+
+    /**
+     * Create a file, and its parent directories if necessary. The cleanup may remove an empty parent
+     * directory concurrently, in which case the directories are created again.
+     */
+    protected FileOutputStream createFile(File file) throws IOException
+    {
+        File parent = file.getParentFile();
+        for (int attempt = 0; ; attempt++)
+        {
+            if (!parent.exists())
+            {
+                parent.mkdirs();
+            }
+            try
+            {
+                return new FileOutputStream(file);
+            }
+            catch (FileNotFoundException e)
+            {
+                if (parent.exists() || attempt == 2)
+                {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the <code>spool</code> directory in the base directory, so staged uploads can be renamed
+     *         into place
+     */
+    @Override
+    protected File getSpoolDirectory()
+    {
+        return new File(baseDir, "spool");
+    }
+
+    /**
+     * Move a file by renaming it, creating the parent directories of the target if necessary. As in
+     * {@link #createFile}, a parent directory removed concurrently by the cleanup is created again.
+     *
+     * @return whether the file could be renamed
+     */
+    protected boolean moveFile(File source, File target)
+    {
+        File parent = target.getParentFile();
+        for (int attempt = 0; attempt < 3; attempt++)
+        {
+            if (!parent.exists())
+            {
+                parent.mkdirs();
+            }
+            if (source.renameTo(target))
+            {
+                return true;
+            }
+            if (parent.exists())
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delete empty parent directories. No locking is needed: deleting a directory fails when it isn't
+     * empty, e.g. because another thread removed a file from it or stored one in it in the meantime.
+     *
+     * @param file
+     *            The file with parent directories to delete
+     */
+    protected void deleteParents(File file)
+    {
+        File tmp = file;
+        for (int i = 0; i < directoryLevels; i++)
+        {
+            File directory = tmp.getParentFile();
+
+            // Only empty directories can be deleted
+            if (!directory.delete())
+            {
+                break;
+            }
+            tmp = directory;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Utils;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the checksums of several algorithms in a single pass over the bits, e.g. MD5, SHA-1 and
+ * SHA-256 at ingest, or all stored checksums of a bitstream during an audit.
+ */
+public class MultiDigest
+{
+    /** The algorithm of the checksum kept in the bitstream table itself, always computed */
+    public static final String DEFAULT_ALGORITHM = "MD5";
+
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<String, MessageDigest>();
+
+    /**
+     * @param algorithms the names of the algorithms, as known to {@link MessageDigest}
+     * @throws NoSuchAlgorithmException if one of the algorithms isn't provided by the system
+     */
+    public MultiDigest(Collection<String> algorithms) throws NoSuchAlgorithmException
+    {
+        for (String algorithm : algorithms)
+        {
+            if (!digests.containsKey(algorithm))
+            {
+                digests.put(algorithm, MessageDigest.getInstance(algorithm));
+            }
+        }
+    }
+
+    /**
+     * Digest the remaining bytes of the buffer with every algorithm. The position of the buffer is
+     * moved to its limit, like {@link MessageDigest#update(ByteBuffer)} does.
+     */
+    public void update(ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        for (MessageDigest digest : digests.values())
+        {
+            buffer.position(position);
+            digest.update(buffer);
+        }
+    }
+
+    public void update(byte[] bytes, int offset, int length)
+    {
+        for (MessageDigest digest : digests.values())
+        {
+            digest.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Complete the digests, after which the digester is reset
+     *
+     * @return the checksums as hex strings, by algorithm, in the order the algorithms were given
+     */
+    public Map<String, String> digest()
+    {
+        Map<String, String> checksums = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, MessageDigest> entry : digests.entrySet())
+        {
+            checksums.put(entry.getKey(), Utils.toHex(entry.getValue().digest()));
+        }
+        return checksums;
+    }
+
+    /**
+     * @return the algorithms to compute at ingest, configured by <code>checksum.algorithms</code>, always
+     *         starting with {@link #DEFAULT_ALGORITHM}
+     */
+    public static Set<String> getConfiguredAlgorithms()
+    {
+        Set<String> algorithms = new LinkedHashSet<String>();
+        algorithms.add(DEFAULT_ALGORITHM);
+        String configured = ConfigurationManager.getProperty("checksum.algorithms");
+        if (configured == null)
+        {
+            configured = "MD5, SHA-1, SHA-256";
+        }
+        for (String algorithm : configured.split(","))
+        {
+            if (algorithm.trim().length() > 0)
+            {
+                algorithms.add(algorithm.trim());
+            }
+        }
+        return algorithms;
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import edu.sdsc.grid.io.FileFactory;
+import edu.sdsc.grid.io.GeneralFile;
+import edu.sdsc.grid.io.GeneralFileOutputStream;
+import edu.sdsc.grid.io.srb.SRBAccount;
+import edu.sdsc.grid.io.srb.SRBFile;
+import edu.sdsc.grid.io.srb.SRBFileSystem;
+import org.apache.log4j.Logger;
+import org.dspace.content.Bitstream;
+import org.dspace.core.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store keeping the bits in an SRB (Storage Resource Broker - see http://www.sdsc.edu/srb/) collection.
+ * <P>
+ * Mods by David Little, UCSD Libraries 12/21/04 to allow the registration of
+ * files (bitstreams) into DSpace.
+ */
+public class SRBBitStoreService extends AbstractBitStoreService
+{
+    /** log4j log */
+    private static Logger log = Logger.getLogger(SRBBitStoreService.class);
+
+    /** Size of the buffer used to copy and digest the bits */
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    private SRBAccount account;
+
+    /** The SRB collection the bits are stored in, relative to the home directory of the account */
+    private String parentDir;
+
+    private SRBFile assetstore;
+
+    public SRBBitStoreService()
+    {
+    }
+
+    public SRBBitStoreService(SRBAccount account, String parentDir)
+    {
+        this.account = account;
+        this.parentDir = parentDir;
+    }
+
+    public void setAccount(SRBAccount account)
+    {
+        this.account = account;
+    }
+
+    public void setParentDir(String parentDir)
+    {
+        this.parentDir = parentDir;
+    }
+
+    public void init() throws IOException
+    {
+        if (account == null)
+        {
+            throw new IllegalStateException("No SRB account configured for the asset store");
+        }
+        if (parentDir == null)
+        {
+            throw new IllegalStateException("No srb.parentdir configured for the asset store");
+        }
+        assetstore = new SRBFile(new SRBFileSystem(account), parentDir);
+    }
+
+    public void put(Bitstream bitstream, InputStream in) throws IOException
+    {
+        GeneralFile file = getFile(bitstream);
+
+        // Make the parent dirs if necessary
+        GeneralFile parent = file.getParentFile();
+        if (!parent.exists())
+        {
+            parent.mkdirs();
+        }
+
+        //Create the corresponding file and open it
+        file.createNewFile();
+        GeneralFileOutputStream fos = FileFactory.newFileOutputStream(file);
+
+        // Digest the bits with all configured algorithms while copying them
+        MultiDigest digest = getDigest();
+        try
+        {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, count);
+                fos.write(buffer, 0, count);
+            }
+        }
+        finally
+        {
+            fos.close();
+            in.close();
+        }
+
+        bitstream.setSizeBytes(file.length());
+        setChecksums(bitstream, digest.digest());
+    }
+
+    public InputStream get(Bitstream bitstream) throws IOException
+    {
+        return FileFactory.newFileInputStream(getFile(bitstream));
+    }
+
+    public void remove(Bitstream bitstream) throws IOException
+    {
+        GeneralFile file = getFile(bitstream);
+        if (file.exists())
+        {
+            if (!file.delete())
+            {
+                throw new IOException("File " + file.getAbsolutePath() + " could not be deleted");
+            }
+            if (!isRegisteredBitstream(bitstream.getInternalId()))
+            {
+                deleteParents(file);
+            }
+        }
+    }
+
+    /**
+     * The checksum of SRB files is the MD5 of just their file name (!). Calculating an MD5 on the file
+     * itself would generate network traffic to read the file's bytes; a proxy process should rather
+     * calculate the MD5 and store it as an SRB metadata attribute so it can be retrieved simply from SRB.
+     */
+    public Map<String, Object> about(Bitstream bitstream, List<String> attributes) throws IOException
+    {
+        GeneralFile file = getFile(bitstream);
+        if (!file.exists())
+        {
+            log.error("File: " + file.getAbsolutePath() + " is not in SRB MCAT");
+            return null;
+        }
+
+        Map<String, Object> about = new HashMap<String, Object>();
+        if (attributes.contains(SIZE_BYTES))
+        {
+            about.put(SIZE_BYTES, file.length());
+        }
+        if (attributes.contains(MODIFIED))
+        {
+            about.put(MODIFIED, file.lastModified());
+        }
+        if (attributes.contains(CHECKSUM) || attributes.contains(CHECKSUM_ALGORITHM))
+        {
+            // FIXME this is a first class HACK! for the reasons described above
+            String path = getRelativePath(bitstream);
+            String sFilename = path.substring(path.lastIndexOf('/') + 1);
+            about.put(CHECKSUM, Utils.toHex(getMD5Digest().digest(sFilename.getBytes())));
+            about.put(CHECKSUM_ALGORITHM, "MD5");
+        }
+        return about;
+    }
+
+    public BitStoreStat stat(Bitstream bitstream) throws IOException
+    {
+        GeneralFile file = getFile(bitstream);
+        if (!file.exists())
+        {
+            return null;
+        }
+        return new BitStoreStat(file.length(), file.lastModified());
+    }
+
+    protected GeneralFile getFile(Bitstream bitstream)
+    {
+        String path = getRelativePath(bitstream);
+        if (log.isDebugEnabled())
+        {
+            log.debug("SRB filename for " + bitstream.getInternalId() + " is " + assetstore.toString() + path);
+        }
+        return new SRBFile(assetstore, path);
+    }
+
+    /**
+     * Delete empty parent collections.
+     */
+    protected synchronized void deleteParents(GeneralFile file)
+    {
+        GeneralFile tmp = file;
+        for (int i = 0; i < directoryLevels; i++)
+        {
+            GeneralFile directory = tmp.getParentFile();
+            GeneralFile[] files = directory.listFiles();
+
+            // Only delete empty directories
+            if (files == null || files.length != 0)
+            {
+                break;
+            }
+
+            directory.delete();
+            tmp = directory;
+        }
+    }
+
+    private static MessageDigest getMD5Digest() throws IOException
+    {
+        try
+        {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException("Invalid checksum algorithm", e);
+        }
+    }
+}
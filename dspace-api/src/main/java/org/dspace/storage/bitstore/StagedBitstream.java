@@ -0,0 +1,87 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * The bits of an upload spooled to a temporary file by {@link BitStoreService#stage}, together with their
+ * size and checksums, waiting to be moved into the store that staged them by
+ * {@link BitStoreService#put(org.dspace.content.Bitstream, StagedBitstream)}.
+ * <P>
+ * Staging doesn't touch the database, so the (possibly long) upload happens before any transaction is
+ * started. A staged bitstream that isn't stored must be discarded.
+ */
+public class StagedBitstream
+{
+    /** log4j log */
+    private static Logger log = Logger.getLogger(StagedBitstream.class);
+
+    private final File file;
+
+    private int storeNumber = -1;
+
+    private final long sizeBytes;
+
+    private final Map<String, String> checksums;
+
+    public StagedBitstream(File file, long sizeBytes, Map<String, String> checksums)
+    {
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.checksums = checksums;
+    }
+
+    /**
+     * @return the spool file, which no longer exists once the bits are stored or discarded
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return the number of the store that staged the bits, and that will store them
+     */
+    public int getStoreNumber()
+    {
+        return storeNumber;
+    }
+
+    void setStoreNumber(int storeNumber)
+    {
+        this.storeNumber = storeNumber;
+    }
+
+    public long getSizeBytes()
+    {
+        return sizeBytes;
+    }
+
+    /**
+     * @return the checksums computed while spooling the bits, by algorithm
+     */
+    public Map<String, String> getChecksums()
+    {
+        return checksums;
+    }
+
+    /**
+     * Remove the spool file, if the bits haven't been moved into the store
+     */
+    public void discard()
+    {
+        if (file.exists() && !file.delete())
+        {
+            log.warn("Spool file " + file.getAbsolutePath() + " could not be deleted");
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and throughput of the uploads staged by {@link BitstreamStorageManager#stage}.
+ * <P>
+ * The uploads in progress can be listed with the number of bytes received so far, the other figures are
+ * cumulative since startup: the number of completed and failed uploads, the bytes received by the
+ * completed ones and the time it took to receive them.
+ * <P>
+ * All figures are safe to read from any thread.
+ */
+public class UploadStatistics
+{
+    private final Set<Upload> active = Collections.newSetFromMap(new ConcurrentHashMap<Upload, Boolean>());
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+
+    UploadStatistics()
+    {
+    }
+
+    Upload started()
+    {
+        Upload upload = new Upload();
+        active.add(upload);
+        return upload;
+    }
+
+    void ended(Upload upload, boolean success)
+    {
+        upload.end();
+        active.remove(upload);
+        if (success)
+        {
+            completed.incrementAndGet();
+            totalBytes.addAndGet(upload.getBytes());
+            totalMillis.addAndGet(upload.getElapsedMillis());
+        }
+        else
+        {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return a snapshot of the uploads currently being staged
+     */
+    public List<Upload> getActiveUploads()
+    {
+        return new ArrayList<Upload>(active);
+    }
+
+    /**
+     * @return the number of bytes received so far by the uploads currently being staged
+     */
+    public long getBytesInProgress()
+    {
+        long bytes = 0;
+        for (Upload upload : active)
+        {
+            bytes += upload.getBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of uploads staged successfully
+     */
+    public long getCompletedCount()
+    {
+        return completed.get();
+    }
+
+    /**
+     * @return the number of uploads that failed while being staged
+     */
+    public long getFailedCount()
+    {
+        return failed.get();
+    }
+
+    /**
+     * @return the number of bytes received by the uploads staged successfully
+     */
+    public long getTotalBytes()
+    {
+        return totalBytes.get();
+    }
+
+    /**
+     * @return the average throughput of the uploads staged successfully, in bytes per second
+     */
+    public double getAverageBytesPerSecond()
+    {
+        long millis = totalMillis.get();
+        return millis == 0 ? 0 : totalBytes.get() * 1000d / millis;
+    }
+
+    public String toString()
+    {
+        return "active=" + active.size()
+                + ", bytesInProgress=" + getBytesInProgress()
+                + ", completed=" + getCompletedCount()
+                + ", failed=" + getFailedCount()
+                + ", totalBytes=" + getTotalBytes()
+                + ", averageBytesPerSecond=" + Math.round(getAverageBytesPerSecond());
+    }
+
+    /**
+     * The progress of a single upload
+     */
+    public static class Upload
+    {
+        private final long started = System.currentTimeMillis();
+
+        private volatile long ended = -1;
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        /**
+         * @return the number of bytes received so far
+         */
+        public long getBytes()
+        {
+            return bytes.get();
+        }
+
+        /**
+         * @return the time the upload started, in milliseconds since the epoch
+         */
+        public long getStarted()
+        {
+            return started;
+        }
+
+        /**
+         * @return the time the upload took, or has taken so far, in milliseconds
+         */
+        public long getElapsedMillis()
+        {
+            return (ended == -1 ? System.currentTimeMillis() : ended) - started;
+        }
+
+        /**
+         * @return the throughput of the upload so far, in bytes per second
+         */
+        public double getBytesPerSecond()
+        {
+            long millis = getElapsedMillis();
+            return millis == 0 ? 0 : getBytes() * 1000d / millis;
+        }
+
+        void end()
+        {
+            ended = System.currentTimeMillis();
+        }
+
+        /**
+         * @return a stream counting the bytes read from the given one as progress of this upload
+         */
+        InputStream track(InputStream in)
+        {
+            return new FilterInputStream(in)
+            {
+                @Override
+                public int read() throws IOException
+                {
+                    int b = super.read();
+                    if (b != -1)
+                    {
+                        bytes.incrementAndGet();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException
+                {
+                    int count = super.read(b, off, len);
+                    if (count > 0)
+                    {
+                        bytes.addAndGet(count);
+                    }
+                    return count;
+                }
+
+                @Override
+                public long skip(long n) throws IOException
+                {
+                    long count = super.skip(n);
+                    bytes.addAndGet(count);
+                    return count;
+                }
+            };
+        }
+    }
+}
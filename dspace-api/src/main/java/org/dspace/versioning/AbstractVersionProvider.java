@@ -14,7 +14,6 @@ import org.dspace.content.service.BundleService;
 import org.dspace.content.service.ItemService;
 import org.dspace.core.Context;
 import org.dspace.factory.DSpaceServiceFactory;
-import org.dspace.storage.bitstore.BitstreamStorageManager;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -74,8 +73,7 @@ public abstract class AbstractVersionProvider {
 
     protected Bitstream createBitstream(Context context, Bitstream nativeBitstream) throws AuthorizeException, SQLException {
         BitstreamService bitstreamService = DSpaceServiceFactory.getInstance().getBitstreamService();
-        int idNew = BitstreamStorageManager.clone(context, nativeBitstream.getID());
-        return bitstreamService.find(context, idNew);
+        return bitstreamService.clone(context, nativeBitstream);
     }
 
     public void setIgnoredMetadataFields(Set<String> ignoredMetadataFields) {
@@ -46,9 +46,8 @@ public class VersioningConsumer implements Consumer {
         }
 
         int st = event.getSubjectType();
-        int et = event.getEventType();
 
-        if(st == Constants.ITEM && et == Event.INSTALL){
+        if(st == Constants.ITEM && event.hasEventType(Event.INSTALL)){
             Item item = (Item) event.getSubject(ctx);
             if (item != null && item.isArchived()) {
                 VersionHistory history = retrieveVersionHistory(ctx, item);
@@ -19,7 +19,7 @@ public class WorkflowItem implements InProgressSubmission {
     @Id
     @Column(name = "workflow_id", unique = true, nullable = false)
     @GeneratedValue(strategy = GenerationType.AUTO ,generator="workflowitem_seq")
-    @SequenceGenerator(name="workflowitem_seq", sequenceName="workflowitem_seq")
+    @SequenceGenerator(name="workflowitem_seq", sequenceName="workflowitem_seq", allocationSize = 1)
     private int workflowitemId;
 
     /** The item this workflowitem object pertains to */
@@ -0,0 +1,118 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Community;
+import org.dspace.core.Constants;
+import org.dspace.eperson.Group;
+import org.dspace.hibernate.SQLStatementCounter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the per context cache of authorization decisions
+ */
+public class AuthorizationCacheTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(AuthorizationCacheTest.class);
+
+    private Community community;
+    private Group group;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            group = groupService.create(context);
+            group.setName("community editors");
+            groupService.update(context, group);
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        Community found = communityService.find(context, community.getID());
+        if (found != null)
+        {
+            communityService.delete(context, found);
+        }
+        groupService.delete(context, groupService.find(context, group.getID()));
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    /**
+     * A repeated check is answered without touching the database
+     */
+    @Test
+    public void testRepeatedCheck() throws Exception
+    {
+        assertThat("testRepeatedCheck 0", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(false));
+
+        SQLStatementCounter counter = new SQLStatementCounter(context);
+        assertThat("testRepeatedCheck 1", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(false));
+        assertThat("testRepeatedCheck 2", AuthorizeManager.isAdmin(context, community), equalTo(false));
+        assertThat("testRepeatedCheck 3", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(false));
+        assertThat("testRepeatedCheck 4", counter.getCount(), equalTo(0L));
+    }
+
+    /**
+     * Adding a policy invalidates the cached decisions
+     */
+    @Test
+    public void testPolicyChange() throws Exception
+    {
+        assertThat("testPolicyChange 0", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(false));
+
+        context.turnOffAuthorisationSystem();
+        AuthorizeManager.addPolicy(context, community, Constants.WRITE, eperson);
+        context.restoreAuthSystemState();
+
+        assertThat("testPolicyChange 1", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(true));
+    }
+
+    /**
+     * Joining a group invalidates the cached decisions
+     */
+    @Test
+    public void testMembershipChange() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        AuthorizeManager.addPolicy(context, community, Constants.WRITE, group);
+        context.restoreAuthSystemState();
+        assertThat("testMembershipChange 0", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(false));
+
+        groupService.addMember(context, group, eperson);
+
+        assertThat("testMembershipChange 1", AuthorizeManager.authorizeActionBoolean(context, community, Constants.WRITE), equalTo(true));
+        assertThat("testMembershipChange 2", groupService.allMemberGroupIDs(context, eperson).contains(group.getID()), equalTo(true));
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the rate limit of the checksum checker
+ */
+public class BandwidthThrottleTest
+{
+    /**
+     * Reading 3 MB at 10 MB/s takes at least 0.2 seconds, the first megabyte passes right away
+     */
+    @Test
+    public void testRate() throws Exception
+    {
+        BandwidthThrottle throttle = new BandwidthThrottle(10);
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++)
+        {
+            throttle.acquire(1024 * 1024);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+        assertTrue("testRate 0", elapsedMillis >= 190);
+        assertTrue("testRate 1", elapsedMillis < 2000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoRate() throws Exception
+    {
+        new BandwidthThrottle(0);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.checker.service.MostRecentChecksumService;
+import org.dspace.content.Bitstream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for claiming bitstreams to check in batches
+ */
+public class BatchDispatcherTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(BatchDispatcherTest.class);
+
+    private MostRecentChecksumService checksumService = serviceFactory.getMostRecentChecksumService();
+
+    private List<Bitstream> bitstreams = new ArrayList<Bitstream>();
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            File f = new File(testProps.get("test.bitstream").toString());
+            for (int i = 0; i < 3; i++)
+            {
+                bitstreams.add(bitstreamService.create(context, new FileInputStream(f)));
+            }
+            checksumService.updateMissingBitstreams(context);
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (Bitstream bitstream : bitstreams)
+        {
+            bitstreamService.delete(context, bitstreamService.find(context, bitstream.getID()));
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    @Test
+    public void testBatches() throws Exception
+    {
+        assertDispatchedOnce("testBatches", new BatchDispatcher(context, null, false, 2, false));
+    }
+
+    @Test
+    public void testPrefetch() throws Exception
+    {
+        BatchDispatcher dispatcher = new BatchDispatcher(context, null, false, 2, true);
+        try
+        {
+            assertDispatchedOnce("testPrefetch", dispatcher);
+        }
+        finally
+        {
+            dispatcher.close();
+        }
+    }
+
+    /**
+     * Checking a record moves it to the end of the table, the default
+     * dispatcher must not hand it out again in the same pass
+     */
+    @Test
+    public void testSinglePass() throws Exception
+    {
+        // the records of init must be older than the start of the pass
+        Thread.sleep(10);
+        BatchDispatcher dispatcher = new BatchDispatcher();
+        try
+        {
+            List<Integer> dispatched = new ArrayList<Integer>();
+            Bitstream bitstream = dispatcher.next();
+            while (bitstream != null)
+            {
+                assertThat("testSinglePass 0", dispatched.contains(bitstream.getID()), equalTo(false));
+                dispatched.add(bitstream.getID());
+
+                // what checking the bitstream does to its record
+                MostRecentChecksum record = checksumService.findByBitstream(context,
+                        bitstreamService.find(context, bitstream.getID()));
+                Date now = new Date();
+                record.setProcessStartDate(now);
+                record.setProcessEndDate(now);
+                checksumService.update(context, record);
+                context.commit();
+
+                bitstream = dispatcher.next();
+            }
+
+            for (Bitstream created : bitstreams)
+            {
+                assertThat("testSinglePass 1", dispatched.contains(created.getID()), equalTo(true));
+            }
+            assertThat("testSinglePass 2", dispatcher.next() == null, equalTo(true));
+        }
+        finally
+        {
+            dispatcher.close();
+        }
+    }
+
+    /**
+     * Every bitstream is handed out exactly once, the dispatcher returning null at the end
+     */
+    private void assertDispatchedOnce(String test, BitstreamDispatcher dispatcher) throws Exception
+    {
+        List<Integer> dispatched = new ArrayList<Integer>();
+        Bitstream bitstream = dispatcher.next();
+        while (bitstream != null)
+        {
+            dispatched.add(bitstream.getID());
+            bitstream = dispatcher.next();
+        }
+
+        assertThat(test + " 0", new HashSet<Integer>(dispatched).size(), equalTo(dispatched.size()));
+        for (Bitstream created : bitstreams)
+        {
+            assertThat(test + " 1", dispatched.contains(created.getID()), equalTo(true));
+        }
+        assertThat(test + " 2", dispatcher.next() == null, equalTo(true));
+    }
+}
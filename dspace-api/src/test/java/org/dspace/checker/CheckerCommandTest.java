@@ -0,0 +1,124 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.checker.service.MostRecentChecksumService;
+import org.dspace.content.Bitstream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for checking bitstreams with several workers
+ */
+public class CheckerCommandTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(CheckerCommandTest.class);
+
+    private MostRecentChecksumService checksumService = serviceFactory.getMostRecentChecksumService();
+
+    private List<Bitstream> bitstreams = new ArrayList<Bitstream>();
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            File f = new File(testProps.get("test.bitstream").toString());
+            for (int i = 0; i < 5; i++)
+            {
+                bitstreams.add(bitstreamService.create(context, new FileInputStream(f)));
+            }
+            checksumService.updateMissingBitstreams(context);
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (Bitstream bitstream : bitstreams)
+        {
+            bitstreamService.delete(context, bitstreamService.find(context, bitstream.getID()));
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    /**
+     * The workers share the dispatcher, every bitstream is checked by exactly one of them
+     */
+    @Test
+    public void testWorkers() throws Exception
+    {
+        final Map<Integer, Integer> checked = new HashMap<Integer, Integer>();
+        CheckerCommand checker = new CheckerCommand(context);
+        checker.setThreads(3);
+        checker.setReportVerbose(true);
+        checker.setCollector(new ChecksumResultsCollector()
+        {
+            public void collect(MostRecentChecksum info)
+            {
+                int id = info.getBitstream().getID();
+                checked.put(id, checked.containsKey(id) ? checked.get(id) + 1 : 1);
+            }
+        });
+        // a batch per bitstream, so the workers take turns at claiming
+        checker.setDispatcher(new BatchDispatcher(context, null, false, 1, true));
+
+        context.turnOffAuthorisationSystem();
+        checker.process();
+        context.restoreAuthSystemState();
+
+        for (Bitstream bitstream : bitstreams)
+        {
+            assertThat("testWorkers 0 " + bitstream.getID(), checked.get(bitstream.getID()), equalTo(1));
+        }
+        for (Map.Entry<Integer, Integer> entry : checked.entrySet())
+        {
+            assertThat("testWorkers 1 " + entry.getKey(), entry.getValue(), equalTo(1));
+        }
+    }
+
+    /**
+     * A dispatcher handing out the oldest record can't be shared by several workers
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testWorkersSimpleDispatcher() throws Exception
+    {
+        CheckerCommand checker = new CheckerCommand(context);
+        checker.setThreads(2);
+        checker.setDispatcher(new SimpleDispatcher(context, null, false));
+        checker.process();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the progress and throughput figures of the checksum checker
+ */
+public class CheckerStatisticsTest
+{
+    @Test
+    public void testCounters() throws Exception
+    {
+        CheckerStatistics statistics = new CheckerStatistics();
+        statistics.setExpectedCount(10);
+        statistics.read(1000, 3000000);
+        statistics.digested(2000000);
+        statistics.checked(0, 20, ChecksumResultCode.CHECKSUM_MATCH);
+        statistics.checked(1, 700, ChecksumResultCode.CHECKSUM_NO_MATCH);
+        statistics.checked(ChecksumResultCode.BITSTREAM_MARKED_DELETED);
+
+        assertThat("testCounters 0", statistics.getCheckedCount(), equalTo(3L));
+        assertThat("testCounters 1", statistics.getBytesRead(), equalTo(1000L));
+        assertThat("testCounters 2", statistics.getReadMillis(), equalTo(3L));
+        assertThat("testCounters 3", statistics.getDigestMillis(), equalTo(2L));
+        assertThat("testCounters 4", statistics.getRemainingCount(), equalTo(7L));
+        assertThat("testCounters 5", statistics.getResultCount(ChecksumResultCode.CHECKSUM_NO_MATCH), equalTo(1L));
+        assertThat("testCounters 6", statistics.getResultCounts().get("CHECKSUM_MATCH"), equalTo(1L));
+        assertThat("testCounters 7", statistics.getAverageMillisByStore().get("1"), equalTo(700.0));
+
+        long[] histogram = statistics.getLatencyHistogram();
+        assertThat("testCounters 8", histogram[1], equalTo(1L));
+        assertThat("testCounters 9", histogram[4], equalTo(1L));
+    }
+
+    @Test
+    public void testEstimate() throws Exception
+    {
+        CheckerStatistics statistics = new CheckerStatistics();
+        assertThat("testEstimate 0", statistics.getEstimatedMillisRemaining(), equalTo(-1L));
+
+        statistics.setExpectedCount(2);
+        Thread.sleep(10);
+        statistics.checked(0, 10, ChecksumResultCode.CHECKSUM_MATCH);
+        assertTrue("testEstimate 1", statistics.getEstimatedMillisRemaining() > 0);
+    }
+
+    @Test
+    public void testRegister() throws Exception
+    {
+        CheckerStatistics statistics = new CheckerStatistics();
+        statistics.checked(ChecksumResultCode.CHECKSUM_MATCH);
+        statistics.register();
+        try
+        {
+            Object count = ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(CheckerStatistics.OBJECT_NAME), "CheckedCount");
+            assertThat("testRegister 0", (Long) count, equalTo(1L));
+        }
+        finally
+        {
+            statistics.unregister();
+        }
+        assertThat("testRegister 1", ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName(CheckerStatistics.OBJECT_NAME)), equalTo(false));
+    }
+}
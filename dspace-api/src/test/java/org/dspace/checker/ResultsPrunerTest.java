@@ -0,0 +1,88 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.checker.service.ChecksumResultService;
+import org.hibernate.criterion.Restrictions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for pruning the checksum history in chunks
+ */
+public class ResultsPrunerTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(ResultsPrunerTest.class);
+
+    /** A bitstream id no real bitstream has, to tell the records of this test apart */
+    private static final int BITSTREAM_ID = -4711;
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private ChecksumResultService checksumResultService = serviceFactory.getChecksumResultService();
+
+    /**
+     * Creates five expired and two recent records with a matching checksum
+     */
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < 7; i++)
+            {
+                addHistory(new Date(now - (i < 5 ? 10 * DAY : 0)));
+            }
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrune() throws Exception
+    {
+        ResultsPruner pruner = new ResultsPruner(context);
+        pruner.addInterested(ChecksumResultCode.CHECKSUM_MATCH, DAY);
+        pruner.setBatchSize(2);
+
+        assertThat("testPrune 0", pruner.prune(), equalTo(5));
+        assertThat("testPrune 1", pruner.getPrunedCount(), equalTo(5));
+        assertTrue("testPrune 2", pruner.getRowsPerSecond() > 0);
+        assertThat("testPrune 3", context.getDBConnection().createCriteria(ChecksumHistory.class)
+                .add(Restrictions.eq("bitstreamId", BITSTREAM_ID)).list().size(), equalTo(2));
+    }
+
+    private void addHistory(Date processEndDate) throws Exception
+    {
+        ChecksumHistory history = new ChecksumHistory();
+        history.setBitstreamId(BITSTREAM_ID);
+        history.setProcessStartDate(processEndDate);
+        history.setProcessEndDate(processEndDate);
+        history.setChecksumExpected("expected");
+        history.setChecksumCalculated("expected");
+        history.setChecksumResult(checksumResultService.findByCode(context, ChecksumResultCode.CHECKSUM_MATCH));
+        context.getDBConnection().save(history);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Community;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for the bulk ingest mode of the context
+ */
+public class ContextTest extends AbstractUnitTest
+{
+    /**
+     * A checkpoint flushes and clears the session once it holds the batch size,
+     * keeping the events for the next commit
+     */
+    @Test
+    public void testBulkIngestCheckpoint() throws Exception
+    {
+        Session session = context.getDBConnection();
+        context.turnOffAuthorisationSystem();
+
+        // not in bulk ingest mode, a checkpoint does nothing
+        Community community = communityService.create(context, null);
+        context.bulkIngestCheckpoint();
+        assertThat("testBulkIngestCheckpoint 0", session.contains(community), equalTo(true));
+
+        // below the batch size
+        context.enableBulkIngest(Integer.MAX_VALUE);
+        assertThat("testBulkIngestCheckpoint 1", context.isBulkIngest(), equalTo(true));
+        assertThat("testBulkIngestCheckpoint 2", session.getCacheMode(), equalTo(CacheMode.IGNORE));
+        context.bulkIngestCheckpoint();
+        assertThat("testBulkIngestCheckpoint 3", session.contains(community), equalTo(true));
+
+        int events = context.getEvents().size();
+        context.enableBulkIngest(1);
+        Community created = communityService.create(context, null);
+        context.bulkIngestCheckpoint();
+        assertThat("testBulkIngestCheckpoint 4", session.contains(community), equalTo(false));
+        assertThat("testBulkIngestCheckpoint 5", session.contains(created), equalTo(false));
+        assertThat("testBulkIngestCheckpoint 6", session.contains(context.getCurrentUser()), equalTo(true));
+
+        // flushed, the cleared session reads it back from the database
+        Community found = communityService.find(context, created.getID());
+        assertThat("testBulkIngestCheckpoint 7", found != null, equalTo(true));
+        assertThat("testBulkIngestCheckpoint 8", found != created, equalTo(true));
+
+        // not dispatched per object, the events wait for the commit
+        assertThat("testBulkIngestCheckpoint 9", context.getEvents().size() > events, equalTo(true));
+        assertThat("testBulkIngestCheckpoint 10", session.getCacheMode(), equalTo(CacheMode.IGNORE));
+
+        context.disableBulkIngest();
+        assertThat("testBulkIngestCheckpoint 11", context.isBulkIngest(), equalTo(false));
+        assertThat("testBulkIngestCheckpoint 12", session.getCacheMode(), equalTo(CacheMode.NORMAL));
+        context.restoreAuthSystemState();
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.dao;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Bundle;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.core.Context;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for streaming entities from a cursor in chunks
+ */
+public class ScrollableResultsIteratorTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(ScrollableResultsIteratorTest.class);
+
+    private static final int ITEMS = 5;
+
+    private static final int CHUNK_SIZE = 2;
+
+    private Community community;
+    private Collection collection;
+    private List<Item> items = new ArrayList<Item>();
+    private List<Bundle> bundles = new ArrayList<Bundle>();
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            for (int i = 0; i < ITEMS; i++)
+            {
+                WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+                Item item = installItemService.installItem(context, workspaceItem);
+                bundles.add(itemService.createBundle(context, item, "ORIGINAL"));
+                items.add(item);
+            }
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (Item item : items)
+        {
+            Item found = itemService.find(context, item.getID());
+            if (found != null)
+            {
+                itemService.delete(context, found);
+            }
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    /**
+     * Only the current chunk is attached to the session, entities the caller
+     * held before stay attached even when the eviction cascades to them.
+     */
+    @Test
+    public void testChunks() throws Exception
+    {
+        Session session = context.getDBConnection();
+        session.clear();
+        Bundle held = bundleService.find(context, bundles.get(CHUNK_SIZE).getID());
+
+        List<Item> read = new ArrayList<Item>();
+        ScrollableResultsIterator<Item> iterator = iterate(context);
+        while (iterator.hasNext())
+        {
+            Item item = iterator.next();
+            // initialise the bundles, evicting the item detaches them too
+            item.getBundles().size();
+            if (read.size() == CHUNK_SIZE)
+            {
+                assertFalse("testChunks 0", session.contains(read.get(0)));
+                assertFalse("testChunks 1", session.contains(read.get(CHUNK_SIZE - 1)));
+                assertTrue("testChunks 2", session.contains(item));
+            }
+            read.add(item);
+        }
+
+        assertThat("testChunks 3", read.size(), equalTo(ITEMS));
+        assertThat("testChunks 4", read.get(CHUNK_SIZE).getBundles().get(0), equalTo(held));
+        assertFalse("testChunks 5", session.contains(read.get(CHUNK_SIZE)));
+        assertTrue("testChunks 6", session.contains(held));
+    }
+
+    /**
+     * The changes made to the entities of a chunk are written before the
+     * chunk is evicted.
+     */
+    @Test
+    public void testFlush() throws Exception
+    {
+        context.getDBConnection().clear();
+        ScrollableResultsIterator<Item> iterator = iterate(context);
+        Item first = iterator.next();
+        boolean archived = first.isArchived();
+        first.setInArchive(!archived);
+        while (iterator.hasNext())
+        {
+            iterator.next();
+        }
+
+        context.getDBConnection().clear();
+        assertThat("testFlush 0", itemService.find(context, first.getID()).isArchived(), equalTo(!archived));
+    }
+
+    /**
+     * An iterator abandoned before it's exhausted is closed explicitly, or
+     * with its context.
+     */
+    @Test
+    public void testClose() throws Exception
+    {
+        ScrollableResultsIterator<Item> iterator = iterate(context);
+        iterator.next();
+        iterator.close();
+        assertFalse("testClose 0", iterator.hasNext());
+
+        Context other = new Context();
+        iterator = iterate(other);
+        iterator.next();
+        other.abort();
+        assertFalse("testClose 1", iterator.hasNext());
+    }
+
+    private ScrollableResultsIterator<Item> iterate(Context ctx) throws Exception
+    {
+        Query query = ctx.getDBConnection().createQuery(
+                "from Item i where i.owningCollection = :collection order by i.id");
+        query.setParameter("collection", collection);
+        return new ScrollableResultsIterator<Item>(ctx, query, 10, CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import mockit.Mocked;
+import mockit.Verifications;
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for sending the changes of a transaction to the index in batches
+ */
+public class IndexEventConsumerTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(IndexEventConsumerTest.class);
+
+    private static final int ITEMS = 3;
+
+    @Mocked
+    private IndexingService indexingService;
+
+    private Community community;
+    private Collection collection;
+    private List<Item> items = new ArrayList<Item>();
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            for (int i = 0; i < ITEMS; i++)
+            {
+                WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+                items.add(installItemService.installItem(context, workspaceItem));
+            }
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (Item item : items)
+        {
+            Item found = itemService.find(context, item.getID());
+            if (found != null)
+            {
+                itemService.delete(context, found);
+            }
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    /**
+     * The objects changed in a transaction are indexed with one call, and the
+     * deleted ones removed with another, rather than one call per object.
+     */
+    @Test
+    public void testBatch() throws Exception
+    {
+        IndexEventConsumer consumer = new IndexEventConsumer();
+        consumer.indexer = indexingService;
+
+        for (Item item : items)
+        {
+            consumer.consume(context, new Event(Event.MODIFY, Constants.ITEM, item.getID(), null));
+            consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, item.getID(), null));
+        }
+        consumer.consume(context, new Event(Event.DELETE, Constants.ITEM, Integer.MAX_VALUE, "123456789/deleted1"));
+        consumer.consume(context, new Event(Event.DELETE, Constants.ITEM, Integer.MAX_VALUE - 1, "123456789/deleted2"));
+        consumer.end(context);
+
+        new Verifications()
+        {
+            {
+                indexingService.indexContent((Context) any, (java.util.Collection<DSpaceObject>) any); times = 1;
+                indexingService.unIndexContent((Context) any, (java.util.Collection<String>) any); times = 1;
+                indexingService.indexContent((Context) any, (DSpaceObject) any, anyBoolean); times = 0;
+                indexingService.unIndexContent((Context) any, anyString, anyBoolean); times = 0;
+                indexingService.commit(); times = 1;
+            }
+        };
+    }
+}
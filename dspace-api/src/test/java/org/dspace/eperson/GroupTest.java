@@ -0,0 +1,150 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for nested group membership, answered from the group2groupcache closure
+ */
+public class GroupTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(GroupTest.class);
+
+    private Group faculty;
+    private Group department;
+    private Group reviewers;
+
+    /**
+     * Builds faculty > department > reviewers, with the current user a member of reviewers only
+     */
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            faculty = createGroup("faculty");
+            department = createGroup("department");
+            reviewers = createGroup("reviewers");
+            groupService.addMember(context, faculty, department);
+            groupService.addMember(context, department, reviewers);
+            groupService.addMember(context, reviewers, eperson);
+            groupService.update(context, faculty);
+            groupService.update(context, department);
+            groupService.update(context, reviewers);
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (Group group : new Group[]{faculty, department, reviewers})
+        {
+            Group found = groupService.find(context, group.getID());
+            if (found != null)
+            {
+                groupService.delete(context, found);
+            }
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    @Test
+    public void testNestedMembership() throws Exception
+    {
+        assertThat("testNestedMembership 0", groupService.isMember(context, reviewers), equalTo(true));
+        assertThat("testNestedMembership 1", groupService.isMember(context, department), equalTo(true));
+        assertThat("testNestedMembership 2", groupService.isMember(context, faculty), equalTo(true));
+        assertThat("testNestedMembership 3", groupService.isMember(context, 0), equalTo(true));
+
+        Set<Integer> groupIDs = groupService.allMemberGroupIDs(context, eperson);
+        assertThat("testNestedMembership 4", groupIDs.contains(faculty.getID()), equalTo(true));
+        assertThat("testNestedMembership 5", groupIDs.contains(department.getID()), equalTo(true));
+        assertThat("testNestedMembership 6", groupIDs.contains(reviewers.getID()), equalTo(true));
+    }
+
+    @Test
+    public void testRemoveMember() throws Exception
+    {
+        groupService.removeMember(context, department, reviewers);
+        context.commit();
+
+        assertThat("testRemoveMember 0", groupService.isMember(context, reviewers), equalTo(true));
+        assertThat("testRemoveMember 1", groupService.isMember(context, department), equalTo(false));
+        assertThat("testRemoveMember 2", groupService.isMember(context, faculty), equalTo(false));
+    }
+
+    /**
+     * A membership reachable through another path survives the removal
+     */
+    @Test
+    public void testRemoveMemberOtherPath() throws Exception
+    {
+        groupService.addMember(context, faculty, reviewers);
+        groupService.removeMember(context, department, reviewers);
+        context.commit();
+
+        assertThat("testRemoveMemberOtherPath 0", groupService.isMember(context, department), equalTo(false));
+        assertThat("testRemoveMemberOtherPath 1", groupService.isMember(context, faculty), equalTo(true));
+    }
+
+    @Test
+    public void testDelete() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        groupService.delete(context, department);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        assertThat("testDelete 0", groupService.isMember(context, reviewers), equalTo(true));
+        assertThat("testDelete 1", groupService.isMember(context, faculty), equalTo(false));
+    }
+
+    /**
+     * A group can't become a member of one of its own members
+     */
+    @Test
+    public void testAddMemberCycle() throws Exception
+    {
+        groupService.addMember(context, reviewers, faculty);
+        context.commit();
+
+        assertThat("testAddMemberCycle 0", groupService.isMember(reviewers, faculty), equalTo(false));
+    }
+
+    private Group createGroup(String name) throws Exception
+    {
+        Group group = groupService.create(context);
+        group.setName(name);
+        return group;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import org.dspace.core.Constants;
+import org.junit.Test;
+
+import java.util.LinkedList;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for coalescing the events of a transaction
+ */
+public class EventCoalescerTest
+{
+    @Test
+    public void testMerge() throws Exception
+    {
+        LinkedList<Event> events = new LinkedList<Event>();
+        events.add(new Event(Event.MODIFY_METADATA, Constants.ITEM, 1, "dc.title, dc.date.issued"));
+        events.add(new Event(Event.MODIFY, Constants.ITEM, 1, null));
+        events.add(new Event(Event.MODIFY_METADATA, Constants.ITEM, 1, "dc.title, dc.subject"));
+        events.add(new Event(Event.MODIFY_METADATA, Constants.ITEM, 2, null));
+        events.add(new Event(Event.MODIFY, Constants.ITEM, 1, null));
+
+        EventCoalescer coalescer = new EventCoalescer();
+        assertThat("testMerge 0", coalescer.coalesce(events), equalTo(1));
+        assertThat("testMerge 1", events.size(), equalTo(4));
+
+        Event merged = events.getFirst();
+        assertThat("testMerge 2", merged.getSubjectID(), equalTo(1));
+        assertThat("testMerge 3", merged.getEventType(), equalTo(Event.MODIFY | Event.MODIFY_METADATA));
+        assertTrue("testMerge 4", merged.hasEventType(Event.MODIFY));
+        assertThat("testMerge 5", merged.getDetail(), equalTo("dc.title, dc.date.issued"));
+        assertThat("testMerge 6", merged.getEventTypeAsString(), equalTo("MODIFY|MODIFY_METADATA"));
+
+        // a different detail stays a separate event
+        assertThat("testMerge 7", events.get(1).getDetail(), equalTo("dc.title, dc.subject"));
+
+        // not merged past the event of another subject
+        assertThat("testMerge 8", events.get(2).getSubjectID(), equalTo(2));
+        assertThat("testMerge 9", events.getLast().getSubjectID(), equalTo(1));
+        assertThat("testMerge 10", events.getLast().getEventType(), equalTo(Event.MODIFY));
+        assertThat("testMerge 11", coalescer.getReceivedCount(), equalTo(5L));
+        assertThat("testMerge 12", coalescer.getCollapsedCount(), equalTo(1L));
+    }
+
+    @Test
+    public void testKeep() throws Exception
+    {
+        LinkedList<Event> events = new LinkedList<Event>();
+        events.add(new Event(Event.ADD, Constants.COLLECTION, 1, Constants.ITEM, 2, null));
+        events.add(new Event(Event.ADD, Constants.COLLECTION, 1, Constants.ITEM, 2, null));
+        events.add(new Event(Event.ADD, Constants.COLLECTION, 1, Constants.ITEM, 3, null));
+        events.add(new Event(Event.ADD, Constants.COLLECTION, 1, Constants.ITEM, 2, null));
+        events.add(new Event(Event.MODIFY, Constants.ITEM, 2, null));
+        events.add(new Event(Event.DELETE, Constants.ITEM, 2, "123456789/2"));
+        events.add(new Event(Event.MODIFY, Constants.ITEM, 2, null));
+
+        EventCoalescer coalescer = new EventCoalescer();
+        assertThat("testKeep 0", coalescer.coalesce(events), equalTo(1));
+        assertThat("testKeep 1", events.size(), equalTo(6));
+        assertThat("testKeep 2", events.get(1).getObjectID(), equalTo(3));
+
+        // a repetition after another event is kept
+        assertThat("testKeep 3", events.get(2).getObjectID(), equalTo(2));
+
+        // the modify after the delete isn't moved before it
+        assertThat("testKeep 4", events.get(4).getEventType(), equalTo(Event.DELETE));
+        assertThat("testKeep 5", events.getLast().getEventType(), equalTo(Event.MODIFY));
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import org.apache.log4j.Logger;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.dspace.core.Constants;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares the throughput of matching events against the filters of a
+ * consumer compiled into one mask with the way the dispatchers used to match
+ * them, kept here as {@link ReferenceEvent}. The contiperf report has the
+ * throughput of either; the time per event is logged.
+ */
+public class EventFilterPerformanceTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(EventFilterPerformanceTest.class);
+
+    /** Events matched per invocation */
+    private static final int EVENTS = 10000;
+
+    private static final int INVOCATIONS = 500;
+
+    @Rule
+    public ContiPerfRule rule = new ContiPerfRule();
+
+    private static List<int[]> filters = new ArrayList<int[]>();
+
+    private static long filterMask;
+
+    private static Event[] events = new Event[EVENTS];
+
+    private static ReferenceEvent[] referenceEvents = new ReferenceEvent[EVENTS];
+
+    private static final AtomicLong maskNanos = new AtomicLong();
+
+    private static final AtomicLong listNanos = new AtomicLong();
+
+    private static final AtomicInteger maskPassed = new AtomicInteger(-1);
+
+    private static final AtomicInteger listPassed = new AtomicInteger(-1);
+
+    /**
+     * The filters of the discovery and eperson consumers, and events of
+     * random types
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+        filters.add(new int[] { Event.parseObjectType("Community") | Event.parseObjectType("Collection")
+                | Event.parseObjectType("Item") | Event.parseObjectType("Bundle"),
+                Event.ADD | Event.CREATE | Event.MODIFY | Event.MODIFY_METADATA | Event.DELETE | Event.REMOVE });
+        filters.add(new int[] { Event.parseObjectType("EPerson"), Event.CREATE });
+        filterMask = Event.compileFilters(filters);
+
+        Random random = new Random(42);
+        int eventTypes = Integer.numberOfTrailingZeros(Event.INSTALL) + 1;
+        for (int i = 0; i < EVENTS; i++)
+        {
+            int eventType = 1 << random.nextInt(eventTypes);
+            int subjectType = random.nextInt(Constants.typeText.length);
+            events[i] = new Event(eventType, subjectType, i, null);
+            referenceEvents[i] = new ReferenceEvent(eventType, subjectType);
+        }
+    }
+
+    @Test
+    @PerfTest(invocations = INVOCATIONS, warmUp = 1000)
+    public void testCompiledMask()
+    {
+        long start = System.nanoTime();
+        int passed = 0;
+        for (Event event : events)
+        {
+            if (event.pass(filterMask))
+            {
+                passed++;
+            }
+        }
+        maskNanos.addAndGet(System.nanoTime() - start);
+        maskPassed.set(passed);
+    }
+
+    @Test
+    @PerfTest(invocations = INVOCATIONS, warmUp = 1000)
+    public void testFilterList()
+    {
+        long start = System.nanoTime();
+        int passed = 0;
+        for (ReferenceEvent event : referenceEvents)
+        {
+            if (event.pass(filters))
+            {
+                passed++;
+            }
+        }
+        listNanos.addAndGet(System.nanoTime() - start);
+        listPassed.set(passed);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        // both ways let the same events through
+        if (maskPassed.get() >= 0 && listPassed.get() >= 0)
+        {
+            assertThat("tearDownClass 0", maskPassed.get(), equalTo(listPassed.get()));
+        }
+
+        // includes the invocations during the warm up, unlike the contiperf report
+        log.info("Matching an event against the filters: compiled mask "
+                + String.format("%.2f", (double) maskNanos.get() / EVENTS / INVOCATIONS) + " ns, reference "
+                + String.format("%.2f", (double) listNanos.get() / EVENTS / INVOCATIONS) + " ns (upper bounds)");
+    }
+
+    /**
+     * The fields and filter matching of an event before the filters were
+     * compiled: the subject type mask looked up in a map of boxed integers,
+     * and every filter of the list tested for every event.
+     */
+    private static class ReferenceEvent
+    {
+        private static Map<Integer, Integer> objTypeToMask = new HashMap<Integer, Integer>();
+        static
+        {
+            for (int type = 0; type < Constants.typeText.length; type++)
+            {
+                objTypeToMask.put(type, 1 << type);
+            }
+        }
+
+        private int eventType;
+
+        private int subjectType;
+
+        ReferenceEvent(int eventType, int subjectType)
+        {
+            this.eventType = eventType;
+            this.subjectType = coreTypeToMask(subjectType);
+        }
+
+        private static int coreTypeToMask(int core)
+        {
+            Integer mask = objTypeToMask.get(core);
+            if (mask == null)
+            {
+                return -1;
+            }
+            else
+            {
+                return mask.intValue();
+            }
+        }
+
+        boolean pass(List<int[]> filters)
+        {
+            boolean result = false;
+
+            for (int filter[] : filters)
+            {
+                if ((subjectType & filter[Event.SUBJECT_MASK]) != 0 && (eventType & filter[Event.EVENT_MASK]) != 0)
+                {
+                    result = true;
+                }
+            }
+
+            if (log.isDebugEnabled())
+            {
+                log.debug("Filtering event: " + "eventType="
+                        + String.valueOf(eventType) + ", subjectType="
+                        + String.valueOf(subjectType) + ", result="
+                        + String.valueOf(result));
+            }
+
+            return result;
+        }
+    }
+}
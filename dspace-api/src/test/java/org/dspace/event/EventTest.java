@@ -0,0 +1,78 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import org.dspace.core.Constants;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for the packed types of an event and the compiled filters
+ */
+public class EventTest
+{
+    @Test
+    public void testTypes() throws Exception
+    {
+        for (int type = 0; type < Constants.typeText.length; type++)
+        {
+            Event event = new Event(Event.ADD, type, 1, Constants.EPERSON - type, 2, null);
+            assertThat("testTypes 0 " + type, event.getSubjectType(), equalTo(type));
+            assertThat("testTypes 1 " + type, event.getObjectType(), equalTo(Constants.EPERSON - type));
+            assertThat("testTypes 2 " + type, event.getEventType(), equalTo(Event.ADD));
+            assertThat("testTypes 3 " + type, event.getSubjectTypeAsString(), equalTo(Constants.typeText[type]));
+        }
+
+        Event event = new Event(Event.MODIFY, Constants.ITEM, 1, null);
+        assertThat("testTypes 4", event.getObjectType(), equalTo(-1));
+        assertThat("testTypes 5", event.getObjectTypeAsString(), equalTo("(Unknown)"));
+        assertThat("testTypes 6", new Event(Event.MODIFY, Constants.ITEM, 1, null), equalTo(event));
+    }
+
+    /**
+     * The compiled filters pass exactly the events the list of filters does,
+     * for every combination of subject and event type.
+     */
+    @Test
+    public void testCompiledFilters() throws Exception
+    {
+        List<int[]> filters = new ArrayList<int[]>();
+        filters.add(new int[] { Event.parseObjectType("Item") | Event.parseObjectType("Collection"),
+                Event.MODIFY | Event.DELETE });
+        filters.add(new int[] { Event.parseObjectType("Bundle"), Event.ADD | Event.REMOVE });
+        filters.add(new int[] { Event.parseObjectType("EPerson"), Event.parseEventType("all") });
+        long filterMask = Event.compileFilters(filters);
+
+        for (int type = 0; type < Constants.typeText.length; type++)
+        {
+            for (int eventType = 1; eventType <= Event.INSTALL; eventType <<= 1)
+            {
+                Event event = new Event(eventType, type, 1, null);
+                boolean expected = false;
+                for (int[] filter : filters)
+                {
+                    expected |= (filter[Event.SUBJECT_MASK] & (1 << type)) != 0
+                            && (filter[Event.EVENT_MASK] & eventType) != 0;
+                }
+                assertThat("testCompiledFilters " + type + "/" + eventType, event.pass(filterMask), equalTo(expected));
+                assertThat("testCompiledFilters list " + type + "/" + eventType, event.pass(filters), equalTo(expected));
+            }
+        }
+
+        // a coalesced event passes if any of its types does
+        Event modified = new Event(Event.MODIFY_METADATA, Constants.ITEM, 1, null);
+        assertThat("testCompiledFilters 0", modified.pass(filterMask), equalTo(false));
+        modified.merge(new Event(Event.MODIFY, Constants.ITEM, 1, null));
+        assertThat("testCompiledFilters 1", modified.pass(filterMask), equalTo(true));
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Community;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.service.OutboxEventService;
+import org.dspace.hibernate.CacheConsumer;
+import org.dspace.hibernate.HibernateUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for storing events in the outbox and delivering them
+ */
+public class OutboxDispatcherTest extends AbstractUnitTest
+{
+    private OutboxEventService outboxEventService = serviceFactory.getOutboxEventService();
+
+    @Test
+    public void testDeliver() throws Exception
+    {
+        RecordingConsumer consumer = new RecordingConsumer(false);
+        OutboxDelivery delivery = store("outboxtest", consumer);
+        assertThat("testDeliver 0", outboxEventService.countPending(context, "outboxtest", "recorder"), equalTo(1));
+
+        assertThat("testDeliver 1", deliver(delivery), equalTo(1));
+        assertThat("testDeliver 2", consumer.subjectIDs, equalTo(Collections.singletonList(1234)));
+        assertThat("testDeliver 3", outboxEventService.countPending(context, "outboxtest", "recorder"), equalTo(0));
+        assertThat("testDeliver 4", delivery.getStatistics().get("recorder").getDeliveredCount(), equalTo(1L));
+    }
+
+    @Test
+    public void testRetry() throws Exception
+    {
+        OutboxDelivery delivery = store("outboxfail", new RecordingConsumer(true));
+
+        assertThat("testRetry 0", deliver(delivery), equalTo(0));
+        assertThat("testRetry 1", outboxEventService.countPending(context, "outboxfail", "recorder"), equalTo(1));
+        assertThat("testRetry 2", delivery.getStatistics().get("recorder").getFailureCount(), equalTo(1L));
+
+        // the retry is postponed
+        List<OutboxEvent> due = outboxEventService.findDue(context, "outboxfail", "recorder", 10, 10);
+        assertThat("testRetry 3", due.size(), equalTo(0));
+    }
+
+    /**
+     * The later events of an object wait for the retry of a failed one, the
+     * events of other objects are delivered
+     */
+    @Test
+    public void testRetryOrder() throws Exception
+    {
+        RecordingConsumer consumer = new RecordingConsumer(1234);
+        OutboxDispatcher dispatcher = dispatcher("outboxorder", consumer);
+        context.addEvent(new Event(Event.MODIFY, Constants.ITEM, 1234, null));
+        context.addEvent(new Event(Event.MODIFY, Constants.ITEM, 5678, null));
+        context.addEvent(new Event(Event.MODIFY_METADATA, Constants.ITEM, 1234, null));
+        dispatcher.dispatch(context);
+        context.commit();
+
+        assertThat("testRetryOrder 0", deliver(dispatcher.getDelivery()), equalTo(1));
+        assertThat("testRetryOrder 1", consumer.subjectIDs, equalTo(Collections.singletonList(5678)));
+        assertThat("testRetryOrder 2", outboxEventService.countPending(context, "outboxorder", "recorder"), equalTo(2));
+        assertThat("testRetryOrder 3", dispatcher.getDelivery().getStatistics().get("recorder").getFailureCount(), equalTo(1L));
+
+        // the second event of the object isn't due before the first one
+        List<OutboxEvent> due = outboxEventService.findDue(context, "outboxorder", "recorder", 10, 10);
+        assertThat("testRetryOrder 4", due.size(), equalTo(0));
+    }
+
+    /**
+     * The outbox dispatcher of dspace.cfg coalesces the events of an object
+     * before storing them
+     */
+    @Test
+    public void testCoalesce() throws Exception
+    {
+        OutboxDispatcher dispatcher = dispatcher("outbox", new RecordingConsumer(false));
+        context.addEvent(new Event(Event.MODIFY_METADATA, Constants.ITEM, 1234, null));
+        context.addEvent(new Event(Event.MODIFY, Constants.ITEM, 1234, null));
+        dispatcher.dispatch(context);
+        context.commit();
+
+        assertThat("testCoalesce 0", outboxEventService.countPending(context, "outbox", "recorder"), equalTo(1));
+        assertThat("testCoalesce 1", dispatcher.getCollapsedCount() > 0, equalTo(true));
+        assertThat("testCoalesce 2", deliver(dispatcher.getDelivery()), equalTo(1));
+    }
+
+    /**
+     * A community modified in a transaction dispatched to the outbox is
+     * evicted from the second-level cache once the events are delivered.
+     */
+    @Test
+    public void testCacheConsumer() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        Community community = communityService.create(context, null);
+        context.commit();
+        try
+        {
+            OutboxDispatcher dispatcher = dispatcher("outboxcache", new CacheConsumer());
+            communityService.setName(community, "modified");
+            communityService.update(context, community);
+            dispatcher.dispatch(context);
+            context.commit();
+
+            // read the modified community back into the cache
+            context.getDBConnection().clear();
+            communityService.find(context, community.getID());
+            assertThat("testCacheConsumer 0", HibernateUtil.isCached(Community.class, community.getID()), equalTo(true));
+
+            assertThat("testCacheConsumer 1", deliver(dispatcher.getDelivery()) > 0, equalTo(true));
+            assertThat("testCacheConsumer 2", HibernateUtil.isCached(Community.class, community.getID()), equalTo(false));
+        }
+        finally
+        {
+            communityService.delete(context, communityService.find(context, community.getID()));
+            context.commit();
+            context.restoreAuthSystemState();
+        }
+    }
+
+    /**
+     * Store an event for the consumer in the outbox of a dispatcher whose
+     * delivery isn't started.
+     */
+    private OutboxDelivery store(String dispatcherName, Consumer consumer) throws Exception
+    {
+        OutboxDispatcher dispatcher = dispatcher(dispatcherName, consumer);
+        context.addEvent(new Event(Event.MODIFY, Constants.ITEM, 1234, null));
+        dispatcher.dispatch(context);
+        context.commit();
+        return dispatcher.getDelivery();
+    }
+
+    /**
+     * Create a dispatcher with the consumer, whose delivery isn't started.
+     */
+    private OutboxDispatcher dispatcher(String dispatcherName, Consumer consumer)
+    {
+        List<int[]> filters = new ArrayList<int[]>();
+        filters.add(new int[] { Event.parseObjectType("all"), Event.parseEventType("all") });
+
+        OutboxDelivery delivery = new OutboxDelivery(dispatcherName);
+        delivery.addConsumer(new ConsumerProfile("recorder", consumer, filters));
+        OutboxDispatcher dispatcher = new OutboxDispatcher(dispatcherName, delivery);
+        dispatcher.addConsumerProfile(new ConsumerProfile("recorder", consumer, filters));
+        return dispatcher;
+    }
+
+    /**
+     * Deliver in a thread of its own, which gets a database session of its own.
+     */
+    private int deliver(final OutboxDelivery delivery) throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            return executor.submit(new Callable<Integer>()
+            {
+                public Integer call() throws Exception
+                {
+                    return delivery.deliver("recorder");
+                }
+            }).get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static class RecordingConsumer implements Consumer
+    {
+        private final boolean failing;
+
+        /** The subject whose events fail, -1 for none */
+        private final int failingSubjectID;
+
+        private final List<Integer> subjectIDs = new ArrayList<Integer>();
+
+        RecordingConsumer(boolean failing)
+        {
+            this.failing = failing;
+            this.failingSubjectID = -1;
+        }
+
+        RecordingConsumer(int failingSubjectID)
+        {
+            this.failing = false;
+            this.failingSubjectID = failingSubjectID;
+        }
+
+        public void initialize() throws Exception
+        {
+        }
+
+        public void consume(Context ctx, Event event) throws Exception
+        {
+            if (failing || event.getSubjectID() == failingSubjectID)
+            {
+                throw new IllegalStateException("Failing on purpose");
+            }
+            subjectIDs.add(event.getSubjectID());
+        }
+
+        public void end(Context ctx) throws Exception
+        {
+        }
+
+        public void finish(Context ctx) throws Exception
+        {
+        }
+    }
+}
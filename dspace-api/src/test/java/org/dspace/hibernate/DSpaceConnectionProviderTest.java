@@ -0,0 +1,114 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.hibernate;
+
+import org.dspace.AbstractUnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the pooled connection provider, run against an in-memory H2 database
+ */
+public class DSpaceConnectionProviderTest extends AbstractUnitTest
+{
+    private DSpaceConnectionProvider provider;
+
+    @Before
+    public void setUp()
+    {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("hibernate.connection.url", "jdbc:h2:mem:connectionpooltest");
+        settings.put("hibernate.connection.driver_class", "org.h2.Driver");
+        settings.put("hibernate.connection.username", "sa");
+        settings.put("hibernate.connection.password", "");
+        settings.put("hibernate.connection.pool_size", "2");
+
+        provider = new DSpaceConnectionProvider();
+        provider.configure(settings);
+    }
+
+    @After
+    public void tearDown()
+    {
+        provider.stop();
+    }
+
+    /**
+     * Borrowed connections are validated, counted and returned to the pool
+     */
+    @Test
+    public void testBorrowAndReturn() throws Exception
+    {
+        ConnectionPoolStatistics statistics = provider.getStatistics();
+        assertThat("testBorrowAndReturn 0", statistics.getMaxConnections(), equalTo(2));
+
+        Connection connection = provider.getConnection();
+        assertThat("testBorrowAndReturn 1", connection.getAutoCommit(), equalTo(false));
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT 1");
+        assertTrue("testBorrowAndReturn 2", resultSet.next());
+        resultSet.close();
+        statement.close();
+
+        assertThat("testBorrowAndReturn 3", statistics.getActiveConnections(), equalTo(1));
+        assertThat("testBorrowAndReturn 4", statistics.getWaitingThreads(), equalTo(0));
+
+        provider.closeConnection(connection);
+        assertThat("testBorrowAndReturn 5", statistics.getActiveConnections(), equalTo(0));
+        assertThat("testBorrowAndReturn 6", statistics.getIdleConnections(), equalTo(1));
+
+        // The idle connection is reused
+        provider.closeConnection(provider.getConnection());
+        assertThat("testBorrowAndReturn 7", statistics.getIdleConnections(), equalTo(1));
+        assertThat("testBorrowAndReturn 8", statistics.getBorrowCount(), equalTo(2L));
+        assertThat("testBorrowAndReturn 9", statistics.getTimeoutCount(), equalTo(0L));
+    }
+
+    /**
+     * Every successful borrow ends up in exactly one latency bucket
+     */
+    @Test
+    public void testBorrowLatencyHistogram() throws Exception
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            provider.closeConnection(provider.getConnection());
+        }
+
+        long[] histogram = provider.getStatistics().getBorrowLatencyHistogram();
+        assertThat("testBorrowLatencyHistogram 0", histogram.length, equalTo(ConnectionPoolStatistics.BORROW_LATENCY_BUCKETS.length + 1));
+        long total = 0;
+        for (long count : histogram)
+        {
+            total += count;
+        }
+        assertThat("testBorrowLatencyHistogram 1", total, equalTo(5L));
+    }
+
+    /**
+     * The pool can be reached through the Hibernate service registry
+     */
+    @Test
+    public void testUnwrap()
+    {
+        assertTrue("testUnwrap 0", provider.isUnwrappableAs(DSpaceConnectionProvider.class));
+        assertTrue("testUnwrap 1", provider.unwrap(DSpaceConnectionProvider.class) == provider);
+        assertTrue("testUnwrap 2", provider.isUnwrappableAs(javax.sql.DataSource.class));
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.hibernate;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Bundle;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Counts the SQL statements needed to load an item graph with and without the fetch profiles
+ */
+public class FetchProfileTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(FetchProfileTest.class);
+
+    private Community community;
+    private Collection collection;
+    private Item item;
+
+    /** Bitstreams in the ORIGINAL bundle, a join over them would repeat the bundle */
+    private static final int BITSTREAMS = 3;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+            item = installItemService.installItem(context, workspaceItem);
+            itemService.addMetadata(context, item, "dc", "contributor", "author", null, Arrays.asList("author0", "author1", "author2"));
+            Bundle original = itemService.createBundle(context, item, "ORIGINAL");
+            File f = new File(testProps.get("test.bitstream").toString());
+            for (int i = 0; i < BITSTREAMS; i++)
+            {
+                bundleService.createBitstream(context, original, new FileInputStream(f));
+            }
+            itemService.createBundle(context, item, "LICENSE");
+            itemService.update(context, item);
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        Item found = itemService.find(context, item.getID());
+        if (found != null)
+        {
+            itemService.delete(context, found);
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    /**
+     * The full item profile loads the item with its bundles in one statement, and the bitstreams
+     * of all bundles in another
+     */
+    @Test
+    public void testItemFull() throws Exception
+    {
+        long withoutProfile = countItemPageStatements();
+
+        context.enableFetchProfile(Item.FETCH_PROFILE_FULL);
+        long withProfile = countItemPageStatements();
+        context.disableFetchProfile(Item.FETCH_PROFILE_FULL);
+
+        assertThat("testItemFull 0", withProfile, equalTo(2L));
+        assertTrue("testItemFull 1", withProfile < withoutProfile);
+    }
+
+    /**
+     * The item summary profile loads the item with its metadata in one statement
+     */
+    @Test
+    public void testItemSummary() throws Exception
+    {
+        long withoutProfile = countItemSummaryStatements();
+
+        context.enableFetchProfile(Item.FETCH_PROFILE_SUMMARY);
+        long withProfile = countItemSummaryStatements();
+        context.disableFetchProfile(Item.FETCH_PROFILE_SUMMARY);
+
+        assertThat("testItemSummary 0", withProfile, equalTo(1L));
+        assertTrue("testItemSummary 1", withProfile < withoutProfile);
+    }
+
+    /**
+     * The collection listing profile loads the collection with its communities in one statement
+     */
+    @Test
+    public void testCollectionListing() throws Exception
+    {
+        long withoutProfile = countCollectionListingStatements();
+
+        context.enableFetchProfile(Collection.FETCH_PROFILE_LISTING);
+        long withProfile = countCollectionListingStatements();
+        context.disableFetchProfile(Collection.FETCH_PROFILE_LISTING);
+
+        assertThat("testCollectionListing 0", withProfile, equalTo(1L));
+        assertTrue("testCollectionListing 1", withProfile < withoutProfile);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownProfile() throws Exception
+    {
+        context.enableFetchProfile("no-such-profile");
+    }
+
+    private long countItemPageStatements() throws Exception
+    {
+        context.getDBConnection().clear();
+        SQLStatementCounter counter = new SQLStatementCounter(context);
+        Item found = itemService.find(context, item.getID());
+        assertThat("countItemPageStatements 0", found.getBundles().size(), equalTo(2));
+        int bitstreams = 0;
+        for (Bundle bundle : found.getBundles())
+        {
+            bitstreams += bundle.getBitstreams().size();
+        }
+        assertThat("countItemPageStatements 1", bitstreams, equalTo(BITSTREAMS));
+        return counter.getCount();
+    }
+
+    private long countItemSummaryStatements() throws Exception
+    {
+        context.getDBConnection().clear();
+        SQLStatementCounter counter = new SQLStatementCounter(context);
+        Item found = itemService.find(context, item.getID());
+        // installing the item adds metadata of its own (accession date, provenance...)
+        assertTrue("countItemSummaryStatements 0", found.getMetadata().size() >= 3);
+        return counter.getCount();
+    }
+
+    private long countCollectionListingStatements() throws Exception
+    {
+        context.getDBConnection().clear();
+        SQLStatementCounter counter = new SQLStatementCounter(context);
+        Collection found = collectionService.find(context, collection.getID());
+        assertThat("countCollectionListingStatements 0", found.getCommunities().size(), equalTo(1));
+        found.getLogo();
+        return counter.getCount();
+    }
+}
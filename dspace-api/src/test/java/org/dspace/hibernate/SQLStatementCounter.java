@@ -0,0 +1,53 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.hibernate;
+
+import org.dspace.core.Context;
+import org.hibernate.stat.Statistics;
+
+import java.sql.SQLException;
+
+/**
+ * Test helper counting the SQL statements Hibernate prepares between two points of a test, based on
+ * the session factory statistics (hibernate.generate_statistics must be enabled).
+ * <P>
+ * Typical use:
+ * <code>
+ *     SQLStatementCounter counter = new SQLStatementCounter(context);
+ *     ... code under test ...
+ *     assertThat(counter.getCount(), equalTo(1L));
+ * </code>
+ */
+public class SQLStatementCounter
+{
+    private final Statistics statistics;
+
+    private long start;
+
+    public SQLStatementCounter(Context context) throws SQLException
+    {
+        statistics = context.getDBConnection().getSessionFactory().getStatistics();
+        reset();
+    }
+
+    /**
+     * Start counting again from the current point
+     */
+    public void reset()
+    {
+        start = statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * @return the number of statements prepared since the counter was created or last reset
+     */
+    public long getCount()
+    {
+        return statistics.getPrepareStatementCount() - start;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.log4j.Logger;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Bitstream;
+import org.dspace.core.Utils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the batched, resumable cleanup of the asset stores
+ */
+public class AssetstoreCleanerTest extends AbstractUnitTest
+{
+    /** log4j category */
+    private static final Logger log = Logger.getLogger(AssetstoreCleanerTest.class);
+
+    private List<Bitstream> bitstreams = new ArrayList<Bitstream>();
+
+    private AssetstoreCleaner cleaner;
+
+    /**
+     * Creates three deleted bitstreams, with bits old enough to be removed
+     */
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            File f = new File(testProps.get("test.bitstream").toString());
+            for (int i = 0; i < 3; i++)
+            {
+                Bitstream bitstream = bitstreamService.create(context, new FileInputStream(f));
+                bitstreamService.delete(context, bitstream);
+                getFile(bitstream).setLastModified(System.currentTimeMillis() - 60 * 60 * 1000);
+                bitstreams.add(bitstream);
+            }
+            context.restoreAuthSystemState();
+            context.commit();
+
+            cleaner = new AssetstoreCleaner(false, false);
+            cleaner.setBatchSize(2);
+            cleaner.setThreads(2);
+            cleaner.setCheckpoint(new File(System.getProperty("java.io.tmpdir"), "cleanup-" + Utils.generateKey()));
+        }
+        catch (Exception ex)
+        {
+            log.error("Error in init", ex);
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        cleaner.getCheckpoint().delete();
+        super.destroy();
+    }
+
+    @Test
+    public void testCleanup() throws Exception
+    {
+        cleaner.cleanup();
+
+        for (int i = 0; i < bitstreams.size(); i++)
+        {
+            assertThat("testCleanup " + i, getFile(bitstreams.get(i)).exists(), equalTo(false));
+        }
+        // a completed run starts at the beginning again
+        assertThat("testCleanup 3", cleaner.getCheckpoint().exists(), equalTo(false));
+        // the records are left alone
+        assertThat("testCleanup 4", bitstreamService.find(context, bitstreams.get(0).getID()), notNullValue());
+    }
+
+    /**
+     * Deleting the database records removes the rows, a next run doesn't find them again
+     */
+    @Test
+    public void testCleanupRecords() throws Exception
+    {
+        AssetstoreCleaner recordsCleaner = new AssetstoreCleaner(true, false);
+        recordsCleaner.setBatchSize(2);
+        recordsCleaner.setCheckpoint(cleaner.getCheckpoint());
+        recordsCleaner.cleanup();
+
+        for (int i = 0; i < bitstreams.size(); i++)
+        {
+            assertThat("testCleanupRecords " + i, getFile(bitstreams.get(i)).exists(), equalTo(false));
+            assertThat("testCleanupRecords " + (i + 3), bitstreamService.find(context, bitstreams.get(i).getID()),
+                    nullValue());
+        }
+        // a next run starts after the removed rows
+        List<Bitstream> deleted = bitstreamService.findDeletedBitstreams(context, bitstreams.get(0).getID() - 1,
+                bitstreams.size());
+        for (Bitstream bitstream : deleted)
+        {
+            assertThat("testCleanupRecords 6", bitstream.getID() > bitstreams.get(bitstreams.size() - 1).getID(),
+                    equalTo(true));
+        }
+    }
+
+    /**
+     * An interrupted run resumes after the last bitstream of its checkpoint
+     */
+    @Test
+    public void testResume() throws Exception
+    {
+        cleaner.writeCheckpoint(bitstreams.get(1).getID());
+        cleaner.cleanup();
+
+        assertThat("testResume 0", getFile(bitstreams.get(0)).exists(), equalTo(true));
+        assertThat("testResume 1", getFile(bitstreams.get(1)).exists(), equalTo(true));
+        assertThat("testResume 2", getFile(bitstreams.get(2)).exists(), equalTo(false));
+        assertThat("testResume 3", cleaner.getCheckpoint().exists(), equalTo(false));
+    }
+
+    private File getFile(Bitstream bitstream) throws Exception
+    {
+        return ((DSBitStoreService) BitstreamStorageManager.getStore(bitstream.getStoreNumber())).getFile(bitstream);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Bitstream;
+import org.dspace.core.Utils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the content addressed asset store
+ */
+public class ContentAddressedBitStoreServiceTest extends AbstractUnitTest
+{
+    private File baseDir;
+
+    private ContentAddressedBitStoreService store;
+
+    private byte[] bits = "content addressed bits".getBytes();
+
+    /** The content addressed store configured for the tests */
+    private static final int ADDRESSED_STORE = 1;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            baseDir = new File(System.getProperty("java.io.tmpdir"), "cabitstore-" + Utils.generateKey());
+            store = new ContentAddressedBitStoreService(baseDir.getPath());
+            store.init();
+        }
+        catch (Exception ex)
+        {
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        FileUtils.deleteDirectory(baseDir);
+        super.destroy();
+    }
+
+    @Test
+    public void testPut() throws Exception
+    {
+        Bitstream bitstream = newBitstream();
+        store.put(bitstream, new ByteArrayInputStream(bits));
+
+        String address = Utils.toHex(MessageDigest.getInstance("SHA-256").digest(bits));
+        assertThat("testPut 0", bitstream.getInternalId(), equalTo(address));
+        assertThat("testPut 1", store.getFile(bitstream).exists(), equalTo(true));
+
+        InputStream in = store.get(bitstream);
+        try
+        {
+            assertThat("testPut 2", IOUtils.toByteArray(in), equalTo(bits));
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Identical bits are stored once, different bits separately
+     */
+    @Test
+    public void testDeduplicate() throws Exception
+    {
+        Bitstream first = newBitstream();
+        store.put(first, new ByteArrayInputStream(bits));
+        Bitstream second = newBitstream();
+        store.put(second, new ByteArrayInputStream(bits));
+        Bitstream other = newBitstream();
+        store.put(other, new ByteArrayInputStream("other bits".getBytes()));
+
+        assertThat("testDeduplicate 0", second.getInternalId(), equalTo(first.getInternalId()));
+        assertThat("testDeduplicate 1", other.getInternalId(), not(equalTo(first.getInternalId())));
+        // only the two content addressed files remain, the staged copies are gone
+        assertThat("testDeduplicate 2", FileUtils.listFiles(baseDir, null, true).size(), equalTo(2));
+    }
+
+    /**
+     * The cleanup keeps a shared file while a bitstream that isn't deleted
+     * references it, and removes it once none does
+     */
+    @Test
+    public void testCleanupSharedBits() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        Bitstream first = createAddressed();
+        Bitstream second = createAddressed();
+        context.commit();
+        File file = ((DSBitStoreService) BitstreamStorageManager.getStore(ADDRESSED_STORE)).getFile(first);
+        assertThat("testCleanupSharedBits 0", second.getInternalId(), equalTo(first.getInternalId()));
+
+        AssetstoreCleaner cleaner = new AssetstoreCleaner(false, false);
+        cleaner.setCheckpoint(new File(System.getProperty("java.io.tmpdir"), "cleanup-" + Utils.generateKey()));
+        try
+        {
+            bitstreamService.delete(context, bitstreamService.find(context, first.getID()));
+            context.commit();
+            file.setLastModified(System.currentTimeMillis() - 60 * 60 * 1000);
+            cleaner.cleanup();
+            assertThat("testCleanupSharedBits 1", file.exists(), equalTo(true));
+
+            bitstreamService.delete(context, bitstreamService.find(context, second.getID()));
+            context.commit();
+            file.setLastModified(System.currentTimeMillis() - 60 * 60 * 1000);
+            cleaner.cleanup();
+            assertThat("testCleanupSharedBits 2", file.exists(), equalTo(false));
+        }
+        finally
+        {
+            cleaner.getCheckpoint().delete();
+            context.restoreAuthSystemState();
+        }
+    }
+
+    /**
+     * Create a bitstream with the bits in the content addressed store of the
+     * tests
+     */
+    private Bitstream createAddressed() throws Exception
+    {
+        StagedBitstream staged = BitstreamStorageManager.getStore(ADDRESSED_STORE).stage(new ByteArrayInputStream(bits));
+        staged.setStoreNumber(ADDRESSED_STORE);
+        return bitstreamService.create(context, staged);
+    }
+
+    private Bitstream newBitstream()
+    {
+        Bitstream bitstream = new Bitstream();
+        bitstream.setInternalId(Utils.generateKey());
+        return bitstream;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Bitstream;
+import org.dspace.core.Utils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the local file system asset store
+ */
+public class DSBitStoreServiceTest extends AbstractUnitTest
+{
+    private File baseDir;
+
+    private DSBitStoreService store;
+
+    private byte[] bits;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            baseDir = new File(System.getProperty("java.io.tmpdir"), "dsbitstore-" + Utils.generateKey());
+            store = new DSBitStoreService(baseDir.getPath());
+            store.init();
+            // more than one buffer worth of bits
+            bits = new byte[DSBitStoreService.BUFFER_SIZE * 2 + 17];
+            for (int i = 0; i < bits.length; i++)
+            {
+                bits[i] = (byte) i;
+            }
+        }
+        catch (Exception ex)
+        {
+            fail("Error in init: " + ex.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        FileUtils.deleteDirectory(baseDir);
+        super.destroy();
+    }
+
+    @Test
+    public void testPutGet() throws Exception
+    {
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        store.put(bitstream, new ByteArrayInputStream(bits));
+
+        assertThat("testPutGet 0", bitstream.getSize(), equalTo((long) bits.length));
+        assertThat("testPutGet 1", bitstream.getChecksum(), equalTo(Utils.toHex(MessageDigest.getInstance("MD5").digest(bits))));
+        assertThat("testPutGet 2", new File(baseDir, "12/34/56/12345678901234567890").exists(), equalTo(true));
+
+        InputStream in = store.get(bitstream);
+        try
+        {
+            assertThat("testPutGet 3", Arrays.equals(IOUtils.toByteArray(in), bits), equalTo(true));
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * All configured checksums are computed while storing the bits
+     */
+    @Test
+    public void testChecksums() throws Exception
+    {
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        store.put(bitstream, new ByteArrayInputStream(bits));
+
+        Map<String, String> checksums = bitstream.getChecksums();
+        assertThat("testChecksums 0", bitstream.getChecksumAlgorithm(), equalTo("MD5"));
+        assertThat("testChecksums 1", checksums.get("MD5"), equalTo(bitstream.getChecksum()));
+        assertThat("testChecksums 2", checksums.get("SHA-256"), equalTo(Utils.toHex(MessageDigest.getInstance("SHA-256").digest(bits))));
+    }
+
+    /**
+     * Staged bits are digested while spooled, and renamed into place
+     */
+    @Test
+    public void testStage() throws Exception
+    {
+        StagedBitstream staged = store.stage(new ByteArrayInputStream(bits));
+        assertThat("testStage 0", staged.getSizeBytes(), equalTo((long) bits.length));
+        assertThat("testStage 1", staged.getFile().exists(), equalTo(true));
+
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        store.put(bitstream, staged);
+
+        assertThat("testStage 2", staged.getFile().exists(), equalTo(false));
+        assertThat("testStage 3", bitstream.getSize(), equalTo((long) bits.length));
+        assertThat("testStage 4", bitstream.getChecksum(), equalTo(Utils.toHex(MessageDigest.getInstance("MD5").digest(bits))));
+        assertThat("testStage 5", store.stat(bitstream).getSizeBytes(), equalTo((long) bits.length));
+    }
+
+    @Test
+    public void testUploadStatistics() throws Exception
+    {
+        UploadStatistics statistics = BitstreamStorageManager.getUploadStatistics();
+        long completed = statistics.getCompletedCount();
+        long bytes = statistics.getTotalBytes();
+
+        StagedBitstream staged = BitstreamStorageManager.stage(new ByteArrayInputStream(bits));
+        staged.discard();
+
+        assertThat("testUploadStatistics 0", statistics.getCompletedCount(), equalTo(completed + 1));
+        assertThat("testUploadStatistics 1", statistics.getTotalBytes(), equalTo(bytes + bits.length));
+        assertThat("testUploadStatistics 2", staged.getFile().exists(), equalTo(false));
+    }
+
+    @Test
+    public void testAboutStat() throws Exception
+    {
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        assertThat("testAboutStat 0", store.stat(bitstream), nullValue());
+        assertThat("testAboutStat 1", store.about(bitstream, Arrays.asList(BitStoreService.SIZE_BYTES)), nullValue());
+
+        store.put(bitstream, new ByteArrayInputStream(bits));
+
+        BitStoreStat stat = store.stat(bitstream);
+        assertThat("testAboutStat 2", stat, notNullValue());
+        assertThat("testAboutStat 3", stat.getSizeBytes(), equalTo((long) bits.length));
+
+        Map<String, Object> about = store.about(bitstream, Arrays.asList(BitStoreService.SIZE_BYTES, BitStoreService.CHECKSUM));
+        assertThat("testAboutStat 4", (Long) about.get(BitStoreService.SIZE_BYTES), equalTo((long) bits.length));
+        assertThat("testAboutStat 5", (String) about.get(BitStoreService.CHECKSUM), equalTo(bitstream.getChecksum()));
+    }
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        store.put(bitstream, new ByteArrayInputStream(bits));
+        store.remove(bitstream);
+
+        assertThat("testRemove 0", store.stat(bitstream), nullValue());
+        // the empty intermediate directories are removed as well
+        assertThat("testRemove 1", new File(baseDir, "12").exists(), equalTo(false));
+    }
+
+    @Test
+    public void testOpenRange() throws Exception
+    {
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        store.put(bitstream, new ByteArrayInputStream(bits));
+
+        BitStoreContent content = store.open(bitstream, 100, 1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            assertThat("testOpenRange 0", content.getChannel() instanceof FileChannel, equalTo(true));
+            assertThat("testOpenRange 1", content.transferTo(Channels.newChannel(out)), equalTo(1000L));
+        }
+        finally
+        {
+            content.close();
+        }
+        assertThat("testOpenRange 2", Arrays.equals(out.toByteArray(), Arrays.copyOfRange(bits, 100, 1100)), equalTo(true));
+
+        // a range reaching beyond the end is cut off
+        content = store.open(bitstream, bits.length - 10, -1);
+        content.close();
+        assertThat("testOpenRange 3", content.getLength(), equalTo(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenBeyondEnd() throws Exception
+    {
+        Bitstream bitstream = newBitstream("12345678901234567890");
+        store.put(bitstream, new ByteArrayInputStream(bits));
+
+        store.open(bitstream, bits.length + 1, 10);
+    }
+
+    /**
+     * Ranges of channels which aren't file channels are copied through a buffer
+     */
+    @Test
+    public void testTransferToStream() throws Exception
+    {
+        ByteArrayInputStream in = new ByteArrayInputStream(bits);
+        in.skip(100);
+        BitStoreContent content = new BitStoreContent(Channels.newChannel(in), 100, bits.length - 200);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat("testTransferToStream 0", content.transferTo(Channels.newChannel(out)), equalTo((long) bits.length - 200));
+        assertThat("testTransferToStream 1", Arrays.equals(out.toByteArray(), Arrays.copyOfRange(bits, 100, bits.length - 100)), equalTo(true));
+    }
+
+    /**
+     * Registered bitstreams are found at the path they were registered with
+     */
+    @Test
+    public void testRegisteredPath() throws Exception
+    {
+        File registered = new File(baseDir, "registered/file.bin");
+        FileUtils.writeByteArrayToFile(registered, bits);
+
+        Bitstream bitstream = newBitstream(AbstractBitStoreService.REGISTERED_FLAG + "registered/file.bin");
+        BitStoreStat stat = store.stat(bitstream);
+        assertThat("testRegisteredPath 0", stat, notNullValue());
+        assertThat("testRegisteredPath 1", stat.getSizeBytes(), equalTo((long) bits.length));
+    }
+
+    /**
+     * Internal ids containing a path are reduced to their file name
+     */
+    @Test
+    public void testPathTraversal() throws Exception
+    {
+        Bitstream bitstream = newBitstream(".." + File.separator + "12345678901234567890");
+        assertThat("testPathTraversal 0", store.getFile(bitstream), equalTo(new File(baseDir.getCanonicalFile(), "12/34/56/12345678901234567890")));
+    }
+
+    private Bitstream newBitstream(String internalId)
+    {
+        Bitstream bitstream = new Bitstream();
+        bitstream.setInternalId(internalId);
+        return bitstream;
+    }
+}
@@ -18,6 +18,7 @@ import java.io.FileInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import org.apache.log4j.Logger;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -318,6 +319,43 @@ public class BundleTest extends AbstractDSpaceObjectTest
         fail("Exception should be thrown");
     }
 
+    /**
+     * Test of createBitstream method, of class Bundle. An unauthorised
+     * upload is refused before any of the stream is read.
+     */
+    @Test
+    public void testCreateBitstreamNoAuthNotStaged() throws SQLException, IOException
+    {
+        new NonStrictExpectations()
+        {
+            AuthorizeManager authManager;
+            {
+                AuthorizeManager.authorizeAction((Context) any, (Bundle) any,
+                        Constants.ADD); result = new AuthorizeException();
+            }
+        };
+
+        final boolean[] read = new boolean[1];
+        InputStream is = new InputStream()
+        {
+            @Override
+            public int read()
+            {
+                read[0] = true;
+                return -1;
+            }
+        };
+        try
+        {
+            bundleService.createBitstream(context, b, is);
+            fail("Exception should be thrown");
+        }
+        catch (AuthorizeException e)
+        {
+            assertFalse("testCreateBitstreamNoAuthNotStaged 0", read[0]);
+        }
+    }
+
     /**
      * Test of createBitstream method, of class Bundle.
      */
@@ -1860,6 +1860,36 @@ public class CollectionTest extends AbstractDSpaceObjectTest
         assertTrue("testFindAuthorized 10",found.size() >= 1);
     }
 
+    /**
+     * Test of findAuthorized method, of class Collection, with the admin
+     * rights inherited from the parent community.
+     */
+    @Test
+    public void testFindAuthorizedCommunityAdmin() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        Community com = communityService.create(context, null);
+        Collection first = collectionService.create(context, com);
+        Collection second = collectionService.create(context, com);
+        AuthorizeManager.addPolicy(context, com, Constants.ADMIN, context.getCurrentUser());
+        context.restoreAuthSystemState();
+
+        List<Collection> found = collectionService.findAuthorized(context, com, Constants.WRITE);
+        assertThat("testFindAuthorizedCommunityAdmin 0", found.size(), equalTo(2));
+        assertTrue("testFindAuthorizedCommunityAdmin 1", found.contains(first));
+        assertTrue("testFindAuthorizedCommunityAdmin 2", found.contains(second));
+
+        // the same answer as checking the collections one by one, without
+        // the decisions cached by the other lookups
+        context.clearAuthorizationCache();
+        assertTrue("testFindAuthorizedCommunityAdmin 3", AuthorizeManager.authorizeActionBoolean(context, first, Constants.WRITE));
+        context.clearAuthorizationCache();
+        boolean canDelete = AuthorizeManager.authorizeActionBoolean(context, first, Constants.DELETE);
+        context.clearAuthorizationCache();
+        assertThat("testFindAuthorizedCommunityAdmin 4", collectionService.findAuthorized(context, com, Constants.DELETE).size(),
+                equalTo(canDelete ? 2 : 0));
+    }
+
     /**
      * Test of countItems method, of class Collection.
      */
@@ -31,6 +31,8 @@ import mockit.*;
 import org.dspace.app.util.AuthorizeUtil;
 import org.dspace.authorize.ResourcePolicy;
 import org.dspace.core.Constants;
+import org.dspace.storage.bitstore.BitstreamStorageManager;
+import org.dspace.storage.bitstore.StagedBitstream;
 
 /**
  * Unit Tests for class Item
@@ -529,6 +531,72 @@ public class ItemTest  extends AbstractDSpaceObjectTest
         assertTrue("testClearMetadata 1", dc.size() == 0);
     }
 
+    /**
+     * Test of getMetadata with wildcards while values are added and cleared, of class Item.
+     */
+    @Test
+    public void testGetMetadata_wildcardsAfterChanges() throws Exception
+    {
+        itemService.addMetadata(context, it, "dc", "contributor", "author", null, Arrays.asList("author0", "author1"));
+        itemService.addMetadata(context, it, "dc", "contributor", "advisor", "en", "advisor0");
+        itemService.addMetadata(context, it, "dc", "contributor", null, null, "contributor0");
+        itemService.addMetadata(context, it, "dc", "subject", null, "en", "subject0");
+
+        assertThat("testGetMetadata_wildcardsAfterChanges 0", itemService.getMetadata(it, "dc", "contributor", Item.ANY, Item.ANY).size(), equalTo(4));
+        assertThat("testGetMetadata_wildcardsAfterChanges 1", itemService.getMetadata(it, "dc", "contributor", null, Item.ANY).size(), equalTo(1));
+        assertThat("testGetMetadata_wildcardsAfterChanges 2", itemService.getMetadata(it, "dc", "contributor", Item.ANY, "en").size(), equalTo(1));
+        assertThat("testGetMetadata_wildcardsAfterChanges 3", itemService.getMetadata(it, "dc", Item.ANY, Item.ANY, "en").size(), equalTo(2));
+        assertThat("testGetMetadata_wildcardsAfterChanges 4", itemService.getMetadata(it, Item.ANY, "subject", null, Item.ANY).size(), equalTo(1));
+
+        List<MetadataValue> authors = itemService.getMetadata(it, "dc", "contributor", "author", null);
+        assertThat("testGetMetadata_wildcardsAfterChanges 5", authors.get(0).getValue(), equalTo("author0"));
+        assertThat("testGetMetadata_wildcardsAfterChanges 6", authors.get(1).getValue(), equalTo("author1"));
+
+        itemService.clearMetadata(context, it, "dc", "contributor", Item.ANY, Item.ANY);
+        assertThat("testGetMetadata_wildcardsAfterChanges 7", itemService.getMetadata(it, "dc", "contributor", Item.ANY, Item.ANY).size(), equalTo(0));
+        assertThat("testGetMetadata_wildcardsAfterChanges 8", itemService.getMetadata(it, "dc", Item.ANY, Item.ANY, Item.ANY).size(), equalTo(1));
+    }
+
+    /**
+     * Test of getMetadata after a value moved to another field, the number of values stays the same
+     */
+    @Test
+    public void testGetMetadata_fieldChanged() throws Exception
+    {
+        itemService.addMetadata(context, it, "dc", "contributor", "author", null, Arrays.asList("author0", "author1"));
+        List<MetadataValue> authors = itemService.getMetadata(it, "dc", "contributor", "author", Item.ANY);
+        assertThat("testGetMetadata_fieldChanged 0", authors.size(), equalTo(2));
+
+        MetadataSchema dc = metadataSchemaService.find(context, "dc");
+        authors.get(1).setMetadataField(metadataFieldService.findByElement(context, dc, "subject", null));
+
+        authors = itemService.getMetadata(it, "dc", "contributor", "author", Item.ANY);
+        assertThat("testGetMetadata_fieldChanged 1", authors.size(), equalTo(1));
+        assertThat("testGetMetadata_fieldChanged 2", authors.get(0).getValue(), equalTo("author0"));
+        List<MetadataValue> subjects = itemService.getMetadata(it, "dc", "subject", null, Item.ANY);
+        assertThat("testGetMetadata_fieldChanged 3", subjects.size(), equalTo(1));
+        assertThat("testGetMetadata_fieldChanged 4", subjects.get(0).getValue(), equalTo("author1"));
+    }
+
+    /**
+     * Test of addMetadata method with a list of values, places must continue after the existing values
+     */
+    @Test
+    public void testAddMetadata_places() throws Exception
+    {
+        itemService.addMetadata(context, it, "dc", "contributor", "author", null, "author0");
+        itemService.addMetadata(context, it, "dc", "contributor", "author", "en", Arrays.asList("author1", "author2", "author3"));
+        itemService.addMetadata(context, it, "dc", "contributor", "author", null, Arrays.asList("author4", null, "author5"));
+
+        List<MetadataValue> authors = itemService.getMetadata(it, "dc", "contributor", "author", Item.ANY);
+        assertThat("testAddMetadata_places 0", authors.size(), equalTo(5));
+        for (int i = 0; i < authors.size(); i++)
+        {
+            assertThat("testAddMetadata_places 1", authors.get(i).getValue(), equalTo("author" + i));
+            assertThat("testAddMetadata_places 2", authors.get(i).getPlace(), equalTo(i + 1));
+        }
+    }
+
     /**
      * Test of getSubmitter method, of class Item.
      */
@@ -826,6 +894,29 @@ public class ItemTest  extends AbstractDSpaceObjectTest
         fail("Exception expected");
     }
 
+    /**
+     * Test of createSingleBitstream method with bits staged up front, of class Item.
+     */
+    @Test
+    public void testCreateSingleBitstream_StagedAuth() throws Exception
+    {
+        new NonStrictExpectations()
+        {
+            AuthorizeManager authManager;
+            {
+                AuthorizeManager.authorizeAction((Context) any, (Item) any,
+                        Constants.ADD, true); result = null;
+            }
+        };
+
+        File f = new File(testProps.get("test.bitstream").toString());
+        StagedBitstream staged = BitstreamStorageManager.stage(new FileInputStream(f));
+        Bitstream result = itemService.createSingleBitstream(context, it, staged, "new bundle");
+        assertThat("testCreateSingleBitstream_StagedAuth 0", result, notNullValue());
+        assertThat("testCreateSingleBitstream_StagedAuth 1", result.getSize(), equalTo(f.length()));
+        assertThat("testCreateSingleBitstream_StagedAuth 2", staged.getFile().exists(), equalTo(false));
+    }
+
     /**
      * Test of createSingleBitstream method, of class Item.
      */
@@ -132,6 +132,18 @@ CREATE TABLE Bitstream
 );
 
 CREATE INDEX bit_bitstream_fk_idx ON Bitstream(bitstream_format_id);
+CREATE INDEX bit_internal_id_idx ON Bitstream(internal_id);
+
+-------------------------------------------------------
+-- Bitstream_Checksum table
+-------------------------------------------------------
+CREATE TABLE Bitstream_Checksum
+(
+   bitstream_id            INTEGER REFERENCES Bitstream(bitstream_id),
+   checksum_algorithm      VARCHAR(32),
+   checksum                VARCHAR(128),
+   PRIMARY KEY (bitstream_id, checksum_algorithm)
+);
 
 -------------------------------------------------------
 -- EPerson table
@@ -675,6 +687,7 @@ CREATE TABLE checksum_history
 );
 
 CREATE INDEX ch_result_fk_idx ON checksum_history( result );
+CREATE INDEX ch_process_end_date_idx ON checksum_history( process_end_date );
 
 
 -- this will insert into the result code
@@ -805,4 +818,34 @@ CREATE TABLE Webapp
     URL VARCHAR,
     Started TIMESTAMP,
     isUI INTEGER
-);
\ No newline at end of file
+);
+
+-------------------------------------------------------
+-- Event outbox table
+-------------------------------------------------------
+-- Events stored by the OutboxDispatcher in the transaction
+-- of the changes causing them, one row per consumer, until
+-- they are delivered.
+
+--CREATE SEQUENCE event_outbox_seq;
+
+CREATE TABLE event_outbox
+(
+    outbox_id BIGINT PRIMARY KEY,
+    dispatcher VARCHAR(64) NOT NULL,
+    consumer VARCHAR(64) NOT NULL,
+    event_type INTEGER,
+    subject_type INTEGER,
+    subject_id INTEGER,
+    object_type INTEGER,
+    object_id INTEGER,
+    detail VARCHAR,
+    transaction_id VARCHAR(64),
+    eperson_id INTEGER,
+    created TIMESTAMP NOT NULL,
+    attempts INTEGER,
+    next_attempt TIMESTAMP NOT NULL,
+    last_error VARCHAR(2000)
+);
+
+CREATE INDEX eo_consumer_next_attempt_idx ON event_outbox( dispatcher, consumer, next_attempt );
@@ -85,11 +85,11 @@
 -------------------------------------------------------
 CREATE SEQUENCE bitstreamformatregistry_seq;
 CREATE SEQUENCE fileextension_seq;
-CREATE SEQUENCE bitstream_seq;
+CREATE SEQUENCE bitstream_seq INCREMENT BY 50;
 CREATE SEQUENCE eperson_seq;
 CREATE SEQUENCE epersongroup_seq;
-CREATE SEQUENCE item_seq;
-CREATE SEQUENCE bundle_seq;
+CREATE SEQUENCE item_seq INCREMENT BY 50;
+CREATE SEQUENCE bundle_seq INCREMENT BY 50;
 CREATE SEQUENCE item2bundle_seq;
 CREATE SEQUENCE bundle2bitstream_seq;
 CREATE SEQUENCE dctyperegistry_seq;
@@ -99,7 +99,7 @@ CREATE SEQUENCE collection_seq;
 CREATE SEQUENCE community2community_seq;
 CREATE SEQUENCE community2collection_seq;
 CREATE SEQUENCE collection2item_seq;
-CREATE SEQUENCE resourcepolicy_seq;
+CREATE SEQUENCE resourcepolicy_seq INCREMENT BY 50;
 CREATE SEQUENCE epersongroup2eperson_seq;
 CREATE SEQUENCE handle_seq;
 CREATE SEQUENCE doi_seq;
@@ -112,7 +112,7 @@ CREATE SEQUENCE communities2item_seq;
 CREATE SEQUENCE epersongroup2workspaceitem_seq;
 CREATE SEQUENCE metadataschemaregistry_seq;
 CREATE SEQUENCE metadatafieldregistry_seq;
-CREATE SEQUENCE metadatavalue_seq;
+CREATE SEQUENCE metadatavalue_seq INCREMENT BY 50;
 CREATE SEQUENCE group2group_seq;
 CREATE SEQUENCE group2groupcache_seq;
 CREATE SEQUENCE harvested_collection_seq;
@@ -166,6 +166,18 @@ CREATE TABLE Bitstream
 );
 
 CREATE INDEX bit_bitstream_fk_idx ON Bitstream(bitstream_format_id);
+CREATE INDEX bit_internal_id_idx ON Bitstream(internal_id);
+
+-------------------------------------------------------
+-- Bitstream_Checksum table
+-------------------------------------------------------
+CREATE TABLE Bitstream_Checksum
+(
+   bitstream_id            INTEGER REFERENCES Bitstream(bitstream_id),
+   checksum_algorithm      VARCHAR(32),
+   checksum                VARCHAR(128),
+   PRIMARY KEY (bitstream_id, checksum_algorithm)
+);
 
 -------------------------------------------------------
 -- EPerson table
@@ -233,8 +245,9 @@ CREATE TABLE Group2GroupCache
   child_id  INTEGER REFERENCES EPersonGroup(eperson_group_id)
 );
 
-CREATE INDEX g2gc_parent_fk_idx ON Group2Group(parent_id);
-CREATE INDEX g2gc_child_fk_idx ON Group2Group(child_id);
+CREATE INDEX g2gc_parent_fk_idx ON Group2GroupCache(parent_id);
+CREATE INDEX g2gc_child_fk_idx ON Group2GroupCache(child_id);
+CREATE UNIQUE INDEX g2gc_parent_child_idx ON Group2GroupCache(parent_id, child_id);
 
 -------------------------------------------------------
 -- Item table
@@ -704,6 +717,7 @@ CREATE TABLE checksum_history
 );
 
 CREATE INDEX ch_result_fk_idx ON checksum_history( result );
+CREATE INDEX ch_process_end_date_idx ON checksum_history( process_end_date );
 
 
 -- this will insert into the result code
@@ -834,3 +848,34 @@ CREATE TABLE Webapp
     Started TIMESTAMP,
     isUI INTEGER
 );
+
+-------------------------------------------------------
+-- Event outbox table
+-------------------------------------------------------
+-- Events stored by the OutboxDispatcher in the transaction
+-- of the changes causing them, one row per consumer, until
+-- they are delivered.
+
+CREATE SEQUENCE event_outbox_seq;
+
+CREATE TABLE event_outbox
+(
+    outbox_id BIGINT PRIMARY KEY,
+    dispatcher VARCHAR(64) NOT NULL,
+    consumer VARCHAR(64) NOT NULL,
+    event_type INTEGER,
+    subject_type INTEGER,
+    subject_id INTEGER,
+    object_type INTEGER,
+    object_id INTEGER,
+    detail VARCHAR,
+    transaction_id VARCHAR(64),
+    eperson_id INTEGER,
+    created TIMESTAMP NOT NULL,
+    attempts INTEGER,
+    next_attempt TIMESTAMP NOT NULL,
+    last_error VARCHAR(2000)
+);
+
+CREATE INDEX eo_consumer_next_attempt_idx ON event_outbox( dispatcher, consumer, next_attempt );
+CREATE INDEX eo_consumer_subject_idx ON event_outbox( dispatcher, consumer, subject_type, subject_id );
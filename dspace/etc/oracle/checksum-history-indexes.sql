@@ -0,0 +1,23 @@
+--
+-- checksum-history-indexes.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to index the checksum_history table of an existing database.
+--
+-- The checksum history is pruned in chunks of the records older than the
+-- retention period of their result. New databases created from
+-- database_schema.sql already have this index.
+--
+
+CREATE INDEX ch_process_end_date_idx ON checksum_history( process_end_date );
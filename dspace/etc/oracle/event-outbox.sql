@@ -0,0 +1,45 @@
+--
+-- event-outbox.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to add the event_outbox table to an existing database.
+--
+-- The table is only used by the asynchronous OutboxDispatcher, which stores
+-- the events in it until they are delivered to the consumers. New databases
+-- created from database_schema.sql already have this table.
+--
+
+CREATE SEQUENCE event_outbox_seq;
+
+CREATE TABLE event_outbox
+(
+    outbox_id INTEGER PRIMARY KEY,
+    dispatcher VARCHAR2(64) NOT NULL,
+    consumer VARCHAR2(64) NOT NULL,
+    event_type INTEGER,
+    subject_type INTEGER,
+    subject_id INTEGER,
+    object_type INTEGER,
+    object_id INTEGER,
+    detail VARCHAR2(4000),
+    transaction_id VARCHAR2(64),
+    eperson_id INTEGER,
+    created TIMESTAMP NOT NULL,
+    attempts INTEGER,
+    next_attempt TIMESTAMP NOT NULL,
+    last_error VARCHAR2(2000)
+);
+
+CREATE INDEX eo_consumer_next_attempt_idx ON event_outbox( dispatcher, consumer, next_attempt );
+CREATE INDEX eo_consumer_subject_idx ON event_outbox( dispatcher, consumer, subject_type, subject_id );
@@ -0,0 +1,23 @@
+--
+-- group2groupcache-indexes.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to index the group2groupcache table of an existing database.
+--
+-- Group membership checks are answered from group2groupcache, looking up
+-- rows by parent, by child and by (parent, child). New databases created
+-- from database_schema.sql already have this index.
+--
+
+CREATE UNIQUE INDEX g2gc_parent_child_idx ON Group2GroupCache(parent_id, child_id);
@@ -18,13 +18,17 @@ SET SERVEROUTPUT ON SIZE 1000000;
 --
 DECLARE
   curr  NUMBER := 0;
+  incr  NUMBER := 1;
 BEGIN
   SELECT max(&3) INTO curr FROM &2 &4;
 
+  -- keep the increment, sequences used with a pooled id optimizer step by more than 1
+  SELECT increment_by INTO incr FROM user_sequences WHERE sequence_name = UPPER('&1');
+
   curr := curr + 1;
 
   EXECUTE IMMEDIATE 'DROP SEQUENCE &1';
 
-  EXECUTE IMMEDIATE 'CREATE SEQUENCE &1 START WITH ' || NVL(curr,1);
+  EXECUTE IMMEDIATE 'CREATE SEQUENCE &1 START WITH ' || NVL(curr,1) || ' INCREMENT BY ' || incr;
 END;
 /
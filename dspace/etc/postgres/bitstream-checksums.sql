@@ -0,0 +1,31 @@
+--
+-- bitstream-checksums.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to add the bitstream_checksum table to an existing database.
+--
+-- The checksums of all algorithms configured by checksum.algorithms in
+-- dspace.cfg (e.g. MD5, SHA-1 and SHA-256) are computed at ingest and kept
+-- in this table, the MD5 checksum also remaining in the Bitstream table.
+-- Existing bitstreams only have their MD5 checksum. New databases created
+-- from database_schema.sql already have this table.
+--
+
+CREATE TABLE Bitstream_Checksum
+(
+   bitstream_id            INTEGER REFERENCES Bitstream(bitstream_id),
+   checksum_algorithm      VARCHAR(32),
+   checksum                VARCHAR(128),
+   PRIMARY KEY (bitstream_id, checksum_algorithm)
+);
@@ -0,0 +1,25 @@
+--
+-- bitstream-internal-id-index.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to index the internal ids of the bitstreams of an existing
+-- database.
+--
+-- Bitstreams share their bits with their versions, and with identical
+-- bitstreams in a content addressed asset store. The cleanup only removes
+-- the bits once no bitstream with the same internal id remains. New
+-- databases created from database_schema.sql already have this index.
+--
+
+CREATE INDEX bit_internal_id_idx ON Bitstream(internal_id);
@@ -0,0 +1,29 @@
+--
+-- group2groupcache-indexes.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to index the group2groupcache table of an existing database.
+--
+-- Group membership checks are answered from group2groupcache, looking up
+-- rows by parent, by child and by (parent, child). Older versions of
+-- database_schema.sql created the parent and child indexes on the
+-- Group2Group table by mistake. New databases created from
+-- database_schema.sql already have these indexes.
+--
+
+DROP INDEX IF EXISTS g2gc_parent_fk_idx;
+DROP INDEX IF EXISTS g2gc_child_fk_idx;
+CREATE INDEX g2gc_parent_fk_idx ON Group2GroupCache(parent_id);
+CREATE INDEX g2gc_child_fk_idx ON Group2GroupCache(child_id);
+CREATE UNIQUE INDEX g2gc_parent_child_idx ON Group2GroupCache(parent_id, child_id);
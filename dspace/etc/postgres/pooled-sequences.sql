@@ -0,0 +1,29 @@
+--
+-- pooled-sequences.sql
+--
+-- Version: $Revision$
+--
+-- Date:    $Date$
+--
+-- The contents of this file are subject to the license and copyright
+-- detailed in the LICENSE and NOTICE files at the root of the source
+-- tree and available online at
+--
+-- http://www.dspace.org/license/
+--
+
+--
+-- SQL commands to switch the id sequences of the high volume tables of an
+-- existing database to the increment used by the pooled Hibernate id
+-- optimizer (allocationSize = 50 on the entity mappings).
+--
+-- Hibernate reserves a block of 50 ids with every call to the sequence, so
+-- the sequence has to step by the same amount. New databases created from
+-- database_schema.sql already have these increments.
+--
+
+ALTER SEQUENCE bitstream_seq INCREMENT BY 50;
+ALTER SEQUENCE item_seq INCREMENT BY 50;
+ALTER SEQUENCE bundle_seq INCREMENT BY 50;
+ALTER SEQUENCE resourcepolicy_seq INCREMENT BY 50;
+ALTER SEQUENCE metadatavalue_seq INCREMENT BY 50;